@@ -16,16 +16,28 @@ USE ElectrodomesticosDB;
 GO
 
 /* Eliminar tablas si ya existen (respeta dependencias) 
+IF OBJECT_ID(N'dbo.Notificaciones', N'U') IS NOT NULL DROP TABLE dbo.Notificaciones;
+IF OBJECT_ID(N'dbo.CambiosDatos', N'U') IS NOT NULL DROP TABLE dbo.CambiosDatos;
+IF OBJECT_ID(N'dbo.PagosBanco', N'U') IS NOT NULL DROP TABLE dbo.PagosBanco;
+IF OBJECT_ID(N'dbo.MorasCuotas', N'U') IS NOT NULL DROP TABLE dbo.MorasCuotas;
+IF OBJECT_ID(N'dbo.ReglasMora', N'U') IS NOT NULL DROP TABLE dbo.ReglasMora;
 IF OBJECT_ID(N'dbo.Cuotas', N'U') IS NOT NULL DROP TABLE dbo.Cuotas;
 IF OBJECT_ID(N'dbo.Creditos', N'U') IS NOT NULL DROP TABLE dbo.Creditos;
 IF OBJECT_ID(N'dbo.DetalleVentas', N'U') IS NOT NULL DROP TABLE dbo.DetalleVentas;
 IF OBJECT_ID(N'dbo.Ventas', N'U') IS NOT NULL DROP TABLE dbo.Ventas;
+IF OBJECT_ID(N'dbo.PronosticosDemanda', N'U') IS NOT NULL DROP TABLE dbo.PronosticosDemanda;
+IF OBJECT_ID(N'dbo.CortesStock', N'U') IS NOT NULL DROP TABLE dbo.CortesStock;
+IF OBJECT_ID(N'dbo.MovimientosStock', N'U') IS NOT NULL DROP TABLE dbo.MovimientosStock;
+IF OBJECT_ID(N'dbo.HistorialPrecios', N'U') IS NOT NULL DROP TABLE dbo.HistorialPrecios;
 IF OBJECT_ID(N'dbo.Inventarios', N'U') IS NOT NULL DROP TABLE dbo.Inventarios;
 IF OBJECT_ID(N'dbo.Productos', N'U') IS NOT NULL DROP TABLE dbo.Productos;
 IF OBJECT_ID(N'dbo.Categorias', N'U') IS NOT NULL DROP TABLE dbo.Categorias;
 IF OBJECT_ID(N'dbo.Clientes', N'U') IS NOT NULL DROP TABLE dbo.Clientes;
+IF OBJECT_ID(N'dbo.AuditoriasArchivo', N'U') IS NOT NULL DROP TABLE dbo.AuditoriasArchivo;
 IF OBJECT_ID(N'dbo.Auditorias', N'U') IS NOT NULL DROP TABLE dbo.Auditorias;
 IF OBJECT_ID(N'dbo.Usuarios', N'U') IS NOT NULL DROP TABLE dbo.Usuarios;
+IF EXISTS (SELECT 1 FROM sys.partition_schemes WHERE name = N'PS_AuditoriasMes') DROP PARTITION SCHEME PS_AuditoriasMes;
+IF EXISTS (SELECT 1 FROM sys.partition_functions WHERE name = N'PF_AuditoriasMes') DROP PARTITION FUNCTION PF_AuditoriasMes;
 GO
 
 /* ==================== TABLA: Usuarios ==================== 
@@ -33,7 +45,7 @@ CREATE TABLE dbo.Usuarios (
     idUsuario               INT             IDENTITY(1,1) PRIMARY KEY,
     nombreCompleto          VARCHAR(150)    NOT NULL,
     username                VARCHAR(50)     NOT NULL,
-    passwordHash            CHAR(64)        NOT NULL,
+    passwordHash            VARCHAR(128)    NOT NULL,   -- pbkdf2$iteraciones$sal$hash (o SHA-256 hex heredado)
     rol                     VARCHAR(30)     NOT NULL,
     email                   VARCHAR(150)    NULL,
     telefono                VARCHAR(25)     NULL,
@@ -64,10 +76,45 @@ CREATE TABLE dbo.Auditorias (
 );
 GO
 
-CREATE INDEX IX_Auditorias_Usuario ON dbo.Auditorias(idUsuario);
+-- Cada filtro de la bitácora (usuario, acción, tabla) termina en fechaAccion:
+-- igualdad + rango de fechas + orden por fecha se resuelven con una búsqueda
+CREATE INDEX IX_Auditorias_Usuario ON dbo.Auditorias(idUsuario, fechaAccion);
+CREATE INDEX IX_Auditorias_Accion ON dbo.Auditorias(accion, fechaAccion);
+CREATE INDEX IX_Auditorias_Tabla ON dbo.Auditorias(tablaAfectada, fechaAccion);
 CREATE INDEX IX_Auditorias_Fecha ON dbo.Auditorias(fechaAccion);
 GO
 
+/* ==================== TABLA: AuditoriasArchivo ==================== 
+-- Auditorías con más de N meses, movidas por AuditoriaDAO.archivarAnterioresA.
+-- Particionada por mes (la partición de cada mes se agrega al archivarlo)
+-- y comprimida por página.
+-- Sin claves foráneas: es destino de DELETE ... OUTPUT INTO
+CREATE PARTITION FUNCTION PF_AuditoriasMes (DATETIME2) AS RANGE RIGHT FOR VALUES ();
+GO
+CREATE PARTITION SCHEME PS_AuditoriasMes AS PARTITION PF_AuditoriasMes ALL TO ([PRIMARY]);
+GO
+
+CREATE TABLE dbo.AuditoriasArchivo (
+    idAuditoria             INT             NOT NULL,
+    idUsuario               INT             NOT NULL,
+    accion                  VARCHAR(50)     NOT NULL,
+    tablaAfectada           VARCHAR(50)     NULL,
+    descripcion             VARCHAR(500)    NULL,
+    ip                      VARCHAR(45)     NULL,
+    fechaAccion             DATETIME2       NOT NULL,
+    CONSTRAINT PK_AuditoriasArchivo PRIMARY KEY CLUSTERED (fechaAccion, idAuditoria)
+        WITH (DATA_COMPRESSION = PAGE) ON PS_AuditoriasMes(fechaAccion)
+);
+GO
+
+CREATE INDEX IX_AuditoriasArchivo_Usuario ON dbo.AuditoriasArchivo(idUsuario, fechaAccion)
+    WITH (DATA_COMPRESSION = PAGE);
+CREATE INDEX IX_AuditoriasArchivo_Accion ON dbo.AuditoriasArchivo(accion, fechaAccion)
+    WITH (DATA_COMPRESSION = PAGE);
+CREATE INDEX IX_AuditoriasArchivo_Tabla ON dbo.AuditoriasArchivo(tablaAfectada, fechaAccion)
+    WITH (DATA_COMPRESSION = PAGE);
+GO
+
 /* ==================== TABLA: Clientes ==================== 
 CREATE TABLE dbo.Clientes (
     idCliente               INT             IDENTITY(1,1) PRIMARY KEY,
@@ -81,6 +128,9 @@ CREATE TABLE dbo.Clientes (
     activo                  BIT             NOT NULL DEFAULT (1),
     limiteCredito           DECIMAL(12,2)   NOT NULL DEFAULT (0),
     saldoPendiente          DECIMAL(12,2)   NOT NULL DEFAULT (0),
+    passwordHash            VARCHAR(128)    NULL,
+    -- Control optimista: lo sube cada edición de datos (no los ajustes de saldo)
+    version                 INT             NOT NULL DEFAULT (1),
     CONSTRAINT UQ_Clientes_Cedula UNIQUE (cedula),
     CONSTRAINT CK_Clientes_Montos CHECK (limiteCredito >= 0 AND saldoPendiente >= 0)
 );
@@ -104,9 +154,12 @@ CREATE TABLE dbo.Categorias (
     idCategoriaPadre        INT             NULL,
     rutaCompleta            VARCHAR(500)    NULL,
     cantidadProductos       INT             NOT NULL DEFAULT (0),
+    porcentajeIVA           DECIMAL(5,2)    NOT NULL DEFAULT (0),
+    porcentajeUtilidad      DECIMAL(5,2)    NOT NULL DEFAULT (0),   -- margen sobre precioCompra; 0 = heredar del padre
     CONSTRAINT UQ_Categorias_Codigo UNIQUE (codigo),
     CONSTRAINT CK_Categorias_Nivel CHECK (nivel BETWEEN 1 AND 5),
     CONSTRAINT CK_Categorias_Cantidad CHECK (cantidadProductos >= 0),
+    CONSTRAINT CK_Categorias_Porcentajes CHECK (porcentajeIVA BETWEEN 0 AND 100 AND porcentajeUtilidad BETWEEN 0 AND 100),
     CONSTRAINT FK_Categorias_Padre
         FOREIGN KEY (idCategoriaPadre) REFERENCES dbo.Categorias(idCategoria)
 );
@@ -135,6 +188,8 @@ CREATE TABLE dbo.Productos (
     fechaUltimaActualizacion DATETIME2      NOT NULL DEFAULT (SYSDATETIME()),
     garantiaMeses           INT             NOT NULL DEFAULT (12),
     ubicacionAlmacen        VARCHAR(120)    NULL,
+    -- Control optimista: lo sube cada edición de datos (no los ajustes de stock)
+    version                 INT             NOT NULL DEFAULT (1),
     CONSTRAINT UQ_Productos_Codigo UNIQUE (codigo),
     CONSTRAINT FK_Productos_Categoria
         FOREIGN KEY (idCategoria) REFERENCES dbo.Categorias(idCategoria),
@@ -163,6 +218,59 @@ CREATE TABLE dbo.Inventarios (
 );
 GO
 
+/* ==================== TABLA: MovimientosStock ==================== 
+-- Kardex: solo se insertan filas, nunca se actualizan ni borran.
+-- cantidad es el cambio con signo sobre Inventarios.cantidadActual.
+-- Sin claves foráneas ni CHECK: es destino de UPDATE ... OUTPUT INTO en
+-- InventarioDAO, que valida el tipo (MovimientoStock.esTipoValido)
+CREATE TABLE dbo.MovimientosStock (
+    idMovimiento            BIGINT          IDENTITY(1,1) PRIMARY KEY,
+    idProducto              INT             NOT NULL,
+    tipo                    VARCHAR(15)     NOT NULL,
+    cantidad                INT             NOT NULL,
+    motivo                  VARCHAR(200)    NULL,
+    idUsuario               INT             NULL,
+    idVenta                 INT             NULL,
+    fecha                   DATETIME2       NOT NULL DEFAULT (SYSDATETIME())
+);
+GO
+
+CREATE INDEX IX_MovimientosStock_Producto ON dbo.MovimientosStock(idProducto, fecha) INCLUDE (idMovimiento, cantidad);
+CREATE INDEX IX_MovimientosStock_Venta ON dbo.MovimientosStock(idVenta) WHERE idVenta IS NOT NULL;
+GO
+
+/* ==================== TABLA: CortesStock ==================== 
+-- Saldo acumulado por producto hasta idMovimientoHasta (inclusive).
+-- Saldo actual = último corte + movimientos posteriores
+CREATE TABLE dbo.CortesStock (
+    idProducto              INT             NOT NULL,
+    idMovimientoHasta       BIGINT          NOT NULL,
+    fechaCorte              DATETIME2       NOT NULL,
+    cantidad                INT             NOT NULL,
+    CONSTRAINT PK_CortesStock PRIMARY KEY (idProducto, idMovimientoHasta)
+);
+GO
+
+CREATE INDEX IX_CortesStock_Fecha ON dbo.CortesStock(idProducto, fechaCorte) INCLUDE (idMovimientoHasta, cantidad);
+GO
+
+/* ==================== TABLA: HistorialPrecios ==================== 
+-- Sin claves foráneas ni CHECK: es destino de UPDATE ... OUTPUT INTO al repreciar
+CREATE TABLE dbo.HistorialPrecios (
+    idHistorial             BIGINT          IDENTITY(1,1) PRIMARY KEY,
+    idProducto              INT             NOT NULL,
+    precioCompra            DECIMAL(12,2)   NOT NULL,
+    precioAnterior          DECIMAL(12,2)   NOT NULL,
+    precioNuevo             DECIMAL(12,2)   NOT NULL,
+    idUsuario               INT             NULL,
+    motivo                  VARCHAR(200)    NULL,
+    fechaCambio             DATETIME2       NOT NULL DEFAULT (SYSDATETIME())
+);
+GO
+
+CREATE INDEX IX_HistorialPrecios_Producto ON dbo.HistorialPrecios(idProducto, fechaCambio);
+GO
+
 /* ==================== TABLA: Ventas ==================== 
 CREATE TABLE dbo.Ventas (
     idVenta                 INT             IDENTITY(1,1) PRIMARY KEY,
@@ -216,7 +324,27 @@ CREATE TABLE dbo.DetalleVentas (
 GO
 
 CREATE INDEX IX_DetalleVentas_Venta ON dbo.DetalleVentas(idVenta);
-CREATE INDEX IX_DetalleVentas_Producto ON dbo.DetalleVentas(idProducto);
+CREATE INDEX IX_DetalleVentas_Producto ON dbo.DetalleVentas(idProducto) INCLUDE (idVenta, cantidad);
+GO
+
+/* ==================== TABLA: PronosticosDemanda ==================== 
+-- Resultado del último cálculo de pronóstico (se reemplaza completa en cada corrida).
+-- Los productos sin ventas en el periodo no tienen fila y usan stockMinimo.
+CREATE TABLE dbo.PronosticosDemanda (
+    idProducto              INT             NOT NULL PRIMARY KEY,
+    demandaDiaria           DECIMAL(12,4)   NOT NULL,
+    promedioMovil           DECIMAL(12,4)   NOT NULL,
+    desviacion              DECIMAL(12,4)   NOT NULL,
+    factorEstacional        DECIMAL(6,3)    NOT NULL DEFAULT (1),
+    puntoReorden            INT             NOT NULL,
+    stockObjetivo           INT             NOT NULL,
+    diasHistoria            INT             NOT NULL,
+    fechaCalculo            DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    CONSTRAINT FK_PronosticosDemanda_Producto
+        FOREIGN KEY (idProducto) REFERENCES dbo.Productos(idProducto)
+        ON DELETE CASCADE,
+    CONSTRAINT CK_PronosticosDemanda_Valores CHECK (puntoReorden >= 0 AND stockObjetivo >= puntoReorden)
+);
 GO
 
 /* ==================== TABLA: Creditos ==================== 
@@ -231,6 +359,7 @@ CREATE TABLE dbo.Creditos (
     saldoPendiente          DECIMAL(12,2)   NOT NULL DEFAULT (0),
     estado                  VARCHAR(20)     NOT NULL DEFAULT ('ACTIVO'),
     fechaRegistro           DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    version                 INT             NOT NULL DEFAULT (1),
     CONSTRAINT UQ_Creditos_Venta UNIQUE (idVenta),
     CONSTRAINT FK_Creditos_Ventas
         FOREIGN KEY (idVenta) REFERENCES dbo.Ventas(idVenta),
@@ -253,6 +382,9 @@ CREATE TABLE dbo.Cuotas (
     numeroCuota             INT             NOT NULL,
     idCredito               INT             NOT NULL,
     valor                   DECIMAL(12,2)   NOT NULL DEFAULT (0),
+    mora                    DECIMAL(12,2)   NOT NULL DEFAULT (0),   -- intereses de mora causados (MoraService)
+    valorPagado             DECIMAL(12,2)   NOT NULL DEFAULT (0),   -- abonos parciales; pagada al llegar a valor + mora
+    fechaUltimaMora         DATE            NULL,                   -- corte hasta el que ya se causó la mora
     fechaVencimiento        DATE            NOT NULL,
     fechaPago               DATETIME2       NULL,
     pagada                  BIT             NOT NULL DEFAULT (0),
@@ -261,12 +393,216 @@ CREATE TABLE dbo.Cuotas (
         FOREIGN KEY (idCredito) REFERENCES dbo.Creditos(idCredito)
         ON DELETE CASCADE,
     CONSTRAINT CK_Cuotas_Numero CHECK (numeroCuota > 0),
-    CONSTRAINT CK_Cuotas_Valor CHECK (valor >= 0)
+    CONSTRAINT CK_Cuotas_Valor CHECK (valor >= 0),
+    CONSTRAINT CK_Cuotas_Mora CHECK (mora >= 0),
+    CONSTRAINT CK_Cuotas_ValorPagado CHECK (valorPagado >= 0 AND valorPagado <= valor + mora)
 );
 GO
 
 CREATE INDEX IX_Cuotas_CreditoPagada ON dbo.Cuotas(idCredito, pagada);
 CREATE INDEX IX_Cuotas_Vencimiento ON dbo.Cuotas(fechaVencimiento);
+-- Cartera por edades (CuotaDAO.recorrerCartera) y causación de mora: solo las
+-- cuotas sin pagar, con lo que la agrupación necesita sin ir a la tabla
+CREATE INDEX IX_Cuotas_Pendientes ON dbo.Cuotas(idCredito)
+    INCLUDE (valor, mora, valorPagado, fechaVencimiento, fechaUltimaMora) WHERE pagada = 0;
+-- Cobros por día del calendario (CalendarioDAO.obtenerMes)
+CREATE INDEX IX_Cuotas_FechaPago ON dbo.Cuotas(fechaPago)
+    INCLUDE (valorPagado) WHERE pagada = 1;
+GO
+
+/* ==================== TABLA: ReglasMora ====================
+-- Tasa diaria de mora según los días de atraso: a cada cuota vencida se le
+-- aplica la regla activa con el mayor diasDesde que no supere su atraso.
+-- Antes de la primera regla no se cobra (días de gracia); al superarlos se
+-- cobra desde el vencimiento. La tasa es sobre el capital sin pagar.
+CREATE TABLE dbo.ReglasMora (
+    idRegla                 INT             IDENTITY(1,1) PRIMARY KEY,
+    diasDesde               INT             NOT NULL,
+    tasaDiaria              DECIMAL(9,6)    NOT NULL,
+    activo                  BIT             NOT NULL DEFAULT (1),
+    CONSTRAINT CK_ReglasMora_Dias CHECK (diasDesde > 0),
+    CONSTRAINT CK_ReglasMora_Tasa CHECK (tasaDiaria >= 0 AND tasaDiaria <= 0.01)
+);
+GO
+
+/* ==================== TABLA: MorasCuotas ====================
+-- Registro de cada causación de mora (CuotaDAO.causarMora). Una fila por
+-- cuota y fecha de corte: repetir la corrida del mismo día no cobra dos veces.
+CREATE TABLE dbo.MorasCuotas (
+    idMora                  INT             IDENTITY(1,1) PRIMARY KEY,
+    idCuota                 INT             NOT NULL,
+    fechaCorte              DATE            NOT NULL,
+    diasAtraso              INT             NOT NULL,
+    diasCausados            INT             NOT NULL,
+    base                    DECIMAL(12,2)   NOT NULL,
+    tasaDiaria              DECIMAL(9,6)    NOT NULL,
+    valor                   DECIMAL(12,2)   NOT NULL,
+    fechaRegistro           DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    CONSTRAINT UQ_MorasCuotas_Corte UNIQUE (idCuota, fechaCorte),
+    CONSTRAINT FK_MorasCuotas_Cuotas
+        FOREIGN KEY (idCuota) REFERENCES dbo.Cuotas(idCuota)
+        ON DELETE CASCADE,
+    CONSTRAINT CK_MorasCuotas_Valores CHECK (diasCausados > 0 AND base >= 0 AND valor > 0)
+);
+GO
+
+CREATE INDEX IX_MorasCuotas_Fecha ON dbo.MorasCuotas(fechaCorte);
+GO
+
+/* ==================== TABLA: PagosBanco ====================
+-- Pagos de cuotas recibidos en el banco y aplicados por la conciliación
+-- (ConciliacionBancariaService). La referencia del banco es única: volver a
+-- cargar el mismo extracto no aplica dos veces un pago.
+CREATE TABLE dbo.PagosBanco (
+    idPagoBanco             INT             IDENTITY(1,1) PRIMARY KEY,
+    referencia              VARCHAR(40)     NOT NULL,
+    idCliente               INT             NOT NULL,
+    monto                   DECIMAL(12,2)   NOT NULL,
+    montoAplicado           DECIMAL(12,2)   NOT NULL,
+    fechaPago               DATE            NOT NULL,
+    archivo                 VARCHAR(260)    NULL,
+    idUsuario               INT             NULL,
+    fechaRegistro           DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    CONSTRAINT UQ_PagosBanco_Referencia UNIQUE (referencia),
+    CONSTRAINT FK_PagosBanco_Clientes
+        FOREIGN KEY (idCliente) REFERENCES dbo.Clientes(idCliente),
+    CONSTRAINT FK_PagosBanco_Usuarios
+        FOREIGN KEY (idUsuario) REFERENCES dbo.Usuarios(idUsuario),
+    CONSTRAINT CK_PagosBanco_Montos CHECK (monto > 0 AND montoAplicado >= 0 AND montoAplicado <= monto)
+);
+GO
+
+CREATE INDEX IX_PagosBanco_Cliente ON dbo.PagosBanco(idCliente, fechaPago);
+GO
+
+/* ==================== TABLA: Notificaciones ====================
+-- Bandeja de salida de avisos (NotificacionService). Se escribe en la misma
+-- transacción que el cambio que la origina; un despachador la vacía después.
+-- referencia identifica lo avisado (idCuota, idProducto, usuario): no se
+-- repite el mismo aviso al mismo destino dentro de una ventana de tiempo.
+-- Las filas ENVIANDO cuyo fechaProximoIntento ya pasó se vuelven a tomar
+-- (la instancia que las tomó se cerró sin terminar).
+CREATE TABLE dbo.Notificaciones (
+    idNotificacion          BIGINT          IDENTITY(1,1) PRIMARY KEY,
+    tipo                    VARCHAR(30)     NOT NULL,
+    canal                   VARCHAR(20)     NOT NULL,
+    destino                 VARCHAR(150)    NOT NULL,
+    referencia              VARCHAR(60)     NOT NULL,
+    asunto                  NVARCHAR(200)   NOT NULL,
+    mensaje                 NVARCHAR(2000)  NOT NULL,
+    estado                  VARCHAR(15)     NOT NULL DEFAULT ('PENDIENTE'),
+    intentos                INT             NOT NULL DEFAULT (0),
+    fechaCreacion           DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    fechaProximoIntento     DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    fechaEnvio              DATETIME2       NULL,
+    ultimoError             VARCHAR(300)    NULL,
+    CONSTRAINT CK_Notificaciones_Estado CHECK (estado IN ('PENDIENTE','ENVIANDO','ENVIADA','FALLIDA'))
+);
+GO
+
+-- Despacho: solo las filas por enviar
+CREATE INDEX IX_Notificaciones_PorEnviar ON dbo.Notificaciones(fechaProximoIntento)
+    WHERE estado IN ('PENDIENTE','ENVIANDO');
+-- Ventana de repetición por aviso y destino
+CREATE INDEX IX_Notificaciones_Referencia ON dbo.Notificaciones(tipo, referencia, destino, fechaCreacion);
+GO
+
+/* ==================== TABLA: CambiosDatos ==================== 
+-- Registro de cambios para mantener coherentes las cachés de varias cajas:
+-- cada instancia lee cada segundo WHERE idCambio > último leído
+-- (SincronizacionCambiosService). Lo llenan los triggers de abajo; origen
+-- es la instancia que hizo el cambio (SESSION_CONTEXT que fija ConexionBD).
+-- En Inventarios se anota el idProducto; en Cuotas solo el paso a pagada.
+-- Los cambios de más de un día se purgan.
+CREATE TABLE dbo.CambiosDatos (
+    idCambio                BIGINT          IDENTITY(1,1) PRIMARY KEY,
+    tabla                   VARCHAR(30)     NOT NULL,
+    idRegistro              INT             NOT NULL,
+    operacion               CHAR(1)         NOT NULL,
+    origen                  VARCHAR(40)     NULL,
+    fecha                   DATETIME2       NOT NULL DEFAULT (SYSDATETIME()),
+    CONSTRAINT CK_CambiosDatos_Operacion CHECK (operacion IN ('I','U','D'))
+);
+GO
+
+CREATE INDEX IX_CambiosDatos_Fecha ON dbo.CambiosDatos(fecha);
+GO
+
+CREATE TRIGGER dbo.TR_Productos_Cambios ON dbo.Productos
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Productos', COALESCE(i.idProducto, d.idProducto),
+           CASE WHEN d.idProducto IS NULL THEN 'I' WHEN i.idProducto IS NULL THEN 'D' ELSE 'U' END,
+           CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    FULL OUTER JOIN deleted d ON d.idProducto = i.idProducto;
+END;
+GO
+
+CREATE TRIGGER dbo.TR_Inventarios_Cambios ON dbo.Inventarios
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Inventarios', COALESCE(i.idProducto, d.idProducto),
+           CASE WHEN d.idInventario IS NULL THEN 'I' WHEN i.idInventario IS NULL THEN 'D' ELSE 'U' END,
+           CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    FULL OUTER JOIN deleted d ON d.idInventario = i.idInventario;
+END;
+GO
+
+CREATE TRIGGER dbo.TR_Categorias_Cambios ON dbo.Categorias
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Categorias', COALESCE(i.idCategoria, d.idCategoria),
+           CASE WHEN d.idCategoria IS NULL THEN 'I' WHEN i.idCategoria IS NULL THEN 'D' ELSE 'U' END,
+           CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    FULL OUTER JOIN deleted d ON d.idCategoria = i.idCategoria;
+END;
+GO
+
+CREATE TRIGGER dbo.TR_Clientes_Cambios ON dbo.Clientes
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Clientes', COALESCE(i.idCliente, d.idCliente),
+           CASE WHEN d.idCliente IS NULL THEN 'I' WHEN i.idCliente IS NULL THEN 'D' ELSE 'U' END,
+           CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    FULL OUTER JOIN deleted d ON d.idCliente = i.idCliente;
+END;
+GO
+
+CREATE TRIGGER dbo.TR_Ventas_Cambios ON dbo.Ventas
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Ventas', COALESCE(i.idVenta, d.idVenta),
+           CASE WHEN d.idVenta IS NULL THEN 'I' WHEN i.idVenta IS NULL THEN 'D' ELSE 'U' END,
+           CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    FULL OUTER JOIN deleted d ON d.idVenta = i.idVenta;
+END;
+GO
+
+CREATE TRIGGER dbo.TR_Cuotas_Cambios ON dbo.Cuotas
+AFTER UPDATE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO dbo.CambiosDatos (tabla, idRegistro, operacion, origen)
+    SELECT 'Cuotas', i.idCuota, 'U', CAST(SESSION_CONTEXT(N'instancia') AS VARCHAR(40))
+    FROM inserted i
+    JOIN deleted d ON d.idCuota = i.idCuota
+    WHERE i.pagada = 1 AND d.pagada = 0;
+END;
 GO
 
 /* ==================== DATOS DE REFERENCIA (Opcionales) ==================== 
@@ -294,10 +630,22 @@ VALUES
     ('P001', 'Refrigerador 420L', 'Refrigerador de dos puertas', 'LG', 'X200', 2, 1200, 1500, 10, 2, 20, 'UNIDAD', 24, 'Bodega A'),
     ('P002', 'Televisor 55"', 'Televisor QLED 55 pulgadas', 'Samsung', 'QLED55', 3, 800, 1200, 5, 1, 15, 'UNIDAD', 12, 'Bodega B');
 
+-- Gracia de 5 días; la tasa sube a los 31 y a los 91 días de atraso
+INSERT INTO dbo.ReglasMora (diasDesde, tasaDiaria)
+VALUES
+    (6, 0.0010),
+    (31, 0.0015),
+    (91, 0.0020);
+
 INSERT INTO dbo.Inventarios (idProducto, cantidadActual, stockMinimo, stockMaximo)
 SELECT idProducto, stockActual, stockMinimo, stockMaximo
 FROM dbo.Productos;
 
+INSERT INTO dbo.MovimientosStock (idProducto, tipo, cantidad, motivo)
+SELECT idProducto, 'AJUSTE', cantidadActual, 'Saldo inicial'
+FROM dbo.Inventarios
+WHERE cantidadActual <> 0;
+
 GO
 
 */
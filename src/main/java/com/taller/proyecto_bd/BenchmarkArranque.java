@@ -0,0 +1,167 @@
+package com.taller.proyecto_bd;
+
+import com.taller.proyecto_bd.utils.MedidorArranque;
+import javafx.application.Application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmark de arranque: lanza la aplicación varias veces en JVM nuevas con
+ * -Dproyecto_bd.arranque.benchmark=true (se cierra sola tras precalentar y
+ * abrir la vista de nueva venta) y resume los hitos de MedidorArranque, sin
+ * y con el archivo de clases compartidas (CDS).
+ *
+ * Uso (con el classpath completo de la aplicación, ej. perfiles de Maven
+ * "cds" y "benchmark-arranque"):
+ * <pre>
+ *   java -cp ... com.taller.proyecto_bd.BenchmarkArranque --generar-cds target/proyecto_bd.jsa
+ *   java -cp ... com.taller.proyecto_bd.BenchmarkArranque [repeticiones] [archivo.jsa]
+ * </pre>
+ * La primera ejecución de cada variante se descarta (caché de disco). Se
+ * necesita pantalla y la base de datos disponible, igual que al usarla.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class BenchmarkArranque {
+
+    private static final int REPETICIONES = 5;
+    private static final long TIMEOUT_SEG = 120;
+    private static final String[] HITOS = {
+            MedidorArranque.LOGIN, MedidorArranque.PRECALENTADO, MedidorArranque.PRIMERA_VENTA};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--hijo")) {
+            Application.launch(HelloApplication.class);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--generar-cds")) {
+            generarCDS(Paths.get(args[1]));
+            return;
+        }
+
+        int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : REPETICIONES;
+        Path archivo = Paths.get(args.length > 1 ? args[1] : "target/proyecto_bd.jsa");
+
+        medir("Sin CDS de la aplicación", repeticiones);
+        if (Files.exists(archivo)) {
+            medir("Con CDS (" + archivo + ")", repeticiones, "-XX:SharedArchiveFile=" + archivo);
+        } else {
+            System.out.println("No existe " + archivo + ": genérelo con --generar-cds (perfil cds)");
+        }
+    }
+
+    // ==================== CDS ====================
+
+    /**
+     * Ejecuta un arranque completo y guarda al salir las clases cargadas.
+     */
+    private static void generarCDS(Path archivo) throws IOException, InterruptedException {
+        Files.createDirectories(archivo.toAbsolutePath().getParent());
+        Map<String, Long> hitos = ejecutar("-XX:ArchiveClassesAtExit=" + archivo);
+        if (hitos == null || !Files.exists(archivo)) {
+            throw new IllegalStateException("No se pudo generar el archivo CDS " + archivo);
+        }
+        System.out.println("✓ Archivo CDS generado: " + archivo + " (" + Files.size(archivo) / 1024 + " KB)");
+    }
+
+    // ==================== MEDICIÓN ====================
+
+    private static void medir(String variante, int repeticiones, String... opciones)
+            throws IOException, InterruptedException {
+        System.out.println("═══ " + variante + " ═══");
+        ejecutar(opciones); // calentamiento del disco, se descarta
+
+        Map<String, List<Long>> tiempos = new LinkedHashMap<>();
+        for (String hito : HITOS) {
+            tiempos.put(hito, new ArrayList<>());
+        }
+        for (int i = 0; i < repeticiones; i++) {
+            Map<String, Long> hitos = ejecutar(opciones);
+            if (hitos == null) {
+                System.out.println("  ejecución " + (i + 1) + ": sin resultado");
+                continue;
+            }
+            for (String hito : HITOS) {
+                Long ms = hitos.get(hito);
+                if (ms != null && ms >= 0) {
+                    tiempos.get(hito).add(ms);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Long>> e : tiempos.entrySet()) {
+            long[] valores = e.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            if (valores.length == 0) {
+                System.out.printf("  %-16s sin datos%n", e.getKey());
+            } else {
+                System.out.printf("  %-16s mediana %5d ms   mín %5d ms   máx %5d ms   (n=%d)%n", e.getKey(),
+                        valores[valores.length / 2], valores[0], valores[valores.length - 1], valores.length);
+            }
+        }
+    }
+
+    /**
+     * Lanza la aplicación en modo benchmark y lee su línea de resumen.
+     *
+     * @return hito → milisegundos, o null si no terminó bien
+     */
+    private static Map<String, Long> ejecutar(String... opciones) throws IOException, InterruptedException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(Arrays.asList(opciones));
+        comando.add("-Dproyecto_bd.arranque.benchmark=true");
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add(BenchmarkArranque.class.getName());
+        comando.add("--hijo");
+
+        Process proceso = new ProcessBuilder(comando).redirectErrorStream(true).start();
+        AtomicReference<Map<String, Long>> hitos = new AtomicReference<>();
+        Thread lector = new Thread(() -> {
+            try (BufferedReader salida = new BufferedReader(
+                    new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = salida.readLine()) != null) {
+                    if (linea.startsWith(MedidorArranque.PREFIJO_RESUMEN)) {
+                        hitos.set(leerResumen(linea));
+                    }
+                }
+            } catch (IOException e) {
+                // el proceso terminó o se cerró por timeout
+            }
+        }, "benchmark-salida");
+        lector.setDaemon(true);
+        lector.start();
+
+        if (!proceso.waitFor(TIMEOUT_SEG, TimeUnit.SECONDS)) {
+            proceso.destroyForcibly();
+            return null;
+        }
+        lector.join(TimeUnit.SECONDS.toMillis(5));
+        return proceso.exitValue() == 0 ? hitos.get() : null;
+    }
+
+    private static Map<String, Long> leerResumen(String linea) {
+        Map<String, Long> hitos = new LinkedHashMap<>();
+        for (String campo : linea.substring(MedidorArranque.PREFIJO_RESUMEN.length()).split(";")) {
+            String[] partes = campo.split("=", 2);
+            if (partes.length == 2 && !partes[0].equals("cds")) {
+                hitos.put(partes[0], Long.parseLong(partes[1]));
+            }
+        }
+        return hitos;
+    }
+}
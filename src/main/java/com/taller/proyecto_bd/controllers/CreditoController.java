@@ -4,10 +4,10 @@ import com.taller.proyecto_bd.dao.ClienteDAO;
 import com.taller.proyecto_bd.dao.VentaDAO;
 import com.taller.proyecto_bd.dao.CuotaDAO;
 import com.taller.proyecto_bd.dao.CreditoDAO;
-import com.taller.proyecto_bd.models.Cliente;
 import com.taller.proyecto_bd.models.Credito;
 import com.taller.proyecto_bd.models.Cuota;
 import com.taller.proyecto_bd.models.Venta;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.util.Date;
 import java.util.List;
@@ -91,14 +91,8 @@ public class CreditoController {
                 venta.setEstado(ESTADO_PAGADA);
                 ventaDAO.actualizar(venta);
 
-                // Actualizar saldo del cliente a 0
-                Cliente cliente = clienteDAO.obtenerPorId(venta.getIdCliente());
-                if (cliente != null) {
-                    double montoFinanciado = venta.getMontoFinanciado();
-                    double nuevoSaldo = cliente.getSaldoPendiente() - montoFinanciado;
-                    cliente.setSaldoPendiente(Math.max(nuevoSaldo, 0));
-                    clienteDAO.actualizar(cliente);
-                }
+                // Descontar el monto financiado del saldo del cliente
+                clienteDAO.ajustarSaldo(venta.getIdCliente(), -venta.getMontoFinanciadoCentavos());
             }
         }
 
@@ -174,10 +168,10 @@ public class CreditoController {
      * @return Saldo total pendiente
      */
     public double obtenerSaldoPendienteCliente(int idCliente) {
-        return obtenerCuotasPendientesCliente(idCliente)
+        return Dinero.aDouble(obtenerCuotasPendientesCliente(idCliente)
                 .stream()
-                .mapToDouble(Cuota::getValor)
-                .sum();
+                .mapToLong(Cuota::getSaldoCentavos)
+                .sum());
     }
 
     /**
@@ -2,7 +2,9 @@ package com.taller.proyecto_bd.controllers;
 
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.services.KardexService;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +59,20 @@ public class ReporteController {
         return inventarioDAO.obtenerBajoStock();
     }
 
+    /**
+     * Reporte de stock de cada producto al cierre de un día (según el kardex)
+     */
+    public List<SaldoStock> generarReporteStockAlCierre(LocalDate dia) {
+        return KardexService.getInstance().obtenerSaldosAlCierre(dia);
+    }
+
+    /**
+     * Reporte de productos cuyo stock no coincide con el kardex
+     */
+    public List<SaldoStock> generarReporteConciliacionStock() {
+        return KardexService.getInstance().conciliar();
+    }
+
     /**
      * Reporte de usuarios activos
      */
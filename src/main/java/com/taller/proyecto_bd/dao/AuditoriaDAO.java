@@ -1,10 +1,13 @@
 package com.taller.proyecto_bd.dao;
 
 import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.FiltroAuditoria;
 import com.taller.proyecto_bd.utils.ConexionBD;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,6 +23,31 @@ public class AuditoriaDAO {
     // ==================== SINGLETON ====================
     private static AuditoriaDAO instance;
 
+    private static final int TAMANO_LOTE_ARCHIVO = 5000;
+
+    // ==================== SQL ====================
+    private static final String COLUMNAS =
+            "idAuditoria, idUsuario, accion, tablaAfectada, descripcion, ip, fechaAccion";
+
+    // Mueve un lote del mes en una sola sentencia. Parámetros: lote, desde, hasta
+    private static final String ARCHIVAR =
+            "DELETE TOP (?) FROM Auditorias " +
+            "OUTPUT deleted.idAuditoria, deleted.idUsuario, deleted.accion, deleted.tablaAfectada, " +
+            "deleted.descripcion, deleted.ip, deleted.fechaAccion " +
+            "INTO AuditoriasArchivo (" + COLUMNAS + ") " +
+            "WHERE fechaAccion >= ? AND fechaAccion < ?";
+
+    // Parámetro: primer día del mes
+    private static final String ASEGURAR_PARTICION =
+            "DECLARE @limite DATETIME2 = ?; " +
+            "IF NOT EXISTS (SELECT 1 FROM sys.partition_range_values v " +
+            "JOIN sys.partition_functions f ON f.function_id = v.function_id " +
+            "WHERE f.name = 'PF_AuditoriasMes' AND CONVERT(DATETIME2, v.value) = @limite) " +
+            "BEGIN " +
+            "ALTER PARTITION SCHEME PS_AuditoriasMes NEXT USED [PRIMARY]; " +
+            "ALTER PARTITION FUNCTION PF_AuditoriasMes() SPLIT RANGE (@limite); " +
+            "END";
+
     private AuditoriaDAO() {}
 
     public static synchronized AuditoriaDAO getInstance() {
@@ -64,37 +92,25 @@ public class AuditoriaDAO {
     }
 
     /**
-     * Obtiene todas las auditorías con información del usuario (JOIN)
+     * Agrega una auditoría dentro de una transacción abierta por otro DAO.
      */
-    public List<Auditoria> obtenerTodas() {
-        List<Auditoria> auditorias = new ArrayList<>();
-        String sql = "SELECT a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, " +
-                     "a.descripcion, a.ip, a.fechaAccion, u.nombreCompleto AS nombreUsuario " +
-                     "FROM Auditorias a " +
-                     "INNER JOIN Usuarios u ON a.idUsuario = u.idUsuario " +
-                     "ORDER BY a.fechaAccion DESC";
-
-        try (Connection conn = ConexionBD.obtenerConexion();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Auditoria a = new Auditoria();
-                a.setIdAuditoria(rs.getInt("idAuditoria"));
-                a.setIdUsuario(rs.getInt("idUsuario"));
-                a.setAccion(rs.getString("accion"));
-                a.setTablaAfectada(rs.getString("tablaAfectada"));
-                a.setDescripcion(rs.getString("descripcion"));
-                a.setIp(rs.getString("ip"));
-                a.setFechaAccion(rs.getTimestamp("fechaAccion"));
-                a.setNombreUsuario(rs.getString("nombreUsuario"));
-                auditorias.add(a);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener auditorías: " + e.getMessage());
-            e.printStackTrace();
+    void agregar(Connection conn, Auditoria auditoria) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO Auditorias (idUsuario, accion, tablaAfectada, descripcion, ip) VALUES (?, ?, ?, ?, ?)")) {
+            stmt.setInt(1, auditoria.getIdUsuario());
+            stmt.setString(2, auditoria.getAccion());
+            stmt.setString(3, auditoria.getTablaAfectada());
+            stmt.setString(4, auditoria.getDescripcion());
+            stmt.setString(5, auditoria.getIp());
+            stmt.executeUpdate();
         }
-        return auditorias;
+    }
+
+    /**
+     * Obtiene todas las auditorías activas (sin el archivo) con el nombre del usuario
+     */
+    public List<Auditoria> obtenerTodas() {
+        return buscar(new FiltroAuditoria());
     }
 
     /**
@@ -132,152 +148,194 @@ public class AuditoriaDAO {
         return null;
     }
 
-    // Nota: Las auditorías generalmente no se actualizan ni eliminan (inmutables)
-    // Se mantienen los métodos por completitud pero no se recomienda usarlos
+    // Nota: Las auditorías generalmente no se actualizan ni eliminan (inmutables);
+    // solo se mueven al archivo con archivarAnterioresA
 
     /**
      * Obtiene auditorías de un usuario específico
      */
     public List<Auditoria> obtenerPorUsuario(int idUsuario) {
-        List<Auditoria> auditorias = new ArrayList<>();
-        String sql = "SELECT a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, " +
-                     "a.descripcion, a.ip, a.fechaAccion, u.nombreCompleto AS nombreUsuario " +
-                     "FROM Auditorias a " +
-                     "INNER JOIN Usuarios u ON a.idUsuario = u.idUsuario " +
-                     "WHERE a.idUsuario = ? " +
-                     "ORDER BY a.fechaAccion DESC";
-
-        try (Connection conn = ConexionBD.obtenerConexion();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, idUsuario);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Auditoria a = new Auditoria();
-                a.setIdAuditoria(rs.getInt("idAuditoria"));
-                a.setIdUsuario(rs.getInt("idUsuario"));
-                a.setAccion(rs.getString("accion"));
-                a.setTablaAfectada(rs.getString("tablaAfectada"));
-                a.setDescripcion(rs.getString("descripcion"));
-                a.setIp(rs.getString("ip"));
-                a.setFechaAccion(rs.getTimestamp("fechaAccion"));
-                a.setNombreUsuario(rs.getString("nombreUsuario"));
-                auditorias.add(a);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener auditorías por usuario: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return auditorias;
+        FiltroAuditoria filtro = new FiltroAuditoria();
+        filtro.setIdUsuario(idUsuario);
+        return buscar(filtro);
     }
 
     /**
      * Obtiene auditorías por tipo de acción
      */
     public List<Auditoria> obtenerPorAccion(String accion) {
-        List<Auditoria> auditorias = new ArrayList<>();
-        String sql = "SELECT a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, " +
-                     "a.descripcion, a.ip, a.fechaAccion, u.nombreCompleto AS nombreUsuario " +
-                     "FROM Auditorias a " +
-                     "INNER JOIN Usuarios u ON a.idUsuario = u.idUsuario " +
-                     "WHERE a.accion = ? " +
-                     "ORDER BY a.fechaAccion DESC";
-
-        try (Connection conn = ConexionBD.obtenerConexion();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, accion);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Auditoria a = new Auditoria();
-                a.setIdAuditoria(rs.getInt("idAuditoria"));
-                a.setIdUsuario(rs.getInt("idUsuario"));
-                a.setAccion(rs.getString("accion"));
-                a.setTablaAfectada(rs.getString("tablaAfectada"));
-                a.setDescripcion(rs.getString("descripcion"));
-                a.setIp(rs.getString("ip"));
-                a.setFechaAccion(rs.getTimestamp("fechaAccion"));
-                a.setNombreUsuario(rs.getString("nombreUsuario"));
-                auditorias.add(a);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener auditorías por acción: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return auditorias;
+        FiltroAuditoria filtro = new FiltroAuditoria();
+        filtro.setAccion(accion);
+        return buscar(filtro);
     }
 
     /**
      * Obtiene auditorías críticas (LOGIN_FALLIDO, ELIMINAR, ANULAR)
      */
     public List<Auditoria> obtenerCriticas() {
-        List<Auditoria> auditorias = new ArrayList<>();
-        String sql = "SELECT a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, " +
-                     "a.descripcion, a.ip, a.fechaAccion, u.nombreCompleto AS nombreUsuario " +
-                     "FROM Auditorias a " +
-                     "INNER JOIN Usuarios u ON a.idUsuario = u.idUsuario " +
-                     "WHERE a.accion IN ('ELIMINAR', 'ANULAR', 'LOGIN_FALLIDO') " +
-                     "ORDER BY a.fechaAccion DESC";
+        return buscar(FiltroAuditoria.criticas());
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    /**
+     * Obtiene auditorías de las últimas N horas
+     */
+    public List<Auditoria> obtenerRecientes(int horas) {
+        FiltroAuditoria filtro = new FiltroAuditoria();
+        filtro.setDesde(new java.util.Date(System.currentTimeMillis() - horas * 3_600_000L));
+        return buscar(filtro);
+    }
 
-            while (rs.next()) {
-                Auditoria a = new Auditoria();
-                a.setIdAuditoria(rs.getInt("idAuditoria"));
-                a.setIdUsuario(rs.getInt("idUsuario"));
-                a.setAccion(rs.getString("accion"));
-                a.setTablaAfectada(rs.getString("tablaAfectada"));
-                a.setDescripcion(rs.getString("descripcion"));
-                a.setIp(rs.getString("ip"));
-                a.setFechaAccion(rs.getTimestamp("fechaAccion"));
-                a.setNombreUsuario(rs.getString("nombreUsuario"));
-                auditorias.add(a);
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * Busca con todos los criterios del filtro resueltos en SQL. Cada
+     * criterio usa un índice (columna, fechaAccion), así que el rango de
+     * fechas y el orden no requieren recorrer la tabla. Si el filtro incluye
+     * el archivo, la misma consulta se repite sobre AuditoriasArchivo.
+     */
+    public List<Auditoria> buscar(FiltroAuditoria filtro) {
+        List<Object> valores = new ArrayList<>();
+        String condiciones = condiciones(filtro, valores);
+        String top = filtro.getLimite() > 0 ? "TOP (" + filtro.getLimite() + ") " : "";
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(top)
+                .append("a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, a.descripcion, a.ip, a.fechaAccion, ")
+                .append("u.nombreCompleto AS nombreUsuario FROM (")
+                .append(consultaTabla("Auditorias", top, condiciones));
+        if (filtro.isIncluirArchivo()) {
+            sql.append(" UNION ALL ").append(consultaTabla("AuditoriasArchivo", top, condiciones));
+            valores.addAll(new ArrayList<>(valores));
+        }
+        sql.append(") a LEFT JOIN Usuarios u ON u.idUsuario = a.idUsuario ")
+           .append("ORDER BY a.fechaAccion DESC, a.idAuditoria DESC");
+
+        return ConsultaBD.listar(sql.toString(), stmt -> {
+            for (int i = 0; i < valores.size(); i++) {
+                stmt.setObject(i + 1, valores.get(i));
             }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener auditorías críticas: " + e.getMessage());
-            e.printStackTrace();
+        }, this::mapear, "Error al buscar auditorías");
+    }
+
+    /**
+     * WHERE con los criterios presentes; agrega sus valores en orden.
+     */
+    private static String condiciones(FiltroAuditoria filtro, List<Object> valores) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.getIdUsuario() != null) {
+            condiciones.add("idUsuario = ?");
+            valores.add(filtro.getIdUsuario());
+        }
+        List<String> acciones = filtro.getAcciones();
+        if (acciones.size() == 1) {
+            condiciones.add("accion = ?");
+            valores.add(acciones.get(0));
+        } else if (!acciones.isEmpty()) {
+            condiciones.add("accion IN (" + String.join(", ", Collections.nCopies(acciones.size(), "?")) + ")");
+            valores.addAll(acciones);
+        }
+        if (filtro.getTablaAfectada() != null && !filtro.getTablaAfectada().isBlank()) {
+            condiciones.add("tablaAfectada = ?");
+            valores.add(filtro.getTablaAfectada().trim());
+        }
+        if (filtro.getDesde() != null) {
+            condiciones.add("fechaAccion >= ?");
+            valores.add(new Timestamp(filtro.getDesde().getTime()));
         }
-        return auditorias;
+        if (filtro.getHasta() != null) {
+            condiciones.add("fechaAccion < ?");
+            valores.add(new Timestamp(filtro.getHasta().getTime()));
+        }
+        return condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones);
     }
 
     /**
-     * Obtiene auditorías de las últimas N horas
+     * Consulta sobre una tabla; con límite, cada tabla aporta solo sus
+     * primeras filas por fecha.
      */
-    public List<Auditoria> obtenerRecientes(int horas) {
-        List<Auditoria> auditorias = new ArrayList<>();
-        String sql = "SELECT a.idAuditoria, a.idUsuario, a.accion, a.tablaAfectada, " +
-                     "a.descripcion, a.ip, a.fechaAccion, u.nombreCompleto AS nombreUsuario " +
-                     "FROM Auditorias a " +
-                     "INNER JOIN Usuarios u ON a.idUsuario = u.idUsuario " +
-                     "WHERE a.fechaAccion >= DATEADD(HOUR, ?, SYSDATETIME()) " +
-                     "ORDER BY a.fechaAccion DESC";
+    private static String consultaTabla(String tabla, String top, String condiciones) {
+        String consulta = "SELECT " + top + COLUMNAS + " FROM " + tabla + condiciones;
+        if (!top.isEmpty()) {
+            consulta += " ORDER BY fechaAccion DESC, idAuditoria DESC";
+        }
+        return "SELECT * FROM (" + consulta + ") " + tabla;
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // ==================== ARCHIVO ====================
 
-            stmt.setInt(1, -horas);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Mueve a AuditoriasArchivo las auditorías anteriores a la fecha de corte,
+     * mes por mes y en lotes. Antes de mover un mes se asegura que existan
+     * las particiones de ese mes y del siguiente; como se archiva en orden,
+     * la partición que se divide siempre está vacía.
+     *
+     * @return auditorías archivadas, o -1 si hubo un error
+     */
+    public int archivarAnterioresA(LocalDate corte) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
 
-            while (rs.next()) {
-                Auditoria a = new Auditoria();
-                a.setIdAuditoria(rs.getInt("idAuditoria"));
-                a.setIdUsuario(rs.getInt("idUsuario"));
-                a.setAccion(rs.getString("accion"));
-                a.setTablaAfectada(rs.getString("tablaAfectada"));
-                a.setDescripcion(rs.getString("descripcion"));
-                a.setIp(rs.getString("ip"));
-                a.setFechaAccion(rs.getTimestamp("fechaAccion"));
-                a.setNombreUsuario(rs.getString("nombreUsuario"));
-                auditorias.add(a);
+            LocalDate mes;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT MIN(fechaAccion) FROM Auditorias WHERE fechaAccion < ?")) {
+                stmt.setTimestamp(1, Timestamp.valueOf(corte.atStartOfDay()));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    Timestamp primera = rs.next() ? rs.getTimestamp(1) : null;
+                    if (primera == null) {
+                        return 0;
+                    }
+                    mes = primera.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+                }
+            }
+
+            int archivadas = 0;
+            asegurarParticion(conn, mes);
+            while (mes.isBefore(corte)) {
+                LocalDate siguiente = mes.plusMonths(1);
+                asegurarParticion(conn, siguiente);
+                LocalDate hasta = siguiente.isBefore(corte) ? siguiente : corte;
+                try (PreparedStatement stmt = conn.prepareStatement(ARCHIVAR)) {
+                    stmt.setInt(1, TAMANO_LOTE_ARCHIVO);
+                    stmt.setTimestamp(2, Timestamp.valueOf(mes.atStartOfDay()));
+                    stmt.setTimestamp(3, Timestamp.valueOf(hasta.atStartOfDay()));
+                    int movidas;
+                    do {
+                        movidas = stmt.executeUpdate();
+                        archivadas += movidas;
+                    } while (movidas == TAMANO_LOTE_ARCHIVO);
+                }
+                mes = siguiente;
             }
+            return archivadas;
         } catch (SQLException e) {
-            System.err.println("Error al obtener auditorías recientes: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Error al archivar auditorías: " + e.getMessage());
         }
-        return auditorias;
+        return -1;
+    }
+
+    /**
+     * Agrega el límite de partición del mes si todavía no existe.
+     */
+    private void asegurarParticion(Connection conn, LocalDate mes) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ASEGURAR_PARTICION)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(mes.atStartOfDay()));
+            stmt.execute();
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    private Auditoria mapear(ResultSet rs) throws SQLException {
+        Auditoria a = new Auditoria();
+        a.setIdAuditoria(rs.getInt("idAuditoria"));
+        a.setIdUsuario(rs.getInt("idUsuario"));
+        a.setAccion(rs.getString("accion"));
+        a.setTablaAfectada(rs.getString("tablaAfectada"));
+        a.setDescripcion(rs.getString("descripcion"));
+        a.setIp(rs.getString("ip"));
+        a.setFechaAccion(rs.getTimestamp("fechaAccion"));
+        a.setNombreUsuario(rs.getString("nombreUsuario"));
+        return a;
     }
 }
@@ -0,0 +1,94 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.AgendaMes;
+import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.sql.*;
+import java.time.YearMonth;
+
+/**
+ * DAO de la agenda mensual: cuotas que vencen, cuotas cobradas y ventas
+ * agrupadas por día.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CalendarioDAO {
+    private static CalendarioDAO instance;
+
+    // ==================== SQL ====================
+    // Una fila por tipo y día del mes. Cada parte usa su índice por fecha
+    // (IX_Cuotas_Vencimiento, IX_Cuotas_FechaPago, IX_Ventas_Fecha).
+    // Los créditos pagados también quedan CANCELADO, así que solo se
+    // excluyen las cuotas de ventas anuladas.
+    // Parámetros: desde y hasta (exclusivo), tres veces
+    private static final String AGENDA_MES =
+            "SELECT 'V', DAY(q.fechaVencimiento), COUNT(*), " +
+            " SUM(CASE WHEN q.pagada = 0 THEN 1 ELSE 0 END), SUM(q.valor + q.mora) " +
+            "FROM Cuotas q JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "WHERE q.fechaVencimiento >= ? AND q.fechaVencimiento < ? " +
+            " AND NOT EXISTS (SELECT 1 FROM Ventas v WHERE v.idVenta = cr.idVenta AND v.estado = 'ANULADA') " +
+            "GROUP BY DAY(q.fechaVencimiento) " +
+            "UNION ALL " +
+            "SELECT 'C', DAY(q.fechaPago), COUNT(*), 0, SUM(q.valorPagado) " +
+            "FROM Cuotas q " +
+            "WHERE q.pagada = 1 AND q.fechaPago >= ? AND q.fechaPago < ? " +
+            "GROUP BY DAY(q.fechaPago) " +
+            "UNION ALL " +
+            "SELECT 'S', DAY(v.fechaVenta), COUNT(*), 0, SUM(v.total) " +
+            "FROM Ventas v " +
+            "WHERE v.fechaVenta >= ? AND v.fechaVenta < ? AND v.estado <> 'ANULADA' " +
+            "GROUP BY DAY(v.fechaVenta)";
+
+    private CalendarioDAO() {
+    }
+
+    public static synchronized CalendarioDAO getInstance() {
+        if (instance == null) {
+            instance = new CalendarioDAO();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Agenda del mes en una sola consulta agrupada.
+     *
+     * @return la agenda, o null si hubo error
+     */
+    public AgendaMes obtenerMes(YearMonth mes) {
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return null;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(AGENDA_MES)) {
+                for (int i = 0; i < 3; i++) {
+                    stmt.setTimestamp(i * 2 + 1, desde);
+                    stmt.setTimestamp(i * 2 + 2, hasta);
+                }
+                AgendaMes agenda = new AgendaMes(mes);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int dia = rs.getInt(2);
+                        long centavos = Dinero.getCentavos(rs, 5);
+                        switch (rs.getString(1)) {
+                            case "V" -> agenda.agregarVencimientos(dia, rs.getInt(3), rs.getInt(4), centavos);
+                            case "C" -> agenda.agregarCobros(dia, rs.getInt(3), centavos);
+                            default -> agenda.agregarVentas(dia, rs.getInt(3), centavos);
+                        }
+                    }
+                }
+                return agenda;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener la agenda del mes: " + e.getMessage());
+        }
+        return null;
+    }
+}
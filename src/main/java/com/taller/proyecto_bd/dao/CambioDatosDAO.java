@@ -0,0 +1,105 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.CambioDatos;
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * DAO del registro de cambios (CambiosDatos).
+ *
+ * Los triggers de Productos, Inventarios, Categorias, Clientes, Ventas y
+ * Cuotas anotan cada fila cambiada junto con la instancia de la aplicación
+ * que la cambió (SESSION_CONTEXT 'instancia', ver ConexionBD). La lectura es
+ * una búsqueda por la clave agrupada, barata aunque se haga cada segundo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CambioDatosDAO implements FuenteCambios {
+    private static CambioDatosDAO instance;
+
+    // READPAST: las filas de transacciones sin confirmar se saltan (quedan
+    // como hueco y se vuelven a pedir) en lugar de bloquear la lectura
+    private static final String LEER =
+            "SELECT TOP (?) idCambio, tabla, idRegistro, operacion, origen " +
+            "FROM dbo.CambiosDatos WITH (READPAST) WHERE idCambio > ? ORDER BY idCambio";
+
+    private static final String PURGAR = "DELETE TOP (5000) FROM dbo.CambiosDatos WHERE fecha < ?";
+
+    private CambioDatosDAO() {
+    }
+
+    public static synchronized CambioDatosDAO getInstance() {
+        if (instance == null) {
+            instance = new CambioDatosDAO();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    @Override
+    public long ultimoCambio() {
+        Long ultimo = ConsultaBD.buscarUno("SELECT ISNULL(MAX(idCambio), 0) FROM dbo.CambiosDatos",
+                ConsultaBD.SIN_PARAMETROS, rs -> rs.getLong(1), "Error al consultar el último cambio");
+        return ultimo != null ? ultimo : -1;
+    }
+
+    @Override
+    public List<CambioDatos> leerDesde(long idCambio, int limite) {
+        return ConsultaBD.listar(LEER, stmt -> {
+            stmt.setInt(1, limite);
+            stmt.setLong(2, idCambio);
+        }, rs -> new CambioDatos(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5)),
+                "Error al leer cambios");
+    }
+
+    @Override
+    public List<CambioDatos> leerIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String lista = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return ConsultaBD.listar("SELECT idCambio, tabla, idRegistro, operacion, origen " +
+                "FROM dbo.CambiosDatos WITH (READPAST) WHERE idCambio IN (" + lista + ") ORDER BY idCambio",
+                rs -> new CambioDatos(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5)),
+                "Error al releer cambios");
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Borra en lotes los cambios anteriores a la fecha.
+     */
+    @Override
+    public int purgarAnterioresA(LocalDateTime fecha) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
+
+            int total = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(PURGAR)) {
+                stmt.setTimestamp(1, Timestamp.valueOf(fecha));
+                int borradas;
+                do {
+                    borradas = stmt.executeUpdate();
+                    total += borradas;
+                } while (borradas > 0);
+            }
+            return total;
+        } catch (SQLException e) {
+            System.err.println("Error al purgar cambios: " + e.getMessage());
+            return -1;
+        }
+    }
+}
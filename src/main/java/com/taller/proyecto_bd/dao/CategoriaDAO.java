@@ -1,6 +1,8 @@
 package com.taller.proyecto_bd.dao;
 
 import com.taller.proyecto_bd.models.Categoria;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
 
 import java.sql.*;
@@ -91,6 +93,7 @@ public class CategoriaDAO {
                             categoria.setIdCategoria(rs.getInt(1));
                         }
                     }
+                    BusEventos.publicar(EventoDominio.Tipo.CATEGORIA_ACTUALIZADA, categoria.getIdCategoria());
                     return true;
                 }
             }
@@ -234,7 +237,11 @@ public class CategoriaDAO {
                 stmt.setDouble(9, categoria.getPorcentajeUtilidad());
                 stmt.setInt(10, categoria.getIdCategoria());
 
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CATEGORIA_ACTUALIZADA, categoria.getIdCategoria());
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al actualizar categoría: " + e.getMessage());
@@ -255,7 +262,11 @@ public class CategoriaDAO {
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, id);
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CATEGORIA_ELIMINADA, id);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al eliminar categoría: " + e.getMessage());
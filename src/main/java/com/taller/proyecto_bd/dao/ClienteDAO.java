@@ -1,12 +1,18 @@
 package com.taller.proyecto_bd.dao;
 
 import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO para la entidad Cliente.
@@ -20,6 +26,20 @@ import java.util.List;
 public class ClienteDAO {
     private static ClienteDAO instance; // instancia única
 
+    // ==================== SQL ====================
+    // Edición con control optimista: no toca saldoPendiente (cambia por ajustes
+    // con signo) y solo aplica si nadie editó el cliente desde que se leyó
+    private static final String ACTUALIZAR =
+            "UPDATE Clientes SET cedula = ?, nombre = ?, apellido = ?, direccion = ?, telefono = ?, email = ?, " +
+            "activo = ?, limiteCredito = ?, passwordHash = ?, version = version + 1 " +
+            "WHERE idCliente = ? AND version = ?";
+    private static final String EXISTE = "SELECT 1 FROM Clientes WHERE idCliente = ?";
+
+    // Parámetros: monto, monto, idCliente
+    private static final String AJUSTAR_SALDO =
+            "UPDATE Clientes SET saldoPendiente = CASE WHEN saldoPendiente + ? < 0 THEN 0 " +
+            "ELSE saldoPendiente + ? END WHERE idCliente = ?";
+
     // ==================== CONSTRUCTOR ====================
     private ClienteDAO() {
     }
@@ -109,10 +129,12 @@ public class ClienteDAO {
                     try (ResultSet rs = stmt.getGeneratedKeys()) {
                         if (rs.next()) {
                             cliente.setIdCliente(rs.getInt(1));
+                            cliente.setVersion(1);
                             System.out.println("DEBUG ClienteDAO - ID generado: " + cliente.getIdCliente());
                         }
                     }
                     System.out.println("DEBUG ClienteDAO - Cliente insertado exitosamente!");
+                    BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, cliente.getIdCliente());
                     return true;
                 }
             }
@@ -154,7 +176,7 @@ public class ClienteDAO {
      */
     public List<Cliente> obtenerTodos() {
         List<Cliente> lista = new ArrayList<>();
-        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash " +
+        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash, version " +
                      "FROM Clientes ORDER BY nombre, apellido";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -178,7 +200,7 @@ public class ClienteDAO {
      * Buscar cliente por ID
      */
     public Cliente obtenerPorId(int id) {
-        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash " +
+        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash, version " +
                      "FROM Clientes WHERE idCliente = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -204,16 +226,29 @@ public class ClienteDAO {
      * Buscar cliente por cédula
      */
     public Cliente obtenerPorCedula(String cedula) {
+        try {
+            return buscarPorCedula(cedula);
+        } catch (SQLException e) {
+            System.err.println("Error al buscar cliente por cédula: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Igual que obtenerPorCedula(), pero un error de base de datos se lanza
+     * en lugar de confundirse con un cliente inexistente (login).
+     */
+    public Cliente buscarPorCedula(String cedula) throws SQLException {
         if (cedula == null || cedula.trim().isEmpty()) {
             return null;
         }
 
-        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash " +
+        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash, version " +
                      "FROM Clientes WHERE cedula = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return null;
+                throw new SQLException("No se pudo obtener conexión a la base de datos");
             }
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -224,49 +259,102 @@ public class ClienteDAO {
                     }
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar cliente por cédula: " + e.getMessage());
         }
         return null;
     }
 
     /**
-     * Actualizar un cliente existente
+     * Actualizar un cliente existente (false también si hubo conflicto de versión)
      */
     public boolean actualizar(Cliente cliente) {
-        String sql = "UPDATE Clientes SET cedula = ?, nombre = ?, apellido = ?, direccion = ?, telefono = ?, email = ?, " +
-                     "activo = ?, limiteCredito = ?, saldoPendiente = ?, passwordHash = ? WHERE idCliente = ?";
+        return actualizarConVersion(cliente) == ResultadoActualizacion.ACTUALIZADO;
+    }
+
+    /**
+     * Actualiza los datos del cliente si nadie los editó desde que se leyeron.
+     * El saldo pendiente no se escribe aquí: usar ajustarSaldo.
+     */
+    public ResultadoActualizacion actualizarConVersion(Cliente cliente) {
+        ResultadoActualizacion resultado = ConsultaBD.actualizarVersionado(ACTUALIZAR, stmt -> {
+            stmt.setString(1, cliente.getCedula());
+            stmt.setString(2, cliente.getNombre());
+            stmt.setString(3, cliente.getApellido());
+            stmt.setString(4, cliente.getDireccion());
+            stmt.setString(5, cliente.getTelefono());
+            stmt.setString(6, cliente.getEmail());
+            stmt.setBoolean(7, cliente.isActivo());
+            // Usar BigDecimal con escala de 2 decimales para NUMERIC(10,2)
+            stmt.setBigDecimal(8, java.math.BigDecimal.valueOf(cliente.getLimiteCredito()).setScale(2, java.math.RoundingMode.HALF_UP));
+
+            // passwordHash (puede ser NULL)
+            if (cliente.getPasswordHash() != null && !cliente.getPasswordHash().trim().isEmpty()) {
+                stmt.setString(9, cliente.getPasswordHash());
+            } else {
+                stmt.setNull(9, java.sql.Types.VARCHAR);
+            }
+
+            stmt.setInt(10, cliente.getIdCliente());
+            stmt.setInt(11, cliente.getVersion());
+        }, EXISTE, cliente.getIdCliente(), "Error al actualizar cliente");
+
+        if (resultado == ResultadoActualizacion.ACTUALIZADO) {
+            cliente.setVersion(cliente.getVersion() + 1);
+            BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, cliente.getIdCliente());
+        }
+        return resultado;
+    }
+
+    /**
+     * Suma (o resta) al saldo pendiente sin bajar de 0. Se aplica en la BD
+     * sobre el saldo vigente, así que dos cajas que cobran o venden a crédito
+     * al mismo cliente no se pisan.
+     *
+     * @param centavos monto con signo (negativo para abonos)
+     */
+    public boolean ajustarSaldo(int idCliente, long centavos) {
+        if (centavos == 0) {
+            return true;
+        }
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, cliente.getCedula());
-                stmt.setString(2, cliente.getNombre());
-                stmt.setString(3, cliente.getApellido());
-                stmt.setString(4, cliente.getDireccion());
-                stmt.setString(5, cliente.getTelefono());
-                stmt.setString(6, cliente.getEmail());
-                stmt.setBoolean(7, cliente.isActivo());
-                // Usar BigDecimal con escala de 2 decimales para NUMERIC(10,2)
-                stmt.setBigDecimal(8, java.math.BigDecimal.valueOf(cliente.getLimiteCredito()).setScale(2, java.math.RoundingMode.HALF_UP));
-                stmt.setBigDecimal(9, java.math.BigDecimal.valueOf(cliente.getSaldoPendiente()).setScale(2, java.math.RoundingMode.HALF_UP));
-
-                // passwordHash (puede ser NULL)
-                if (cliente.getPasswordHash() != null && !cliente.getPasswordHash().trim().isEmpty()) {
-                    stmt.setString(10, cliente.getPasswordHash());
-                } else {
-                    stmt.setNull(10, java.sql.Types.VARCHAR);
+            try (PreparedStatement stmt = conn.prepareStatement(AJUSTAR_SALDO)) {
+                Dinero.setCentavos(stmt, 1, centavos);
+                Dinero.setCentavos(stmt, 2, centavos);
+                stmt.setInt(3, idCliente);
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, idCliente);
+                    return true;
                 }
+                return false;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al ajustar saldo del cliente: " + e.getMessage());
+        }
+        return false;
+    }
 
-                stmt.setInt(11, cliente.getIdCliente());
+    /**
+     * Reemplaza el hash de contraseña del cliente (usado al migrar hashes heredados).
+     */
+    public boolean actualizarPasswordHash(int idCliente, String passwordHash) {
+        String sql = "UPDATE Clientes SET passwordHash = ? WHERE idCliente = ?";
 
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, passwordHash);
+                stmt.setInt(2, idCliente);
                 return stmt.executeUpdate() > 0;
             }
         } catch (SQLException e) {
-            System.err.println("Error al actualizar cliente: " + e.getMessage());
+            System.err.println("Error al actualizar hash de contraseña del cliente: " + e.getMessage());
         }
         return false;
     }
@@ -284,7 +372,11 @@ public class ClienteDAO {
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, id);
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ELIMINADO, id);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al eliminar cliente: " + e.getMessage());
@@ -302,7 +394,7 @@ public class ClienteDAO {
      */
     public List<Cliente> obtenerActivos() {
         List<Cliente> lista = new ArrayList<>();
-        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash " +
+        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash, version " +
                      "FROM Clientes WHERE activo = 1 ORDER BY nombre, apellido";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -332,7 +424,7 @@ public class ClienteDAO {
         }
 
         String criterio = "%" + texto.trim().toLowerCase() + "%";
-        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash " +
+        String sql = "SELECT idCliente, cedula, nombre, apellido, direccion, telefono, email, fechaRegistro, activo, limiteCredito, saldoPendiente, passwordHash, version " +
                      "FROM Clientes WHERE LOWER(nombre) LIKE ? OR LOWER(apellido) LIKE ? OR LOWER(cedula) LIKE ? ORDER BY nombre, apellido";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -364,7 +456,7 @@ public class ClienteDAO {
     public List<Cliente> obtenerClientesMorosos() {
         List<Cliente> lista = new ArrayList<>();
         String sql = "SELECT DISTINCT c.idCliente, c.cedula, c.nombre, c.apellido, c.direccion, c.telefono, c.email, " +
-                     "c.fechaRegistro, c.activo, c.limiteCredito, c.saldoPendiente, c.passwordHash " +
+                     "c.fechaRegistro, c.activo, c.limiteCredito, c.saldoPendiente, c.passwordHash, c.version " +
                      "FROM Clientes c " +
                      "INNER JOIN Creditos cr ON c.idCliente = cr.idCliente " +
                      "INNER JOIN Cuotas cu ON cr.idVenta = cu.idVenta " +
@@ -388,6 +480,78 @@ public class ClienteDAO {
         return lista;
     }
 
+    // ==================== CARTERA ====================
+
+    // Iguala saldoPendiente al saldo de las cuotas sin pagar en una sola sentencia.
+    // OUTPUT va a una variable de tabla porque Clientes tiene triggers
+    private static final String CORREGIR_SALDOS =
+            "SET NOCOUNT ON; " +
+            "DECLARE @corregidos TABLE (idCliente INT); " +
+            "UPDATE c SET saldoPendiente = COALESCE(a.saldo, 0) " +
+            "OUTPUT inserted.idCliente INTO @corregidos " +
+            "FROM Clientes c LEFT JOIN (" + CuotaDAO.SALDO_CUOTAS_POR_CLIENTE + ") a ON a.idCliente = c.idCliente " +
+            "WHERE c.saldoPendiente <> COALESCE(a.saldo, 0); " +
+            "SELECT idCliente FROM @corregidos";
+
+    /**
+     * Corrige el saldo pendiente de todos los clientes cuyo valor guardado se
+     * apartó del saldo de sus cuotas sin pagar.
+     *
+     * @return clientes corregidos
+     */
+    public int corregirSaldosDesdeCuotas() {
+        List<Integer> corregidos = ConsultaBD.listar(CORREGIR_SALDOS, ConsultaBD.SIN_PARAMETROS,
+                rs -> rs.getInt(1), "Error al corregir saldos de clientes");
+        for (Integer idCliente : corregidos) {
+            BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, idCliente);
+        }
+        return corregidos.size();
+    }
+
+    /**
+     * Cédula y nombre completo de unos pocos clientes, por ID (ej: los que se muestran en un reporte).
+     *
+     * @return mapa idCliente → {cedula, nombre completo}
+     */
+    public Map<Integer, String[]> obtenerEtiquetas(List<Integer> ids) {
+        Map<Integer, String[]> etiquetas = new HashMap<>();
+        if (ids.isEmpty()) {
+            return etiquetas;
+        }
+        String marcas = String.join(",", Collections.nCopies(ids.size(), "?"));
+        for (Map.Entry<Integer, String[]> fila : ConsultaBD.listar(
+                "SELECT idCliente, cedula, nombre + ' ' + apellido FROM Clientes WHERE idCliente IN (" + marcas + ")",
+                stmt -> {
+                    for (int i = 0; i < ids.size(); i++) {
+                        stmt.setInt(i + 1, ids.get(i));
+                    }
+                },
+                rs -> Map.entry(rs.getInt(1), new String[] { rs.getString(2), rs.getString(3) }),
+                "Error al obtener nombres de clientes")) {
+            etiquetas.put(fila.getKey(), fila.getValue());
+        }
+        return etiquetas;
+    }
+
+    /**
+     * Ajusta en lote el saldo de varios clientes dentro de una transacción
+     * (mismo ajuste con piso en 0 que ajustarSaldo). Quien confirma la
+     * transacción publica los eventos.
+     *
+     * @param centavos monto con signo por idCliente
+     */
+    void ajustarSaldos(Connection conn, Map<Integer, Long> centavos) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(AJUSTAR_SALDO)) {
+            for (Map.Entry<Integer, Long> e : centavos.entrySet()) {
+                Dinero.setCentavos(stmt, 1, e.getValue());
+                Dinero.setCentavos(stmt, 2, e.getValue());
+                stmt.setInt(3, e.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
     private Cliente mapearCliente(ResultSet rs) throws SQLException {
         Timestamp fechaRegistro = rs.getTimestamp("fechaRegistro");
 
@@ -405,6 +569,7 @@ public class ClienteDAO {
                 rs.getDouble("saldoPendiente"),
                 rs.getString("passwordHash")  // Puede ser NULL
         );
+        cliente.setVersion(rs.getInt("version"));
         return cliente;
     }
 }
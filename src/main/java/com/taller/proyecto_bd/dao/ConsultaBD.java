@@ -0,0 +1,131 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capa común de consultas para los DAO.
+ * Encapsula el patrón obtener conexión → preparar → asignar parámetros →
+ * mapear filas, con el mismo manejo de errores que el resto de los DAO
+ * (mensaje en System.err y resultado vacío).
+ *
+ * Los mapeadores leen columnas por índice, así que el SQL debe usar la
+ * lista de columnas declarada por cada DAO.
+ *
+ * Las ediciones con control optimista (columna version) pasan por
+ * actualizarVersionado, que distingue una fila cambiada por otro usuario
+ * de una que ya no existe.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+final class ConsultaBD {
+
+    /**
+     * Convierte la fila actual del ResultSet en un objeto.
+     */
+    @FunctionalInterface
+    interface MapeadorFila<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Asigna los parámetros de la sentencia.
+     */
+    @FunctionalInterface
+    interface Parametros {
+        void asignar(PreparedStatement stmt) throws SQLException;
+    }
+
+    static final Parametros SIN_PARAMETROS = stmt -> { };
+
+    private ConsultaBD() {
+    }
+
+    /**
+     * Ejecuta una consulta y mapea todas las filas.
+     */
+    static <T> List<T> listar(String sql, Parametros parametros, MapeadorFila<T> mapeador, String mensajeError) {
+        List<T> lista = new ArrayList<>();
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return lista;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                parametros.asignar(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lista.add(mapeador.mapear(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(mensajeError + ": " + e.getMessage());
+        }
+        return lista;
+    }
+
+    static <T> List<T> listar(String sql, MapeadorFila<T> mapeador, String mensajeError) {
+        return listar(sql, SIN_PARAMETROS, mapeador, mensajeError);
+    }
+
+    /**
+     * Ejecuta una consulta y mapea la primera fila (null si no hay resultados).
+     */
+    static <T> T buscarUno(String sql, Parametros parametros, MapeadorFila<T> mapeador, String mensajeError) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return null;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                parametros.asignar(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapeador.mapear(rs);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(mensajeError + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Ejecuta un UPDATE que solo aplica si la versión leída sigue vigente
+     * (WHERE ... AND version = ?). Si no afectó filas, consulta con
+     * sqlExiste (un parámetro: el ID) si la fila sigue ahí.
+     */
+    static ResultadoActualizacion actualizarVersionado(String sql, Parametros parametros, String sqlExiste,
+                                                       int id, String mensajeError) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return ResultadoActualizacion.ERROR;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                parametros.asignar(stmt);
+                if (stmt.executeUpdate() > 0) {
+                    return ResultadoActualizacion.ACTUALIZADO;
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlExiste)) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? ResultadoActualizacion.CONFLICTO : ResultadoActualizacion.NO_ENCONTRADO;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(mensajeError + ": " + e.getMessage());
+        }
+        return ResultadoActualizacion.ERROR;
+    }
+}
@@ -2,11 +2,13 @@ package com.taller.proyecto_bd.dao;
 
 import com.taller.proyecto_bd.models.Credito;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO para la entidad Credito.
@@ -18,6 +20,19 @@ import java.util.List;
 public class CreditoDAO {
     private static CreditoDAO instance;
 
+    private static final String ACTUALIZAR =
+            "UPDATE Creditos SET idVenta = ?, idCliente = ?, montoTotal = ?, interes = ?, " +
+            "plazoMeses = ?, cuotaInicial = ?, saldoPendiente = ?, estado = ?, version = version + 1 " +
+            "WHERE idCredito = ? AND version = ?";
+    private static final String EXISTE = "SELECT 1 FROM Creditos WHERE idCredito = ?";
+    private static final int MAX_REINTENTOS = 3;
+
+    // Parámetros: saldo, cancelado (1/0), idCredito
+    private static final String FIJAR_SALDO =
+            "UPDATE Creditos SET saldoPendiente = ?, " +
+            "estado = CASE WHEN ? = 1 THEN 'CANCELADO' ELSE estado END, version = version + 1 " +
+            "WHERE idCredito = ?";
+
     private CreditoDAO() {
     }
 
@@ -51,11 +66,11 @@ public class CreditoDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 stmt.setInt(1, credito.getIdVenta());
                 stmt.setInt(2, credito.getIdCliente());
-                stmt.setDouble(3, credito.getMontoTotal());
+                Dinero.setCentavos(stmt, 3, credito.getMontoTotalCentavos());
                 stmt.setDouble(4, credito.getInteres());
                 stmt.setInt(5, credito.getPlazoMeses());
-                stmt.setDouble(6, credito.getCuotaInicial());
-                stmt.setDouble(7, credito.getSaldoPendiente());
+                Dinero.setCentavos(stmt, 6, credito.getCuotaInicialCentavos());
+                Dinero.setCentavos(stmt, 7, credito.getSaldoPendienteCentavos());
                 stmt.setString(8, credito.getEstado());
                 stmt.setTimestamp(9, new Timestamp(credito.getFechaRegistro().getTime()));
 
@@ -64,6 +79,7 @@ public class CreditoDAO {
                     try (ResultSet rs = stmt.getGeneratedKeys()) {
                         if (rs.next()) {
                             credito.setIdCredito(rs.getInt(1));
+                            credito.setVersion(1);
                         }
                     }
                     return true;
@@ -81,7 +97,7 @@ public class CreditoDAO {
      */
     public List<Credito> obtenerTodos() {
         List<Credito> lista = new ArrayList<>();
-        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro " +
+        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro, version " +
                      "FROM Creditos ORDER BY fechaRegistro DESC";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -105,7 +121,7 @@ public class CreditoDAO {
      * Buscar crédito por ID
      */
     public Credito obtenerPorId(int idCredito) {
-        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro " +
+        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro, version " +
                      "FROM Creditos WHERE idCredito = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -131,7 +147,7 @@ public class CreditoDAO {
      * Buscar crédito por ID de venta
      */
     public Credito obtenerPorVenta(int idVenta) {
-        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro " +
+        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro, version " +
                      "FROM Creditos WHERE idVenta = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -154,38 +170,96 @@ public class CreditoDAO {
     }
 
     /**
-     * Actualizar un crédito existente
+     * Actualizar un crédito existente (false también si hubo conflicto de versión)
      */
     public boolean actualizar(Credito credito) {
+        return actualizarConVersion(credito) == ResultadoActualizacion.ACTUALIZADO;
+    }
+
+    /**
+     * Actualiza el crédito si nadie lo modificó desde que se leyó.
+     */
+    public ResultadoActualizacion actualizarConVersion(Credito credito) {
         if (credito == null || credito.getMontoTotal() < 0) {
-            return false;
+            return ResultadoActualizacion.ERROR;
         }
 
-        String sql = "UPDATE Creditos SET idVenta = ?, idCliente = ?, montoTotal = ?, interes = ?, " +
-                     "plazoMeses = ?, cuotaInicial = ?, saldoPendiente = ?, estado = ? WHERE idCredito = ?";
+        ResultadoActualizacion resultado = ConsultaBD.actualizarVersionado(ACTUALIZAR, stmt -> {
+            stmt.setInt(1, credito.getIdVenta());
+            stmt.setInt(2, credito.getIdCliente());
+            Dinero.setCentavos(stmt, 3, credito.getMontoTotalCentavos());
+            stmt.setDouble(4, credito.getInteres());
+            stmt.setInt(5, credito.getPlazoMeses());
+            Dinero.setCentavos(stmt, 6, credito.getCuotaInicialCentavos());
+            Dinero.setCentavos(stmt, 7, credito.getSaldoPendienteCentavos());
+            stmt.setString(8, credito.getEstado());
+            stmt.setInt(9, credito.getIdCredito());
+            stmt.setInt(10, credito.getVersion());
+        }, EXISTE, credito.getIdCredito(), "Error al actualizar crédito");
+
+        if (resultado == ResultadoActualizacion.ACTUALIZADO) {
+            credito.setVersion(credito.getVersion() + 1);
+        }
+        return resultado;
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return false;
+    /**
+     * Cancela un crédito activo dejando su saldo en 0. Ante un conflicto de
+     * versión se relee y se reintenta mientras el crédito siga ACTIVO.
+     *
+     * @return el crédito cancelado, o null si no estaba activo o no se pudo guardar
+     */
+    public Credito cancelar(int idCredito) {
+        for (int intento = 0; intento < MAX_REINTENTOS; intento++) {
+            Credito credito = obtenerPorId(idCredito);
+            if (credito == null || !"ACTIVO".equals(credito.getEstado())) {
+                return null;
             }
+            credito.setEstado("CANCELADO");
+            credito.setSaldoPendienteCentavos(0);
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, credito.getIdVenta());
-                stmt.setInt(2, credito.getIdCliente());
-                stmt.setDouble(3, credito.getMontoTotal());
-                stmt.setDouble(4, credito.getInteres());
-                stmt.setInt(5, credito.getPlazoMeses());
-                stmt.setDouble(6, credito.getCuotaInicial());
-                stmt.setDouble(7, credito.getSaldoPendiente());
-                stmt.setString(8, credito.getEstado());
-                stmt.setInt(9, credito.getIdCredito());
+            ResultadoActualizacion resultado = actualizarConVersion(credito);
+            if (resultado == ResultadoActualizacion.ACTUALIZADO) {
+                return credito;
+            }
+            if (resultado != ResultadoActualizacion.CONFLICTO) {
+                return null;
+            }
+        }
+        System.err.println("Crédito " + idCredito + " modificado por otro usuario, no se pudo cancelar");
+        return null;
+    }
 
-                return stmt.executeUpdate() > 0;
+    /**
+     * Cancela el crédito dentro de la transacción del llamador.
+     *
+     * @return false si el crédito no existe o ya no está ACTIVO
+     */
+    boolean cancelar(Connection conn, int idCredito) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE Creditos SET estado = 'CANCELADO', saldoPendiente = 0, version = version + 1 " +
+                "WHERE idCredito = ? AND estado = 'ACTIVO'")) {
+            stmt.setInt(1, idCredito);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Fija en lote el saldo de varios créditos dentro de una transacción;
+     * los que quedan en 0 pasan a CANCELADO.
+     *
+     * @param saldos saldo en centavos por idCredito
+     */
+    void fijarSaldos(Connection conn, Map<Integer, Long> saldos) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(FIJAR_SALDO)) {
+            for (Map.Entry<Integer, Long> e : saldos.entrySet()) {
+                Dinero.setCentavos(stmt, 1, e.getValue());
+                stmt.setInt(2, e.getValue() == 0 ? 1 : 0);
+                stmt.setInt(3, e.getKey());
+                stmt.addBatch();
             }
-        } catch (SQLException e) {
-            System.err.println("Error al actualizar crédito: " + e.getMessage());
+            stmt.executeBatch();
         }
-        return false;
     }
 
     /**
@@ -216,7 +290,7 @@ public class CreditoDAO {
      */
     public List<Credito> obtenerPorCliente(int idCliente) {
         List<Credito> lista = new ArrayList<>();
-        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro " +
+        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro, version " +
                      "FROM Creditos WHERE idCliente = ? ORDER BY fechaRegistro DESC";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -247,7 +321,7 @@ public class CreditoDAO {
         }
 
         List<Credito> lista = new ArrayList<>();
-        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro " +
+        String sql = "SELECT idCredito, idVenta, idCliente, montoTotal, interes, plazoMeses, cuotaInicial, saldoPendiente, estado, fechaRegistro, version " +
                      "FROM Creditos WHERE estado = ? ORDER BY fechaRegistro DESC";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -276,6 +350,15 @@ public class CreditoDAO {
         return obtenerPorEstado("ACTIVO");
     }
 
+    /**
+     * Cantidad de créditos activos
+     */
+    public int contarActivos() {
+        Integer total = ConsultaBD.buscarUno("SELECT COUNT(*) FROM Creditos WHERE estado = 'ACTIVO'",
+                ConsultaBD.SIN_PARAMETROS, rs -> rs.getInt(1), "Error al contar créditos activos");
+        return total != null ? total : 0;
+    }
+
     /**
      * Obtener créditos cancelados
      */
@@ -289,7 +372,7 @@ public class CreditoDAO {
     public List<Credito> obtenerMorosos() {
         List<Credito> lista = new ArrayList<>();
         String sql = "SELECT DISTINCT c.idCredito, c.idVenta, c.idCliente, c.montoTotal, c.interes, c.plazoMeses, " +
-                     "c.cuotaInicial, c.saldoPendiente, c.estado, c.fechaRegistro " +
+                     "c.cuotaInicial, c.saldoPendiente, c.estado, c.fechaRegistro, c.version " +
                      "FROM Creditos c " +
                      "INNER JOIN Cuotas cu ON c.idCredito = cu.idCredito " +
                      "WHERE c.estado = 'ACTIVO' AND cu.pagada = 0 AND cu.fechaVencimiento < GETDATE() " +
@@ -345,17 +428,22 @@ public class CreditoDAO {
     private Credito mapearCredito(ResultSet rs) throws SQLException {
         Timestamp fechaRegistro = rs.getTimestamp("fechaRegistro");
 
-        return new Credito(
+        Credito credito = new Credito(
                 rs.getInt("idCredito"),
                 rs.getInt("idVenta"),
                 rs.getInt("idCliente"),
-                rs.getDouble("montoTotal"),
+                0,
                 rs.getDouble("interes"),
                 rs.getInt("plazoMeses"),
-                rs.getDouble("cuotaInicial"),
-                rs.getDouble("saldoPendiente"),
+                0,
+                0,
                 rs.getString("estado"),
                 fechaRegistro != null ? new Date(fechaRegistro.getTime()) : null
         );
+        credito.setMontoTotalCentavos(Dinero.getCentavos(rs, "montoTotal"));
+        credito.setCuotaInicialCentavos(Dinero.getCentavos(rs, "cuotaInicial"));
+        credito.setSaldoPendienteCentavos(Dinero.getCentavos(rs, "saldoPendiente"));
+        credito.setVersion(rs.getInt("version"));
+        return credito;
     }
 }
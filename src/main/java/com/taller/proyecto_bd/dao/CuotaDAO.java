@@ -1,13 +1,30 @@
 package com.taller.proyecto_bd.dao;
 
+import com.taller.proyecto_bd.models.AplicacionPago;
+import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.CarteraVencida;
+import com.taller.proyecto_bd.models.CausacionMora;
 import com.taller.proyecto_bd.models.Cuota;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.models.PlanPagos;
+import com.taller.proyecto_bd.services.CalculadoraService;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * DAO para la entidad Cuota.
@@ -23,6 +40,7 @@ import java.util.List;
  */
 public class CuotaDAO {
     private static CuotaDAO instance;
+    private final CalculadoraService calculadora = new CalculadoraService();
 
     private CuotaDAO() {
     }
@@ -57,7 +75,7 @@ public class CuotaDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 stmt.setInt(1, cuota.getNumeroCuota());
                 stmt.setInt(2, cuota.getIdCredito());
-                stmt.setDouble(3, cuota.getValor());
+                Dinero.setCentavos(stmt, 3, cuota.getValorCentavos());
                 stmt.setTimestamp(4, new Timestamp(cuota.getFechaVencimiento().getTime()));
 
                 if (cuota.getFechaPago() != null) {
@@ -90,7 +108,7 @@ public class CuotaDAO {
      */
     public List<Cuota> obtenerTodas() {
         List<Cuota> lista = new ArrayList<>();
-        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, fechaVencimiento, fechaPago, pagada " +
+        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, mora, valorPagado, fechaVencimiento, fechaPago, pagada " +
                      "FROM Cuotas ORDER BY idCredito, numeroCuota";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -114,7 +132,7 @@ public class CuotaDAO {
      * Buscar cuota por ID
      */
     public Cuota obtenerPorId(int idCuota) {
-        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, fechaVencimiento, fechaPago, pagada " +
+        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, mora, valorPagado, fechaVencimiento, fechaPago, pagada " +
                      "FROM Cuotas WHERE idCuota = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -155,7 +173,7 @@ public class CuotaDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, cuota.getNumeroCuota());
                 stmt.setInt(2, cuota.getIdCredito());
-                stmt.setDouble(3, cuota.getValor());
+                Dinero.setCentavos(stmt, 3, cuota.getValorCentavos());
                 stmt.setTimestamp(4, new Timestamp(cuota.getFechaVencimiento().getTime()));
 
                 if (cuota.getFechaPago() != null) {
@@ -203,7 +221,7 @@ public class CuotaDAO {
      */
     public List<Cuota> obtenerPorCredito(int idCredito) {
         List<Cuota> lista = new ArrayList<>();
-        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, fechaVencimiento, fechaPago, pagada " +
+        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, mora, valorPagado, fechaVencimiento, fechaPago, pagada " +
                      "FROM Cuotas WHERE idCredito = ? ORDER BY numeroCuota";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -230,7 +248,7 @@ public class CuotaDAO {
      */
     public List<Cuota> obtenerPendientesPorCredito(int idCredito) {
         List<Cuota> lista = new ArrayList<>();
-        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, fechaVencimiento, fechaPago, pagada " +
+        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, mora, valorPagado, fechaVencimiento, fechaPago, pagada " +
                      "FROM Cuotas WHERE idCredito = ? AND pagada = 0 ORDER BY numeroCuota";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -257,7 +275,7 @@ public class CuotaDAO {
      */
     public List<Cuota> obtenerVencidas() {
         List<Cuota> lista = new ArrayList<>();
-        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, fechaVencimiento, fechaPago, pagada " +
+        String sql = "SELECT idCuota, numeroCuota, idCredito, valor, mora, valorPagado, fechaVencimiento, fechaPago, pagada " +
                      "FROM Cuotas WHERE pagada = 0 AND fechaVencimiento < GETDATE() ORDER BY fechaVencimiento";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
@@ -281,7 +299,7 @@ public class CuotaDAO {
      * Registrar el pago de una cuota
      */
     public boolean registrarPago(int idCuota, Date fechaPago) {
-        String sql = "UPDATE Cuotas SET fechaPago = ?, pagada = 1 WHERE idCuota = ?";
+        String sql = "UPDATE Cuotas SET fechaPago = ?, pagada = 1, valorPagado = valor + mora WHERE idCuota = ?";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
@@ -291,7 +309,11 @@ public class CuotaDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setTimestamp(1, new Timestamp(fechaPago != null ? fechaPago.getTime() : new Date().getTime()));
                 stmt.setInt(2, idCuota);
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CUOTA_PAGADA, idCuota);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al registrar pago de cuota: " + e.getMessage());
@@ -307,16 +329,13 @@ public class CuotaDAO {
      * - Dividido en 12, 18 o 24 meses
      */
     public boolean generarCuotas(int idCredito, double totalVenta, int plazoMeses, Date fechaVenta) {
-        if (plazoMeses != 12 && plazoMeses != 18 && plazoMeses != 24) {
+        if (!CalculadoraService.esPlazoPermitido(plazoMeses)) {
             System.err.println("Error: Plazo debe ser 12, 18 o 24 meses");
             return false;
         }
 
-        // Calcular montos según requisitos
-        double cuotaInicial = totalVenta * 0.30; // 30%
-        double saldo = totalVenta - cuotaInicial; // 70%
-        double saldoConIntereses = saldo * 1.05; // 70% + 5% de interés = 73.5% del total
-        double valorCuota = saldoConIntereses / plazoMeses;
+        // 30% inicial, 70% + 5% de interés repartido en el plazo (en centavos)
+        PlanPagos plan = calculadora.calcularPlanVenta(Dinero.aCentavos(totalVenta), plazoMeses);
 
         // Generar las cuotas mensuales
         Calendar calendar = Calendar.getInstance();
@@ -328,7 +347,7 @@ public class CuotaDAO {
             Cuota cuota = new Cuota();
             cuota.setNumeroCuota(i);
             cuota.setIdCredito(idCredito);
-            cuota.setValor(valorCuota);
+            cuota.setValorCentavos(plan.getCuotaCentavos(i - 1));
             cuota.setFechaVencimiento(calendar.getTime());
             cuota.setPagada(false);
 
@@ -363,6 +382,451 @@ public class CuotaDAO {
         return false;
     }
 
+    // ==================== PAGOS ====================
+
+    // Cuotas pendientes de los créditos, de la más antigua a la más reciente.
+    // UPDLOCK: dos cajeros que abonan al mismo crédito se ordenan aquí
+    private static final String PENDIENTES_PARA_PAGO =
+            "SELECT q.idCuota, q.idCredito, q.numeroCuota, q.valor + q.mora, q.valorPagado, cr.idCliente, cr.idVenta, " +
+            "q.fechaVencimiento " +
+            "FROM Cuotas q WITH (UPDLOCK, ROWLOCK) JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "WHERE q.idCredito IN (%s) AND q.pagada = 0 AND cr.estado <> 'CANCELADO' " +
+            "ORDER BY q.fechaVencimiento, q.idCredito, q.numeroCuota";
+
+    private static final String ABONAR =
+            "UPDATE Cuotas SET valorPagado = ?, pagada = ?, fechaPago = ? WHERE idCuota = ?";
+
+    /** SQL Server admite hasta 2100 parámetros por sentencia */
+    static final int MAXIMO_PARAMETROS = 2000;
+
+    /** Cuota pendiente leída con bloqueo para repartir un pago */
+    private record Pendiente(int idCuota, int idCredito, int numeroCuota, long saldo, long pagado,
+                             int idCliente, int idVenta, long vence) {
+    }
+
+    private static final Comparator<Pendiente> POR_VENCIMIENTO = Comparator.comparingLong(Pendiente::vence)
+            .thenComparingInt(Pendiente::idCredito).thenComparingInt(Pendiente::numeroCuota);
+
+    /**
+     * Pago a repartir entre las cuotas pendientes de unos créditos.
+     */
+    public record SolicitudPago(List<Integer> idsCredito, long montoCentavos, Date fechaPago) {
+    }
+
+    /**
+     * Lo que dejó un lote de pagos dentro de la transacción; tras el commit
+     * se avisa con publicarPago.
+     */
+    static final class ResultadoLote {
+        /** Un reparto por solicitud, en el mismo orden */
+        final List<AplicacionPago> aplicaciones = new ArrayList<>();
+        final Set<Integer> clientes = new LinkedHashSet<>();
+        final List<Integer> ventasPagadas = new ArrayList<>();
+    }
+
+    /**
+     * Reparte un pago entre las cuotas pendientes más antiguas de los
+     * créditos (por fecha de vencimiento); la última puede quedar con un
+     * abono parcial. Todo va en una transacción: abonos en lote, saldo de
+     * cada crédito (CANCELADO si quedó en 0), saldo de cada cliente una sola
+     * vez, ventas terminadas a PAGADA y la auditoría.
+     *
+     * @param idUsuario usuario que registra el pago (0: sin auditoría)
+     * @return el reparto (sin abonos si no había nada pendiente), o null si hubo error
+     */
+    public AplicacionPago aplicarPago(List<Integer> idsCredito, long montoCentavos, Date fechaPago, int idUsuario) {
+        if (idsCredito == null || idsCredito.isEmpty() || montoCentavos <= 0) {
+            return new AplicacionPago(montoCentavos);
+        }
+
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return null;
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                ResultadoLote lote = aplicarPagos(conn,
+                        List.of(new SolicitudPago(idsCredito, montoCentavos, fechaPago)));
+                AplicacionPago aplicacion = lote.aplicaciones.get(0);
+                if (aplicacion.getAbonos().isEmpty()) {
+                    conn.rollback();
+                    return aplicacion;
+                }
+                if (idUsuario > 0) {
+                    Set<Integer> creditos = new LinkedHashSet<>();
+                    for (AplicacionPago.Abono abono : aplicacion.getAbonos()) {
+                        creditos.add(abono.getIdCredito());
+                    }
+                    AuditoriaDAO.getInstance().agregar(conn, new Auditoria(idUsuario, "PAGO_CUOTA", "Cuota",
+                            String.format("Pago de $%.2f aplicado a %d cuotas (%d saldadas) de los créditos %s",
+                                    Dinero.aDouble(aplicacion.getAplicadoCentavos()), aplicacion.getAbonos().size(),
+                                    aplicacion.getCuotasSaldadas(), creditos),
+                            "127.0.0.1"));
+                }
+
+                conn.commit();
+                publicarPago(lote);
+                return aplicacion;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar pago a cuotas: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Reparte varios pagos dentro de una transacción abierta por otro DAO.
+     * Las cuotas de todos los créditos se leen y se bloquean juntas, los
+     * pagos se reparten en memoria en el orden recibido (dos pagos al mismo
+     * crédito ven el saldo que dejó el anterior) y cada tabla se escribe
+     * una sola vez en lote. No confirma ni publica eventos.
+     */
+    ResultadoLote aplicarPagos(Connection conn, List<SolicitudPago> solicitudes) throws SQLException {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (SolicitudPago s : solicitudes) {
+            ids.addAll(s.idsCredito());
+        }
+        Map<Integer, List<Pendiente>> porCredito = leerPendientes(conn, new ArrayList<>(ids));
+
+        // Saldos que bajan a medida que se reparten los pagos
+        Map<Integer, Long> saldoCuota = new HashMap<>();
+        Map<Integer, Long> saldoCredito = new HashMap<>();
+        for (List<Pendiente> cuotas : porCredito.values()) {
+            for (Pendiente p : cuotas) {
+                saldoCuota.put(p.idCuota(), p.saldo());
+                saldoCredito.merge(p.idCredito(), p.saldo(), Long::sum);
+            }
+        }
+
+        ResultadoLote lote = new ResultadoLote();
+        Map<Integer, Long> saldoFinal = new LinkedHashMap<>();
+        Map<Integer, Long> abonoCliente = new LinkedHashMap<>();
+        Map<Integer, Date> fechaSaldada = new HashMap<>();
+        for (SolicitudPago s : solicitudes) {
+            AplicacionPago aplicacion = new AplicacionPago(s.montoCentavos());
+            long restante = s.montoCentavos();
+            for (Pendiente p : enOrden(porCredito, s.idsCredito())) {
+                if (restante == 0) {
+                    break;
+                }
+                long saldo = saldoCuota.get(p.idCuota());
+                long aplicado = Math.min(saldo, restante);
+                if (aplicado == 0) {
+                    continue;
+                }
+                restante -= aplicado;
+                saldoCuota.put(p.idCuota(), saldo - aplicado);
+                aplicacion.agregarAbono(new AplicacionPago.Abono(p.idCuota(), p.idCredito(),
+                        p.numeroCuota(), aplicado, aplicado == saldo));
+                if (aplicado == saldo) {
+                    fechaSaldada.put(p.idCuota(), s.fechaPago());
+                }
+                abonoCliente.merge(p.idCliente(), -aplicado, Long::sum);
+                long credito = saldoCredito.merge(p.idCredito(), -aplicado, Long::sum);
+                saldoFinal.put(p.idCredito(), credito);
+                if (credito == 0) {
+                    aplicacion.getCreditosCancelados().add(p.idCredito());
+                    lote.ventasPagadas.add(p.idVenta());
+                }
+            }
+            lote.aplicaciones.add(aplicacion);
+        }
+        if (saldoFinal.isEmpty()) {
+            return lote;
+        }
+
+        abonar(conn, porCredito, saldoCuota, fechaSaldada);
+        CreditoDAO.getInstance().fijarSaldos(conn, saldoFinal);
+        ClienteDAO.getInstance().ajustarSaldos(conn, abonoCliente);
+        VentaDAO.getInstance().marcarPagadas(conn, lote.ventasPagadas);
+        lote.clientes.addAll(abonoCliente.keySet());
+        return lote;
+    }
+
+    /**
+     * Cuotas pendientes por crédito, cada lista de la más antigua a la más
+     * reciente. Los créditos se consultan en tramos de MAXIMO_PARAMETROS.
+     */
+    private Map<Integer, List<Pendiente>> leerPendientes(Connection conn, List<Integer> idsCredito) throws SQLException {
+        Map<Integer, List<Pendiente>> porCredito = new LinkedHashMap<>();
+        for (int desde = 0; desde < idsCredito.size(); desde += MAXIMO_PARAMETROS) {
+            List<Integer> tramo = idsCredito.subList(desde, Math.min(desde + MAXIMO_PARAMETROS, idsCredito.size()));
+            String marcas = String.join(",", Collections.nCopies(tramo.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement(String.format(PENDIENTES_PARA_PAGO, marcas))) {
+                for (int i = 0; i < tramo.size(); i++) {
+                    stmt.setInt(i + 1, tramo.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long valor = Dinero.getCentavos(rs, 4);
+                        long pagado = Dinero.getCentavos(rs, 5);
+                        Pendiente p = new Pendiente(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                                Math.max(valor - pagado, 0), pagado, rs.getInt(6), rs.getInt(7),
+                                rs.getDate(8).getTime());
+                        porCredito.computeIfAbsent(p.idCredito(), k -> new ArrayList<>()).add(p);
+                    }
+                }
+            }
+        }
+        return porCredito;
+    }
+
+    /**
+     * Cuotas de los créditos de un pago, de la más antigua a la más reciente.
+     */
+    private static List<Pendiente> enOrden(Map<Integer, List<Pendiente>> porCredito, List<Integer> idsCredito) {
+        if (idsCredito.size() == 1) {
+            return porCredito.getOrDefault(idsCredito.get(0), List.of());
+        }
+        List<Pendiente> cuotas = new ArrayList<>();
+        for (Integer idCredito : idsCredito) {
+            cuotas.addAll(porCredito.getOrDefault(idCredito, List.of()));
+        }
+        cuotas.sort(POR_VENCIMIENTO);
+        return cuotas;
+    }
+
+    /**
+     * Escribe en lote cada cuota abonada una sola vez, con lo que quedó tras
+     * todos los pagos.
+     */
+    private void abonar(Connection conn, Map<Integer, List<Pendiente>> porCredito, Map<Integer, Long> saldoCuota,
+                        Map<Integer, Date> fechaSaldada) throws SQLException {
+        long ahora = System.currentTimeMillis();
+        try (PreparedStatement stmt = conn.prepareStatement(ABONAR)) {
+            for (List<Pendiente> cuotas : porCredito.values()) {
+                for (Pendiente p : cuotas) {
+                    long saldo = saldoCuota.get(p.idCuota());
+                    if (saldo == p.saldo()) {
+                        continue;
+                    }
+                    Dinero.setCentavos(stmt, 1, p.pagado() + p.saldo() - saldo);
+                    stmt.setBoolean(2, saldo == 0);
+                    if (saldo == 0) {
+                        Date fecha = fechaSaldada.get(p.idCuota());
+                        stmt.setTimestamp(3, new Timestamp(fecha != null ? fecha.getTime() : ahora));
+                    } else {
+                        stmt.setNull(3, Types.TIMESTAMP);
+                    }
+                    stmt.setInt(4, p.idCuota());
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Avisa lo que cambió un lote de pagos, ya confirmado.
+     */
+    void publicarPago(ResultadoLote lote) {
+        for (AplicacionPago aplicacion : lote.aplicaciones) {
+            for (AplicacionPago.Abono abono : aplicacion.getAbonos()) {
+                if (abono.isSaldada()) {
+                    BusEventos.publicar(EventoDominio.Tipo.CUOTA_PAGADA, abono.getIdCuota());
+                }
+            }
+        }
+        for (Integer idCliente : lote.clientes) {
+            BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, idCliente);
+        }
+        for (Integer idVenta : lote.ventasPagadas) {
+            BusEventos.publicar(EventoDominio.Tipo.VENTA_ACTUALIZADA, idVenta);
+        }
+    }
+
+    // ==================== CARTERA ====================
+
+    // Saldo de las cuotas sin pagar (con su mora, menos sus abonos) por cliente, de créditos no cancelados.
+    // También lo usa ClienteDAO para corregir Clientes.saldoPendiente
+    static final String SALDO_CUOTAS_POR_CLIENTE =
+            "SELECT cr.idCliente, SUM(q.valor + q.mora - q.valorPagado) AS saldo " +
+            "FROM Cuotas q JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "WHERE q.pagada = 0 AND cr.estado <> 'CANCELADO' " +
+            "GROUP BY cr.idCliente";
+
+    // Lo mismo repartido por días de atraso a la fecha de corte, junto al saldo
+    // registrado en Clientes. Parámetro: fecha de corte
+    private static final String CARTERA_POR_CLIENTE =
+            "SELECT c.idCliente, COALESCE(a.corriente, 0), COALESCE(a.d30, 0), COALESCE(a.d60, 0), " +
+            "COALESCE(a.d90, 0), COALESCE(a.mas90, 0), c.saldoPendiente " +
+            "FROM Clientes c LEFT JOIN (" +
+            " SELECT cr.idCliente," +
+            " SUM(CASE WHEN d.dias <= 0 THEN q.valor + q.mora - q.valorPagado ELSE 0 END) AS corriente," +
+            " SUM(CASE WHEN d.dias BETWEEN 1 AND 30 THEN q.valor + q.mora - q.valorPagado ELSE 0 END) AS d30," +
+            " SUM(CASE WHEN d.dias BETWEEN 31 AND 60 THEN q.valor + q.mora - q.valorPagado ELSE 0 END) AS d60," +
+            " SUM(CASE WHEN d.dias BETWEEN 61 AND 90 THEN q.valor + q.mora - q.valorPagado ELSE 0 END) AS d90," +
+            " SUM(CASE WHEN d.dias > 90 THEN q.valor + q.mora - q.valorPagado ELSE 0 END) AS mas90" +
+            " FROM Cuotas q JOIN Creditos cr ON cr.idCredito = q.idCredito" +
+            " CROSS APPLY (SELECT DATEDIFF(day, q.fechaVencimiento, ?) AS dias) d" +
+            " WHERE q.pagada = 0 AND cr.estado <> 'CANCELADO'" +
+            " GROUP BY cr.idCliente" +
+            ") a ON a.idCliente = c.idCliente " +
+            "WHERE a.idCliente IS NOT NULL OR c.saldoPendiente <> 0";
+
+    /**
+     * Recibe una fila de la cartera por cliente.
+     */
+    public interface ConsumidorCartera {
+        /**
+         * @param saldoPorTramo centavos por tramo de CarteraVencida.TRAMOS;
+         *                      el arreglo se reutiliza entre filas
+         */
+        void aceptar(int idCliente, long[] saldoPorTramo, long saldoRegistradoCentavos);
+    }
+
+    /**
+     * Recorre la cartera agrupada en la BD: una fila por cliente con cuotas
+     * pendientes o con saldo registrado, sin crear objetos Cuota.
+     */
+    public boolean recorrerCartera(LocalDate fechaCorte, ConsumidorCartera consumidor) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(CARTERA_POR_CLIENTE)) {
+                stmt.setDate(1, java.sql.Date.valueOf(fechaCorte));
+                stmt.setFetchSize(10_000);
+                long[] tramos = new long[CarteraVencida.TRAMOS.length];
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        for (int t = 0; t < tramos.length; t++) {
+                            tramos[t] = Dinero.getCentavos(rs, t + 2);
+                        }
+                        consumidor.aceptar(rs.getInt(1), tramos, Dinero.getCentavos(rs, 7));
+                    }
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer la cartera: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // ==================== MORA ====================
+
+    // Causa la mora de todas las cuotas vencidas en un solo lote SQL, sin
+    // traer filas a Java. Cada cuota cobra los días desde su último corte (o
+    // desde el vencimiento) a la tasa de la regla que le toca por su atraso,
+    // sobre el capital sin pagar; después se suman en lote a Creditos y
+    // Clientes. Como fechaUltimaMora queda en el corte, repetir el mismo día
+    // no cobra nada; si la mora redondeada da 0 la fecha no avanza, para que
+    // esos días se cobren en el siguiente corte. Parámetro: fecha de corte.
+    // Devuelve lo causado por cliente
+    private static final String CAUSAR_MORA =
+            "SET NOCOUNT ON; " +
+            "DECLARE @corte DATE = ?; " +
+            "DECLARE @moras TABLE (idCuota INT PRIMARY KEY, idCredito INT NOT NULL, idCliente INT NOT NULL, " +
+            " atraso INT NOT NULL, dias INT NOT NULL, base DECIMAL(12,2) NOT NULL, tasa DECIMAL(9,6) NOT NULL, " +
+            " valor DECIMAL(12,2) NOT NULL); " +
+            "INSERT INTO @moras " +
+            "SELECT q.idCuota, q.idCredito, cr.idCliente, d.atraso, d.dias, b.base, r.tasaDiaria, " +
+            " ROUND(b.base * r.tasaDiaria * d.dias, 2) " +
+            "FROM Cuotas q WITH (UPDLOCK) JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "CROSS APPLY (SELECT DATEDIFF(day, q.fechaVencimiento, @corte) AS atraso, " +
+            " DATEDIFF(day, COALESCE(q.fechaUltimaMora, q.fechaVencimiento), @corte) AS dias) d " +
+            "CROSS APPLY (SELECT CASE WHEN q.valor > q.valorPagado THEN q.valor - q.valorPagado ELSE 0 END AS base) b " +
+            "CROSS APPLY (SELECT TOP 1 tasaDiaria FROM ReglasMora " +
+            " WHERE activo = 1 AND diasDesde <= d.atraso ORDER BY diasDesde DESC) r " +
+            "WHERE q.pagada = 0 AND q.fechaVencimiento < @corte AND cr.estado <> 'CANCELADO' AND d.dias > 0; " +
+            "UPDATE q SET mora = q.mora + m.valor, fechaUltimaMora = @corte " +
+            "FROM Cuotas q JOIN @moras m ON m.idCuota = q.idCuota WHERE m.valor > 0; " +
+            "INSERT INTO MorasCuotas (idCuota, fechaCorte, diasAtraso, diasCausados, base, tasaDiaria, valor) " +
+            "SELECT idCuota, @corte, atraso, dias, base, tasa, valor FROM @moras WHERE valor > 0; " +
+            "UPDATE cr SET saldoPendiente = cr.saldoPendiente + t.valor, version = cr.version + 1 " +
+            "FROM Creditos cr JOIN (SELECT idCredito, SUM(valor) AS valor FROM @moras WHERE valor > 0 " +
+            " GROUP BY idCredito) t ON t.idCredito = cr.idCredito; " +
+            "UPDATE c SET saldoPendiente = c.saldoPendiente + t.valor " +
+            "FROM Clientes c JOIN (SELECT idCliente, SUM(valor) AS valor FROM @moras WHERE valor > 0 " +
+            " GROUP BY idCliente) t ON t.idCliente = c.idCliente; " +
+            "SELECT idCliente, COUNT(*), COUNT(DISTINCT idCredito), SUM(valor) FROM @moras " +
+            "WHERE valor > 0 GROUP BY idCliente";
+
+    /**
+     * Causa la mora de las cuotas vencidas hasta la fecha de corte y la suma
+     * al saldo de sus créditos y clientes. Es idempotente por fecha: una
+     * segunda corrida del mismo corte no encuentra nada que cobrar.
+     *
+     * @return lo causado, o null si hubo error (no se aplicó nada)
+     */
+    public CausacionMora causarMora(LocalDate fechaCorte) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return null;
+            }
+
+            CausacionMora causacion = new CausacionMora(fechaCorte);
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(CAUSAR_MORA)) {
+                stmt.setDate(1, java.sql.Date.valueOf(fechaCorte));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        causacion.agregarCliente(rs.getInt(1), rs.getInt(2), rs.getInt(3), Dinero.getCentavos(rs, 4));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            for (Integer idCliente : causacion.getClientes()) {
+                BusEventos.publicar(EventoDominio.Tipo.CLIENTE_ACTUALIZADO, idCliente);
+            }
+            return causacion;
+        } catch (SQLException e) {
+            System.err.println("Error al causar la mora de las cuotas: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // ==================== CONCILIACIÓN ====================
+
+    // Cuotas sin pagar con la cédula del cliente, de la más antigua a la más reciente
+    private static final String PENDIENTES_POR_CEDULA =
+            "SELECT c.cedula, cr.idCliente, q.idCredito, q.valor + q.mora - q.valorPagado " +
+            "FROM Cuotas q JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "JOIN Clientes c ON c.idCliente = cr.idCliente " +
+            "WHERE q.pagada = 0 AND cr.estado <> 'CANCELADO' " +
+            "ORDER BY q.fechaVencimiento, q.idCredito, q.numeroCuota";
+
+    /**
+     * Recibe una cuota pendiente con la cédula de su cliente.
+     */
+    public interface ConsumidorPendientes {
+        void aceptar(String cedula, int idCliente, int idCredito, long saldoCentavos);
+    }
+
+    /**
+     * Recorre en una sola consulta todas las cuotas sin pagar, de la más
+     * antigua a la más reciente, sin crear objetos Cuota.
+     */
+    public boolean recorrerPendientes(ConsumidorPendientes consumidor) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(PENDIENTES_POR_CEDULA)) {
+                stmt.setFetchSize(10_000);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.aceptar(rs.getString(1), rs.getInt(2), rs.getInt(3), Dinero.getCentavos(rs, 4));
+                    }
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer las cuotas pendientes: " + e.getMessage());
+        }
+        return false;
+    }
+
     // ==================== MÉTODOS PRIVADOS ====================
 
     /**
@@ -372,14 +836,18 @@ public class CuotaDAO {
         Timestamp fechaVencimiento = rs.getTimestamp("fechaVencimiento");
         Timestamp fechaPago = rs.getTimestamp("fechaPago");
 
-        return new Cuota(
+        Cuota cuota = new Cuota(
                 rs.getInt("idCuota"),
                 rs.getInt("numeroCuota"),
                 rs.getInt("idCredito"),
-                rs.getDouble("valor"),
+                0,
                 fechaVencimiento != null ? new Date(fechaVencimiento.getTime()) : null,
                 fechaPago != null ? new Date(fechaPago.getTime()) : null,
                 rs.getBoolean("pagada")
         );
+        cuota.setValorCentavos(Dinero.getCentavos(rs, "valor"));
+        cuota.setMoraCentavos(Dinero.getCentavos(rs, "mora"));
+        cuota.setValorPagadoCentavos(Dinero.getCentavos(rs, "valorPagado"));
+        return cuota;
     }
 }
@@ -2,6 +2,7 @@ package com.taller.proyecto_bd.dao;
 
 import com.taller.proyecto_bd.models.DetalleVenta;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -18,6 +19,10 @@ import java.util.List;
 public class DetalleVentaDAO {
     private static DetalleVentaDAO instance;
 
+    private static final String INSERT_SQL =
+            "INSERT INTO DetalleVentas (idVenta, idProducto, cantidad, precioUnitario, subtotal, montoIVA, total) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     private DetalleVentaDAO() {
     }
 
@@ -39,23 +44,14 @@ public class DetalleVentaDAO {
             return false;
         }
 
-        String sql = "INSERT INTO DetalleVentas (idVenta, idProducto, cantidad, precioUnitario, subtotal, montoIVA, total) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 System.err.println("Error: No se pudo obtener conexión a la base de datos");
                 return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setInt(1, detalle.getIdVenta());
-                stmt.setInt(2, detalle.getIdProducto());
-                stmt.setInt(3, detalle.getCantidad());
-                stmt.setDouble(4, detalle.getPrecioUnitario());
-                stmt.setDouble(5, detalle.getSubtotal());
-                stmt.setDouble(6, detalle.getMontoIVA());
-                stmt.setDouble(7, detalle.getTotal());
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                asignarInsercion(stmt, detalle);
 
                 int filas = stmt.executeUpdate();
                 if (filas > 0) {
@@ -74,6 +70,29 @@ public class DetalleVentaDAO {
         return false;
     }
 
+    /**
+     * Inserta los detalles en lote dentro de la transacción del llamador.
+     */
+    void agregarLote(Connection conn, List<DetalleVenta> detalles) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (DetalleVenta detalle : detalles) {
+                asignarInsercion(stmt, detalle);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void asignarInsercion(PreparedStatement stmt, DetalleVenta detalle) throws SQLException {
+        stmt.setInt(1, detalle.getIdVenta());
+        stmt.setInt(2, detalle.getIdProducto());
+        stmt.setInt(3, detalle.getCantidad());
+        Dinero.setCentavos(stmt, 4, detalle.getPrecioUnitarioCentavos());
+        Dinero.setCentavos(stmt, 5, detalle.getSubtotalCentavos());
+        Dinero.setCentavos(stmt, 6, detalle.getMontoIVACentavos());
+        Dinero.setCentavos(stmt, 7, detalle.getTotalCentavos());
+    }
+
     /**
      * Obtener todos los detalles
      */
@@ -145,10 +164,10 @@ public class DetalleVentaDAO {
                 stmt.setInt(1, detalle.getIdVenta());
                 stmt.setInt(2, detalle.getIdProducto());
                 stmt.setInt(3, detalle.getCantidad());
-                stmt.setDouble(4, detalle.getPrecioUnitario());
-                stmt.setDouble(5, detalle.getSubtotal());
-                stmt.setDouble(6, detalle.getMontoIVA());
-                stmt.setDouble(7, detalle.getTotal());
+                Dinero.setCentavos(stmt, 4, detalle.getPrecioUnitarioCentavos());
+                Dinero.setCentavos(stmt, 5, detalle.getSubtotalCentavos());
+                Dinero.setCentavos(stmt, 6, detalle.getMontoIVACentavos());
+                Dinero.setCentavos(stmt, 7, detalle.getTotalCentavos());
                 stmt.setInt(8, detalle.getIdDetalle());
 
                 return stmt.executeUpdate() > 0;
@@ -224,7 +243,7 @@ public class DetalleVentaDAO {
                 stmt.setInt(1, idVenta);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
-                        return rs.getDouble("total");
+                        return Dinero.aDouble(Dinero.getCentavos(rs, "total"));
                     }
                 }
             }
@@ -264,16 +283,16 @@ public class DetalleVentaDAO {
     private DetalleVenta mapearDetalle(ResultSet rs) throws SQLException {
         Timestamp fechaRegistro = rs.getTimestamp("fechaRegistro");
 
-        return new DetalleVenta(
-                rs.getInt("idDetalle"),
-                rs.getInt("idVenta"),
-                rs.getInt("idProducto"),
-                rs.getInt("cantidad"),
-                rs.getDouble("precioUnitario"),
-                rs.getDouble("subtotal"),
-                rs.getDouble("montoIVA"),
-                rs.getDouble("total"),
-                fechaRegistro != null ? new Date(fechaRegistro.getTime()) : null
-        );
+        DetalleVenta detalle = new DetalleVenta();
+        detalle.setIdDetalle(rs.getInt("idDetalle"));
+        detalle.setIdVenta(rs.getInt("idVenta"));
+        detalle.setIdProducto(rs.getInt("idProducto"));
+        detalle.setCantidad(rs.getInt("cantidad"));
+        detalle.setPrecioUnitarioCentavos(Dinero.getCentavos(rs, "precioUnitario"));
+        detalle.setSubtotalCentavos(Dinero.getCentavos(rs, "subtotal"));
+        detalle.setMontoIVACentavos(Dinero.getCentavos(rs, "montoIVA"));
+        detalle.setTotalCentavos(Dinero.getCentavos(rs, "total"));
+        detalle.setFechaRegistro(fechaRegistro != null ? new Date(fechaRegistro.getTime()) : null);
+        return detalle;
     }
 }
@@ -0,0 +1,82 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.CambioDatos;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Origen de los cambios que lee SincronizacionCambiosService: la tabla
+ * CambiosDatos (CambioDatosDAO) o una lista en memoria (EnMemoria) para
+ * pruebas sin servidor.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public interface FuenteCambios {
+
+    /** Último idCambio registrado, o -1 si no se pudo consultar */
+    long ultimoCambio();
+
+    /** Hasta {@code limite} cambios con idCambio mayor al dado, en orden */
+    List<CambioDatos> leerDesde(long idCambio, int limite);
+
+    /** Los cambios con esos idCambio que ya se pueden leer, en orden */
+    List<CambioDatos> leerIds(Collection<Long> ids);
+
+    /** Borra los cambios anteriores a la fecha; -1 si hubo un error */
+    int purgarAnterioresA(LocalDateTime fecha);
+
+    /**
+     * Registro de cambios en memoria con el mismo contrato que la tabla,
+     * para probar la sincronización entre cajas sin servidor: cada "caja"
+     * usa su propio SincronizacionCambiosService sobre la misma instancia.
+     */
+    class EnMemoria implements FuenteCambios {
+        private final List<CambioDatos> cambios = new ArrayList<>();
+        private long siguiente = 1;
+
+        /**
+         * Anota un cambio como lo haría el trigger de la tabla.
+         */
+        public synchronized CambioDatos registrar(String tabla, int idRegistro, String operacion, String origen) {
+            CambioDatos cambio = new CambioDatos(siguiente++, tabla, idRegistro, operacion, origen);
+            cambios.add(cambio);
+            return cambio;
+        }
+
+        @Override
+        public synchronized long ultimoCambio() {
+            return siguiente - 1;
+        }
+
+        @Override
+        public synchronized List<CambioDatos> leerDesde(long idCambio, int limite) {
+            List<CambioDatos> resultado = new ArrayList<>();
+            for (CambioDatos c : cambios) {
+                if (c.getIdCambio() > idCambio && resultado.size() < limite) {
+                    resultado.add(c);
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        public synchronized List<CambioDatos> leerIds(Collection<Long> ids) {
+            List<CambioDatos> resultado = new ArrayList<>();
+            for (CambioDatos c : cambios) {
+                if (ids.contains(c.getIdCambio())) {
+                    resultado.add(c);
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        public synchronized int purgarAnterioresA(LocalDateTime fecha) {
+            return 0;
+        }
+    }
+}
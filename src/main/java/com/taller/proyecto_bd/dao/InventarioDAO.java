@@ -1,6 +1,11 @@
 package com.taller.proyecto_bd.dao;
 
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Inventario;
+import com.taller.proyecto_bd.models.MovimientoStock;
+import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.models.Venta;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
 
 import java.sql.*;
@@ -12,12 +17,65 @@ import java.util.List;
  * DAO para la entidad Inventario.
  * Maneja operaciones CRUD sobre inventarios en la base de datos SQL Server.
  *
+ * Todo cambio de cantidadActual deja su movimiento en MovimientosStock
+ * (kardex) dentro de la misma sentencia o transacción; las consultas sobre
+ * el kardex están en MovimientoStockDAO.
+ *
  * @author Sistema
  * @version 2.0 - Conectado a SQL Server
  */
 public class InventarioDAO {
     private static InventarioDAO instance;
 
+    // ==================== SQL ====================
+    // Orden fijo: mapearInventario lee por índice
+    private static final String COLUMNAS =
+            "i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
+            "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria";
+    private static final String SELECT_BASE =
+            "SELECT " + COLUMNAS + " " +
+            "FROM Inventarios i " +
+            "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
+            "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria ";
+
+    // Movimiento con signo en una sola sentencia: solo aplica si el stock no
+    // queda negativo y el OUTPUT registra en el kardex el cambio real.
+    // Parámetros: cantidad, tipo, motivo, idUsuario, idVenta, idProducto, cantidad
+    private static final String MOVER =
+            "UPDATE Inventarios SET cantidadActual = cantidadActual + ?, ultimaActualizacion = SYSDATETIME() " +
+            "OUTPUT inserted.idProducto, ?, inserted.cantidadActual - deleted.cantidadActual, ?, ?, ? " +
+            "INTO MovimientosStock (idProducto, tipo, cantidad, motivo, idUsuario, idVenta) " +
+            "WHERE idProducto = ? AND cantidadActual + ? >= 0";
+
+    // Venta: descuenta sin bajar de 0. Parámetros: cantidad, cantidad, motivo, idUsuario, idVenta, idProducto
+    private static final String DESCONTAR_VENTA =
+            "UPDATE Inventarios SET cantidadActual = CASE WHEN cantidadActual > ? THEN cantidadActual - ? ELSE 0 END, " +
+            "ultimaActualizacion = SYSDATETIME() " +
+            "OUTPUT inserted.idProducto, 'VENTA', inserted.cantidadActual - deleted.cantidadActual, ?, ?, ? " +
+            "INTO MovimientosStock (idProducto, tipo, cantidad, motivo, idUsuario, idVenta) " +
+            "WHERE idProducto = ? AND cantidadActual > 0";
+
+    // Sobrescriben la cantidad y registran la diferencia como AJUSTE (si la hay).
+    // Los dos últimos parámetros son siempre motivo e idUsuario.
+    private static final String ACTUALIZAR = ajusteDeCantidad(
+            "UPDATE Inventarios SET idProducto = ?, cantidadActual = ?, stockMinimo = ?, stockMaximo = ?, " +
+            "ultimaActualizacion = SYSDATETIME() " +
+            "OUTPUT inserted.idProducto, inserted.cantidadActual - deleted.cantidadActual INTO @cambios " +
+            "WHERE idInventario = ?");
+    private static final String FIJAR = ajusteDeCantidad(
+            "UPDATE Inventarios SET cantidadActual = ?, ultimaActualizacion = SYSDATETIME() " +
+            "OUTPUT inserted.idProducto, inserted.cantidadActual - deleted.cantidadActual INTO @cambios " +
+            "WHERE idProducto = ?");
+
+    private static String ajusteDeCantidad(String update) {
+        return "SET NOCOUNT ON; " +
+               "DECLARE @cambios TABLE (idProducto INT, cantidad INT); " +
+               update + "; " +
+               "INSERT INTO MovimientosStock (idProducto, tipo, cantidad, motivo, idUsuario) " +
+               "SELECT idProducto, 'AJUSTE', cantidad, ?, ? FROM @cambios WHERE cantidad <> 0; " +
+               "SELECT COUNT(*) FROM @cambios";
+    }
+
     private InventarioDAO() {
     }
 
@@ -54,6 +112,7 @@ public class InventarioDAO {
                 return false;
             }
 
+            conn.setAutoCommit(false);
             try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 stmt.setInt(1, inventario.getIdProducto());
                 stmt.setInt(2, inventario.getCantidadActual());
@@ -67,8 +126,18 @@ public class InventarioDAO {
                             inventario.setIdInventario(rs.getInt(1));
                         }
                     }
+                    // La cantidad inicial entra al kardex como saldo inicial
+                    if (inventario.getCantidadActual() != 0) {
+                        insertarMovimiento(conn, inventario.getIdProducto(), MovimientoStock.AJUSTE,
+                                inventario.getCantidadActual(), "Saldo inicial");
+                    }
+                    conn.commit();
                     return true;
                 }
+                conn.rollback();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.err.println("Error al insertar inventario: " + e.getMessage());
@@ -81,118 +150,66 @@ public class InventarioDAO {
      * Obtener todos los inventarios con información del producto
      */
     public List<Inventario> obtenerTodos() {
-        List<Inventario> lista = new ArrayList<>();
-        String sql = "SELECT i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
-                     "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria " +
-                     "FROM Inventarios i " +
-                     "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
-                     "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria " +
-                     "ORDER BY p.nombre";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearInventario(rs));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener inventarios: " + e.getMessage());
-        }
-        return lista;
+        return ConsultaBD.listar(SELECT_BASE + "ORDER BY p.nombre",
+                this::mapearInventario, "Error al obtener inventarios");
     }
 
     /**
      * Buscar inventario por ID
      */
     public Inventario obtenerPorId(int idInventario) {
-        String sql = "SELECT i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
-                     "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria " +
-                     "FROM Inventarios i " +
-                     "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
-                     "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria " +
-                     "WHERE i.idInventario = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, idInventario);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearInventario(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar inventario por ID: " + e.getMessage());
-        }
-        return null;
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE i.idInventario = ?",
+                stmt -> stmt.setInt(1, idInventario),
+                this::mapearInventario, "Error al buscar inventario por ID");
     }
 
     /**
      * Buscar inventario por ID de producto
      */
     public Inventario obtenerPorProducto(int idProducto) {
-        String sql = "SELECT i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
-                     "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria " +
-                     "FROM Inventarios i " +
-                     "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
-                     "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria " +
-                     "WHERE i.idProducto = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, idProducto);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearInventario(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar inventario por producto: " + e.getMessage());
-        }
-        return null;
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE i.idProducto = ?",
+                stmt -> stmt.setInt(1, idProducto),
+                this::mapearInventario, "Error al buscar inventario por producto");
     }
 
     /**
-     * Actualizar un inventario existente
+     * Actualizar un inventario existente.
+     * Si cambia la cantidad, la diferencia queda en el kardex como ajuste.
      */
     public boolean actualizar(Inventario inventario) {
         if (inventario == null || inventario.getIdInventario() <= 0) {
             return false;
         }
 
-        String sql = "UPDATE Inventarios SET idProducto = ?, cantidadActual = ?, stockMinimo = ?, " +
-                     "stockMaximo = ?, ultimaActualizacion = SYSDATETIME() WHERE idInventario = ?";
+        return ejecutarAjuste(ACTUALIZAR, inventario.getIdProducto(), stmt -> {
+            stmt.setInt(1, inventario.getIdProducto());
+            stmt.setInt(2, inventario.getCantidadActual());
+            stmt.setInt(3, inventario.getStockMinimo());
+            stmt.setInt(4, inventario.getStockMaximo());
+            stmt.setInt(5, inventario.getIdInventario());
+            return 6;
+        }, "Edición de inventario", "Error al actualizar inventario");
+    }
 
+    /**
+     * Actualizar solo los límites de stock del inventario de un producto
+     */
+    public boolean actualizarLimites(int idProducto, int stockMinimo, int stockMaximo) {
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, inventario.getIdProducto());
-                stmt.setInt(2, inventario.getCantidadActual());
-                stmt.setInt(3, inventario.getStockMinimo());
-                stmt.setInt(4, inventario.getStockMaximo());
-                stmt.setInt(5, inventario.getIdInventario());
-
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE Inventarios SET stockMinimo = ?, stockMaximo = ?, ultimaActualizacion = SYSDATETIME() " +
+                    "WHERE idProducto = ?")) {
+                stmt.setInt(1, stockMinimo);
+                stmt.setInt(2, stockMaximo);
+                stmt.setInt(3, idProducto);
                 return stmt.executeUpdate() > 0;
             }
         } catch (SQLException e) {
-            System.err.println("Error al actualizar inventario: " + e.getMessage());
+            System.err.println("Error al actualizar límites del inventario: " + e.getMessage());
         }
         return false;
     }
@@ -245,123 +262,91 @@ public class InventarioDAO {
      * Obtener inventarios con stock bajo (cantidad <= stockMinimo)
      */
     public List<Inventario> obtenerBajoStock() {
-        List<Inventario> lista = new ArrayList<>();
-        String sql = "SELECT i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
-                     "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria " +
-                     "FROM Inventarios i " +
-                     "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
-                     "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria " +
-                     "WHERE i.cantidadActual <= i.stockMinimo " +
-                     "ORDER BY i.cantidadActual ASC";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearInventario(rs));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener inventarios con bajo stock: " + e.getMessage());
-        }
-        return lista;
+        return ConsultaBD.listar(SELECT_BASE +
+                "WHERE i.cantidadActual <= i.stockMinimo ORDER BY i.cantidadActual ASC",
+                this::mapearInventario, "Error al obtener inventarios con bajo stock");
     }
 
     /**
      * Obtener inventarios con sobre stock (cantidad > stockMaximo)
      */
     public List<Inventario> obtenerSobreStock() {
-        List<Inventario> lista = new ArrayList<>();
-        String sql = "SELECT i.idInventario, i.idProducto, i.cantidadActual, i.stockMinimo, i.stockMaximo, " +
-                     "i.ultimaActualizacion, p.nombre AS nombreProducto, p.codigo, c.nombre AS categoria " +
-                     "FROM Inventarios i " +
-                     "INNER JOIN Productos p ON i.idProducto = p.idProducto " +
-                     "LEFT JOIN Categorias c ON p.idCategoria = c.idCategoria " +
-                     "WHERE i.cantidadActual > i.stockMaximo " +
-                     "ORDER BY i.cantidadActual DESC";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearInventario(rs));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener inventarios con sobre stock: " + e.getMessage());
-        }
-        return lista;
+        return ConsultaBD.listar(SELECT_BASE +
+                "WHERE i.cantidadActual > i.stockMaximo ORDER BY i.cantidadActual DESC",
+                this::mapearInventario, "Error al obtener inventarios con sobre stock");
     }
 
     /**
      * Registrar entrada de productos al inventario
      */
     public boolean registrarEntrada(int idProducto, int cantidad) {
+        return registrarEntrada(idProducto, cantidad, null);
+    }
+
+    /**
+     * Registrar entrada de productos al inventario indicando el motivo
+     */
+    public boolean registrarEntrada(int idProducto, int cantidad, String motivo) {
         if (cantidad <= 0) {
             return false;
         }
-
-        String sql = "UPDATE Inventarios SET cantidadActual = cantidadActual + ?, " +
-                     "ultimaActualizacion = SYSDATETIME() WHERE idProducto = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return false;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, cantidad);
-                stmt.setInt(2, idProducto);
-                return stmt.executeUpdate() > 0;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al registrar entrada: " + e.getMessage());
-        }
-        return false;
+        return mover(idProducto, MovimientoStock.ENTRADA, cantidad, motivo, null, "Error al registrar entrada");
     }
 
     /**
      * Registrar salida de productos del inventario
      */
     public boolean registrarSalida(int idProducto, int cantidad) {
+        return registrarSalida(idProducto, cantidad, null);
+    }
+
+    /**
+     * Registrar salida de productos del inventario indicando el motivo.
+     * La verificación de stock suficiente va en la misma sentencia.
+     */
+    public boolean registrarSalida(int idProducto, int cantidad, String motivo) {
         if (cantidad <= 0) {
             return false;
         }
-
-        // Verificar que hay suficiente stock
-        Inventario inv = obtenerPorProducto(idProducto);
-        if (inv == null || inv.getCantidadActual() < cantidad) {
+        if (!mover(idProducto, MovimientoStock.SALIDA, -cantidad, motivo, null, "Error al registrar salida")) {
             System.err.println("Error: Stock insuficiente para registrar salida");
             return false;
         }
+        return true;
+    }
 
-        String sql = "UPDATE Inventarios SET cantidadActual = cantidadActual - ?, " +
-                     "ultimaActualizacion = SYSDATETIME() WHERE idProducto = ?";
+    /**
+     * Descontar las unidades vendidas (sin bajar de 0) con la referencia de la venta
+     */
+    public boolean registrarVenta(int idProducto, int cantidad, Venta venta) {
+        if (cantidad <= 0 || venta == null) {
+            return false;
+        }
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 return false;
             }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, cantidad);
-                stmt.setInt(2, idProducto);
-                return stmt.executeUpdate() > 0;
-            }
+            descontar(conn, idProducto, cantidad, venta);
+            BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.STOCK_CAMBIADO, idProducto, -cantidad, 0));
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error al registrar salida: " + e.getMessage());
+            System.err.println("Error al registrar venta en inventario: " + e.getMessage());
         }
         return false;
     }
 
+    /**
+     * Devolver al inventario las unidades de una venta anulada
+     */
+    public boolean registrarAnulacion(int idProducto, int cantidad, int idVenta) {
+        if (cantidad <= 0) {
+            return false;
+        }
+        return mover(idProducto, MovimientoStock.ANULACION, cantidad, "Anulación de venta", idVenta,
+                "Error al registrar anulación");
+    }
+
     /**
      * Crear o actualizar inventario para un producto
      */
@@ -387,42 +372,184 @@ public class InventarioDAO {
         if (ajuste == 0) {
             return false;
         }
-
-        Inventario inv = obtenerPorProducto(idProducto);
-        if (inv == null) {
-            System.err.println("Error: No existe inventario para el producto");
+        if (!mover(idProducto, MovimientoStock.AJUSTE, ajuste, motivo, null, "Error al ajustar stock")) {
+            System.err.println("Error: No existe inventario para el producto o el ajuste resultaría en stock negativo");
             return false;
         }
+        return true;
+    }
 
-        int nuevoStock = inv.getCantidadActual() + ajuste;
-        if (nuevoStock < 0) {
-            System.err.println("Error: El ajuste resultaría en stock negativo");
+    /**
+     * Fijar la cantidad contada de un producto; la diferencia con la
+     * cantidad anterior queda en el kardex como ajuste.
+     */
+    public boolean fijarStock(int idProducto, int cantidad, String motivo) {
+        if (cantidad < 0) {
             return false;
         }
+        return ejecutarAjuste(FIJAR, idProducto, stmt -> {
+            stmt.setInt(1, cantidad);
+            stmt.setInt(2, idProducto);
+            return 3;
+        }, motivo, "Error al fijar stock");
+    }
+
+    // ==================== TRANSACCIONES ====================
 
-        inv.setCantidadActual(nuevoStock);
-        return actualizar(inv);
+    /**
+     * Descuenta del inventario dentro de la transacción del llamador, sin bajar de 0,
+     * y registra la salida en el kardex con la referencia de la venta.
+     */
+    void descontar(Connection conn, int idProducto, int cantidad, Venta venta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(DESCONTAR_VENTA)) {
+            stmt.setInt(1, cantidad);
+            stmt.setInt(2, cantidad);
+            stmt.setString(3, "Venta " + venta.getCodigo());
+            stmt.setObject(4, venta.getIdUsuario() > 0 ? venta.getIdUsuario() : null, Types.INTEGER);
+            stmt.setInt(5, venta.getIdVenta());
+            stmt.setInt(6, idProducto);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Devuelve al inventario las unidades de una venta anulada dentro de la
+     * transacción del llamador, con su movimiento ANULACION en el kardex.
+     */
+    void devolver(Connection conn, int idProducto, int cantidad, int idVenta) throws SQLException {
+        mover(conn, idProducto, MovimientoStock.ANULACION, cantidad, "Anulación de venta", idVenta);
+    }
+
+    private void insertarMovimiento(Connection conn, int idProducto, String tipo, int cantidad, String motivo)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO MovimientosStock (idProducto, tipo, cantidad, motivo, idUsuario) VALUES (?, ?, ?, ?, ?)")) {
+            stmt.setInt(1, idProducto);
+            stmt.setString(2, tipo);
+            stmt.setInt(3, cantidad);
+            stmt.setString(4, motivo);
+            stmt.setObject(5, usuarioActual(), Types.INTEGER);
+            stmt.executeUpdate();
+        }
     }
 
     // ==================== MÉTODOS PRIVADOS ====================
 
     /**
-     * Mapea un ResultSet a un objeto Inventario
+     * Asigna los parámetros propios de la sentencia y devuelve el índice del siguiente.
+     */
+    @FunctionalInterface
+    private interface ParametrosAjuste {
+        int asignar(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Aplica un movimiento con signo y lo registra en el kardex.
+     *
+     * @return false si no hay inventario para el producto o el stock quedaría negativo
+     */
+    private boolean mover(int idProducto, String tipo, int cantidad, String motivo, Integer idVenta,
+                          String mensajeError) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            if (mover(conn, idProducto, tipo, cantidad, motivo, idVenta)) {
+                BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.STOCK_CAMBIADO, idProducto, cantidad, 0));
+                return true;
+            }
+            return false;
+        } catch (SQLException e) {
+            System.err.println(mensajeError + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean mover(Connection conn, int idProducto, String tipo, int cantidad, String motivo, Integer idVenta)
+            throws SQLException {
+        if (!MovimientoStock.esTipoValido(tipo)) {
+            throw new SQLException("Tipo de movimiento inválido: " + tipo);
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(MOVER)) {
+            stmt.setInt(1, cantidad);
+            stmt.setString(2, tipo);
+            stmt.setString(3, recortar(motivo));
+            stmt.setObject(4, usuarioActual(), Types.INTEGER);
+            stmt.setObject(5, idVenta, Types.INTEGER);
+            stmt.setInt(6, idProducto);
+            stmt.setInt(7, cantidad);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Ejecuta ACTUALIZAR o FIJAR en una transacción.
+     *
+     * @return true si existía el inventario
+     */
+    private boolean ejecutarAjuste(String sql, int idProducto, ParametrosAjuste parametros, String motivo,
+                                   String mensajeError) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int siguiente = parametros.asignar(stmt);
+                stmt.setString(siguiente, recortar(motivo));
+                stmt.setObject(siguiente + 1, usuarioActual(), Types.INTEGER);
+                boolean existe;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    existe = rs.next() && rs.getInt(1) > 0;
+                }
+                conn.commit();
+                if (existe) {
+                    // La diferencia queda en el kardex; aquí no se conoce
+                    BusEventos.publicar(EventoDominio.Tipo.STOCK_CAMBIADO, idProducto);
+                }
+                return existe;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println(mensajeError + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static Integer usuarioActual() {
+        int idUsuario = SessionManager.getIdUsuarioActual();
+        return idUsuario > 0 ? idUsuario : null;
+    }
+
+    private static String recortar(String motivo) {
+        if (motivo == null || motivo.isBlank()) {
+            return null;
+        }
+        String texto = motivo.trim();
+        return texto.length() <= 200 ? texto : texto.substring(0, 200);
+    }
+
+    /**
+     * Mapea un ResultSet a un objeto Inventario (columnas en el orden de COLUMNAS)
      */
     private Inventario mapearInventario(ResultSet rs) throws SQLException {
-        Timestamp ultimaActualizacion = rs.getTimestamp("ultimaActualizacion");
+        Timestamp ultimaActualizacion = rs.getTimestamp(6);
 
         Inventario inv = new Inventario(
-                rs.getInt("idInventario"),
-                rs.getInt("idProducto"),
-                rs.getInt("cantidadActual"),
-                rs.getInt("stockMinimo"),
-                rs.getInt("stockMaximo"),
+                rs.getInt(1),   // idInventario
+                rs.getInt(2),   // idProducto
+                rs.getInt(3),   // cantidadActual
+                rs.getInt(4),   // stockMinimo
+                rs.getInt(5),   // stockMaximo
                 ultimaActualizacion != null ? new Date(ultimaActualizacion.getTime()) : null
         );
 
-        inv.setNombreProducto(rs.getString("nombreProducto"));
-        inv.setCategoria(rs.getString("categoria"));
+        inv.setNombreProducto(rs.getString(7));
+        inv.setCategoria(rs.getString(9));
 
         return inv;
     }
@@ -0,0 +1,213 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.MovimientoStock;
+import com.taller.proyecto_bd.models.SaldoStock;
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DAO de consulta del kardex (MovimientosStock) y de sus cortes (CortesStock).
+ * Los movimientos los escribe InventarioDAO; aquí se leen y se toman cortes.
+ *
+ * El saldo de un producto es su último corte más los movimientos
+ * posteriores, así que ninguna consulta recorre el historial completo:
+ * cada una lee un corte y, como mucho, los movimientos de un periodo
+ * entre cortes.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class MovimientoStockDAO {
+    // ==================== SINGLETON ====================
+    private static MovimientoStockDAO instance;
+
+    // ==================== SQL ====================
+    // Un corte solo cubre movimientos con más de 5 minutos: así ninguna
+    // transacción en curso puede confirmar después un movimiento con un ID
+    // menor al del corte y quedar fuera del saldo.
+    private static final int MARGEN_CORTE_MINUTOS = 5;
+
+    // Holgura al buscar la cola por fecha: los IDs y las fechas de dos
+    // inserciones simultáneas pueden quedar en orden distinto.
+    private static final String COLA_DESDE =
+            "m.fecha >= DATEADD(MINUTE, -1, COALESCE(c.fechaCorte, '19000101')) " +
+            "AND m.idMovimiento > COALESCE(c.idMovimientoHasta, 0)";
+
+    // Saldo por producto p: último corte (c) + movimientos posteriores (t).
+    // Con hastaFecha, ambos llevan un parámetro de fecha límite (exclusiva).
+    private static String saldoKardex(boolean hastaFecha) {
+        return "OUTER APPLY (SELECT TOP 1 idMovimientoHasta, fechaCorte, cantidad FROM CortesStock c " +
+               " WHERE c.idProducto = p.idProducto" + (hastaFecha ? " AND c.fechaCorte < ?" : "") +
+               " ORDER BY c.fechaCorte DESC, c.idMovimientoHasta DESC) c " +
+               "OUTER APPLY (SELECT SUM(m.cantidad) AS cantidad FROM MovimientosStock m " +
+               " WHERE m.idProducto = p.idProducto AND " + COLA_DESDE + (hastaFecha ? " AND m.fecha < ?" : "") +
+               ") t ";
+    }
+
+    private static final String SALDO_A_FECHA =
+            "SELECT p.idProducto, p.codigo, p.nombre, COALESCE(c.cantidad, 0) + COALESCE(t.cantidad, 0) " +
+            "FROM Productos p " + saldoKardex(true) +
+            "ORDER BY p.codigo";
+
+    private static final String CONCILIACION =
+            "WITH Saldos AS (" +
+            " SELECT p.idProducto, p.codigo, p.nombre, COALESCE(c.cantidad, 0) + COALESCE(t.cantidad, 0) AS kardex," +
+            "  p.stockActual, i.cantidadActual" +
+            " FROM Productos p LEFT JOIN Inventarios i ON i.idProducto = p.idProducto " + saldoKardex(false) +
+            ") " +
+            "SELECT idProducto, codigo, nombre, kardex, stockActual, cantidadActual FROM Saldos " +
+            "WHERE stockActual <> kardex OR cantidadActual <> kardex ORDER BY codigo";
+
+    // Últimos movimientos de un producto con el saldo después de cada uno,
+    // calculado hacia atrás desde el saldo actual. Parámetros: limite, idProducto
+    private static final String MOVIMIENTOS =
+            "WITH Ultimos AS (" +
+            " SELECT TOP (?) idMovimiento, idProducto, tipo, cantidad, motivo, idUsuario, idVenta, fecha" +
+            " FROM MovimientosStock WHERE idProducto = ? ORDER BY fecha DESC, idMovimiento DESC" +
+            "), Actual AS (" +
+            " SELECT COALESCE(c.cantidad, 0) + COALESCE(t.cantidad, 0) AS saldo" +
+            " FROM Productos p " + saldoKardex(false) + "WHERE p.idProducto = ?" +
+            ") " +
+            "SELECT u.idMovimiento, u.idProducto, u.tipo, u.cantidad, u.motivo, u.idUsuario, u.idVenta, u.fecha, " +
+            " a.saldo - COALESCE(SUM(u.cantidad) OVER (ORDER BY u.fecha DESC, u.idMovimiento DESC" +
+            "  ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) " +
+            "FROM Ultimos u CROSS JOIN Actual a ORDER BY u.fecha DESC, u.idMovimiento DESC";
+
+    // Un corte nuevo por cada producto con movimientos desde su último corte
+    private static final String TOMAR_CORTE =
+            "SET NOCOUNT ON; " +
+            "DECLARE @hasta BIGINT = (SELECT MAX(idMovimiento) FROM MovimientosStock " +
+            " WHERE fecha < DATEADD(MINUTE, -" + MARGEN_CORTE_MINUTOS + ", SYSDATETIME())); " +
+            "INSERT INTO CortesStock (idProducto, idMovimientoHasta, fechaCorte, cantidad) " +
+            "SELECT p.idProducto, n.hasta, n.fecha, COALESCE(c.cantidad, 0) + n.cantidad " +
+            "FROM Productos p " +
+            "OUTER APPLY (SELECT TOP 1 idMovimientoHasta, fechaCorte, cantidad FROM CortesStock c " +
+            " WHERE c.idProducto = p.idProducto ORDER BY c.fechaCorte DESC, c.idMovimientoHasta DESC) c " +
+            "CROSS APPLY (SELECT MAX(m.idMovimiento) AS hasta, MAX(m.fecha) AS fecha, SUM(m.cantidad) AS cantidad " +
+            " FROM MovimientosStock m WHERE m.idProducto = p.idProducto AND " + COLA_DESDE +
+            " AND m.idMovimiento <= @hasta) n " +
+            "WHERE n.hasta IS NOT NULL; " +
+            "SELECT @@ROWCOUNT";
+
+    // Saldo inicial para inventarios que existían antes del kardex
+    private static final String INICIALIZAR =
+            "INSERT INTO MovimientosStock (idProducto, tipo, cantidad, motivo) " +
+            "SELECT i.idProducto, 'AJUSTE', i.cantidadActual, 'Saldo inicial' FROM Inventarios i " +
+            "WHERE i.cantidadActual <> 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM MovimientosStock m WHERE m.idProducto = i.idProducto)";
+
+    private MovimientoStockDAO() {
+    }
+
+    public static synchronized MovimientoStockDAO getInstance() {
+        if (instance == null) {
+            instance = new MovimientoStockDAO();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Últimos movimientos de un producto, del más reciente al más antiguo,
+     * con el saldo resultante de cada uno.
+     */
+    public List<MovimientoStock> obtenerPorProducto(int idProducto, int limite) {
+        return ConsultaBD.listar(MOVIMIENTOS, stmt -> {
+            stmt.setInt(1, limite);
+            stmt.setInt(2, idProducto);
+            stmt.setInt(3, idProducto);
+        }, this::mapearMovimiento, "Error al obtener movimientos de stock");
+    }
+
+    /**
+     * Saldo de cada producto según el kardex antes del instante indicado.
+     *
+     * @param limite fecha y hora límite (exclusiva), ej: 1 de enero 00:00 para el saldo al 31 de diciembre
+     */
+    public List<SaldoStock> obtenerSaldosAFecha(Date limite) {
+        Timestamp hasta = new Timestamp(limite.getTime());
+        return ConsultaBD.listar(SALDO_A_FECHA, stmt -> {
+            stmt.setTimestamp(1, hasta);
+            stmt.setTimestamp(2, hasta);
+        }, rs -> new SaldoStock(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4)),
+                "Error al obtener saldos de stock a fecha");
+    }
+
+    /**
+     * Productos cuyo stockActual o cantidad en inventario no coincide con el kardex.
+     */
+    public List<SaldoStock> obtenerDiferencias() {
+        return ConsultaBD.listar(CONCILIACION, rs -> {
+            SaldoStock saldo = new SaldoStock(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4));
+            saldo.setStockProducto(rs.getInt(5));
+            int inventario = rs.getInt(6);
+            saldo.setCantidadInventario(rs.wasNull() ? null : inventario);
+            return saldo;
+        }, "Error al conciliar stock");
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Registra el saldo inicial de los inventarios sin movimientos.
+     *
+     * @return movimientos insertados, o -1 si hubo un error
+     */
+    public int inicializarSaldos() {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate(INICIALIZAR);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al inicializar saldos del kardex: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Toma un corte de los productos con movimientos desde su último corte.
+     *
+     * @return cortes insertados, o -1 si hubo un error
+     */
+    public int tomarCorte() {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(TOMAR_CORTE)) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al tomar corte de stock: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    private MovimientoStock mapearMovimiento(ResultSet rs) throws SQLException {
+        MovimientoStock movimiento = new MovimientoStock(rs.getLong(1), rs.getInt(2), rs.getString(3),
+                rs.getInt(4), rs.getString(5), rs.getTimestamp(8));
+        int idUsuario = rs.getInt(6);
+        movimiento.setIdUsuario(rs.wasNull() ? null : idUsuario);
+        int idVenta = rs.getInt(7);
+        movimiento.setIdVenta(rs.wasNull() ? null : idVenta);
+        movimiento.setSaldo(rs.getInt(9));
+        return movimiento;
+    }
+}
@@ -0,0 +1,354 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.Notificacion;
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO de la bandeja de salida de avisos (tabla Notificaciones).
+ *
+ * Los avisos se encolan con INSERT ... SELECT, dentro de la transacción del
+ * cambio que los origina cuando la hay. Cada inserción omite los avisos que
+ * ya se encolaron para el mismo tipo, referencia y destino dentro de la
+ * ventana indicada. UPDLOCK + HOLDLOCK hace que dos terminales que revisan
+ * a la vez no encolen dos veces lo mismo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class NotificacionDAO {
+    private static NotificacionDAO instance;
+
+    // ==================== SQL ====================
+    private static final String SIN_AVISO_RECIENTE =
+            "NOT EXISTS (SELECT 1 FROM Notificaciones n WITH (UPDLOCK, HOLDLOCK) " +
+            " WHERE n.tipo = %s AND n.referencia = %s AND n.destino = %s " +
+            " AND n.fechaCreacion > DATEADD(HOUR, -?, SYSDATETIME()))";
+
+    private static final String COLUMNAS_INSERTAR =
+            "INSERT INTO Notificaciones (tipo, canal, destino, referencia, asunto, mensaje) ";
+
+    // Parámetros: tipo, canal, destino, referencia, asunto, mensaje, tipo, referencia, destino, horas
+    private static final String ENCOLAR =
+            COLUMNAS_INSERTAR + "SELECT ?, ?, ?, ?, ?, ? WHERE " + String.format(SIN_AVISO_RECIENTE, "?", "?", "?");
+
+    private static final String ADMINISTRADORES =
+            "FROM Usuarios u WHERE u.activo = 1 AND u.email IS NOT NULL " +
+            "AND UPPER(u.rol) IN ('ADMIN', 'ADMINISTRADOR') ";
+
+    // Un aviso por administrador. Parámetros: tipo, canal, referencia, asunto, mensaje, tipo, referencia, horas
+    private static final String ENCOLAR_ADMINISTRADORES =
+            COLUMNAS_INSERTAR + "SELECT ?, ?, u.email, ?, ?, ? " + ADMINISTRADORES +
+            "AND " + String.format(SIN_AVISO_RECIENTE, "?", "?", "u.email");
+
+    // Parámetros: canal, hoy, hoy, horas
+    private static final String ENCOLAR_CUOTAS_VENCIDAS =
+            COLUMNAS_INSERTAR +
+            "SELECT 'CUOTA_VENCIDA', ?, c.email, CAST(q.idCuota AS VARCHAR(60)), N'Cuota vencida', " +
+            " CONCAT(c.nombre, ' ', c.apellido, ': su cuota #', q.numeroCuota, ' del crédito #', q.idCredito, " +
+            "  ' está vencida desde el ', CONVERT(VARCHAR(10), q.fechaVencimiento, 23), " +
+            "  '. Saldo: $', CAST(q.valor + q.mora - q.valorPagado AS DECIMAL(12,2)), " +
+            "  '. Días de atraso: ', DATEDIFF(DAY, q.fechaVencimiento, ?), '.') " +
+            "FROM Cuotas q " +
+            "JOIN Creditos cr ON cr.idCredito = q.idCredito " +
+            "JOIN Clientes c ON c.idCliente = cr.idCliente " +
+            "WHERE q.pagada = 0 AND q.fechaVencimiento < ? AND cr.estado <> 'CANCELADO' " +
+            "AND c.activo = 1 AND c.email IS NOT NULL " +
+            "AND " + String.format(SIN_AVISO_RECIENTE, "'CUOTA_VENCIDA'", "CAST(q.idCuota AS VARCHAR(60))", "c.email");
+
+    // Un aviso por producto y administrador. Parámetros: canal, horas; %s: filtro de productos
+    private static final String ENCOLAR_STOCK_BAJO =
+            COLUMNAS_INSERTAR +
+            "SELECT 'STOCK_BAJO', ?, u.email, CAST(i.idProducto AS VARCHAR(60)), N'Stock bajo', " +
+            " CONCAT('El producto ', p.nombre, ' tiene stock bajo (', i.cantidadActual, " +
+            "  ' unidades, mínimo ', i.stockMinimo, ').') " +
+            "FROM Inventarios i " +
+            "JOIN Productos p ON p.idProducto = i.idProducto " +
+            "CROSS JOIN Usuarios u " +
+            "WHERE i.cantidadActual <= i.stockMinimo AND p.activo = 1 %s" +
+            "AND u.activo = 1 AND u.email IS NOT NULL AND UPPER(u.rol) IN ('ADMIN', 'ADMINISTRADOR') " +
+            "AND " + String.format(SIN_AVISO_RECIENTE, "'STOCK_BAJO'", "CAST(i.idProducto AS VARCHAR(60))", "u.email");
+
+    // READPAST: cada terminal toma filas distintas sin esperar a las otras.
+    // Parámetros: máximo, segundos de reserva
+    private static final String TOMAR_POR_ENVIAR =
+            "WITH lote AS (" +
+            " SELECT TOP (?) * FROM Notificaciones WITH (READPAST, UPDLOCK, ROWLOCK) " +
+            " WHERE estado IN ('PENDIENTE', 'ENVIANDO') AND fechaProximoIntento <= SYSDATETIME() " +
+            " ORDER BY fechaProximoIntento) " +
+            "UPDATE lote SET estado = 'ENVIANDO', intentos = intentos + 1, " +
+            " fechaProximoIntento = DATEADD(SECOND, ?, SYSDATETIME()) " +
+            "OUTPUT inserted.idNotificacion, inserted.tipo, inserted.canal, inserted.destino, " +
+            " inserted.referencia, inserted.asunto, inserted.mensaje, inserted.intentos";
+
+    private static final String MARCAR_ENVIADA =
+            "UPDATE Notificaciones SET estado = 'ENVIADA', fechaEnvio = SYSDATETIME(), ultimoError = NULL " +
+            "WHERE idNotificacion = ?";
+
+    // Parámetros: intentos máximos, segundos de espera, error, id
+    private static final String MARCAR_FALLO =
+            "UPDATE Notificaciones SET estado = CASE WHEN intentos >= ? THEN 'FALLIDA' ELSE 'PENDIENTE' END, " +
+            " fechaProximoIntento = DATEADD(SECOND, ?, SYSDATETIME()), ultimoError = LEFT(?, 300) " +
+            "WHERE idNotificacion = ?";
+
+    private static final String PURGAR_ENVIADAS =
+            "DELETE FROM Notificaciones WHERE estado = 'ENVIADA' AND fechaEnvio < DATEADD(DAY, -?, SYSDATETIME())";
+
+    private NotificacionDAO() {
+    }
+
+    public static synchronized NotificacionDAO getInstance() {
+        if (instance == null) {
+            instance = new NotificacionDAO();
+        }
+        return instance;
+    }
+
+    // ==================== ENCOLAR ====================
+
+    /**
+     * Encola un aviso si no se encoló el mismo en las últimas horas indicadas.
+     *
+     * @return true si quedó encolado
+     */
+    public boolean encolar(Notificacion notificacion, int horasSinRepetir) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+            return encolar(conn, notificacion, horasSinRepetir);
+        } catch (SQLException e) {
+            System.err.println("Error al encolar notificación " + notificacion + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Encola un aviso dentro de una transacción abierta por otro DAO.
+     */
+    boolean encolar(Connection conn, Notificacion n, int horasSinRepetir) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ENCOLAR)) {
+            stmt.setString(1, n.getTipo());
+            stmt.setString(2, n.getCanal());
+            stmt.setString(3, n.getDestino());
+            stmt.setString(4, n.getReferencia());
+            stmt.setString(5, n.getAsunto());
+            stmt.setString(6, n.getMensaje());
+            stmt.setString(7, n.getTipo());
+            stmt.setString(8, n.getReferencia());
+            stmt.setString(9, n.getDestino());
+            stmt.setInt(10, horasSinRepetir);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Encola el mismo aviso para cada administrador activo con correo.
+     *
+     * @return avisos encolados
+     */
+    public int encolarAdministradores(String tipo, String referencia, String asunto, String mensaje,
+                                      int horasSinRepetir) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return 0;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(ENCOLAR_ADMINISTRADORES)) {
+                stmt.setString(1, tipo);
+                stmt.setString(2, Notificacion.CANAL_CORREO);
+                stmt.setString(3, referencia);
+                stmt.setString(4, asunto);
+                stmt.setString(5, mensaje);
+                stmt.setString(6, tipo);
+                stmt.setString(7, referencia);
+                stmt.setInt(8, horasSinRepetir);
+                return stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al encolar aviso " + tipo + " a administradores: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Encola en conjunto un aviso por cada cuota vencida de clientes con
+     * correo (uno por cuota cada horasSinRepetir).
+     *
+     * @return avisos encolados, o -1 si hubo error
+     */
+    public int encolarCuotasVencidas(LocalDate hoy, int horasSinRepetir) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(ENCOLAR_CUOTAS_VENCIDAS)) {
+                Date fecha = Date.valueOf(hoy);
+                stmt.setString(1, Notificacion.CANAL_CORREO);
+                stmt.setDate(2, fecha);
+                stmt.setDate(3, fecha);
+                stmt.setInt(4, horasSinRepetir);
+                return stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al encolar avisos de cuotas vencidas: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Encola en conjunto los avisos de todos los productos con stock bajo.
+     *
+     * @return avisos encolados, o -1 si hubo error
+     */
+    public int encolarStockBajo(int horasSinRepetir) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(String.format(ENCOLAR_STOCK_BAJO, ""))) {
+                stmt.setString(1, Notificacion.CANAL_CORREO);
+                stmt.setInt(2, horasSinRepetir);
+                return stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al encolar avisos de stock bajo: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Encola los avisos de stock bajo de los productos indicados dentro de
+     * una transacción abierta (ej: la de la venta que descontó el stock).
+     */
+    int encolarStockBajo(Connection conn, Collection<Integer> idsProducto, int horasSinRepetir) throws SQLException {
+        if (idsProducto.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = new ArrayList<>(idsProducto);
+        int encolados = 0;
+        for (int desde = 0; desde < ids.size(); desde += CuotaDAO.MAXIMO_PARAMETROS) {
+            List<Integer> tramo = ids.subList(desde, Math.min(desde + CuotaDAO.MAXIMO_PARAMETROS, ids.size()));
+            String filtro = "AND i.idProducto IN (" + String.join(",", Collections.nCopies(tramo.size(), "?")) + ") ";
+            try (PreparedStatement stmt = conn.prepareStatement(String.format(ENCOLAR_STOCK_BAJO, filtro))) {
+                int i = 1;
+                stmt.setString(i++, Notificacion.CANAL_CORREO);
+                for (Integer id : tramo) {
+                    stmt.setInt(i++, id);
+                }
+                stmt.setInt(i, horasSinRepetir);
+                encolados += stmt.executeUpdate();
+            }
+        }
+        return encolados;
+    }
+
+    // ==================== DESPACHO ====================
+
+    /**
+     * Toma hasta maximo avisos por enviar y los reserva por los segundos
+     * indicados; si no se marcan antes, otra terminal puede volver a tomarlos.
+     *
+     * @return los avisos tomados, o null si hubo error
+     */
+    public List<Notificacion> tomarPorEnviar(int maximo, int segundosReserva) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return null;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(TOMAR_POR_ENVIAR)) {
+                stmt.setInt(1, maximo);
+                stmt.setInt(2, segundosReserva);
+                List<Notificacion> tomadas = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Notificacion n = new Notificacion(rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.getString(5), rs.getString(6), rs.getString(7));
+                        n.setIdNotificacion(rs.getLong(1));
+                        n.setIntentos(rs.getInt(8));
+                        tomadas.add(n);
+                    }
+                }
+                return tomadas;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al tomar notificaciones por enviar: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Registra el resultado de un despacho en lote: los enviados quedan
+     * ENVIADA y los fallidos vuelven a PENDIENTE tras su espera, o quedan
+     * FALLIDA al agotar los intentos.
+     *
+     * @param fallos aviso fallido → mensaje de error
+     * @param esperas aviso fallido → segundos hasta el siguiente intento
+     */
+    public void registrarDespacho(List<Notificacion> enviadas, Map<Notificacion, String> fallos,
+                                  Map<Notificacion, Integer> esperas, int intentosMaximos) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return;
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                if (!enviadas.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(MARCAR_ENVIADA)) {
+                        for (Notificacion n : enviadas) {
+                            stmt.setLong(1, n.getIdNotificacion());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                if (!fallos.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(MARCAR_FALLO)) {
+                        for (Map.Entry<Notificacion, String> e : fallos.entrySet()) {
+                            stmt.setInt(1, intentosMaximos);
+                            stmt.setInt(2, esperas.getOrDefault(e.getKey(), 0));
+                            stmt.setString(3, e.getValue());
+                            stmt.setLong(4, e.getKey().getIdNotificacion());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            // Las filas siguen reservadas: se reintentan al vencer la reserva
+            System.err.println("Error al registrar el despacho de notificaciones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los avisos enviados hace más de los días indicados.
+     *
+     * @return filas eliminadas
+     */
+    public int purgarEnviadas(int dias) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return 0;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(PURGAR_ENVIADAS)) {
+                stmt.setInt(1, dias);
+                return stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al purgar notificaciones enviadas: " + e.getMessage());
+        }
+        return 0;
+    }
+}
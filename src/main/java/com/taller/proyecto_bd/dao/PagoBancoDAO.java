@@ -0,0 +1,158 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.AplicacionPago;
+import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.PagoBanco;
+import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DAO de los pagos recibidos en el banco (tabla PagosBanco).
+ * Cada pago aplicado queda registrado con la referencia del banco, que es
+ * única: volver a cargar el mismo extracto no aplica dos veces un pago.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PagoBancoDAO {
+    private static PagoBancoDAO instance;
+
+    // ==================== SQL ====================
+    // UPDLOCK + HOLDLOCK bloquea también las referencias que aún no existen:
+    // dos conciliaciones del mismo extracto no pueden aplicar el mismo pago
+    private static final String REFERENCIAS_REGISTRADAS =
+            "SELECT referencia FROM PagosBanco WITH (UPDLOCK, HOLDLOCK) WHERE referencia IN (%s)";
+
+    private static final String REGISTRAR =
+            "INSERT INTO PagosBanco (referencia, idCliente, monto, montoAplicado, fechaPago, archivo, idUsuario) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private PagoBancoDAO() {
+    }
+
+    public static synchronized PagoBancoDAO getInstance() {
+        if (instance == null) {
+            instance = new PagoBancoDAO();
+        }
+        return instance;
+    }
+
+    // ==================== APLICACIÓN ====================
+
+    /**
+     * Aplica un lote de pagos del banco en una sola transacción: omite los
+     * de referencias ya registradas (quedan marcados como ya registrados),
+     * reparte los demás con CuotaDAO.aplicarPagos, los registra y deja una
+     * auditoría del lote. Cada pago aplicado recibe su reparto.
+     *
+     * @param idUsuario usuario que concilia (0: sin auditoría)
+     * @param archivo nombre del extracto, para la auditoría
+     * @return false si hubo error (no se aplicó nada del lote)
+     */
+    public boolean aplicarLote(List<PagoBanco> pagos, int idUsuario, String archivo) {
+        if (pagos.isEmpty()) {
+            return true;
+        }
+
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                Set<String> registradas = referenciasRegistradas(conn, pagos);
+                List<PagoBanco> aAplicar = new ArrayList<>(pagos.size());
+                List<CuotaDAO.SolicitudPago> solicitudes = new ArrayList<>(pagos.size());
+                for (PagoBanco pago : pagos) {
+                    if (registradas.contains(pago.getReferencia())) {
+                        pago.setYaRegistrado(true);
+                    } else {
+                        aAplicar.add(pago);
+                        solicitudes.add(new CuotaDAO.SolicitudPago(pago.getIdsCredito(),
+                                pago.getMontoCentavos(), pago.getFechaPago()));
+                    }
+                }
+
+                CuotaDAO.ResultadoLote lote = CuotaDAO.getInstance().aplicarPagos(conn, solicitudes);
+                long aplicado = 0;
+                int cuotas = 0;
+                for (int i = 0; i < aAplicar.size(); i++) {
+                    AplicacionPago aplicacion = lote.aplicaciones.get(i);
+                    aAplicar.get(i).setAplicacion(aplicacion);
+                    aplicado += aplicacion.getAplicadoCentavos();
+                    cuotas += aplicacion.getAbonos().size();
+                }
+                registrar(conn, aAplicar, idUsuario, archivo);
+                if (idUsuario > 0 && !aAplicar.isEmpty()) {
+                    AuditoriaDAO.getInstance().agregar(conn, new Auditoria(idUsuario, "CONCILIACION_BANCO", "Cuota",
+                            String.format("Conciliación %s: %d pagos del banco por $%.2f aplicados a %d cuotas",
+                                    archivo, aAplicar.size(), Dinero.aDouble(aplicado), cuotas),
+                            "127.0.0.1"));
+                }
+
+                conn.commit();
+                CuotaDAO.getInstance().publicarPago(lote);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar pagos del banco: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+
+    private Set<String> referenciasRegistradas(Connection conn, List<PagoBanco> pagos) throws SQLException {
+        Set<String> registradas = new HashSet<>();
+        for (int desde = 0; desde < pagos.size(); desde += CuotaDAO.MAXIMO_PARAMETROS) {
+            List<PagoBanco> tramo = pagos.subList(desde, Math.min(desde + CuotaDAO.MAXIMO_PARAMETROS, pagos.size()));
+            String marcas = String.join(",", Collections.nCopies(tramo.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement(String.format(REFERENCIAS_REGISTRADAS, marcas))) {
+                for (int i = 0; i < tramo.size(); i++) {
+                    stmt.setString(i + 1, tramo.get(i).getReferencia());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        registradas.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        return registradas;
+    }
+
+    /**
+     * Registra los pagos aplicados; los que no alcanzaron ninguna cuota
+     * (sin saldo pendiente al aplicar) también, para no repetirlos.
+     */
+    private void registrar(Connection conn, List<PagoBanco> pagos, int idUsuario, String archivo) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(REGISTRAR)) {
+            for (PagoBanco pago : pagos) {
+                stmt.setString(1, pago.getReferencia());
+                stmt.setInt(2, pago.getIdCliente());
+                Dinero.setCentavos(stmt, 3, pago.getMontoCentavos());
+                Dinero.setCentavos(stmt, 4, pago.getAplicacion().getAplicadoCentavos());
+                stmt.setDate(5, new java.sql.Date(pago.getFechaPago().getTime()));
+                stmt.setString(6, archivo);
+                if (idUsuario > 0) {
+                    stmt.setInt(7, idUsuario);
+                } else {
+                    stmt.setNull(7, Types.INTEGER);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.CambioPrecio;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
+import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * DAO de precios de venta: repreciado por margen de categoría e historial.
+ *
+ * El precio nuevo de cada producto es precioCompra * (1 + margen/100)
+ * redondeado hacia arriba al múltiplo indicado. El margen es el
+ * porcentajeUtilidad de su categoría; si es 0 se hereda el del padre.
+ * Todo se calcula en SQL sobre el conjunto completo (una consulta para la
+ * vista previa y un UPDATE para aplicar), no producto por producto.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PrecioDAO {
+    // ==================== SINGLETON ====================
+    private static PrecioDAO instance;
+
+    // ==================== SQL ====================
+    // Árbol de categorías desde las raíces con el margen efectivo (heredado si es 0).
+    // enAlcance marca la categoría elegida y, si se pide, sus descendientes.
+    // Parámetros: idCategoria, idCategoria, incluirSubcategorias, idCategoria, redondeo, redondeo
+    private static final String CALCULO =
+            "WITH Arbol AS (" +
+            " SELECT idCategoria, nombre, CAST(porcentajeUtilidad AS DECIMAL(5,2)) AS margen," +
+            "  CAST(CASE WHEN ? IS NULL OR idCategoria = ? THEN 1 ELSE 0 END AS BIT) AS enAlcance" +
+            " FROM Categorias WHERE idCategoriaPadre IS NULL" +
+            " UNION ALL" +
+            " SELECT c.idCategoria, c.nombre," +
+            "  CAST(CASE WHEN c.porcentajeUtilidad > 0 THEN c.porcentajeUtilidad ELSE a.margen END AS DECIMAL(5,2))," +
+            "  CAST(CASE WHEN (a.enAlcance = 1 AND ? = 1) OR c.idCategoria = ? THEN 1 ELSE 0 END AS BIT)" +
+            " FROM Categorias c JOIN Arbol a ON c.idCategoriaPadre = a.idCategoria" +
+            "), Nuevos AS (" +
+            " SELECT p.idProducto, a.nombre AS categoria," +
+            "  CAST(CEILING(p.precioCompra * (100 + a.margen) / 100 / ?) * ? AS DECIMAL(12,2)) AS precioNuevo" +
+            " FROM Productos p JOIN Arbol a ON a.idCategoria = p.idCategoria" +
+            " WHERE a.enAlcance = 1 AND a.margen > 0 AND p.activo = 1 AND p.precioCompra > 0" +
+            ") ";
+
+    private static final String PREVISUALIZAR = CALCULO +
+            "SELECT p.idProducto, p.codigo, p.nombre, n.categoria, p.precioCompra, p.precioVenta, n.precioNuevo " +
+            "FROM Nuevos n JOIN Productos p ON p.idProducto = n.idProducto " +
+            "WHERE n.precioNuevo <> p.precioVenta ORDER BY p.codigo";
+
+    // Parámetros adicionales: idUsuario, motivo
+    private static final String APLICAR = CALCULO +
+            "UPDATE p SET precioVenta = n.precioNuevo, fechaUltimaActualizacion = SYSDATETIME(), version = p.version + 1 " +
+            "OUTPUT inserted.idProducto, inserted.precioCompra, deleted.precioVenta, inserted.precioVenta, ?, ? " +
+            "INTO HistorialPrecios (idProducto, precioCompra, precioAnterior, precioNuevo, idUsuario, motivo) " +
+            "FROM Productos p JOIN Nuevos n ON n.idProducto = p.idProducto " +
+            "WHERE n.precioNuevo <> p.precioVenta";
+
+    private static final String HISTORIAL =
+            "SELECT h.idProducto, p.codigo, p.nombre, h.precioCompra, h.precioAnterior, h.precioNuevo, " +
+            "h.idUsuario, h.motivo, h.fechaCambio " +
+            "FROM HistorialPrecios h JOIN Productos p ON p.idProducto = h.idProducto ";
+
+    private PrecioDAO() {
+    }
+
+    public static synchronized PrecioDAO getInstance() {
+        if (instance == null) {
+            instance = new PrecioDAO();
+        }
+        return instance;
+    }
+
+    // ==================== REPRECIADO ====================
+
+    /**
+     * Calcula los cambios de precio sin aplicarlos.
+     *
+     * @param idCategoria categoría a repreciar, o null para todas
+     * @param incluirSubcategorias aplicar también a los descendientes de la categoría
+     * @param redondeoCentavos múltiplo al que se redondea hacia arriba (ej: 10000 = $100)
+     */
+    public List<CambioPrecio> previsualizarReprecio(Integer idCategoria, boolean incluirSubcategorias,
+                                                    long redondeoCentavos) {
+        return ConsultaBD.listar(PREVISUALIZAR,
+                stmt -> asignarCalculo(stmt, idCategoria, incluirSubcategorias, redondeoCentavos),
+                rs -> new CambioPrecio(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        Dinero.getCentavos(rs, 5), Dinero.getCentavos(rs, 6), Dinero.getCentavos(rs, 7)),
+                "Error al previsualizar repreciado");
+    }
+
+    /**
+     * Aplica el repreciado en un solo UPDATE y registra cada cambio en
+     * HistorialPrecios dentro de la misma sentencia.
+     *
+     * @return productos actualizados, o -1 si hubo un error
+     */
+    public int aplicarReprecio(Integer idCategoria, boolean incluirSubcategorias, long redondeoCentavos,
+                               int idUsuario, String motivo) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                System.err.println("No se pudo obtener conexión a la base de datos");
+                return -1;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(APLICAR)) {
+                int siguiente = asignarCalculo(stmt, idCategoria, incluirSubcategorias, redondeoCentavos);
+                if (idUsuario > 0) {
+                    stmt.setInt(siguiente++, idUsuario);
+                } else {
+                    stmt.setNull(siguiente++, Types.INTEGER);
+                }
+                stmt.setString(siguiente, motivo);
+                int actualizados = stmt.executeUpdate();
+                if (actualizados > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.CATALOGO_CAMBIADO, 0);
+                }
+                return actualizados;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar repreciado: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // ==================== HISTORIAL ====================
+
+    /**
+     * Cambios de precio de un producto, del más reciente al más antiguo.
+     */
+    public List<CambioPrecio> obtenerHistorial(int idProducto) {
+        return ConsultaBD.listar(HISTORIAL + "WHERE h.idProducto = ? ORDER BY h.fechaCambio DESC",
+                stmt -> stmt.setInt(1, idProducto),
+                this::mapearHistorial, "Error al obtener historial de precios");
+    }
+
+    /**
+     * Últimos cambios de precio de todos los productos.
+     */
+    public List<CambioPrecio> obtenerRecientes(int limite) {
+        return ConsultaBD.listar("SELECT TOP (?) " + HISTORIAL.substring("SELECT ".length())
+                        + "ORDER BY h.fechaCambio DESC, h.idHistorial DESC",
+                stmt -> stmt.setInt(1, limite),
+                this::mapearHistorial, "Error al obtener historial de precios");
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    /**
+     * Asigna los parámetros de CALCULO y devuelve el índice del siguiente.
+     */
+    private static int asignarCalculo(PreparedStatement stmt, Integer idCategoria, boolean incluirSubcategorias,
+                                      long redondeoCentavos) throws SQLException {
+        long redondeo = Math.max(redondeoCentavos, 1);
+        if (idCategoria != null) {
+            stmt.setInt(1, idCategoria);
+            stmt.setInt(2, idCategoria);
+            stmt.setInt(4, idCategoria);
+        } else {
+            stmt.setNull(1, Types.INTEGER);
+            stmt.setNull(2, Types.INTEGER);
+            stmt.setNull(4, Types.INTEGER);
+        }
+        // Sin categoría elegida se reprecian todas, subcategorías incluidas
+        stmt.setInt(3, incluirSubcategorias || idCategoria == null ? 1 : 0);
+        Dinero.setCentavos(stmt, 5, redondeo);
+        Dinero.setCentavos(stmt, 6, redondeo);
+        return 7;
+    }
+
+    private CambioPrecio mapearHistorial(ResultSet rs) throws SQLException {
+        CambioPrecio cambio = new CambioPrecio(rs.getInt(1), rs.getString(2), rs.getString(3), null,
+                Dinero.getCentavos(rs, 4), Dinero.getCentavos(rs, 5), Dinero.getCentavos(rs, 6));
+        int idUsuario = rs.getInt(7);
+        cambio.setIdUsuario(rs.wasNull() ? null : idUsuario);
+        cambio.setMotivo(rs.getString(8));
+        cambio.setFecha(rs.getTimestamp(9));
+        return cambio;
+    }
+}
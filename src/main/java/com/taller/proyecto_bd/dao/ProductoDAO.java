@@ -1,11 +1,25 @@
 package com.taller.proyecto_bd.dao;
 
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * DAO para la entidad Producto.
@@ -18,6 +32,30 @@ public class ProductoDAO {
     // ==================== SINGLETON ====================
     private static ProductoDAO instance;
 
+    // ==================== SQL ====================
+    // Orden fijo: mapearProducto lee por índice
+    private static final String COLUMNAS =
+            "idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
+            "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
+            "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen, version";
+    private static final String SELECT_BASE = "SELECT " + COLUMNAS + " FROM Productos ";
+
+    // Edición con control optimista: no toca stockActual (cambia por ajustes
+    // con signo) y solo aplica si nadie editó el producto desde que se leyó
+    private static final String ACTUALIZAR =
+            "UPDATE Productos SET codigo = ?, nombre = ?, descripcion = ?, marca = ?, " +
+            "modelo = ?, idCategoria = ?, precioCompra = ?, precioVenta = ?, " +
+            "stockMinimo = ?, stockMaximo = ?, unidadMedida = ?, activo = ?, garantiaMeses = ?, " +
+            "ubicacionAlmacen = ?, version = version + 1 " +
+            "WHERE idProducto = ? AND version = ?";
+    private static final String EXISTE = "SELECT 1 FROM Productos WHERE idProducto = ?";
+
+    // Ajuste con signo que no aplica si el stock quedaría negativo; no sube la
+    // versión porque conmuta con las ediciones
+    private static final String AJUSTAR_STOCK =
+            "UPDATE Productos SET stockActual = stockActual + ?, fechaUltimaActualizacion = SYSDATETIME() " +
+            "WHERE idProducto = ? AND stockActual + ? >= 0";
+
     private ProductoDAO() {
     }
 
@@ -69,8 +107,10 @@ public class ProductoDAO {
                     try (ResultSet rs = stmt.getGeneratedKeys()) {
                         if (rs.next()) {
                             producto.setIdProducto(rs.getInt(1));
+                            producto.setVersion(1);
                         }
                     }
+                    BusEventos.publicar(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO, producto.getIdProducto());
                     return true;
                 }
             }
@@ -85,123 +125,94 @@ public class ProductoDAO {
      * Obtener todos los productos
      */
     public List<Producto> obtenerTodos() {
-        List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos ORDER BY nombre";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearProducto(rs));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener productos: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return lista;
+        return ConsultaBD.listar(SELECT_BASE + "ORDER BY nombre",
+                this::mapearProducto, "Error al obtener productos");
     }
 
     /**
      * Obtener producto por ID
      */
     public Producto obtenerPorId(int id) {
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos WHERE idProducto = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, id);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearProducto(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener producto por ID: " + e.getMessage());
-        }
-        return null;
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE idProducto = ?",
+                stmt -> stmt.setInt(1, id),
+                this::mapearProducto, "Error al obtener producto por ID");
     }
 
     /**
      * Obtener producto por código
      */
     public Producto obtenerPorCodigo(String codigo) {
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos WHERE codigo = ?";
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE codigo = ?",
+                stmt -> stmt.setString(1, codigo),
+                this::mapearProducto, "Error al obtener producto por código");
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
+    /**
+     * Actualizar un producto existente (false también si hubo conflicto de versión)
+     */
+    public boolean actualizar(Producto producto) {
+        return actualizarConVersion(producto) == ResultadoActualizacion.ACTUALIZADO;
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, codigo);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearProducto(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener producto por código: " + e.getMessage());
+    /**
+     * Actualiza los datos del producto si nadie lo editó desde que se leyó.
+     * El stock no se escribe aquí: usar ajustarStock.
+     */
+    public ResultadoActualizacion actualizarConVersion(Producto producto) {
+        ResultadoActualizacion resultado = ConsultaBD.actualizarVersionado(ACTUALIZAR, stmt -> {
+            stmt.setString(1, producto.getCodigo());
+            stmt.setString(2, producto.getNombre());
+            stmt.setString(3, producto.getDescripcion());
+            stmt.setString(4, producto.getMarca());
+            stmt.setString(5, producto.getModelo());
+            stmt.setInt(6, producto.getIdCategoria());
+            stmt.setDouble(7, producto.getPrecioCompra());
+            stmt.setDouble(8, producto.getPrecioVenta());
+            stmt.setInt(9, producto.getStockMinimo());
+            stmt.setInt(10, producto.getStockMaximo());
+            stmt.setString(11, producto.getUnidadMedida());
+            stmt.setBoolean(12, producto.isActivo());
+            stmt.setInt(13, producto.getGarantiaMeses());
+            stmt.setString(14, producto.getUbicacionAlmacen());
+            stmt.setInt(15, producto.getIdProducto());
+            stmt.setInt(16, producto.getVersion());
+        }, EXISTE, producto.getIdProducto(), "Error al actualizar producto");
+
+        if (resultado == ResultadoActualizacion.ACTUALIZADO) {
+            producto.setVersion(producto.getVersion() + 1);
+            BusEventos.publicar(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO, producto.getIdProducto());
         }
-        return null;
+        return resultado;
     }
 
     /**
-     * Actualizar un producto existente
+     * Suma (o resta) unidades al stock del producto. Se aplica en la BD sobre
+     * el valor vigente, así que dos cajas no se pisan.
+     *
+     * @return false si el producto no existe o el stock quedaría negativo
      */
-    public boolean actualizar(Producto producto) {
-        String sql = "UPDATE Productos SET codigo = ?, nombre = ?, descripcion = ?, marca = ?, " +
-                     "modelo = ?, idCategoria = ?, precioCompra = ?, precioVenta = ?, stockActual = ?, " +
-                     "stockMinimo = ?, stockMaximo = ?, unidadMedida = ?, activo = ?, garantiaMeses = ?, " +
-                     "ubicacionAlmacen = ? WHERE idProducto = ?";
+    public boolean ajustarStock(int idProducto, int unidades) {
+        if (unidades == 0) {
+            return true;
+        }
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, producto.getCodigo());
-                stmt.setString(2, producto.getNombre());
-                stmt.setString(3, producto.getDescripcion());
-                stmt.setString(4, producto.getMarca());
-                stmt.setString(5, producto.getModelo());
-                stmt.setInt(6, producto.getIdCategoria());
-                stmt.setDouble(7, producto.getPrecioCompra());
-                stmt.setDouble(8, producto.getPrecioVenta());
-                stmt.setInt(9, producto.getStockActual());
-                stmt.setInt(10, producto.getStockMinimo());
-                stmt.setInt(11, producto.getStockMaximo());
-                stmt.setString(12, producto.getUnidadMedida());
-                stmt.setBoolean(13, producto.isActivo());
-                stmt.setInt(14, producto.getGarantiaMeses());
-                stmt.setString(15, producto.getUbicacionAlmacen());
-                stmt.setInt(16, producto.getIdProducto());
-
-                return stmt.executeUpdate() > 0;
+            try (PreparedStatement stmt = conn.prepareStatement(AJUSTAR_STOCK)) {
+                stmt.setInt(1, unidades);
+                stmt.setInt(2, idProducto);
+                stmt.setInt(3, unidades);
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO, idProducto);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
-            System.err.println("Error al actualizar producto: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Error al ajustar stock del producto: " + e.getMessage());
         }
         return false;
     }
@@ -221,7 +232,11 @@ public class ProductoDAO {
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, id);
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.PRODUCTO_ELIMINADO, id);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("========== ERROR AL ELIMINAR PRODUCTO ==========");
@@ -276,114 +291,405 @@ public class ProductoDAO {
      * Obtener solo productos activos
      */
     public List<Producto> obtenerActivos() {
-        List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos WHERE activo = 1 ORDER BY nombre";
+        return ConsultaBD.listar(SELECT_BASE + "WHERE activo = 1 ORDER BY nombre",
+                this::mapearProducto, "Error al obtener productos activos");
+    }
+
+    /**
+     * Cantidad de productos activos con stock disponible
+     */
+    public int contarConStock() {
+        Integer total = ConsultaBD.buscarUno("SELECT COUNT(*) FROM Productos WHERE activo = 1 AND stockActual > 0",
+                ConsultaBD.SIN_PARAMETROS, rs -> rs.getInt(1), "Error al contar productos con stock");
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Buscar productos por nombre o marca
+     */
+    public List<Producto> buscarPorNombreOMarca(String texto) {
+        String busqueda = "%" + texto + "%";
+        return ConsultaBD.listar(SELECT_BASE + "WHERE nombre LIKE ? OR marca LIKE ? OR codigo LIKE ? ORDER BY nombre",
+                stmt -> {
+                    stmt.setString(1, busqueda);
+                    stmt.setString(2, busqueda);
+                    stmt.setString(3, busqueda);
+                },
+                this::mapearProducto, "Error al buscar productos");
+    }
 
+    /**
+     * Obtener productos con stock bajo
+     */
+    public List<Producto> obtenerStockBajo() {
+        return ConsultaBD.listar(SELECT_BASE + "WHERE stockActual <= stockMinimo AND activo = 1 ORDER BY stockActual",
+                this::mapearProducto, "Error al obtener productos con stock bajo");
+    }
+
+    // ==================== ANÁLISIS DE INVENTARIO ====================
+
+    /**
+     * Recibe un producto activo con su costo de inventario e ingresos del periodo.
+     */
+    @FunctionalInterface
+    public interface ConsumidorValorizacion {
+        void aceptar(int idProducto, int idCategoria, int stock, long costoCentavos, long ingresosCentavos);
+    }
+
+    // Productos activos + ventas agregadas del periodo. Parámetros: desde, hasta
+    private static final String VALORIZACION =
+            "SELECT p.idProducto, p.idCategoria, p.stockActual, p.precioCompra, COALESCE(v.ingresos, 0) " +
+            "FROM Productos p LEFT JOIN (" +
+            " SELECT d.idProducto, SUM(d.subtotal) AS ingresos" +
+            " FROM DetalleVentas d JOIN Ventas v ON v.idVenta = d.idVenta" +
+            " WHERE v.fechaVenta >= ? AND v.fechaVenta < ? AND v.estado <> 'ANULADA'" +
+            " GROUP BY d.idProducto" +
+            ") v ON v.idProducto = p.idProducto " +
+            "WHERE p.activo = 1";
+
+    /**
+     * Recorre los productos activos con los ingresos de [desde, hasta) sin
+     * crear objetos Producto.
+     *
+     * @return false si hubo un error de lectura
+     */
+    public boolean recorrerValorizacion(LocalDate desde, LocalDate hasta,
+                                        ConsumidorValorizacion consumidor) {
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return lista;
+                return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearProducto(rs));
+            try (PreparedStatement stmt = conn.prepareStatement(VALORIZACION)) {
+                stmt.setDate(1, Date.valueOf(desde));
+                stmt.setDate(2, Date.valueOf(hasta));
+                stmt.setFetchSize(10_000);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.aceptar(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                                Dinero.getCentavos(rs, 4), Dinero.getCentavos(rs, 5));
+                    }
                 }
+                return true;
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener productos activos: " + e.getMessage());
+            System.err.println("Error al recorrer la valorización de inventario: " + e.getMessage());
         }
-        return lista;
+        return false;
     }
 
     /**
-     * Buscar productos por nombre o marca
+     * Código y nombre de unos pocos productos, por ID (ej: los que se muestran en un reporte).
+     *
+     * @return mapa idProducto → {codigo, nombre}
      */
-    public List<Producto> buscarPorNombreOMarca(String texto) {
-        List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos WHERE nombre LIKE ? OR marca LIKE ? OR codigo LIKE ? ORDER BY nombre";
+    public Map<Integer, String[]> obtenerEtiquetas(List<Integer> ids) {
+        Map<Integer, String[]> etiquetas = new HashMap<>();
+        if (ids.isEmpty()) {
+            return etiquetas;
+        }
+        String marcas = String.join(",", Collections.nCopies(ids.size(), "?"));
+        for (Map.Entry<Integer, String[]> fila : ConsultaBD.listar(
+                "SELECT idProducto, codigo, nombre FROM Productos WHERE idProducto IN (" + marcas + ")",
+                stmt -> {
+                    for (int i = 0; i < ids.size(); i++) {
+                        stmt.setInt(i + 1, ids.get(i));
+                    }
+                },
+                rs -> Map.entry(rs.getInt(1), new String[] { rs.getString(2), rs.getString(3) }),
+                "Error al obtener nombres de productos")) {
+            etiquetas.put(fila.getKey(), fila.getValue());
+        }
+        return etiquetas;
+    }
+
+    // ==================== IMPORTACIÓN MASIVA ====================
+
+    private static final String TABLA_IMPORTACION = "#CatalogoImportado";
+
+    private static final String CREAR_TABLA_IMPORTACION =
+            "CREATE TABLE " + TABLA_IMPORTACION + " (" +
+            "codigo VARCHAR(50) NOT NULL PRIMARY KEY, nombre VARCHAR(150) NOT NULL, " +
+            "descripcion VARCHAR(500) NULL, marca VARCHAR(80) NULL, modelo VARCHAR(80) NULL, " +
+            "idCategoria INT NOT NULL, precioCompra DECIMAL(12,2) NOT NULL, precioVenta DECIMAL(12,2) NOT NULL, " +
+            "stockActual INT NULL, stockMinimo INT NOT NULL, stockMaximo INT NOT NULL, " +
+            "unidadMedida VARCHAR(20) NOT NULL, garantiaMeses INT NOT NULL, ubicacionAlmacen VARCHAR(120) NULL)";
+
+    // stockActual NULL en la tabla temporal = conservar el stock del producto existente.
+    // OUTPUT ... INTO para que siga funcionando si la tabla llega a tener triggers
+    private static final String FUSIONAR_PRODUCTOS =
+            "SET NOCOUNT ON; DECLARE @acciones TABLE (accion NVARCHAR(10)); " +
+            "MERGE Productos WITH (HOLDLOCK) AS t USING " + TABLA_IMPORTACION + " AS s ON t.codigo = s.codigo " +
+            "WHEN MATCHED THEN UPDATE SET nombre = s.nombre, descripcion = s.descripcion, marca = s.marca, " +
+            "modelo = s.modelo, idCategoria = s.idCategoria, precioCompra = s.precioCompra, " +
+            "precioVenta = s.precioVenta, stockActual = ISNULL(s.stockActual, t.stockActual), " +
+            "stockMinimo = s.stockMinimo, stockMaximo = s.stockMaximo, unidadMedida = s.unidadMedida, " +
+            "garantiaMeses = s.garantiaMeses, ubicacionAlmacen = s.ubicacionAlmacen, " +
+            "fechaUltimaActualizacion = SYSDATETIME(), version = t.version + 1 " +
+            "WHEN NOT MATCHED BY TARGET THEN INSERT (codigo, nombre, descripcion, marca, modelo, idCategoria, " +
+            "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, activo, " +
+            "garantiaMeses, ubicacionAlmacen) VALUES (s.codigo, s.nombre, s.descripcion, s.marca, s.modelo, " +
+            "s.idCategoria, s.precioCompra, s.precioVenta, ISNULL(s.stockActual, 0), s.stockMinimo, " +
+            "s.stockMaximo, s.unidadMedida, 1, s.garantiaMeses, s.ubicacionAlmacen) " +
+            "OUTPUT $action INTO @acciones; " +
+            "SELECT COUNT(CASE WHEN accion = 'INSERT' THEN 1 END), COUNT(CASE WHEN accion = 'UPDATE' THEN 1 END) " +
+            "FROM @acciones;";
+
+    // La diferencia de cada inventario (o su cantidad inicial si es nuevo) queda
+    // en el kardex como AJUSTE. Parámetro: idUsuario
+    private static final String FUSIONAR_INVENTARIOS =
+            "SET NOCOUNT ON; DECLARE @cambios TABLE (idProducto INT, cantidad INT); " +
+            "MERGE Inventarios WITH (HOLDLOCK) AS t USING (" +
+            "SELECT p.idProducto, p.stockActual, p.stockMinimo, p.stockMaximo FROM Productos p " +
+            "JOIN " + TABLA_IMPORTACION + " s ON s.codigo = p.codigo) AS s ON t.idProducto = s.idProducto " +
+            "WHEN MATCHED THEN UPDATE SET cantidadActual = s.stockActual, stockMinimo = s.stockMinimo, " +
+            "stockMaximo = s.stockMaximo, ultimaActualizacion = SYSDATETIME() " +
+            "WHEN NOT MATCHED BY TARGET THEN INSERT (idProducto, cantidadActual, stockMinimo, stockMaximo) " +
+            "VALUES (s.idProducto, s.stockActual, s.stockMinimo, s.stockMaximo) " +
+            "OUTPUT inserted.idProducto, inserted.cantidadActual - ISNULL(deleted.cantidadActual, 0) INTO @cambios; " +
+            "INSERT INTO MovimientosStock (idProducto, tipo, cantidad, motivo, idUsuario) " +
+            "SELECT idProducto, 'AJUSTE', cantidad, 'Importación de catálogo', ? FROM @cambios WHERE cantidad <> 0;";
+
+    /**
+     * Resultado de fusionar un lote de productos importados.
+     */
+    public static class ResultadoFusion {
+        private final boolean exitoso;
+        private final int insertados;
+        private final int actualizados;
+        private final String mensaje;
+
+        private ResultadoFusion(boolean exitoso, int insertados, int actualizados, String mensaje) {
+            this.exitoso = exitoso;
+            this.insertados = insertados;
+            this.actualizados = actualizados;
+            this.mensaje = mensaje;
+        }
+
+        public boolean isExitoso() { return exitoso; }
+        public int getInsertados() { return insertados; }
+        public int getActualizados() { return actualizados; }
+        public String getMensaje() { return mensaje; }
+    }
+
+    /**
+     * Inserta o actualiza (por código) un lote de productos y sus inventarios
+     * en una sola transacción. Las filas se cargan a una tabla temporal con la
+     * copia masiva del driver y luego se aplican con un MERGE por tabla, en
+     * vez de un INSERT por producto.
+     *
+     * Los productos deben venir validados y sin códigos repetidos.
+     *
+     * @param actualizarStock false para conservar el stock de los productos existentes
+     */
+    public ResultadoFusion fusionarLote(List<Producto> productos, boolean actualizarStock) {
+        if (productos == null || productos.isEmpty()) {
+            return new ResultadoFusion(true, 0, 0, null);
+        }
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return lista;
+                return new ResultadoFusion(false, 0, 0, "No se pudo obtener conexión a la base de datos");
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                String busqueda = "%" + texto + "%";
-                stmt.setString(1, busqueda);
-                stmt.setString(2, busqueda);
-                stmt.setString(3, busqueda);
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREAR_TABLA_IMPORTACION);
+                cargarTablaImportacion(conn, productos, actualizarStock);
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        lista.add(mapearProducto(rs));
+                int insertados = 0;
+                int actualizados = 0;
+                try (ResultSet rs = stmt.executeQuery(FUSIONAR_PRODUCTOS)) {
+                    if (rs.next()) {
+                        insertados = rs.getInt(1);
+                        actualizados = rs.getInt(2);
                     }
                 }
+                try (PreparedStatement inventarios = conn.prepareStatement(FUSIONAR_INVENTARIOS)) {
+                    int idUsuario = SessionManager.getIdUsuarioActual();
+                    inventarios.setObject(1, idUsuario > 0 ? idUsuario : null, Types.INTEGER);
+                    inventarios.execute();
+                }
+                stmt.execute("DROP TABLE " + TABLA_IMPORTACION);
+
+                conn.commit();
+                BusEventos.publicar(EventoDominio.Tipo.CATALOGO_CAMBIADO, 0);
+                return new ResultadoFusion(true, insertados, actualizados, null);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            System.err.println("Error al buscar productos: " + e.getMessage());
+            System.err.println("Error al importar lote de productos: " + e.getMessage());
+            return new ResultadoFusion(false, 0, 0, e.getMessage());
         }
-        return lista;
     }
 
     /**
-     * Obtener productos con stock bajo
+     * Carga el lote a la tabla temporal: copia masiva si el driver es el de
+     * SQL Server, si no un INSERT por lotes.
      */
-    public List<Producto> obtenerStockBajo() {
-        List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT idProducto, codigo, nombre, descripcion, marca, modelo, idCategoria, " +
-                     "precioCompra, precioVenta, stockActual, stockMinimo, stockMaximo, unidadMedida, " +
-                     "activo, fechaRegistro, fechaUltimaActualizacion, garantiaMeses, ubicacionAlmacen " +
-                     "FROM Productos WHERE stockActual <= stockMinimo AND activo = 1 ORDER BY stockActual";
+    private void cargarTablaImportacion(Connection conn, List<Producto> productos, boolean actualizarStock)
+            throws SQLException {
+        SQLServerConnection sqlServer = conn.isWrapperFor(SQLServerConnection.class)
+                ? conn.unwrap(SQLServerConnection.class) : null;
+        if (sqlServer != null) {
+            try (SQLServerBulkCopy copia = new SQLServerBulkCopy(sqlServer)) {
+                SQLServerBulkCopyOptions opciones = new SQLServerBulkCopyOptions();
+                opciones.setBatchSize(productos.size());
+                opciones.setUseInternalTransaction(false);
+                copia.setBulkCopyOptions(opciones);
+                copia.setDestinationTableName(TABLA_IMPORTACION);
+                copia.writeToServer(new DatosImportacion(productos, actualizarStock));
+            }
+            return;
+        }
 
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + TABLA_IMPORTACION +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (Producto p : productos) {
+                Object[] fila = DatosImportacion.fila(p, actualizarStock);
+                for (int i = 0; i < fila.length; i++) {
+                    stmt.setObject(i + 1, fila[i]);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Filas del lote en el formato de la tabla temporal, para la copia masiva.
+     */
+    private static final class DatosImportacion implements ISQLServerBulkData {
+        private static final long serialVersionUID = 1L;
+
+        private static final String[] NOMBRES = {"codigo", "nombre", "descripcion", "marca", "modelo",
+                "idCategoria", "precioCompra", "precioVenta", "stockActual", "stockMinimo", "stockMaximo",
+                "unidadMedida", "garantiaMeses", "ubicacionAlmacen"};
+        private static final int[] TIPOS = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.INTEGER, Types.DECIMAL, Types.DECIMAL, Types.INTEGER, Types.INTEGER,
+                Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.VARCHAR};
+        private static final int[] PRECISION = {50, 150, 500, 80, 80, 10, 12, 12, 10, 10, 10, 20, 10, 120};
+
+        private final transient List<Producto> productos;
+        private final boolean actualizarStock;
+        private int posicion = -1;
+
+        DatosImportacion(List<Producto> productos, boolean actualizarStock) {
+            this.productos = productos;
+            this.actualizarStock = actualizarStock;
+        }
+
+        static Object[] fila(Producto p, boolean actualizarStock) {
+            return new Object[]{p.getCodigo(), p.getNombre(), p.getDescripcion(), p.getMarca(), p.getModelo(),
+                    p.getIdCategoria(), Dinero.aBigDecimal(Dinero.aCentavos(p.getPrecioCompra())),
+                    Dinero.aBigDecimal(Dinero.aCentavos(p.getPrecioVenta())), actualizarStock ? p.getStockActual() : null,
+                    p.getStockMinimo(), p.getStockMaximo(), p.getUnidadMedida(), p.getGarantiaMeses(),
+                    p.getUbicacionAlmacen()};
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinales = new LinkedHashSet<>();
+            for (int i = 1; i <= NOMBRES.length; i++) {
+                ordinales.add(i);
             }
+            return ordinales;
+        }
+
+        @Override
+        public String getColumnName(int columna) { return NOMBRES[columna - 1]; }
+
+        @Override
+        public int getColumnType(int columna) { return TIPOS[columna - 1]; }
+
+        @Override
+        public int getPrecision(int columna) { return PRECISION[columna - 1]; }
+
+        @Override
+        public int getScale(int columna) { return TIPOS[columna - 1] == Types.DECIMAL ? 2 : 0; }
+
+        @Override
+        public Object[] getRowData() { return fila(productos.get(posicion), actualizarStock); }
+
+        @Override
+        public boolean next() { return ++posicion < productos.size(); }
+    }
+
+    // ==================== TRANSACCIONES ====================
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearProducto(rs));
+    /**
+     * Descuenta stock dentro de la transacción del llamador, bloqueando la fila.
+     * Si no alcanza, deja el stock en 0 y devuelve las unidades faltantes.
+     *
+     * @throws SQLException si el producto no existe
+     */
+    int descontarStock(Connection conn, int idProducto, int cantidad) throws SQLException {
+        int disponible;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT stockActual FROM Productos WITH (UPDLOCK, ROWLOCK) WHERE idProducto = ?")) {
+            stmt.setInt(1, idProducto);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Producto no encontrado ID: " + idProducto);
                 }
+                disponible = rs.getInt(1);
             }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener productos con stock bajo: " + e.getMessage());
         }
-        return lista;
+
+        int descontar = Math.min(Math.max(disponible, 0), cantidad);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE Productos SET stockActual = stockActual - ?, fechaUltimaActualizacion = SYSDATETIME() " +
+                "WHERE idProducto = ?")) {
+            stmt.setInt(1, descontar);
+            stmt.setInt(2, idProducto);
+            stmt.executeUpdate();
+        }
+        return cantidad - descontar;
+    }
+
+    /**
+     * Devuelve unidades al stock dentro de la transacción del llamador.
+     */
+    void devolverStock(Connection conn, int idProducto, int cantidad) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE Productos SET stockActual = stockActual + ?, fechaUltimaActualizacion = SYSDATETIME() " +
+                "WHERE idProducto = ?")) {
+            stmt.setInt(1, cantidad);
+            stmt.setInt(2, idProducto);
+            stmt.executeUpdate();
+        }
     }
 
     // ==================== MÉTODOS AUXILIARES ====================
 
     /**
-     * Mapear ResultSet a objeto Producto
+     * Mapear ResultSet a objeto Producto (columnas en el orden de COLUMNAS)
      */
     private Producto mapearProducto(ResultSet rs) throws SQLException {
         Producto p = new Producto();
-        p.setIdProducto(rs.getInt("idProducto"));
-        p.setCodigo(rs.getString("codigo"));
-        p.setNombre(rs.getString("nombre"));
-        p.setDescripcion(rs.getString("descripcion"));
-        p.setMarca(rs.getString("marca"));
-        p.setModelo(rs.getString("modelo"));
-        p.setIdCategoria(rs.getInt("idCategoria"));
-        p.setPrecioCompra(rs.getDouble("precioCompra"));
-        p.setPrecioVenta(rs.getDouble("precioVenta"));
-        p.setStockActual(rs.getInt("stockActual"));
-        p.setStockMinimo(rs.getInt("stockMinimo"));
-        p.setStockMaximo(rs.getInt("stockMaximo"));
-        p.setUnidadMedida(rs.getString("unidadMedida"));
-        p.setActivo(rs.getBoolean("activo"));
-        p.setFechaRegistro(rs.getTimestamp("fechaRegistro"));
-        p.setFechaUltimaActualizacion(rs.getTimestamp("fechaUltimaActualizacion"));
-        p.setGarantiaMeses(rs.getInt("garantiaMeses"));
-        p.setUbicacionAlmacen(rs.getString("ubicacionAlmacen"));
+        p.setIdProducto(rs.getInt(1));
+        p.setCodigo(rs.getString(2));
+        p.setNombre(rs.getString(3));
+        p.setDescripcion(rs.getString(4));
+        p.setMarca(rs.getString(5));
+        p.setModelo(rs.getString(6));
+        p.setIdCategoria(rs.getInt(7));
+        p.setPrecioCompra(rs.getDouble(8));
+        p.setPrecioVenta(rs.getDouble(9));
+        p.setStockActual(rs.getInt(10));
+        p.setStockMinimo(rs.getInt(11));
+        p.setStockMaximo(rs.getInt(12));
+        p.setUnidadMedida(rs.getString(13));
+        p.setActivo(rs.getBoolean(14));
+        p.setFechaRegistro(rs.getTimestamp(15));
+        p.setFechaUltimaActualizacion(rs.getTimestamp(16));
+        p.setGarantiaMeses(rs.getInt(17));
+        p.setUbicacionAlmacen(rs.getString(18));
+        p.setVersion(rs.getInt(19));
         return p;
     }
 }
@@ -0,0 +1,191 @@
+package com.taller.proyecto_bd.dao;
+
+import com.taller.proyecto_bd.models.PronosticoDemanda;
+import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DAO de pronósticos de demanda: lectura de la historia de ventas diaria
+ * por producto, reemplazo de la tabla PronosticosDemanda y consulta de
+ * productos a reponer.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PronosticoDAO {
+    // ==================== SINGLETON ====================
+    private static PronosticoDAO instance;
+
+    private static final int TAMANO_LOTE = 1000;
+
+    /**
+     * Recibe las ventas de un producto en un día, en orden de producto y día.
+     */
+    @FunctionalInterface
+    public interface ConsumidorDemanda {
+        void aceptar(int idProducto, int dia, int cantidad);
+    }
+
+    // ==================== SQL ====================
+    // dia = días desde el inicio del periodo. Parámetros: desde, desde, hasta
+    private static final String DEMANDA_DIARIA =
+            "SELECT d.idProducto, x.dia, SUM(d.cantidad) " +
+            "FROM DetalleVentas d JOIN Ventas v ON v.idVenta = d.idVenta " +
+            "CROSS APPLY (SELECT DATEDIFF(DAY, ?, v.fechaVenta) AS dia) x " +
+            "WHERE v.fechaVenta >= ? AND v.fechaVenta < ? AND v.estado <> 'ANULADA' " +
+            "GROUP BY d.idProducto, x.dia " +
+            "ORDER BY d.idProducto, x.dia";
+
+    private static final String INSERTAR =
+            "INSERT INTO PronosticosDemanda (idProducto, demandaDiaria, promedioMovil, desviacion, " +
+            "factorEstacional, puntoReorden, stockObjetivo, diasHistoria) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Productos activos en o por debajo de su punto de reorden (pronosticado o stockMinimo)
+    private static final String REPOSICION =
+            "SELECT p.idProducto, p.codigo, p.nombre, c.nombre, p.stockActual, p.stockMinimo, p.precioCompra, " +
+            "f.demandaDiaria, f.promedioMovil, f.desviacion, f.factorEstacional, " +
+            "COALESCE(f.puntoReorden, p.stockMinimo), COALESCE(f.stockObjetivo, p.stockMaximo), " +
+            "f.diasHistoria, f.fechaCalculo " +
+            "FROM Productos p " +
+            "LEFT JOIN Categorias c ON c.idCategoria = p.idCategoria " +
+            "LEFT JOIN PronosticosDemanda f ON f.idProducto = p.idProducto " +
+            "WHERE p.activo = 1 AND p.stockActual <= COALESCE(f.puntoReorden, p.stockMinimo) " +
+            "ORDER BY p.stockActual - COALESCE(f.puntoReorden, p.stockMinimo), p.codigo";
+
+    private PronosticoDAO() {
+    }
+
+    public static synchronized PronosticoDAO getInstance() {
+        if (instance == null) {
+            instance = new PronosticoDAO();
+        }
+        return instance;
+    }
+
+    // ==================== HISTORIA ====================
+
+    /**
+     * Recorre las ventas diarias por producto en [desde, hasta) sin cargarlas
+     * todas en memoria; los días sin ventas no se emiten.
+     *
+     * @return false si hubo un error de lectura
+     */
+    public boolean recorrerDemandaDiaria(LocalDate desde, LocalDate hasta, ConsumidorDemanda consumidor) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(DEMANDA_DIARIA)) {
+                stmt.setDate(1, Date.valueOf(desde));
+                stmt.setDate(2, Date.valueOf(desde));
+                stmt.setDate(3, Date.valueOf(hasta));
+                stmt.setFetchSize(10_000);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.aceptar(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+                    }
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al leer la historia de ventas: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // ==================== PRONÓSTICOS ====================
+
+    /**
+     * Reemplaza todos los pronósticos en una sola transacción.
+     */
+    public boolean reemplazar(List<PronosticoDemanda> pronosticos) {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            conn.setAutoCommit(false);
+            try (Statement borrar = conn.createStatement();
+                 PreparedStatement stmt = conn.prepareStatement(INSERTAR)) {
+                borrar.executeUpdate("DELETE FROM PronosticosDemanda");
+                int enLote = 0;
+                for (PronosticoDemanda p : pronosticos) {
+                    stmt.setInt(1, p.getIdProducto());
+                    stmt.setDouble(2, p.getDemandaDiaria());
+                    stmt.setDouble(3, p.getPromedioMovil());
+                    stmt.setDouble(4, p.getDesviacion());
+                    stmt.setDouble(5, p.getFactorEstacional());
+                    stmt.setInt(6, p.getPuntoReorden());
+                    stmt.setInt(7, p.getStockObjetivo());
+                    stmt.setInt(8, p.getDiasHistoria());
+                    stmt.addBatch();
+                    if (++enLote == TAMANO_LOTE) {
+                        stmt.executeBatch();
+                        enLote = 0;
+                    }
+                }
+                if (enLote > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al guardar pronósticos: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Fecha del último cálculo, o null si nunca se calculó.
+     */
+    public java.util.Date obtenerFechaUltimoCalculo() {
+        return ConsultaBD.buscarUno("SELECT MAX(fechaCalculo) FROM PronosticosDemanda",
+                ConsultaBD.SIN_PARAMETROS, rs -> rs.getTimestamp(1), "Error al consultar pronósticos");
+    }
+
+    /**
+     * Productos a reponer con su punto de reorden y cantidad sugerida.
+     */
+    public List<PronosticoDemanda> obtenerReposicion() {
+        return ConsultaBD.listar(REPOSICION, this::mapearReposicion, "Error al obtener productos a reponer");
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+
+    private PronosticoDemanda mapearReposicion(ResultSet rs) throws SQLException {
+        PronosticoDemanda p = new PronosticoDemanda(rs.getInt(1));
+        p.setCodigo(rs.getString(2));
+        p.setNombre(rs.getString(3));
+        p.setCategoria(rs.getString(4));
+        p.setStockActual(rs.getInt(5));
+        p.setStockMinimo(rs.getInt(6));
+        p.setPrecioCompraCentavos(Dinero.getCentavos(rs, 7));
+        p.setDemandaDiaria(rs.getDouble(8));
+        p.setCalculado(!rs.wasNull());
+        p.setPromedioMovil(rs.getDouble(9));
+        p.setDesviacion(rs.getDouble(10));
+        double factor = rs.getDouble(11);
+        p.setFactorEstacional(rs.wasNull() ? 1 : factor);
+        p.setPuntoReorden(rs.getInt(12));
+        p.setStockObjetivo(rs.getInt(13));
+        p.setDiasHistoria(rs.getInt(14));
+        Timestamp fecha = rs.getTimestamp(15);
+        p.setFechaCalculo(fecha);
+        return p;
+    }
+}
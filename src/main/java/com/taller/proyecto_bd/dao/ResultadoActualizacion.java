@@ -0,0 +1,16 @@
+package com.taller.proyecto_bd.dao;
+
+/**
+ * Resultado de una edición con control optimista de concurrencia.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public enum ResultadoActualizacion {
+    ACTUALIZADO,
+    /** Otro usuario modificó la fila después de leerla: hay que releer */
+    CONFLICTO,
+    NO_ENCONTRADO,
+    /** Sin conexión o error de la BD */
+    ERROR
+}
@@ -237,39 +237,59 @@ public class UsuarioDAO {
     }
 
     /**
-     * Valida login con hash SHA-256.
+     * Valida login contra el hash almacenado (PBKDF2 o SHA-256 heredado).
+     * Si el hash es heredado o de menor costo, se regenera tras el login exitoso.
      * No valida si el usuario está activo, eso se debe hacer en el controlador.
+     * El hash es costoso: llamar fuera del hilo de JavaFX (ver AutenticacionService).
      */
     public Usuario login(String username, String passwordPlana) {
-        if (username == null || passwordPlana == null) return null;
+        try {
+            return autenticar(username, passwordPlana);
+        } catch (SQLException e) {
+            System.err.println("Error al iniciar sesión: " + e.getMessage());
+            e.printStackTrace(); // Agregar stack trace para debugging
+        }
+        return null;
+    }
 
-        String hashedPassword = Encriptacion.encriptarSHA256(passwordPlana);
+    /**
+     * Igual que login(), pero un error de base de datos se lanza en lugar
+     * de confundirse con credenciales inválidas.
+     *
+     * @return el usuario, o null si el usuario o la contraseña no coinciden
+     */
+    public Usuario autenticar(String username, String passwordPlana) throws SQLException {
+        if (username == null || passwordPlana == null) return null;
 
-        // Usar LOWER en la comparación de password para que sea case-insensitive
         String sql = "SELECT idUsuario, nombreCompleto, username, passwordHash, rol, email, telefono, activo, fechaRegistro, ultimoAcceso " +
-                     "FROM Usuarios WHERE LOWER(username) = LOWER(?) AND LOWER(passwordHash) = LOWER(?)";
+                     "FROM Usuarios WHERE LOWER(username) = LOWER(?)";
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return null;
+                throw new SQLException("No se pudo obtener conexión a la base de datos");
             }
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setString(1, username.trim());
-                stmt.setString(2, hashedPassword);
 
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
                         Usuario usuario = mapearUsuario(rs);
+                        if (!Encriptacion.verificarPassword(passwordPlana, usuario.getPassword())) {
+                            return null;
+                        }
+                        if (Encriptacion.necesitaRehash(usuario.getPassword())) {
+                            String nuevoHash = Encriptacion.hashPassword(passwordPlana);
+                            if (actualizarPasswordHash(usuario.getIdUsuario(), nuevoHash)) {
+                                usuario.setPasswordHash(nuevoHash);
+                            }
+                        }
                         actualizarUltimoAcceso(usuario.getIdUsuario());
                         usuario.setUltimoAcceso(new Date());
                         return usuario;
                     }
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error al iniciar sesión: " + e.getMessage());
-            e.printStackTrace(); // Agregar stack trace para debugging
         }
         return null;
     }
@@ -316,6 +336,28 @@ public class UsuarioDAO {
         );
     }
 
+    /**
+     * Reemplaza el hash de contraseña (usado al migrar hashes heredados).
+     */
+    public boolean actualizarPasswordHash(int idUsuario, String passwordHash) {
+        String sql = "UPDATE Usuarios SET passwordHash = ? WHERE idUsuario = ?";
+
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            if (conn == null) {
+                return false;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, passwordHash);
+                stmt.setInt(2, idUsuario);
+                return stmt.executeUpdate() > 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al actualizar hash de contraseña: " + e.getMessage());
+        }
+        return false;
+    }
+
     private void actualizarUltimoAcceso(int idUsuario) {
         String sql = "UPDATE Usuarios SET ultimoAcceso = SYSDATETIME() WHERE idUsuario = ?";
 
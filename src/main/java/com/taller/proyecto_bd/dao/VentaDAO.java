@@ -1,12 +1,21 @@
 package com.taller.proyecto_bd.dao;
 
+import com.taller.proyecto_bd.models.DetalleVenta;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Venta;
+import com.taller.proyecto_bd.utils.BusEventos;
 import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.Constantes;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * DAO para la entidad Venta.
@@ -18,6 +27,16 @@ import java.util.List;
 public class VentaDAO {
     private static VentaDAO instance;
 
+    // ==================== SQL ====================
+    // Orden fijo: mapearVenta lee por índice
+    private static final String COLUMNAS =
+            "idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, " +
+            "cuotaInicial, plazoMeses, estado";
+    private static final String SELECT_BASE = "SELECT " + COLUMNAS + " FROM Ventas ";
+    private static final String INSERT_SQL =
+            "INSERT INTO Ventas (codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, " +
+            "cuotaInicial, plazoMeses, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private VentaDAO() {
     }
 
@@ -39,38 +58,17 @@ public class VentaDAO {
             return false;
         }
 
-        String sql = "INSERT INTO Ventas (codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
                 System.err.println("Error: No se pudo obtener conexión a la base de datos");
                 return false;
             }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setString(1, venta.getCodigo());
-                stmt.setInt(2, venta.getIdCliente());
-                stmt.setInt(3, venta.getIdUsuario());
-                stmt.setTimestamp(4, new Timestamp(venta.getFechaVenta().getTime()));
-                stmt.setBoolean(5, venta.isEsCredito());
-                stmt.setDouble(6, venta.getSubtotal());
-                stmt.setDouble(7, venta.getIvaTotal());
-                stmt.setDouble(8, venta.getTotal());
-                stmt.setDouble(9, venta.getCuotaInicial());
-                stmt.setInt(10, venta.getPlazoMeses());
-                stmt.setString(11, venta.getEstado());
-
-                int filas = stmt.executeUpdate();
-                if (filas > 0) {
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            venta.setIdVenta(rs.getInt(1));
-                        }
-                    }
-                    return true;
-                }
+            if (insertar(conn, venta)) {
+                BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.VENTA_REGISTRADA, venta.getIdVenta(),
+                        0, venta.getTotalCentavos()));
+                return true;
             }
+            return false;
         } catch (SQLException e) {
             System.err.println("Error al insertar venta: " + e.getMessage());
             e.printStackTrace();
@@ -78,55 +76,48 @@ public class VentaDAO {
         return false;
     }
 
+    private boolean insertar(Connection conn, Venta venta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, venta.getCodigo());
+            stmt.setInt(2, venta.getIdCliente());
+            stmt.setInt(3, venta.getIdUsuario());
+            stmt.setTimestamp(4, new Timestamp(venta.getFechaVenta().getTime()));
+            stmt.setBoolean(5, venta.isEsCredito());
+            Dinero.setCentavos(stmt, 6, venta.getSubtotalCentavos());
+            Dinero.setCentavos(stmt, 7, venta.getIvaTotalCentavos());
+            Dinero.setCentavos(stmt, 8, venta.getTotalCentavos());
+            Dinero.setCentavos(stmt, 9, venta.getCuotaInicialCentavos());
+            stmt.setInt(10, venta.getPlazoMeses());
+            stmt.setString(11, venta.getEstado());
+
+            int filas = stmt.executeUpdate();
+            if (filas > 0) {
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        venta.setIdVenta(rs.getInt(1));
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Obtener todas las ventas
      */
     public List<Venta> obtenerTodas() {
-        List<Venta> lista = new ArrayList<>();
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas ORDER BY fechaVenta DESC";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(mapearVenta(rs));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener ventas: " + e.getMessage());
-        }
-        return lista;
+        return ConsultaBD.listar(SELECT_BASE + "ORDER BY fechaVenta DESC",
+                this::mapearVenta, "Error al obtener ventas");
     }
 
     /**
      * Buscar venta por ID
      */
     public Venta obtenerPorId(int id) {
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE idVenta = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, id);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearVenta(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar venta por ID: " + e.getMessage());
-        }
-        return null;
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE idVenta = ?",
+                stmt -> stmt.setInt(1, id),
+                this::mapearVenta, "Error al buscar venta por ID");
     }
 
     /**
@@ -137,26 +128,9 @@ public class VentaDAO {
             return null;
         }
 
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE codigo = ?";
-
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return null;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, codigo.trim());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapearVenta(rs);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar venta por código: " + e.getMessage());
-        }
-        return null;
+        return ConsultaBD.buscarUno(SELECT_BASE + "WHERE codigo = ?",
+                stmt -> stmt.setString(1, codigo.trim()),
+                this::mapearVenta, "Error al buscar venta por código");
     }
 
     /**
@@ -182,15 +156,20 @@ public class VentaDAO {
                 stmt.setInt(3, venta.getIdUsuario());
                 stmt.setTimestamp(4, new Timestamp(venta.getFechaVenta().getTime()));
                 stmt.setBoolean(5, venta.isEsCredito());
-                stmt.setDouble(6, venta.getSubtotal());
-                stmt.setDouble(7, venta.getIvaTotal());
-                stmt.setDouble(8, venta.getTotal());
-                stmt.setDouble(9, venta.getCuotaInicial());
+                Dinero.setCentavos(stmt, 6, venta.getSubtotalCentavos());
+                Dinero.setCentavos(stmt, 7, venta.getIvaTotalCentavos());
+                Dinero.setCentavos(stmt, 8, venta.getTotalCentavos());
+                Dinero.setCentavos(stmt, 9, venta.getCuotaInicialCentavos());
                 stmt.setInt(10, venta.getPlazoMeses());
                 stmt.setString(11, venta.getEstado());
                 stmt.setInt(12, venta.getIdVenta());
 
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(Constantes.VENTA_ANULADA.equals(venta.getEstado())
+                            ? EventoDominio.Tipo.VENTA_ANULADA : EventoDominio.Tipo.VENTA_ACTUALIZADA, venta.getIdVenta());
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al actualizar venta: " + e.getMessage());
@@ -211,7 +190,11 @@ public class VentaDAO {
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, id);
-                return stmt.executeUpdate() > 0;
+                if (stmt.executeUpdate() > 0) {
+                    BusEventos.publicar(EventoDominio.Tipo.VENTA_ACTUALIZADA, id);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             System.err.println("Error al eliminar venta: " + e.getMessage());
@@ -225,119 +208,255 @@ public class VentaDAO {
      * Obtener ventas por cliente
      */
     public List<Venta> obtenerPorCliente(int idCliente) {
-        List<Venta> lista = new ArrayList<>();
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE idCliente = ? ORDER BY fechaVenta DESC";
+        return ConsultaBD.listar(SELECT_BASE + "WHERE idCliente = ? ORDER BY fechaVenta DESC",
+                stmt -> stmt.setInt(1, idCliente),
+                this::mapearVenta, "Error al obtener ventas por cliente");
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
+    /**
+     * Obtener ventas por usuario (vendedor)
+     */
+    public List<Venta> obtenerPorUsuario(int idUsuario) {
+        return ConsultaBD.listar(SELECT_BASE + "WHERE idUsuario = ? ORDER BY fechaVenta DESC",
+                stmt -> stmt.setInt(1, idUsuario),
+                this::mapearVenta, "Error al obtener ventas por usuario");
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, idCliente);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        lista.add(mapearVenta(rs));
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener ventas por cliente: " + e.getMessage());
+    /**
+     * Obtener ventas por tipo (crédito o contado)
+     */
+    public List<Venta> obtenerPorCredito(boolean esCredito) {
+        return ConsultaBD.listar(SELECT_BASE + "WHERE esCredito = ? ORDER BY fechaVenta DESC",
+                stmt -> stmt.setBoolean(1, esCredito),
+                this::mapearVenta, "Error al obtener ventas por tipo de crédito");
+    }
+
+    /**
+     * Obtener ventas por estado
+     */
+    public List<Venta> obtenerPorEstado(String estado) {
+        if (estado == null || estado.trim().isEmpty()) {
+            return new ArrayList<>();
         }
-        return lista;
+
+        return ConsultaBD.listar(SELECT_BASE + "WHERE estado = ? ORDER BY fechaVenta DESC",
+                stmt -> stmt.setString(1, estado.trim().toUpperCase()),
+                this::mapearVenta, "Error al obtener ventas por estado");
     }
 
     /**
-     * Obtener ventas por usuario (vendedor)
+     * Obtener ventas activas (estado REGISTRADA)
      */
-    public List<Venta> obtenerPorUsuario(int idUsuario) {
-        List<Venta> lista = new ArrayList<>();
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE idUsuario = ? ORDER BY fechaVenta DESC";
+    public List<Venta> obtenerActivas() {
+        return obtenerPorEstado("REGISTRADA");
+    }
 
-        try (Connection conn = ConexionBD.obtenerConexion()) {
-            if (conn == null) {
-                return lista;
-            }
+    /**
+     * Total vendido en el día (sin anuladas), en centavos
+     */
+    public long obtenerTotalDelDiaCentavos(LocalDate dia) {
+        Long total = ConsultaBD.buscarUno(
+                "SELECT COALESCE(SUM(total), 0) FROM Ventas " +
+                "WHERE fechaVenta >= ? AND fechaVenta < ? AND estado <> 'ANULADA'",
+                stmt -> {
+                    stmt.setDate(1, java.sql.Date.valueOf(dia));
+                    stmt.setDate(2, java.sql.Date.valueOf(dia.plusDays(1)));
+                },
+                rs -> Dinero.getCentavos(rs, 1), "Error al obtener total de ventas del día");
+        return total != null ? total : 0;
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, idUsuario);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        lista.add(mapearVenta(rs));
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener ventas por usuario: " + e.getMessage());
+    // ==================== REGISTRO TRANSACCIONAL ====================
+
+    /**
+     * Resultado de registrar una venta completa.
+     * DUPLICADA indica que ya existía una venta con el mismo código (reintento).
+     * Los faltantes son unidades vendidas sin stock suficiente en la BD.
+     */
+    public static class ResultadoRegistro {
+        public enum Estado { REGISTRADA, DUPLICADA, SIN_CONEXION, ERROR }
+
+        private final Estado estado;
+        private final int idVenta;
+        private final Map<Integer, Integer> faltantes;
+        private final String mensaje;
+
+        private ResultadoRegistro(Estado estado, int idVenta, Map<Integer, Integer> faltantes, String mensaje) {
+            this.estado = estado;
+            this.idVenta = idVenta;
+            this.faltantes = faltantes;
+            this.mensaje = mensaje;
         }
-        return lista;
+
+        public Estado getEstado() { return estado; }
+        public int getIdVenta() { return idVenta; }
+        public Map<Integer, Integer> getFaltantes() { return faltantes; }
+        public String getMensaje() { return mensaje; }
     }
 
     /**
-     * Obtener ventas por tipo (crédito o contado)
+     * Registra la venta, sus detalles y el descuento de stock en una sola
+     * transacción. Es idempotente por código: si la venta ya existe no se
+     * vuelve a insertar. Si el stock no alcanza la venta se registra igual
+     * (la mercancía ya se entregó), el stock queda en 0 y se informa el faltante.
      */
-    public List<Venta> obtenerPorCredito(boolean esCredito) {
-        List<Venta> lista = new ArrayList<>();
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE esCredito = ? ORDER BY fechaVenta DESC";
+    public ResultadoRegistro registrarVentaCompleta(Venta venta) {
+        List<DetalleVenta> detalles = venta != null ? venta.getDetalles() : null;
+        if (venta == null || !venta.validarVenta() || detalles == null || detalles.isEmpty()) {
+            return new ResultadoRegistro(ResultadoRegistro.Estado.ERROR, 0, Collections.emptyMap(), "Venta inválida");
+        }
 
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return lista;
+                return new ResultadoRegistro(ResultadoRegistro.Estado.SIN_CONEXION, 0, Collections.emptyMap(), null);
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setBoolean(1, esCredito);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        lista.add(mapearVenta(rs));
+            conn.setAutoCommit(false);
+            try {
+                int existente = buscarIdPorCodigo(conn, venta.getCodigo());
+                if (existente > 0) {
+                    conn.rollback();
+                    venta.setIdVenta(existente);
+                    return new ResultadoRegistro(ResultadoRegistro.Estado.DUPLICADA, existente, Collections.emptyMap(), null);
+                }
+
+                if (!insertar(conn, venta)) {
+                    throw new SQLException("No se insertó la venta " + venta.getCodigo());
+                }
+                for (DetalleVenta d : detalles) {
+                    d.setIdVenta(venta.getIdVenta());
+                }
+                DetalleVentaDAO.getInstance().agregarLote(conn, detalles);
+
+                // Agrupar por producto y bloquear en orden de ID para evitar interbloqueos
+                Map<Integer, Integer> cantidades = new TreeMap<>();
+                for (DetalleVenta d : detalles) {
+                    cantidades.merge(d.getIdProducto(), d.getCantidad(), Integer::sum);
+                }
+                Map<Integer, Integer> faltantes = new TreeMap<>();
+                for (Map.Entry<Integer, Integer> e : cantidades.entrySet()) {
+                    int faltante = ProductoDAO.getInstance().descontarStock(conn, e.getKey(), e.getValue());
+                    InventarioDAO.getInstance().descontar(conn, e.getKey(), e.getValue(), venta);
+                    if (faltante > 0) {
+                        faltantes.put(e.getKey(), faltante);
                     }
                 }
+                // Aviso de stock bajo en la bandeja de salida, solo si la venta se confirma
+                NotificacionDAO.getInstance().encolarStockBajo(conn, cantidades.keySet(), Constantes.HORAS_AVISO_STOCK);
+
+                conn.commit();
+                publicarRegistro(venta, cantidades);
+                return new ResultadoRegistro(ResultadoRegistro.Estado.REGISTRADA, venta.getIdVenta(), faltantes, null);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener ventas por tipo de crédito: " + e.getMessage());
+            System.err.println("Error al registrar venta completa " + venta.getCodigo() + ": " + e.getMessage());
+            // Clase SQLState 08: la conexión se perdió, se puede reintentar
+            boolean sinConexion = e.getSQLState() != null && e.getSQLState().startsWith("08");
+            return new ResultadoRegistro(sinConexion ? ResultadoRegistro.Estado.SIN_CONEXION : ResultadoRegistro.Estado.ERROR,
+                    0, Collections.emptyMap(), e.getMessage());
         }
-        return lista;
     }
 
     /**
-     * Obtener ventas por estado
+     * Anula la venta en una sola transacción: devuelve el stock a Productos e
+     * Inventarios (con su movimiento en el kardex) y cancela el crédito.
+     * Si la venta ya estaba anulada o el crédito no se puede cancelar no
+     * cambia nada.
+     *
+     * @param idCredito crédito de la venta, o 0 si es de contado
+     * @return true si la venta quedó anulada
      */
-    public List<Venta> obtenerPorEstado(String estado) {
-        if (estado == null || estado.trim().isEmpty()) {
-            return new ArrayList<>();
+    public boolean anularVentaCompleta(int idVenta, List<DetalleVenta> detalles, int idCredito) {
+        Map<Integer, Integer> cantidades = new TreeMap<>();
+        for (DetalleVenta d : detalles) {
+            cantidades.merge(d.getIdProducto(), d.getCantidad(), Integer::sum);
         }
 
-        List<Venta> lista = new ArrayList<>();
-        String sql = "SELECT idVenta, codigo, idCliente, idUsuario, fechaVenta, esCredito, subtotal, ivaTotal, total, cuotaInicial, plazoMeses, estado " +
-                     "FROM Ventas WHERE estado = ? ORDER BY fechaVenta DESC";
-
         try (Connection conn = ConexionBD.obtenerConexion()) {
             if (conn == null) {
-                return lista;
+                return false;
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, estado.trim().toUpperCase());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        lista.add(mapearVenta(rs));
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Ventas SET estado = ? WHERE idVenta = ? AND estado <> ?")) {
+                    stmt.setString(1, Constantes.VENTA_ANULADA);
+                    stmt.setInt(2, idVenta);
+                    stmt.setString(3, Constantes.VENTA_ANULADA);
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return false;
                     }
                 }
+
+                if (idCredito > 0 && !CreditoDAO.getInstance().cancelar(conn, idCredito)) {
+                    System.err.println("El crédito " + idCredito + " de la venta " + idVenta +
+                            " no está activo, no se anula la venta");
+                    conn.rollback();
+                    return false;
+                }
+
+                for (Map.Entry<Integer, Integer> e : cantidades.entrySet()) {
+                    ProductoDAO.getInstance().devolverStock(conn, e.getKey(), e.getValue());
+                    InventarioDAO.getInstance().devolver(conn, e.getKey(), e.getValue(), idVenta);
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener ventas por estado: " + e.getMessage());
+            System.err.println("Error al anular venta " + idVenta + ": " + e.getMessage());
+            return false;
         }
-        return lista;
+
+        BusEventos.publicar(EventoDominio.Tipo.VENTA_ANULADA, idVenta);
+        cantidades.forEach((idProducto, cantidad) ->
+                BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.STOCK_CAMBIADO, idProducto, cantidad, 0)));
+        return true;
     }
 
     /**
-     * Obtener ventas activas (estado REGISTRADA)
+     * Avisa la venta y el descuento de cada producto, ya confirmados.
      */
-    public List<Venta> obtenerActivas() {
-        return obtenerPorEstado("REGISTRADA");
+    private void publicarRegistro(Venta venta, Map<Integer, Integer> cantidades) {
+        BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.VENTA_REGISTRADA, venta.getIdVenta(),
+                0, venta.getTotalCentavos()));
+        cantidades.forEach((idProducto, cantidad) ->
+                BusEventos.publicar(new EventoDominio(EventoDominio.Tipo.STOCK_CAMBIADO, idProducto, -cantidad, 0)));
+    }
+
+    private int buscarIdPorCodigo(Connection conn, String codigo) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT idVenta FROM Ventas WHERE codigo = ?")) {
+            stmt.setString(1, codigo);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Marca en lote como PAGADA las ventas a crédito que se terminaron de
+     * pagar, dentro de una transacción. Quien la confirma publica los eventos.
+     */
+    void marcarPagadas(Connection conn, List<Integer> idsVenta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE Ventas SET estado = ? WHERE idVenta = ? AND estado = ?")) {
+            for (Integer idVenta : idsVenta) {
+                stmt.setString(1, Constantes.VENTA_PAGADA);
+                stmt.setInt(2, idVenta);
+                stmt.setString(3, Constantes.VENTA_REGISTRADA);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
     }
 
     /**
@@ -378,24 +497,24 @@ public class VentaDAO {
     // ==================== MÉTODOS PRIVADOS ====================
 
     /**
-     * Mapea un ResultSet a un objeto Venta
+     * Mapea un ResultSet a un objeto Venta (columnas en el orden de COLUMNAS)
      */
     private Venta mapearVenta(ResultSet rs) throws SQLException {
-        Timestamp fechaVenta = rs.getTimestamp("fechaVenta");
-
-        return new Venta(
-                rs.getInt("idVenta"),
-                rs.getString("codigo"),
-                rs.getInt("idCliente"),
-                rs.getInt("idUsuario"),
-                fechaVenta != null ? new Date(fechaVenta.getTime()) : null,
-                rs.getBoolean("esCredito"),
-                rs.getDouble("subtotal"),
-                rs.getDouble("ivaTotal"),
-                rs.getDouble("total"),
-                rs.getDouble("cuotaInicial"),
-                rs.getInt("plazoMeses"),
-                rs.getString("estado")
-        );
+        Timestamp fechaVenta = rs.getTimestamp(5);
+
+        Venta venta = new Venta();
+        venta.setIdVenta(rs.getInt(1));
+        venta.setCodigo(rs.getString(2));
+        venta.setIdCliente(rs.getInt(3));
+        venta.setIdUsuario(rs.getInt(4));
+        venta.setFechaVenta(fechaVenta != null ? new Date(fechaVenta.getTime()) : null);
+        venta.setEsCredito(rs.getBoolean(6));
+        venta.setSubtotalCentavos(Dinero.getCentavos(rs, 7));
+        venta.setIvaTotalCentavos(Dinero.getCentavos(rs, 8));
+        venta.setTotalCentavos(Dinero.getCentavos(rs, 9));
+        venta.setCuotaInicialCentavos(Dinero.getCentavos(rs, 10));
+        venta.setPlazoMeses(rs.getInt(11));
+        venta.setEstado(rs.getString(12));
+        return venta;
     }
 }
@@ -0,0 +1,97 @@
+package com.taller.proyecto_bd.models;
+
+import java.time.YearMonth;
+
+/**
+ * Movimiento de cartera y ventas de cada día de un mes: cuotas que vencen,
+ * cuotas cobradas y ventas. Los días van de 1 a getDiasEnMes() y los
+ * valores están en centavos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class AgendaMes {
+    // ==================== ATRIBUTOS ====================
+    private final YearMonth mes;
+    private final int[] cuotasVencen;
+    private final int[] cuotasPendientes;   // De las que vencen, las que siguen sin pagar
+    private final long[] valorVence;        // Valor + mora de las que vencen
+    private final int[] cuotasCobradas;
+    private final long[] valorCobrado;
+    private final int[] ventas;
+    private final long[] valorVentas;
+
+    public AgendaMes(YearMonth mes) {
+        this.mes = mes;
+        int dias = mes.lengthOfMonth() + 1; // índice 0 sin usar
+        cuotasVencen = new int[dias];
+        cuotasPendientes = new int[dias];
+        valorVence = new long[dias];
+        cuotasCobradas = new int[dias];
+        valorCobrado = new long[dias];
+        ventas = new int[dias];
+        valorVentas = new long[dias];
+    }
+
+    // ==================== CARGA ====================
+
+    public void agregarVencimientos(int dia, int cuotas, int pendientes, long centavos) {
+        cuotasVencen[dia] += cuotas;
+        cuotasPendientes[dia] += pendientes;
+        valorVence[dia] += centavos;
+    }
+
+    public void agregarCobros(int dia, int cuotas, long centavos) {
+        cuotasCobradas[dia] += cuotas;
+        valorCobrado[dia] += centavos;
+    }
+
+    public void agregarVentas(int dia, int cantidad, long centavos) {
+        ventas[dia] += cantidad;
+        valorVentas[dia] += centavos;
+    }
+
+    // ==================== GETTERS ====================
+
+    public YearMonth getMes() { return mes; }
+    public int getDiasEnMes() { return mes.lengthOfMonth(); }
+    public int getCuotasVencen(int dia) { return cuotasVencen[dia]; }
+    public int getCuotasPendientes(int dia) { return cuotasPendientes[dia]; }
+    public long getValorVenceCentavos(int dia) { return valorVence[dia]; }
+    public int getCuotasCobradas(int dia) { return cuotasCobradas[dia]; }
+    public long getValorCobradoCentavos(int dia) { return valorCobrado[dia]; }
+    public int getVentas(int dia) { return ventas[dia]; }
+    public long getValorVentasCentavos(int dia) { return valorVentas[dia]; }
+
+    /** Mayor valor que vence en un día del mes (escala del mapa de calor) */
+    public long getMaximoVenceCentavos() {
+        long maximo = 0;
+        for (long valor : valorVence) {
+            maximo = Math.max(maximo, valor);
+        }
+        return maximo;
+    }
+
+    public int getTotalCuotasVencen() { return sumar(cuotasVencen); }
+    public long getTotalVenceCentavos() { return sumar(valorVence); }
+    public int getTotalCuotasCobradas() { return sumar(cuotasCobradas); }
+    public long getTotalCobradoCentavos() { return sumar(valorCobrado); }
+    public int getTotalVentas() { return sumar(ventas); }
+    public long getTotalVentasCentavos() { return sumar(valorVentas); }
+
+    private static int sumar(int[] valores) {
+        int total = 0;
+        for (int valor : valores) {
+            total += valor;
+        }
+        return total;
+    }
+
+    private static long sumar(long[] valores) {
+        long total = 0;
+        for (long valor : valores) {
+            total += valor;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,133 @@
+package com.taller.proyecto_bd.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado del análisis ABC de inventario: totales por clase, resumen
+ * por categoría y los productos principales por ingresos. Los valores
+ * están en centavos y las clases en los índices de ClasificacionABC
+ * (0 = A, 1 = B, 2 = C).
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class AnalisisABC {
+    // ==================== ATRIBUTOS ====================
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private int totalProductos;
+    private long totalIngresosCentavos;
+    private long totalValorCentavos;
+    private long totalUnidades;
+    private final int[] productosPorClaseIngresos = new int[3];
+    private final long[] ingresosPorClase = new long[3];
+    private final int[] productosPorClaseValor = new int[3];
+    private final long[] valorPorClase = new long[3];
+    private final List<CategoriaABC> categorias = new ArrayList<>();
+    private final List<ProductoABC> productosPrincipales = new ArrayList<>();
+
+    public AnalisisABC(LocalDate desde, LocalDate hasta) {
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public LocalDate getDesde() { return desde; }
+    public LocalDate getHasta() { return hasta; }
+    public int getTotalProductos() { return totalProductos; }
+    public long getTotalIngresosCentavos() { return totalIngresosCentavos; }
+    public long getTotalValorCentavos() { return totalValorCentavos; }
+    public long getTotalUnidades() { return totalUnidades; }
+    public int[] getProductosPorClaseIngresos() { return productosPorClaseIngresos; }
+    public long[] getIngresosPorClase() { return ingresosPorClase; }
+    public int[] getProductosPorClaseValor() { return productosPorClaseValor; }
+    public long[] getValorPorClase() { return valorPorClase; }
+    /** Ordenadas de mayor a menor ingreso */
+    public List<CategoriaABC> getCategorias() { return categorias; }
+    /** Ordenados de mayor a menor ingreso */
+    public List<ProductoABC> getProductosPrincipales() { return productosPrincipales; }
+
+    public void setTotalProductos(int totalProductos) { this.totalProductos = totalProductos; }
+    public void setTotalIngresosCentavos(long totalIngresosCentavos) { this.totalIngresosCentavos = totalIngresosCentavos; }
+    public void setTotalValorCentavos(long totalValorCentavos) { this.totalValorCentavos = totalValorCentavos; }
+    public void setTotalUnidades(long totalUnidades) { this.totalUnidades = totalUnidades; }
+
+    // ==================== CLASES INTERNAS ====================
+
+    /**
+     * Resumen de una categoría: productos e ingresos por clase de ingresos,
+     * productos por clase de valor de inventario y totales.
+     */
+    public static class CategoriaABC {
+        private final String nombre;
+        private final int[] productosPorClaseIngresos = new int[3];
+        private final long[] ingresosPorClase = new long[3];
+        private final int[] productosPorClaseValor = new int[3];
+        private long valorInventarioCentavos;
+        private long unidades;
+
+        public CategoriaABC(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() { return nombre; }
+        public int[] getProductosPorClaseIngresos() { return productosPorClaseIngresos; }
+        public long[] getIngresosPorClase() { return ingresosPorClase; }
+        public int[] getProductosPorClaseValor() { return productosPorClaseValor; }
+        public long getValorInventarioCentavos() { return valorInventarioCentavos; }
+        public long getUnidades() { return unidades; }
+        public void setValorInventarioCentavos(long valor) { this.valorInventarioCentavos = valor; }
+        public void setUnidades(long unidades) { this.unidades = unidades; }
+
+        public long getIngresosCentavos() {
+            return ingresosPorClase[0] + ingresosPorClase[1] + ingresosPorClase[2];
+        }
+
+        public int getProductos() {
+            return productosPorClaseIngresos[0] + productosPorClaseIngresos[1] + productosPorClaseIngresos[2];
+        }
+    }
+
+    /**
+     * Un producto con sus dos clasificaciones.
+     */
+    public static class ProductoABC {
+        private final int idProducto;
+        private String codigo;
+        private String nombre;
+        private String categoria;
+        private final long ingresosCentavos;
+        private final long valorInventarioCentavos;
+        private final byte claseIngresos;
+        private final byte claseValor;
+        private final double porcentajeAcumulado;
+
+        public ProductoABC(int idProducto, long ingresosCentavos, long valorInventarioCentavos,
+                           byte claseIngresos, byte claseValor, double porcentajeAcumulado) {
+            this.idProducto = idProducto;
+            this.ingresosCentavos = ingresosCentavos;
+            this.valorInventarioCentavos = valorInventarioCentavos;
+            this.claseIngresos = claseIngresos;
+            this.claseValor = claseValor;
+            this.porcentajeAcumulado = porcentajeAcumulado;
+        }
+
+        public int getIdProducto() { return idProducto; }
+        public String getCodigo() { return codigo; }
+        public String getNombre() { return nombre; }
+        public String getCategoria() { return categoria; }
+        public long getIngresosCentavos() { return ingresosCentavos; }
+        public long getValorInventarioCentavos() { return valorInventarioCentavos; }
+        public byte getClaseIngresos() { return claseIngresos; }
+        public byte getClaseValor() { return claseValor; }
+        /** Porcentaje de los ingresos totales acumulado hasta este producto inclusive */
+        public double getPorcentajeAcumulado() { return porcentajeAcumulado; }
+
+        public void setCodigo(String codigo) { this.codigo = codigo; }
+        public void setNombre(String nombre) { this.nombre = nombre; }
+        public void setCategoria(String categoria) { this.categoria = categoria; }
+    }
+}
@@ -0,0 +1,71 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de repartir un pago entre las cuotas pendientes más antiguas
+ * de uno o varios créditos. Los valores están en centavos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class AplicacionPago {
+    // ==================== ATRIBUTOS ====================
+    private final long montoCentavos;
+    private long aplicadoCentavos;
+    private final List<Abono> abonos = new ArrayList<>();
+    private final List<Integer> creditosCancelados = new ArrayList<>();
+
+    public AplicacionPago(long montoCentavos) {
+        this.montoCentavos = montoCentavos;
+    }
+
+    // ==================== GETTERS ====================
+
+    public long getMontoCentavos() { return montoCentavos; }
+    public long getAplicadoCentavos() { return aplicadoCentavos; }
+    /** Lo que sobró porque ya no quedaban cuotas pendientes */
+    public long getSobranteCentavos() { return montoCentavos - aplicadoCentavos; }
+    /** En el orden en que se aplicaron (de la más antigua a la más reciente) */
+    public List<Abono> getAbonos() { return abonos; }
+    /** Créditos que quedaron sin cuotas pendientes */
+    public List<Integer> getCreditosCancelados() { return creditosCancelados; }
+
+    public void agregarAbono(Abono abono) {
+        abonos.add(abono);
+        aplicadoCentavos += abono.getAplicadoCentavos();
+    }
+
+    public long getCuotasSaldadas() {
+        return abonos.stream().filter(Abono::isSaldada).count();
+    }
+
+    // ==================== CLASES INTERNAS ====================
+
+    /**
+     * Lo que se aplicó a una cuota.
+     */
+    public static class Abono {
+        private final int idCuota;
+        private final int idCredito;
+        private final int numeroCuota;
+        private final long aplicadoCentavos;
+        private final boolean saldada;
+
+        public Abono(int idCuota, int idCredito, int numeroCuota, long aplicadoCentavos, boolean saldada) {
+            this.idCuota = idCuota;
+            this.idCredito = idCredito;
+            this.numeroCuota = numeroCuota;
+            this.aplicadoCentavos = aplicadoCentavos;
+            this.saldada = saldada;
+        }
+
+        public int getIdCuota() { return idCuota; }
+        public int getIdCredito() { return idCredito; }
+        public int getNumeroCuota() { return numeroCuota; }
+        public long getAplicadoCentavos() { return aplicadoCentavos; }
+        /** true si con este abono la cuota quedó pagada */
+        public boolean isSaldada() { return saldada; }
+    }
+}
@@ -1,6 +1,7 @@
 package com.taller.proyecto_bd.models;
 
 import java.util.Date;
+import java.util.List;
 
 /**
  * Clase que representa un registro de auditoría en el sistema de electrodomésticos
@@ -10,6 +11,9 @@ import java.util.Date;
  * @version 1.0
  */
 public class Auditoria {
+    /** Acciones que la bitácora resalta como críticas */
+    public static final List<String> ACCIONES_CRITICAS = List.of("ELIMINAR", "ANULAR", "LOGIN_FALLIDO");
+
     // ==================== ATRIBUTOS ====================
     private int idAuditoria;
     private int idUsuario;        // Usuario que realizó la acción
@@ -86,9 +90,7 @@ public class Auditoria {
      */
     public boolean esCritica() {
         return accion != null &&
-                (accion.equalsIgnoreCase("ELIMINAR") ||
-                        accion.equalsIgnoreCase("ANULAR") ||
-                        accion.equalsIgnoreCase("LOGIN_FALLIDO"));
+                ACCIONES_CRITICAS.stream().anyMatch(accion::equalsIgnoreCase);
     }
 
     // ==================== MÉTODOS OVERRIDE ====================
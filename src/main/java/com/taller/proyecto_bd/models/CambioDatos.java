@@ -0,0 +1,71 @@
+package com.taller.proyecto_bd.models;
+
+/**
+ * Fila del registro de cambios (tabla CambiosDatos) que llenan los triggers
+ * de las tablas cacheadas. Cada caja lee los cambios con idCambio mayor al
+ * último procesado para enterarse de lo que hicieron las demás.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CambioDatos {
+    // ==================== TABLAS ====================
+    public static final String PRODUCTOS = "Productos";
+    public static final String INVENTARIOS = "Inventarios";
+    public static final String CATEGORIAS = "Categorias";
+    public static final String CLIENTES = "Clientes";
+    public static final String VENTAS = "Ventas";
+    public static final String CUOTAS = "Cuotas";
+
+    // ==================== OPERACIONES ====================
+    public static final String INSERCION = "I";
+    public static final String ACTUALIZACION = "U";
+    public static final String ELIMINACION = "D";
+
+    // ==================== ATRIBUTOS ====================
+    private long idCambio;
+    private String tabla;
+    private int idRegistro;
+    private String operacion;
+    private String origen;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CambioDatos() {
+    }
+
+    public CambioDatos(long idCambio, String tabla, int idRegistro, String operacion, String origen) {
+        this.idCambio = idCambio;
+        this.tabla = tabla;
+        this.idRegistro = idRegistro;
+        this.operacion = operacion;
+        this.origen = origen;
+    }
+
+    // ==================== GETTERS ====================
+
+    public long getIdCambio() { return idCambio; }
+    public String getTabla() { return tabla; }
+    /** ID de la fila cambiada (en Inventarios, el idProducto) */
+    public int getIdRegistro() { return idRegistro; }
+    public String getOperacion() { return operacion; }
+    /** Instancia de la aplicación que hizo el cambio (null si fue fuera de ella) */
+    public String getOrigen() { return origen; }
+
+    // ==================== SETTERS ====================
+
+    public void setIdCambio(long idCambio) { this.idCambio = idCambio; }
+    public void setTabla(String tabla) { this.tabla = tabla; }
+    public void setIdRegistro(int idRegistro) { this.idRegistro = idRegistro; }
+    public void setOperacion(String operacion) { this.operacion = operacion; }
+    public void setOrigen(String origen) { this.origen = origen; }
+
+    public boolean esEliminacion() {
+        return ELIMINACION.equals(operacion);
+    }
+
+    @Override
+    public String toString() {
+        return "CambioDatos{" + idCambio + " " + operacion + " " + tabla + "[" + idRegistro + "]}";
+    }
+}
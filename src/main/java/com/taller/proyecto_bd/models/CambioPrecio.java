@@ -0,0 +1,85 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.Date;
+
+/**
+ * Cambio del precio de venta de un producto: una fila de la vista previa de
+ * un repreciado o un registro de la tabla HistorialPrecios.
+ * Los precios se manejan en centavos, como en Dinero.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CambioPrecio {
+    // ==================== ATRIBUTOS ====================
+    private int idProducto;
+    private String codigo;
+    private String nombre;
+    private String categoria;
+    private long precioCompraCentavos;
+    private long precioAnteriorCentavos;
+    private long precioNuevoCentavos;
+    private Integer idUsuario;
+    private String motivo;
+    private Date fecha;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CambioPrecio() {
+    }
+
+    public CambioPrecio(int idProducto, String codigo, String nombre, String categoria,
+                        long precioCompraCentavos, long precioAnteriorCentavos, long precioNuevoCentavos) {
+        this.idProducto = idProducto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.categoria = categoria;
+        this.precioCompraCentavos = precioCompraCentavos;
+        this.precioAnteriorCentavos = precioAnteriorCentavos;
+        this.precioNuevoCentavos = precioNuevoCentavos;
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getIdProducto() { return idProducto; }
+    public String getCodigo() { return codigo; }
+    public String getNombre() { return nombre; }
+    public String getCategoria() { return categoria; }
+    public long getPrecioCompraCentavos() { return precioCompraCentavos; }
+    public long getPrecioAnteriorCentavos() { return precioAnteriorCentavos; }
+    public long getPrecioNuevoCentavos() { return precioNuevoCentavos; }
+    public Integer getIdUsuario() { return idUsuario; }
+    public String getMotivo() { return motivo; }
+    public Date getFecha() { return fecha; }
+
+    // ==================== SETTERS ====================
+
+    public void setIdProducto(int idProducto) { this.idProducto = idProducto; }
+    public void setCodigo(String codigo) { this.codigo = codigo; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+    public void setPrecioCompraCentavos(long precioCompraCentavos) { this.precioCompraCentavos = precioCompraCentavos; }
+    public void setPrecioAnteriorCentavos(long precioAnteriorCentavos) { this.precioAnteriorCentavos = precioAnteriorCentavos; }
+    public void setPrecioNuevoCentavos(long precioNuevoCentavos) { this.precioNuevoCentavos = precioNuevoCentavos; }
+    public void setIdUsuario(Integer idUsuario) { this.idUsuario = idUsuario; }
+    public void setMotivo(String motivo) { this.motivo = motivo; }
+    public void setFecha(Date fecha) { this.fecha = fecha; }
+
+    // ==================== MÉTODOS DE NEGOCIO ====================
+
+    public long getDiferenciaCentavos() {
+        return precioNuevoCentavos - precioAnteriorCentavos;
+    }
+
+    /**
+     * Variación porcentual respecto al precio anterior (0 si no había precio).
+     */
+    public double getVariacionPorcentaje() {
+        return precioAnteriorCentavos == 0 ? 0 : getDiferenciaCentavos() * 100.0 / precioAnteriorCentavos;
+    }
+
+    @Override
+    public String toString() {
+        return "CambioPrecio{" + codigo + ": " + precioAnteriorCentavos + " -> " + precioNuevoCentavos + "}";
+    }
+}
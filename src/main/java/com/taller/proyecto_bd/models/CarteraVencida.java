@@ -0,0 +1,100 @@
+package com.taller.proyecto_bd.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cartera por edades a una fecha de corte: saldo de las cuotas sin pagar
+ * repartido en tramos de atraso (índices de TRAMOS), los clientes con más
+ * saldo y la comparación contra el saldo pendiente guardado en Clientes.
+ * Los valores están en centavos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CarteraVencida {
+    // ==================== TRAMOS ====================
+    public static final String[] TRAMOS = { "Corriente", "1-30 días", "31-60 días", "61-90 días", "Más de 90 días" };
+
+    // ==================== ATRIBUTOS ====================
+    private final LocalDate fechaCorte;
+    private int totalClientes;
+    private long totalSaldoCentavos;
+    private long totalRegistradoCentavos;
+    private final long[] saldoPorTramo = new long[TRAMOS.length];
+    /** Clientes según el tramo de su cuota más atrasada */
+    private final int[] clientesPorTramo = new int[TRAMOS.length];
+    private int clientesConDiferencia;
+    private long diferenciaCentavos;
+    private final List<SaldoCliente> clientesPrincipales = new ArrayList<>();
+
+    public CarteraVencida(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public LocalDate getFechaCorte() { return fechaCorte; }
+    /** Clientes con cuotas pendientes o con saldo registrado */
+    public int getTotalClientes() { return totalClientes; }
+    /** Saldo según las cuotas sin pagar */
+    public long getTotalSaldoCentavos() { return totalSaldoCentavos; }
+    /** Suma de Clientes.saldoPendiente */
+    public long getTotalRegistradoCentavos() { return totalRegistradoCentavos; }
+    public long[] getSaldoPorTramo() { return saldoPorTramo; }
+    public int[] getClientesPorTramo() { return clientesPorTramo; }
+    /** Clientes cuyo saldo registrado no coincide con sus cuotas */
+    public int getClientesConDiferencia() { return clientesConDiferencia; }
+    /** Suma de las diferencias en valor absoluto */
+    public long getDiferenciaCentavos() { return diferenciaCentavos; }
+    /** Ordenados de mayor a menor saldo */
+    public List<SaldoCliente> getClientesPrincipales() { return clientesPrincipales; }
+
+    public void setTotalClientes(int totalClientes) { this.totalClientes = totalClientes; }
+    public void setTotalSaldoCentavos(long totalSaldoCentavos) { this.totalSaldoCentavos = totalSaldoCentavos; }
+    public void setTotalRegistradoCentavos(long totalRegistradoCentavos) { this.totalRegistradoCentavos = totalRegistradoCentavos; }
+    public void setClientesConDiferencia(int clientesConDiferencia) { this.clientesConDiferencia = clientesConDiferencia; }
+    public void setDiferenciaCentavos(long diferenciaCentavos) { this.diferenciaCentavos = diferenciaCentavos; }
+
+    // ==================== CLASES INTERNAS ====================
+
+    /**
+     * Saldo de un cliente por tramo de atraso.
+     */
+    public static class SaldoCliente {
+        private final int idCliente;
+        private String cedula;
+        private String nombre;
+        private final long[] saldoPorTramo;
+        private final long saldoRegistradoCentavos;
+
+        public SaldoCliente(int idCliente, long[] saldoPorTramo, long saldoRegistradoCentavos) {
+            this.idCliente = idCliente;
+            this.saldoPorTramo = saldoPorTramo;
+            this.saldoRegistradoCentavos = saldoRegistradoCentavos;
+        }
+
+        public int getIdCliente() { return idCliente; }
+        public String getCedula() { return cedula; }
+        public String getNombre() { return nombre; }
+        public long[] getSaldoPorTramo() { return saldoPorTramo; }
+        public long getSaldoRegistradoCentavos() { return saldoRegistradoCentavos; }
+
+        public void setCedula(String cedula) { this.cedula = cedula; }
+        public void setNombre(String nombre) { this.nombre = nombre; }
+
+        public long getTotalCentavos() {
+            long total = 0;
+            for (long saldo : saldoPorTramo) {
+                total += saldo;
+            }
+            return total;
+        }
+
+        /** Saldo registrado menos saldo de las cuotas */
+        public long getDiferenciaCentavos() {
+            return saldoRegistradoCentavos - getTotalCentavos();
+        }
+    }
+}
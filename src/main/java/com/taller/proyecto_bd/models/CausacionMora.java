@@ -0,0 +1,45 @@
+package com.taller.proyecto_bd.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de causar la mora de las cuotas vencidas a una fecha de corte.
+ * Los valores están en centavos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CausacionMora {
+    // ==================== ATRIBUTOS ====================
+    private final LocalDate fechaCorte;
+    private int cuotas;
+    private int creditos;
+    private long totalCentavos;
+    private final List<Integer> clientes = new ArrayList<>();
+
+    public CausacionMora(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+
+    // ==================== GETTERS ====================
+
+    public LocalDate getFechaCorte() { return fechaCorte; }
+    /** Cuotas a las que se les cobró mora en esta corrida */
+    public int getCuotas() { return cuotas; }
+    public int getCreditos() { return creditos; }
+    public long getTotalCentavos() { return totalCentavos; }
+    /** Clientes cuyo saldo aumentó */
+    public List<Integer> getClientes() { return clientes; }
+
+    /**
+     * Suma lo causado a un cliente.
+     */
+    public void agregarCliente(int idCliente, int cuotas, int creditos, long centavos) {
+        clientes.add(idCliente);
+        this.cuotas += cuotas;
+        this.creditos += creditos;
+        this.totalCentavos += centavos;
+    }
+}
@@ -22,6 +22,7 @@ public class Cliente {
     private double limiteCredito;
     private double saldoPendiente;
     private String passwordHash;  // Contraseña hasheada (opcional, puede ser NULL)
+    private int version;          // Versión de la fila al leerla (0: desconocida)
 
     // ==================== CONSTRUCTORES ====================
 
@@ -188,7 +189,7 @@ public class Cliente {
      */
     public void setPassword(String passwordPlana) {
         if (passwordPlana != null && !passwordPlana.trim().isEmpty()) {
-            this.passwordHash = Encriptacion.encriptarSHA256(passwordPlana);
+            this.passwordHash = Encriptacion.hashPassword(passwordPlana);
         } else {
             this.passwordHash = null;  // Permite clientes sin contraseña
         }
@@ -202,6 +203,14 @@ public class Cliente {
         this.passwordHash = passwordHash;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Verifica si el cliente tiene contraseña configurada
      * @return true si tiene contraseña, false si no
@@ -219,8 +228,7 @@ public class Cliente {
         if (!tienePassword() || passwordPlana == null) {
             return false;
         }
-        String hashIngresado = Encriptacion.encriptarSHA256(passwordPlana);
-        return this.passwordHash.equalsIgnoreCase(hashIngresado);
+        return Encriptacion.verificarPassword(passwordPlana, this.passwordHash);
     }
 
     // ==================== MÉTODOS ÚTILES ====================
@@ -1,5 +1,7 @@
 package com.taller.proyecto_bd.models;
 
+import com.taller.proyecto_bd.utils.Dinero;
+
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -14,13 +16,14 @@ public class Credito {
     private int idCredito;
     private int idVenta;              // Relación con Venta
     private int idCliente;            // Cliente asociado
-    private double montoTotal;        // Valor financiado (después de cuota inicial)
+    private long montoTotal;          // Valor financiado en centavos (después de cuota inicial)
     private double interes;           // % interés aplicado (ej: 0.05 = 5%)
     private int plazoMeses;           // Número de cuotas (12, 18, 24)
-    private double cuotaInicial;      // Pago inicial (ej: 30%)
-    private double saldoPendiente;    // Monto restante por pagar
+    private long cuotaInicial;        // Pago inicial en centavos (ej: 30%)
+    private long saldoPendiente;      // Monto restante por pagar en centavos
     private String estado;            // "ACTIVO", "CANCELADO", "MOROSO"
     private Date fechaRegistro;
+    private int version;              // Versión de la fila al leerla (0: desconocida)
 
     // Atributos auxiliares
     private List<Cuota> cuotas;       // Lista de cuotas generadas
@@ -39,11 +42,11 @@ public class Credito {
         this();
         this.idVenta = idVenta;
         this.idCliente = idCliente;
-        this.montoTotal = montoTotal;
-        this.cuotaInicial = cuotaInicial;
+        this.montoTotal = Dinero.aCentavos(montoTotal);
+        this.cuotaInicial = Dinero.aCentavos(cuotaInicial);
         this.plazoMeses = plazoMeses;
         this.interes = interes;
-        this.saldoPendiente = montoTotal;
+        this.saldoPendiente = this.montoTotal;
     }
 
     public Credito(int idCredito, int idVenta, int idCliente,
@@ -53,11 +56,11 @@ public class Credito {
         this.idCredito = idCredito;
         this.idVenta = idVenta;
         this.idCliente = idCliente;
-        this.montoTotal = montoTotal;
+        this.montoTotal = Dinero.aCentavos(montoTotal);
         this.interes = interes;
         this.plazoMeses = plazoMeses;
-        this.cuotaInicial = cuotaInicial;
-        this.saldoPendiente = saldoPendiente;
+        this.cuotaInicial = Dinero.aCentavos(cuotaInicial);
+        this.saldoPendiente = Dinero.aCentavos(saldoPendiente);
         this.estado = estado;
         this.fechaRegistro = fechaRegistro;
         this.cuotas = new ArrayList<>();
@@ -68,13 +71,17 @@ public class Credito {
     public int getIdCredito() { return idCredito; }
     public int getIdVenta() { return idVenta; }
     public int getIdCliente() { return idCliente; }
-    public double getMontoTotal() { return montoTotal; }
+    public double getMontoTotal() { return Dinero.aDouble(montoTotal); }
     public double getInteres() { return interes; }
     public int getPlazoMeses() { return plazoMeses; }
-    public double getCuotaInicial() { return cuotaInicial; }
-    public double getSaldoPendiente() { return saldoPendiente; }
+    public double getCuotaInicial() { return Dinero.aDouble(cuotaInicial); }
+    public double getSaldoPendiente() { return Dinero.aDouble(saldoPendiente); }
+    public long getMontoTotalCentavos() { return montoTotal; }
+    public long getCuotaInicialCentavos() { return cuotaInicial; }
+    public long getSaldoPendienteCentavos() { return saldoPendiente; }
     public String getEstado() { return estado; }
     public Date getFechaRegistro() { return fechaRegistro; }
+    public int getVersion() { return version; }
     public List<Cuota> getCuotas() { return cuotas; }
 
     // ==================== SETTERS ====================
@@ -82,36 +89,35 @@ public class Credito {
     public void setIdCredito(int idCredito) { this.idCredito = idCredito; }
     public void setIdVenta(int idVenta) { this.idVenta = idVenta; }
     public void setIdCliente(int idCliente) { this.idCliente = idCliente; }
-    public void setMontoTotal(double montoTotal) { this.montoTotal = montoTotal; }
+    public void setMontoTotal(double montoTotal) { this.montoTotal = Dinero.aCentavos(montoTotal); }
     public void setInteres(double interes) { this.interes = interes; }
     public void setPlazoMeses(int plazoMeses) { this.plazoMeses = plazoMeses; }
-    public void setCuotaInicial(double cuotaInicial) { this.cuotaInicial = cuotaInicial; }
-    public void setSaldoPendiente(double saldoPendiente) { this.saldoPendiente = saldoPendiente; }
+    public void setCuotaInicial(double cuotaInicial) { this.cuotaInicial = Dinero.aCentavos(cuotaInicial); }
+    public void setSaldoPendiente(double saldoPendiente) { this.saldoPendiente = Dinero.aCentavos(saldoPendiente); }
+    public void setMontoTotalCentavos(long montoTotal) { this.montoTotal = montoTotal; }
+    public void setCuotaInicialCentavos(long cuotaInicial) { this.cuotaInicial = cuotaInicial; }
+    public void setSaldoPendienteCentavos(long saldoPendiente) { this.saldoPendiente = saldoPendiente; }
     public void setEstado(String estado) { this.estado = estado; }
     public void setFechaRegistro(Date fechaRegistro) { this.fechaRegistro = fechaRegistro; }
+    public void setVersion(int version) { this.version = version; }
     public void setCuotas(List<Cuota> cuotas) { this.cuotas = cuotas; }
 
     // ==================== MÉTODOS DE NEGOCIO ====================
 
     /**
-     * Genera las cuotas a partir del monto, plazo y tasa de interés
+     * Genera las cuotas a partir del monto financiado, plazo y tasa de
+     * interés, con el mismo plan que CuotaDAO.generarCuotas
      */
     public void generarCuotas() {
         cuotas = new ArrayList<>();
         if (plazoMeses <= 0) return;
 
-        // Usar fórmula de interés compuesto
-        double tasaMensual = interes / 12.0;
-        double factor = Math.pow(1 + tasaMensual, plazoMeses);
-        double valorCuota = montoTotal * (tasaMensual * factor) / (factor - 1);
-
-        // Si no hay interés, dividir equitativamente
-        if (interes == 0) {
-            valorCuota = montoTotal / plazoMeses;
-        }
+        // Interés fijo sobre el saldo repartido en cuotas iguales (política de la tienda)
+        PlanPagos plan = PlanPagos.interesFijo(montoTotal, interes, plazoMeses);
 
         for (int i = 1; i <= plazoMeses; i++) {
-            Cuota c = new Cuota(i, idCredito, valorCuota, new Date());
+            Cuota c = new Cuota(i, idCredito, 0, new Date());
+            c.setValorCentavos(plan.getCuotaCentavos(i - 1));
             cuotas.add(c);
         }
     }
@@ -120,8 +126,9 @@ public class Credito {
      * Registra un pago de cuota y actualiza el saldo
      */
     public boolean pagarCuota(double monto) {
-        if (monto <= 0 || monto > saldoPendiente) return false;
-        saldoPendiente -= monto;
+        long centavos = Dinero.aCentavos(monto);
+        if (centavos <= 0 || centavos > saldoPendiente) return false;
+        saldoPendiente -= centavos;
 
         if (saldoPendiente == 0) {
             estado = "CANCELADO";
@@ -152,10 +159,10 @@ public class Credito {
                 "ID=" + idCredito +
                 ", VentaID=" + idVenta +
                 ", ClienteID=" + idCliente +
-                ", Monto=$" + String.format("%.2f", montoTotal) +
+                ", Monto=$" + Dinero.deCentavos(montoTotal) +
                 ", Interés=" + (interes * 100) + "%" +
                 ", Plazo=" + plazoMeses + " meses" +
-                ", Saldo Pendiente=$" + String.format("%.2f", saldoPendiente) +
+                ", Saldo Pendiente=$" + Dinero.deCentavos(saldoPendiente) +
                 ", Estado=" + estado +
                 '}';
     }
@@ -1,5 +1,7 @@
 package com.taller.proyecto_bd.models;
 
+import com.taller.proyecto_bd.utils.Dinero;
+
 import java.util.Date;
 
 /**
@@ -12,7 +14,9 @@ public class Cuota {
     private int idCuota;
     private int numeroCuota;       // Ej: 1, 2, 3...
     private int idCredito;         // Relación con Crédito
-    private double valor;          // Valor de la cuota
+    private long valor;            // Valor de la cuota en centavos
+    private long mora;             // Intereses de mora causados en centavos (MoraService)
+    private long valorPagado;      // Abonado hasta ahora en centavos (pagos parciales)
     private Date fechaVencimiento; // Fecha límite de pago
     private Date fechaPago;        // Fecha en que se pagó (null si no se ha pagado)
     private boolean pagada;
@@ -27,7 +31,7 @@ public class Cuota {
         this();
         this.numeroCuota = numeroCuota;
         this.idCredito = idCredito;
-        this.valor = valor;
+        this.valor = Dinero.aCentavos(valor);
         this.fechaVencimiento = fechaVencimiento;
     }
 
@@ -37,7 +41,7 @@ public class Cuota {
         this.idCuota = idCuota;
         this.numeroCuota = numeroCuota;
         this.idCredito = idCredito;
-        this.valor = valor;
+        this.valor = Dinero.aCentavos(valor);
         this.fechaVencimiento = fechaVencimiento;
         this.fechaPago = fechaPago;
         this.pagada = pagada;
@@ -48,7 +52,10 @@ public class Cuota {
     public int getIdCuota() { return idCuota; }
     public int getNumeroCuota() { return numeroCuota; }
     public int getIdCredito() { return idCredito; }
-    public double getValor() { return valor; }
+    public double getValor() { return Dinero.aDouble(valor); }
+    public long getValorCentavos() { return valor; }
+    public long getMoraCentavos() { return mora; }
+    public long getValorPagadoCentavos() { return valorPagado; }
     public Date getFechaVencimiento() { return fechaVencimiento; }
     public Date getFechaPago() { return fechaPago; }
     public boolean isPagada() { return pagada; }
@@ -58,7 +65,10 @@ public class Cuota {
     public void setIdCuota(int idCuota) { this.idCuota = idCuota; }
     public void setNumeroCuota(int numeroCuota) { this.numeroCuota = numeroCuota; }
     public void setIdCredito(int idCredito) { this.idCredito = idCredito; }
-    public void setValor(double valor) { this.valor = valor; }
+    public void setValor(double valor) { this.valor = Dinero.aCentavos(valor); }
+    public void setValorCentavos(long valor) { this.valor = valor; }
+    public void setMoraCentavos(long mora) { this.mora = mora; }
+    public void setValorPagadoCentavos(long valorPagado) { this.valorPagado = valorPagado; }
     public void setFechaVencimiento(Date fechaVencimiento) { this.fechaVencimiento = fechaVencimiento; }
     public void setFechaPago(Date fechaPago) { this.fechaPago = fechaPago; }
     public void setPagada(boolean pagada) { this.pagada = pagada; }
@@ -70,9 +80,17 @@ public class Cuota {
      */
     public void pagarCuota(Date fechaPago) {
         this.fechaPago = fechaPago != null ? fechaPago : new Date();
+        this.valorPagado = valor + mora;
         this.pagada = true;
     }
 
+    /**
+     * Lo que falta por pagar en centavos, incluida la mora
+     */
+    public long getSaldoCentavos() {
+        return pagada ? 0 : Math.max(valor + mora - valorPagado, 0);
+    }
+
     /**
      * Verifica si la cuota está vencida
      */
@@ -97,7 +115,7 @@ public class Cuota {
     public String toString() {
         return "Cuota{" +
                 "Num=" + numeroCuota +
-                ", Valor=$" + String.format("%.2f", valor) +
+                ", Valor=$" + Dinero.deCentavos(valor) +
                 ", Vencimiento=" + fechaVencimiento +
                 ", Pagada=" + pagada +
                 (pagada ? ", Pago=" + fechaPago : "") +
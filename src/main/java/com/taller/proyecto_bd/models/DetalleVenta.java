@@ -1,5 +1,7 @@
 package com.taller.proyecto_bd.models;
 
+import com.taller.proyecto_bd.utils.Dinero;
+
 import java.util.Date;
 
 /**
@@ -13,10 +15,10 @@ public class DetalleVenta {
     private int idVenta;            // Relación con Venta
     private int idProducto;         // Relación con Producto
     private int cantidad;
-    private double precioUnitario;
-    private double subtotal;
-    private double montoIVA;
-    private double total;
+    private long precioUnitario;    // Montos en centavos (ver Dinero)
+    private long subtotal;
+    private long montoIVA;
+    private long total;
     private Date fechaRegistro;
 
     // Atributos auxiliares
@@ -29,17 +31,17 @@ public class DetalleVenta {
     public DetalleVenta() {
         this.fechaRegistro = new Date();
         this.cantidad = 1;
-        this.precioUnitario = 0.0;
-        this.subtotal = 0.0;
-        this.montoIVA = 0.0;
-        this.total = 0.0;
+        this.precioUnitario = 0;
+        this.subtotal = 0;
+        this.montoIVA = 0;
+        this.total = 0;
     }
 
     public DetalleVenta(int idProducto, int cantidad, double precioUnitario, double iva) {
         this();
         this.idProducto = idProducto;
         this.cantidad = cantidad;
-        this.precioUnitario = precioUnitario;
+        this.precioUnitario = Dinero.aCentavos(precioUnitario);
         calcularTotales(iva);
     }
 
@@ -51,10 +53,10 @@ public class DetalleVenta {
         this.idVenta = idVenta;
         this.idProducto = idProducto;
         this.cantidad = cantidad;
-        this.precioUnitario = precioUnitario;
-        this.subtotal = subtotal;
-        this.montoIVA = montoIVA;
-        this.total = total;
+        this.precioUnitario = Dinero.aCentavos(precioUnitario);
+        this.subtotal = Dinero.aCentavos(subtotal);
+        this.montoIVA = Dinero.aCentavos(montoIVA);
+        this.total = Dinero.aCentavos(total);
         this.fechaRegistro = fechaRegistro;
     }
 
@@ -64,10 +66,14 @@ public class DetalleVenta {
     public int getIdVenta() { return idVenta; }
     public int getIdProducto() { return idProducto; }
     public int getCantidad() { return cantidad; }
-    public double getPrecioUnitario() { return precioUnitario; }
-    public double getSubtotal() { return subtotal; }
-    public double getMontoIVA() { return montoIVA; }
-    public double getTotal() { return total; }
+    public double getPrecioUnitario() { return Dinero.aDouble(precioUnitario); }
+    public double getSubtotal() { return Dinero.aDouble(subtotal); }
+    public double getMontoIVA() { return Dinero.aDouble(montoIVA); }
+    public double getTotal() { return Dinero.aDouble(total); }
+    public long getPrecioUnitarioCentavos() { return precioUnitario; }
+    public long getSubtotalCentavos() { return subtotal; }
+    public long getMontoIVACentavos() { return montoIVA; }
+    public long getTotalCentavos() { return total; }
     public Date getFechaRegistro() { return fechaRegistro; }
     public String getNombreProducto() { return nombreProducto; }
     public String getCategoriaProducto() { return categoriaProducto; }
@@ -79,10 +85,14 @@ public class DetalleVenta {
     public void setIdVenta(int idVenta) { this.idVenta = idVenta; }
     public void setIdProducto(int idProducto) { this.idProducto = idProducto; }
     public void setCantidad(int cantidad) { this.cantidad = cantidad; }
-    public void setPrecioUnitario(double precioUnitario) { this.precioUnitario = precioUnitario; }
-    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
-    public void setMontoIVA(double montoIVA) { this.montoIVA = montoIVA; }
-    public void setTotal(double total) { this.total = total; }
+    public void setPrecioUnitario(double precioUnitario) { this.precioUnitario = Dinero.aCentavos(precioUnitario); }
+    public void setSubtotal(double subtotal) { this.subtotal = Dinero.aCentavos(subtotal); }
+    public void setMontoIVA(double montoIVA) { this.montoIVA = Dinero.aCentavos(montoIVA); }
+    public void setTotal(double total) { this.total = Dinero.aCentavos(total); }
+    public void setPrecioUnitarioCentavos(long precioUnitario) { this.precioUnitario = precioUnitario; }
+    public void setSubtotalCentavos(long subtotal) { this.subtotal = subtotal; }
+    public void setMontoIVACentavos(long montoIVA) { this.montoIVA = montoIVA; }
+    public void setTotalCentavos(long total) { this.total = total; }
     public void setFechaRegistro(Date fechaRegistro) { this.fechaRegistro = fechaRegistro; }
     public void setNombreProducto(String nombreProducto) { this.nombreProducto = nombreProducto; }
     public void setCategoriaProducto(String categoriaProducto) { this.categoriaProducto = categoriaProducto; }
@@ -100,8 +110,8 @@ public class DetalleVenta {
      * Calcula los totales del detalle según cantidad, precio y %IVA
      */
     public void calcularTotales(double porcentajeIVA) {
-        subtotal = cantidad * precioUnitario;
-        montoIVA = subtotal * porcentajeIVA;
+        subtotal = Dinero.multiplicar(precioUnitario, cantidad);
+        montoIVA = Dinero.aplicarTasa(subtotal, Dinero.tasa(porcentajeIVA));
         total = subtotal + montoIVA;
     }
 
@@ -118,8 +128,8 @@ public class DetalleVenta {
     public String getDescripcion() {
         String nombre = (nombreProducto != null && !nombreProducto.trim().isEmpty()) ?
                 nombreProducto : "Producto #" + idProducto;
-        return String.format("%s x%d - Precio unitario: $%.2f - Total: $%.2f",
-                nombre, cantidad, precioUnitario, total);
+        return String.format("%s x%d - Precio unitario: $%s - Total: $%s",
+                nombre, cantidad, Dinero.deCentavos(precioUnitario), Dinero.deCentavos(total));
     }
 
     // ==================== MÉTODOS OVERRIDE ====================
@@ -128,8 +138,9 @@ public class DetalleVenta {
     public String toString() {
         String nombre = (nombreProducto != null && !nombreProducto.trim().isEmpty()) ?
                 nombreProducto : "Producto #" + idProducto;
-        return String.format("DetalleVenta{Producto='%s', Cantidad=%d, PrecioUnitario=$%.2f, Subtotal=$%.2f, IVA=$%.2f, Total=$%.2f}",
-                nombre, cantidad, precioUnitario, subtotal, montoIVA, total);
+        return String.format("DetalleVenta{Producto='%s', Cantidad=%d, PrecioUnitario=$%s, Subtotal=$%s, IVA=$%s, Total=$%s}",
+                nombre, cantidad, Dinero.deCentavos(precioUnitario), Dinero.deCentavos(subtotal),
+                Dinero.deCentavos(montoIVA), Dinero.deCentavos(total));
     }
 
     @Override
@@ -0,0 +1,66 @@
+package com.taller.proyecto_bd.models;
+
+/**
+ * Cambio ya confirmado en la BD que los DAO publican en BusEventos.
+ * Lleva solo el ID de la entidad afectada y, según el tipo, una cantidad
+ * (unidades de stock con signo) o un valor en centavos; quien lo recibe
+ * vuelve a leer la fila si necesita el resto.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class EventoDominio {
+
+    // ==================== TIPOS ====================
+    public enum Tipo {
+        VENTA_REGISTRADA,
+        VENTA_ACTUALIZADA,
+        VENTA_ANULADA,
+        STOCK_CAMBIADO,
+        CUOTA_PAGADA,
+        PRODUCTO_ACTUALIZADO,
+        PRODUCTO_ELIMINADO,
+        CATEGORIA_ACTUALIZADA,
+        CATEGORIA_ELIMINADA,
+        CLIENTE_ACTUALIZADO,
+        CLIENTE_ELIMINADO,
+        /** Cambio masivo de productos (repreciado, importación): no trae ID */
+        CATALOGO_CAMBIADO,
+        /** La copia local de la caja ya tiene el producto al día (ID 0: se recargó completa) */
+        CATALOGO_LOCAL_ACTUALIZADO
+    }
+
+    // ==================== ATRIBUTOS ====================
+    private final Tipo tipo;
+    private final int id;
+    private final int cantidad;
+    private final long valorCentavos;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public EventoDominio(Tipo tipo, int id) {
+        this(tipo, id, 0, 0);
+    }
+
+    public EventoDominio(Tipo tipo, int id, int cantidad, long valorCentavos) {
+        this.tipo = tipo;
+        this.id = id;
+        this.cantidad = cantidad;
+        this.valorCentavos = valorCentavos;
+    }
+
+    // ==================== GETTERS ====================
+
+    public Tipo getTipo() { return tipo; }
+    /** ID de la venta, producto, cuota, categoría o cliente según el tipo */
+    public int getId() { return id; }
+    /** Unidades con signo en STOCK_CAMBIADO (0 si no se conocen) */
+    public int getCantidad() { return cantidad; }
+    /** Total de la venta o valor de la cuota */
+    public long getValorCentavos() { return valorCentavos; }
+
+    @Override
+    public String toString() {
+        return tipo + "[" + id + "]";
+    }
+}
@@ -0,0 +1,61 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Criterios de búsqueda en la bitácora de auditoría. Todos los criterios
+ * presentes se combinan con AND; los vacíos no filtran.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class FiltroAuditoria {
+    // ==================== ATRIBUTOS ====================
+    private Integer idUsuario;
+    private final List<String> acciones = new ArrayList<>(); // vacía = todas
+    private String tablaAfectada;
+    private Date desde;               // inclusive
+    private Date hasta;               // exclusivo
+    private int limite;               // 0 = sin límite
+    private boolean incluirArchivo;   // buscar también en AuditoriasArchivo
+
+    // ==================== CONSTRUCTORES ====================
+
+    public FiltroAuditoria() {
+    }
+
+    /**
+     * Filtro con las acciones críticas (ELIMINAR, ANULAR, LOGIN_FALLIDO).
+     */
+    public static FiltroAuditoria criticas() {
+        FiltroAuditoria filtro = new FiltroAuditoria();
+        filtro.acciones.addAll(Auditoria.ACCIONES_CRITICAS);
+        return filtro;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Integer getIdUsuario() { return idUsuario; }
+    public List<String> getAcciones() { return acciones; }
+    public String getTablaAfectada() { return tablaAfectada; }
+    public Date getDesde() { return desde; }
+    public Date getHasta() { return hasta; }
+    public int getLimite() { return limite; }
+    public boolean isIncluirArchivo() { return incluirArchivo; }
+
+    public void setIdUsuario(Integer idUsuario) { this.idUsuario = idUsuario; }
+    public void setTablaAfectada(String tablaAfectada) { this.tablaAfectada = tablaAfectada; }
+    public void setDesde(Date desde) { this.desde = desde; }
+    public void setHasta(Date hasta) { this.hasta = hasta; }
+    public void setLimite(int limite) { this.limite = limite; }
+    public void setIncluirArchivo(boolean incluirArchivo) { this.incluirArchivo = incluirArchivo; }
+
+    public void setAccion(String accion) {
+        acciones.clear();
+        if (accion != null && !accion.isBlank()) {
+            acciones.add(accion);
+        }
+    }
+}
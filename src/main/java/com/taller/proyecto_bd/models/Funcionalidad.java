@@ -0,0 +1,46 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Funcionalidades del sistema sujetas a control de acceso.
+ * Los nombres coinciden con las cadenas usadas históricamente en
+ * SessionManager.tienePermiso(String).
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public enum Funcionalidad {
+    ENTIDADES,          // Categorías, productos, clientes, inventario
+    USUARIOS,
+    TRANSACCIONES,      // Ventas, créditos, cuotas
+    VENTAS,             // Registrar nueva venta
+    BUSQUEDAS,          // Búsqueda rápida de clientes y productos
+    CONSULTAS,
+    REPORTES,
+    CONSULTAS_REPORTES,
+    UTILIDADES,         // Calculadora, calendario
+    BITACORA,
+    AUDITORIA,
+    NUEVA_COMPRA,       // Compra en línea del cliente
+    DIAGNOSTICO;        // Métricas de consultas a la BD
+
+    private static final Map<String, Funcionalidad> POR_NOMBRE = new HashMap<>();
+
+    static {
+        for (Funcionalidad f : values()) {
+            POR_NOMBRE.put(f.name(), f);
+        }
+    }
+
+    /**
+     * Busca una funcionalidad por nombre sin distinguir mayúsculas (null si no existe).
+     */
+    public static Funcionalidad desde(String nombre) {
+        if (nombre == null) return null;
+        Funcionalidad f = POR_NOMBRE.get(nombre);
+        return f != null ? f : POR_NOMBRE.get(nombre.trim().toUpperCase(Locale.ROOT));
+    }
+}
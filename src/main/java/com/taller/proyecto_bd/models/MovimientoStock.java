@@ -0,0 +1,84 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.Date;
+
+/**
+ * Movimiento del kardex de un producto (tabla MovimientosStock).
+ * La cantidad lleva signo: positiva para entradas y anulaciones,
+ * negativa para ventas y salidas; los ajustes pueden ir en ambos sentidos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class MovimientoStock {
+    // ==================== TIPOS ====================
+    public static final String ENTRADA = "ENTRADA";
+    public static final String SALIDA = "SALIDA";
+    public static final String VENTA = "VENTA";
+    public static final String ANULACION = "ANULACION";
+    public static final String AJUSTE = "AJUSTE";
+
+    /**
+     * La tabla no tiene CHECK sobre tipo (es destino de OUTPUT INTO),
+     * así que el tipo se valida antes de escribir.
+     */
+    public static boolean esTipoValido(String tipo) {
+        return ENTRADA.equals(tipo) || SALIDA.equals(tipo) || VENTA.equals(tipo)
+                || ANULACION.equals(tipo) || AJUSTE.equals(tipo);
+    }
+
+    // ==================== ATRIBUTOS ====================
+    private long idMovimiento;
+    private int idProducto;
+    private String tipo;
+    private int cantidad;
+    private String motivo;
+    private Integer idUsuario;
+    private Integer idVenta;
+    private Date fecha;
+    private int saldo;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public MovimientoStock() {
+    }
+
+    public MovimientoStock(long idMovimiento, int idProducto, String tipo, int cantidad, String motivo, Date fecha) {
+        this.idMovimiento = idMovimiento;
+        this.idProducto = idProducto;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.motivo = motivo;
+        this.fecha = fecha;
+    }
+
+    // ==================== GETTERS ====================
+
+    public long getIdMovimiento() { return idMovimiento; }
+    public int getIdProducto() { return idProducto; }
+    public String getTipo() { return tipo; }
+    public int getCantidad() { return cantidad; }
+    public String getMotivo() { return motivo; }
+    public Integer getIdUsuario() { return idUsuario; }
+    public Integer getIdVenta() { return idVenta; }
+    public Date getFecha() { return fecha; }
+    /** Saldo del producto después de este movimiento */
+    public int getSaldo() { return saldo; }
+
+    // ==================== SETTERS ====================
+
+    public void setIdMovimiento(long idMovimiento) { this.idMovimiento = idMovimiento; }
+    public void setIdProducto(int idProducto) { this.idProducto = idProducto; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+    public void setCantidad(int cantidad) { this.cantidad = cantidad; }
+    public void setMotivo(String motivo) { this.motivo = motivo; }
+    public void setIdUsuario(Integer idUsuario) { this.idUsuario = idUsuario; }
+    public void setIdVenta(Integer idVenta) { this.idVenta = idVenta; }
+    public void setFecha(Date fecha) { this.fecha = fecha; }
+    public void setSaldo(int saldo) { this.saldo = saldo; }
+
+    @Override
+    public String toString() {
+        return "MovimientoStock{" + tipo + " " + cantidad + " producto=" + idProducto + "}";
+    }
+}
@@ -0,0 +1,66 @@
+package com.taller.proyecto_bd.models;
+
+/**
+ * Aviso de la bandeja de salida (tabla Notificaciones).
+ * referencia identifica lo avisado (idCuota, idProducto, usuario) y sirve
+ * para no repetir el mismo aviso al mismo destino.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class Notificacion {
+    // ==================== TIPOS ====================
+    public static final String CREDITO_APROBADO = "CREDITO_APROBADO";
+    public static final String CUOTA_VENCIDA = "CUOTA_VENCIDA";
+    public static final String STOCK_BAJO = "STOCK_BAJO";
+    public static final String SOBRESTOCK = "SOBRESTOCK";
+    public static final String LOGIN_FALLIDO = "LOGIN_FALLIDO";
+    public static final String USUARIO_BLOQUEADO = "USUARIO_BLOQUEADO";
+
+    // ==================== CANALES ====================
+    public static final String CANAL_CORREO = "CORREO";
+
+    // ==================== ATRIBUTOS ====================
+    private long idNotificacion;
+    private final String tipo;
+    private final String canal;
+    private final String destino;
+    private final String referencia;
+    private final String asunto;
+    private final String mensaje;
+    private int intentos;
+
+    public Notificacion(String tipo, String canal, String destino, String referencia,
+                        String asunto, String mensaje) {
+        this.tipo = tipo;
+        this.canal = canal;
+        this.destino = destino;
+        this.referencia = referencia;
+        this.asunto = asunto;
+        this.mensaje = mensaje;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public long getIdNotificacion() { return idNotificacion; }
+    public void setIdNotificacion(long idNotificacion) { this.idNotificacion = idNotificacion; }
+    public String getTipo() { return tipo; }
+    public String getCanal() { return canal; }
+    public String getDestino() { return destino; }
+    public String getReferencia() { return referencia; }
+    public String getAsunto() { return asunto; }
+    public String getMensaje() { return mensaje; }
+    /** Intentos de envío, contando el actual */
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+
+    @Override
+    public String toString() {
+        return "Notificacion{" +
+                "id=" + idNotificacion +
+                ", tipo='" + tipo + '\'' +
+                ", destino='" + destino + '\'' +
+                ", referencia='" + referencia + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Línea de un extracto bancario con el pago de cuotas de un cliente.
+ * La conciliación la asocia a sus créditos por cédula y monto; si no se
+ * puede asociar o aplicar, queda el motivo para revisión.
+ * Los valores están en centavos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PagoBanco {
+    // ==================== ATRIBUTOS ====================
+    private final long linea;          // Línea en el archivo del banco
+    private final String referencia;   // Comprobante del banco, único por pago
+    private final String cedula;
+    private final Date fechaPago;
+    private final long montoCentavos;
+
+    private int idCliente;
+    private List<Integer> idsCredito;  // Créditos a los que se aplica
+    private String motivoRevision;     // null si se pudo asociar
+    private AplicacionPago aplicacion; // Reparto, una vez aplicado
+    private boolean yaRegistrado;      // La referencia ya se había aplicado antes
+
+    public PagoBanco(long linea, String referencia, String cedula, Date fechaPago, long montoCentavos) {
+        this.linea = linea;
+        this.referencia = referencia;
+        this.cedula = cedula;
+        this.fechaPago = fechaPago;
+        this.montoCentavos = montoCentavos;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public long getLinea() { return linea; }
+    public String getReferencia() { return referencia; }
+    public String getCedula() { return cedula; }
+    public Date getFechaPago() { return fechaPago; }
+    public long getMontoCentavos() { return montoCentavos; }
+    public int getIdCliente() { return idCliente; }
+    public List<Integer> getIdsCredito() { return idsCredito; }
+    public String getMotivoRevision() { return motivoRevision; }
+    public AplicacionPago getAplicacion() { return aplicacion; }
+    public boolean isYaRegistrado() { return yaRegistrado; }
+
+    public void setIdCliente(int idCliente) { this.idCliente = idCliente; }
+    public void setIdsCredito(List<Integer> idsCredito) { this.idsCredito = idsCredito; }
+    public void setMotivoRevision(String motivoRevision) { this.motivoRevision = motivoRevision; }
+    public void setAplicacion(AplicacionPago aplicacion) { this.aplicacion = aplicacion; }
+    public void setYaRegistrado(boolean yaRegistrado) { this.yaRegistrado = yaRegistrado; }
+
+    public boolean isEnRevision() {
+        return motivoRevision != null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.taller.proyecto_bd.models;
+
+/**
+ * Instantánea inmutable de los permisos de un usuario.
+ * Se calcula una vez al iniciar sesión (o al cambiar el rol) y puede
+ * pasarse a hilos de trabajo sin depender del estado estático de
+ * SessionManager.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class Permisos {
+
+    public static final Permisos SIN_SESION = new Permisos(0, "", Rol.NINGUNO);
+
+    // ==================== ATRIBUTOS ====================
+    private final int idUsuario;
+    private final String username;
+    private final Rol rol;
+
+    // ==================== CONSTRUCTORES ====================
+
+    private Permisos(int idUsuario, String username, Rol rol) {
+        this.idUsuario = idUsuario;
+        this.username = username;
+        this.rol = rol;
+    }
+
+    public static Permisos de(Usuario usuario) {
+        if (usuario == null) return SIN_SESION;
+        return new Permisos(usuario.getIdUsuario(),
+                usuario.getUsername() != null ? usuario.getUsername() : "",
+                Rol.desde(usuario.getRol()));
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getIdUsuario() { return idUsuario; }
+    public String getUsername() { return username; }
+    public Rol getRol() { return rol; }
+
+    // ==================== MÉTODOS DE NEGOCIO ====================
+
+    public boolean haySesion() {
+        return this != SIN_SESION;
+    }
+
+    public boolean tienePermiso(Funcionalidad funcionalidad) {
+        return rol.permite(funcionalidad);
+    }
+
+    /**
+     * Variante por nombre. El administrador conserva acceso a funcionalidades
+     * no registradas en el enum; los demás roles no.
+     */
+    public boolean tienePermiso(String funcionalidad) {
+        Funcionalidad f = Funcionalidad.desde(funcionalidad);
+        if (f == null) return rol == Rol.ADMINISTRADOR;
+        return rol.permite(f);
+    }
+
+    public boolean esAdministrador() { return rol == Rol.ADMINISTRADOR; }
+    public boolean esVendedor() { return rol == Rol.VENDEDOR; }
+    public boolean esGerente() { return rol == Rol.GERENTE; }
+    public boolean esCliente() { return rol == Rol.CLIENTE; }
+
+    public boolean puedeCrear() { return esAdministrador() || esVendedor(); }
+    public boolean puedeEditar() { return esAdministrador() || esVendedor(); }
+    public boolean puedeEliminar() { return esAdministrador(); }
+    public boolean puedeLeer() { return haySesion(); }
+
+    @Override
+    public String toString() {
+        return "Permisos{" + username + ", rol=" + rol + ", " + rol.getPermisos() + "}";
+    }
+}
@@ -0,0 +1,118 @@
+package com.taller.proyecto_bd.models;
+
+import com.taller.proyecto_bd.utils.Dinero;
+
+/**
+ * Tabla de amortización de un crédito.
+ * Cada período guarda cuota, abono a capital, interés y saldo restante en
+ * arreglos primitivos de centavos (índice 0 = cuota 1). El saldo del último
+ * período siempre es 0: el residuo de redondeo se ajusta en la última cuota.
+ *
+ * Los planes de los créditos de la tienda salen de interesFijo(); el
+ * simulador de CalculadoraService también arma planes con sistema francés.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PlanPagos {
+    // ==================== ATRIBUTOS ====================
+    private final long montoFinanciado;   // Capital inicial en centavos
+    private final long[] cuota;           // Valor de cada cuota
+    private final long[] capital;         // Abono a capital de cada cuota
+    private final long[] interes;         // Interés de cada cuota
+    private final long[] saldo;           // Saldo de capital después de pagar la cuota
+
+    // ==================== CONSTRUCTORES ====================
+
+    public PlanPagos(long montoFinanciado, long[] cuota, long[] capital, long[] interes, long[] saldo) {
+        this.montoFinanciado = montoFinanciado;
+        this.cuota = cuota;
+        this.capital = capital;
+        this.interes = interes;
+        this.saldo = saldo;
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getPeriodos() { return cuota.length; }
+    public long getMontoFinanciadoCentavos() { return montoFinanciado; }
+
+    public long getCuotaCentavos(int periodo) { return cuota[periodo]; }
+    public long getCapitalCentavos(int periodo) { return capital[periodo]; }
+    public long getInteresCentavos(int periodo) { return interes[periodo]; }
+    public long getSaldoCentavos(int periodo) { return saldo[periodo]; }
+
+    public double getCuota(int periodo) { return Dinero.aDouble(cuota[periodo]); }
+    public double getCapital(int periodo) { return Dinero.aDouble(capital[periodo]); }
+    public double getInteres(int periodo) { return Dinero.aDouble(interes[periodo]); }
+    public double getSaldo(int periodo) { return Dinero.aDouble(saldo[periodo]); }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    /**
+     * Plan de un crédito de la tienda: el interés es un porcentaje fijo sobre
+     * el saldo, repartido en cuotas iguales junto con el capital. La última
+     * cuota absorbe el residuo de redondeo.
+     *
+     * @param saldoFinanciar saldo después de la cuota inicial, en centavos
+     * @param tasaInteres interés sobre el saldo como fracción (ej: 0.05)
+     */
+    public static PlanPagos interesFijo(long saldoFinanciar, double tasaInteres, int plazoMeses) {
+        long[] cuota = new long[plazoMeses];
+        long[] capital = new long[plazoMeses];
+        long[] interes = new long[plazoMeses];
+        long[] saldo = new long[plazoMeses];
+
+        long interesTotal = Dinero.aplicarTasa(saldoFinanciar, Dinero.tasa(tasaInteres));
+        long valorCuota = Dinero.dividir(saldoFinanciar + interesTotal, plazoMeses);
+        long interesCuota = Dinero.dividir(interesTotal, plazoMeses);
+        long capitalCuota = valorCuota - interesCuota;
+        long restante = saldoFinanciar;
+        long interesRestante = interesTotal;
+        for (int k = 0; k < plazoMeses; k++) {
+            boolean ultima = k == plazoMeses - 1;
+            long c = ultima ? restante : Math.min(capitalCuota, restante);
+            long i = ultima ? interesRestante : Math.min(interesCuota, interesRestante);
+            capital[k] = c;
+            interes[k] = i;
+            cuota[k] = c + i;
+            restante -= c;
+            interesRestante -= i;
+            saldo[k] = restante;
+        }
+        return new PlanPagos(saldoFinanciar, cuota, capital, interes, saldo);
+    }
+
+    // ==================== MÉTODOS DE NEGOCIO ====================
+
+    /**
+     * Valor de la cuota fija (la primera; solo la última puede diferir por redondeo).
+     */
+    public long getValorCuotaCentavos() {
+        return cuota.length == 0 ? 0 : cuota[0];
+    }
+
+    public long getTotalInteresCentavos() {
+        long total = 0;
+        for (long i : interes) total += i;
+        return total;
+    }
+
+    public long getTotalPagadoCentavos() {
+        long total = 0;
+        for (long c : cuota) total += c;
+        return total;
+    }
+
+    // ==================== MÉTODOS OVERRIDE ====================
+
+    @Override
+    public String toString() {
+        return "PlanPagos{" +
+                "periodos=" + cuota.length +
+                ", montoFinanciado=" + Dinero.deCentavos(montoFinanciado) +
+                ", valorCuota=" + Dinero.deCentavos(getValorCuotaCentavos()) +
+                ", totalInteres=" + Dinero.deCentavos(getTotalInteresCentavos()) +
+                '}';
+    }
+}
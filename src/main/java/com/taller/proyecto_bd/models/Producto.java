@@ -27,6 +27,7 @@ public class Producto {
     private Date fechaUltimaActualizacion;
     private int garantiaMeses;
     private String ubicacionAlmacen;
+    private int version;            // Versión de la fila al leerla (0: desconocida)
 
     // Atributos calculados o auxiliares
     private String nombreCategoria; // Para joins con categoria
@@ -168,6 +169,10 @@ public class Producto {
         return ubicacionAlmacen;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public String getNombreCategoria() {
         return nombreCategoria;
     }
@@ -285,6 +290,10 @@ public class Producto {
         actualizarFechaModificacion();
     }
 
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public void setNombreCategoria(String nombreCategoria) {
         this.nombreCategoria = nombreCategoria;
     }
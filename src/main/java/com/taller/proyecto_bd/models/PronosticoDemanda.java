@@ -0,0 +1,108 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.Date;
+
+/**
+ * Pronóstico de demanda y punto de reorden de un producto (tabla
+ * PronosticosDemanda), junto con los datos del producto para la consulta
+ * de reposición. Si el producto no tiene pronóstico, el punto de reorden
+ * es su stockMinimo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PronosticoDemanda {
+    // ==================== ATRIBUTOS ====================
+    private int idProducto;
+    private double demandaDiaria;
+    private double promedioMovil;
+    private double desviacion;
+    private double factorEstacional = 1;
+    private int puntoReorden;
+    private int stockObjetivo;
+    private int diasHistoria;
+    private Date fechaCalculo;
+
+    // Datos del producto (solo en consultas)
+    private String codigo;
+    private String nombre;
+    private String categoria;
+    private int stockActual;
+    private int stockMinimo;
+    private long precioCompraCentavos;
+    private boolean calculado = true;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public PronosticoDemanda() {
+    }
+
+    public PronosticoDemanda(int idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getIdProducto() { return idProducto; }
+    public double getDemandaDiaria() { return demandaDiaria; }
+    public double getPromedioMovil() { return promedioMovil; }
+    public double getDesviacion() { return desviacion; }
+    public double getFactorEstacional() { return factorEstacional; }
+    public int getPuntoReorden() { return puntoReorden; }
+    public int getStockObjetivo() { return stockObjetivo; }
+    public int getDiasHistoria() { return diasHistoria; }
+    public Date getFechaCalculo() { return fechaCalculo; }
+    public String getCodigo() { return codigo; }
+    public String getNombre() { return nombre; }
+    public String getCategoria() { return categoria; }
+    public int getStockActual() { return stockActual; }
+    public int getStockMinimo() { return stockMinimo; }
+    public long getPrecioCompraCentavos() { return precioCompraCentavos; }
+    /** false si los valores vienen de stockMinimo y no de un pronóstico */
+    public boolean isCalculado() { return calculado; }
+
+    // ==================== SETTERS ====================
+
+    public void setIdProducto(int idProducto) { this.idProducto = idProducto; }
+    public void setDemandaDiaria(double demandaDiaria) { this.demandaDiaria = demandaDiaria; }
+    public void setPromedioMovil(double promedioMovil) { this.promedioMovil = promedioMovil; }
+    public void setDesviacion(double desviacion) { this.desviacion = desviacion; }
+    public void setFactorEstacional(double factorEstacional) { this.factorEstacional = factorEstacional; }
+    public void setPuntoReorden(int puntoReorden) { this.puntoReorden = puntoReorden; }
+    public void setStockObjetivo(int stockObjetivo) { this.stockObjetivo = stockObjetivo; }
+    public void setDiasHistoria(int diasHistoria) { this.diasHistoria = diasHistoria; }
+    public void setFechaCalculo(Date fechaCalculo) { this.fechaCalculo = fechaCalculo; }
+    public void setCodigo(String codigo) { this.codigo = codigo; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+    public void setStockActual(int stockActual) { this.stockActual = stockActual; }
+    public void setStockMinimo(int stockMinimo) { this.stockMinimo = stockMinimo; }
+    public void setPrecioCompraCentavos(long precioCompraCentavos) { this.precioCompraCentavos = precioCompraCentavos; }
+    public void setCalculado(boolean calculado) { this.calculado = calculado; }
+
+    // ==================== MÉTODOS DE NEGOCIO ====================
+
+    /**
+     * Unidades a comprar para llegar al stock objetivo (0 si no hace falta).
+     */
+    public int getCantidadSugerida() {
+        return Math.max(0, stockObjetivo - stockActual);
+    }
+
+    public long getValorSugeridoCentavos() {
+        return getCantidadSugerida() * precioCompraCentavos;
+    }
+
+    /**
+     * Días que alcanza el stock actual con la demanda pronosticada.
+     */
+    public double getDiasCobertura() {
+        return demandaDiaria > 0 ? stockActual / demandaDiaria : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return "PronosticoDemanda{producto=" + idProducto + ", demanda=" + String.format("%.2f", demandaDiaria)
+                + "/día, reorden=" + puntoReorden + ", objetivo=" + stockObjetivo + "}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.taller.proyecto_bd.models;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Roles del sistema con sus permisos precalculados.
+ *
+ * Niveles de acceso:
+ * - ADMINISTRADOR (Nivel 1): Acceso total a todo
+ * - VENDEDOR / PARAMETRICO (Nivel 2): No puede acceder a Usuarios ni Bitácora
+ * - GERENTE / ESPORADICO (Nivel 3): Solo acceso a Consultas
+ * - CLIENTE (Nivel 4): Solo compras
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public enum Rol {
+    ADMINISTRADOR(1, "Nivel 1 - Administrador (Acceso Total)",
+            EnumSet.allOf(Funcionalidad.class)),
+    VENDEDOR(2, "Nivel 2 - Paramétrico (Sin acceso a Usuarios/Bitácora)",
+            EnumSet.complementOf(EnumSet.of(Funcionalidad.USUARIOS,
+                    Funcionalidad.BITACORA, Funcionalidad.AUDITORIA,
+                    Funcionalidad.DIAGNOSTICO))),
+    GERENTE(3, "Nivel 3 - Esporádico (Solo Consultas)",
+            EnumSet.of(Funcionalidad.CONSULTAS, Funcionalidad.REPORTES,
+                    Funcionalidad.CONSULTAS_REPORTES)),
+    CLIENTE(0, "Sin nivel asignado",
+            EnumSet.of(Funcionalidad.NUEVA_COMPRA)),
+    NINGUNO(0, "Sin nivel asignado",
+            EnumSet.noneOf(Funcionalidad.class));
+
+    private final int nivel;
+    private final String descripcion;
+    private final Set<Funcionalidad> permisos;
+
+    Rol(int nivel, String descripcion, EnumSet<Funcionalidad> permisos) {
+        this.nivel = nivel;
+        this.descripcion = descripcion;
+        this.permisos = Collections.unmodifiableSet(permisos);
+    }
+
+    public int getNivel() { return nivel; }
+    public String getDescripcion() { return descripcion; }
+    public Set<Funcionalidad> getPermisos() { return permisos; }
+
+    public boolean permite(Funcionalidad funcionalidad) {
+        return funcionalidad != null && permisos.contains(funcionalidad);
+    }
+
+    /**
+     * Convierte el rol guardado en Usuarios.rol (ej: "ADMIN", "vendedor").
+     */
+    public static Rol desde(String rol) {
+        if (rol == null) return NINGUNO;
+        switch (rol.trim().toUpperCase(Locale.ROOT)) {
+            case "ADMIN":
+            case "ADMINISTRADOR":
+                return ADMINISTRADOR;
+            case "VENDEDOR":
+                return VENDEDOR;
+            case "GERENTE":
+                return GERENTE;
+            case "CLIENTE":
+                return CLIENTE;
+            default:
+                return NINGUNO;
+        }
+    }
+}
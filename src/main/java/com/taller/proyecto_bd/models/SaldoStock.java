@@ -0,0 +1,57 @@
+package com.taller.proyecto_bd.models;
+
+/**
+ * Saldo de stock de un producto según el kardex, opcionalmente junto a los
+ * contadores de Productos.stockActual e Inventarios.cantidadActual para
+ * conciliarlos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class SaldoStock {
+    // ==================== ATRIBUTOS ====================
+    private final int idProducto;
+    private final String codigo;
+    private final String nombre;
+    private final int cantidadKardex;
+    private Integer stockProducto;
+    private Integer cantidadInventario;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public SaldoStock(int idProducto, String codigo, String nombre, int cantidadKardex) {
+        this.idProducto = idProducto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.cantidadKardex = cantidadKardex;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public int getIdProducto() { return idProducto; }
+    public String getCodigo() { return codigo; }
+    public String getNombre() { return nombre; }
+    public int getCantidadKardex() { return cantidadKardex; }
+    public Integer getStockProducto() { return stockProducto; }
+    public Integer getCantidadInventario() { return cantidadInventario; }
+
+    public void setStockProducto(Integer stockProducto) { this.stockProducto = stockProducto; }
+    public void setCantidadInventario(Integer cantidadInventario) { this.cantidadInventario = cantidadInventario; }
+
+    // ==================== MÉTODOS DE NEGOCIO ====================
+
+    /**
+     * true si los contadores conocidos coinciden con el kardex.
+     * Un producto sin registro de inventario se compara solo por stockActual.
+     */
+    public boolean estaConciliado() {
+        return (stockProducto == null || stockProducto == cantidadKardex)
+                && (cantidadInventario == null || cantidadInventario == cantidadKardex);
+    }
+
+    @Override
+    public String toString() {
+        return "SaldoStock{" + codigo + ": kardex=" + cantidadKardex
+                + ", producto=" + stockProducto + ", inventario=" + cantidadInventario + "}";
+    }
+}
@@ -11,9 +11,11 @@ import java.util.Date;
  */
 public class SessionManager {
     
-    private static Usuario usuarioActual;
+    private static volatile Usuario usuarioActual;
     private static SessionManager instance;
-    private static Date inicioSesion;
+    private static volatile Date inicioSesion;
+    // Permisos compilados al iniciar sesión; inmutables, se pueden pasar a otros hilos
+    private static volatile Permisos permisos = Permisos.SIN_SESION;
     
     private SessionManager() {
         // Constructor privado para patrón singleton
@@ -35,10 +37,33 @@ public class SessionManager {
     public static void setUsuarioActual(Usuario usuario) {
         usuarioActual = usuario;
         inicioSesion = new Date();
+        permisos = Permisos.de(usuario);
         if (usuario != null) {
             usuario.setUltimoAcceso(inicioSesion);
         }
     }
+
+    /**
+     * Obtiene los permisos de la sesión actual.
+     * Las tareas en segundo plano deben capturar este objeto al crearse
+     * en lugar de consultar SessionManager desde el hilo de trabajo.
+     */
+    public static Permisos getPermisos() {
+        return permisos;
+    }
+
+    /**
+     * Recalcula los permisos si se modificó el usuario de la sesión
+     * (ej: cambio de rol desde la gestión de usuarios).
+     */
+    public static void usuarioActualizado(Usuario usuario) {
+        Usuario actual = usuarioActual;
+        if (usuario == null || actual == null || usuario.getIdUsuario() != actual.getIdUsuario()) {
+            return;
+        }
+        usuarioActual = usuario;
+        permisos = Permisos.de(usuario);
+    }
     
     /**
      * Obtiene el usuario actual de la sesión
@@ -60,6 +85,7 @@ public class SessionManager {
     public static void cerrarSesion() {
         usuarioActual = null;
         inicioSesion = null;
+        permisos = Permisos.SIN_SESION;
     }
     
     /**
@@ -73,37 +99,28 @@ public class SessionManager {
      * Verifica si el usuario actual es administrador (Nivel 1)
      */
     public static boolean esAdministrador() {
-        if (usuarioActual == null) return false;
-        String rol = usuarioActual.getRol();
-        return "ADMIN".equalsIgnoreCase(rol) || 
-               "ADMINISTRADOR".equalsIgnoreCase(rol);
+        return permisos.esAdministrador();
     }
     
     /**
      * Verifica si el usuario actual es vendedor (Nivel 2 - Paramétrico)
      */
     public static boolean esVendedor() {
-        if (usuarioActual == null) return false;
-        String rol = usuarioActual.getRol();
-        return "VENDEDOR".equalsIgnoreCase(rol);
+        return permisos.esVendedor();
     }
     
     /**
      * Verifica si el usuario actual es gerente (Nivel 3 - Solo consultas)
      */
     public static boolean esGerente() {
-        if (usuarioActual == null) return false;
-        String rol = usuarioActual.getRol();
-        return "GERENTE".equalsIgnoreCase(rol);
+        return permisos.esGerente();
     }
 
     /**
      * Verifica si el usuario actual es cliente (Nivel 4 - Solo compras)
      */
     public static boolean esCliente() {
-        if (usuarioActual == null) return false;
-        String rol = usuarioActual.getRol();
-        return "CLIENTE".equalsIgnoreCase(rol);
+        return permisos.esCliente();
     }
     
     /**
@@ -124,10 +141,7 @@ public class SessionManager {
      * Obtiene el nivel del usuario (1, 2, 3)
      */
     public static int getNivelUsuario() {
-        if (esAdministrador()) return 1;
-        if (esParametrico()) return 2;
-        if (esEsporadico()) return 3;
-        return 0;
+        return permisos.getRol().getNivel();
     }
     
     /**
@@ -172,50 +186,29 @@ public class SessionManager {
      * - ADMINISTRADOR (Nivel 1): Acceso total a todo
      * - PARAMETRICO (Nivel 2): No puede acceder a Usuarios ni Bitácora
      * - ESPORADICO (Nivel 3): Solo acceso a Consultas
+     * (ver Rol; la evaluación es una consulta sobre un EnumSet precalculado)
      */
     public static boolean tienePermiso(String funcionalidad) {
-        if (!haySesionActiva()) {
-            return false;
-        }
-        
-        // Administrador tiene acceso a todo
-        if (esAdministrador()) {
-            return true;
-        }
-        
-        // Normalizar la funcionalidad a mayúsculas
-        String func = funcionalidad.toUpperCase();
-        
-        // Paramétrico no puede acceder a usuarios ni bitácora
-        if (esParametrico()) {
-            return !func.equals("USUARIOS") && 
-                   !func.equals("BITACORA") &&
-                   !func.equals("AUDITORIA");
-        }
-        
-        // Esporádico solo tiene acceso a consultas
-        if (esEsporadico()) {
-            return func.equals("CONSULTAS") || 
-                   func.equals("REPORTES") ||
-                   func.equals("CONSULTAS_REPORTES");
-        }
-        
-        return false;
+        return permisos.tienePermiso(funcionalidad);
+    }
+
+    public static boolean tienePermiso(Funcionalidad funcionalidad) {
+        return permisos.tienePermiso(funcionalidad);
     }
     
     /**
      * Verifica si el usuario puede realizar operaciones CRUD
      */
     public static boolean puedeCrear() {
-        return esAdministrador() || esParametrico();
+        return permisos.puedeCrear();
     }
     
     public static boolean puedeEditar() {
-        return esAdministrador() || esParametrico();
+        return permisos.puedeEditar();
     }
     
     public static boolean puedeEliminar() {
-        return esAdministrador(); // Solo el admin puede eliminar
+        return permisos.puedeEliminar(); // Solo el admin puede eliminar
     }
     
     public static boolean puedeLeer() {
@@ -226,14 +219,7 @@ public class SessionManager {
      * Obtiene una descripción del nivel de acceso
      */
     public static String getDescripcionNivel() {
-        if (esAdministrador()) {
-            return "Nivel 1 - Administrador (Acceso Total)";
-        } else if (esParametrico()) {
-            return "Nivel 2 - Paramétrico (Sin acceso a Usuarios/Bitácora)";
-        } else if (esEsporadico()) {
-            return "Nivel 3 - Esporádico (Solo Consultas)";
-        }
-        return "Sin nivel asignado";
+        return permisos.getRol().getDescripcion();
     }
     
     /**
@@ -0,0 +1,87 @@
+package com.taller.proyecto_bd.models;
+
+import com.taller.proyecto_bd.utils.Dinero;
+
+/**
+ * Resultado de simular varios escenarios de crédito para un mismo precio:
+ * todos los plazos × todos los porcentajes de cuota inicial.
+ * Los valores se guardan en arreglos planos de centavos indexados por
+ * {@code indice(plazo, inicial) = inicial * plazos.length + plazo}.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class SimulacionCredito {
+    // ==================== ATRIBUTOS ====================
+    private final long precio;
+    private final int[] plazos;
+    private final double[] porcentajesIniciales;
+
+    private final long[] cuotaInicial;
+    private final long[] saldoFinanciar;
+    private final long[] interes;
+    private final long[] valorCuota;
+    private final long[] ultimaCuota;
+    private final long[] totalPagar;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public SimulacionCredito(long precio, int[] plazos, double[] porcentajesIniciales) {
+        this.precio = precio;
+        this.plazos = plazos.clone();
+        this.porcentajesIniciales = porcentajesIniciales.clone();
+        int escenarios = plazos.length * porcentajesIniciales.length;
+        this.cuotaInicial = new long[escenarios];
+        this.saldoFinanciar = new long[escenarios];
+        this.interes = new long[escenarios];
+        this.valorCuota = new long[escenarios];
+        this.ultimaCuota = new long[escenarios];
+        this.totalPagar = new long[escenarios];
+    }
+
+    // ==================== ACCESO POR ÍNDICE ====================
+
+    public int getCantidadEscenarios() { return cuotaInicial.length; }
+    public int getCantidadPlazos() { return plazos.length; }
+    public int getCantidadIniciales() { return porcentajesIniciales.length; }
+
+    public int indice(int posPlazo, int posInicial) {
+        return posInicial * plazos.length + posPlazo;
+    }
+
+    /**
+     * Busca el escenario de un plazo y porcentaje dados (-1 si no fue simulado).
+     */
+    public int buscar(int plazoMeses, double porcentajeInicial) {
+        for (int j = 0; j < porcentajesIniciales.length; j++) {
+            if (Dinero.tasa(porcentajesIniciales[j]) != Dinero.tasa(porcentajeInicial)) continue;
+            for (int i = 0; i < plazos.length; i++) {
+                if (plazos[i] == plazoMeses) return indice(i, j);
+            }
+        }
+        return -1;
+    }
+
+    public long getPrecioCentavos() { return precio; }
+    public int getPlazo(int escenario) { return plazos[escenario % plazos.length]; }
+    public double getPorcentajeInicial(int escenario) { return porcentajesIniciales[escenario / plazos.length]; }
+
+    public long getCuotaInicialCentavos(int escenario) { return cuotaInicial[escenario]; }
+    public long getSaldoFinanciarCentavos(int escenario) { return saldoFinanciar[escenario]; }
+    public long getInteresCentavos(int escenario) { return interes[escenario]; }
+    public long getValorCuotaCentavos(int escenario) { return valorCuota[escenario]; }
+    public long getUltimaCuotaCentavos(int escenario) { return ultimaCuota[escenario]; }
+    public long getTotalPagarCentavos(int escenario) { return totalPagar[escenario]; }
+
+    // ==================== CARGA (CalculadoraService) ====================
+
+    public void registrar(int escenario, long cuotaInicial, long saldoFinanciar, long interes,
+                          long valorCuota, long ultimaCuota) {
+        this.cuotaInicial[escenario] = cuotaInicial;
+        this.saldoFinanciar[escenario] = saldoFinanciar;
+        this.interes[escenario] = interes;
+        this.valorCuota[escenario] = valorCuota;
+        this.ultimaCuota[escenario] = ultimaCuota;
+        this.totalPagar[escenario] = cuotaInicial + saldoFinanciar + interes;
+    }
+}
@@ -37,7 +37,7 @@ public class Usuario {
         this.nombreCompleto = nombreCompleto;
         this.username = username;
         // Hashear la contraseña al momento de la creación del objeto
-        this.password = Encriptacion.encriptarSHA256(passwordPlana);
+        this.password = Encriptacion.hashPassword(passwordPlana);
         this.rol = rol;
     }
 
@@ -77,7 +77,9 @@ public class Usuario {
     public void setNombreCompleto(String nombreCompleto) { this.nombreCompleto = nombreCompleto; }
     public void setUsername(String username) { this.username = username; }
     // Setter para la contraseña: debería recibir la contraseña plana y hashearla
-    public void setPassword(String passwordPlana) { this.password = Encriptacion.encriptarSHA256(passwordPlana); }
+    public void setPassword(String passwordPlana) { this.password = Encriptacion.hashPassword(passwordPlana); }
+    // Para cargar un hash ya calculado (ej: re-hash tras login)
+    public void setPasswordHash(String passwordHash) { this.password = passwordHash; }
     public void setRol(String rol) { this.rol = rol; }
     public void setEmail(String email) { this.email = email; }
     public void setTelefono(String telefono) { this.telefono = telefono; }
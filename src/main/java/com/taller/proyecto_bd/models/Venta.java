@@ -1,5 +1,7 @@
 package com.taller.proyecto_bd.models;
 
+import com.taller.proyecto_bd.utils.Dinero;
+
 import java.util.Date;
 import java.util.List;
 
@@ -9,6 +11,10 @@ import java.util.List;
  * @version 1.1 - Corregido método validarVenta
  */
 public class Venta {
+    // ==================== CONSTANTES ====================
+    private static final long TASA_CUOTA_INICIAL = Dinero.tasa(0.30);
+    private static final long TASA_FINANCIADO = Dinero.tasa(1.05);
+
     // ==================== ATRIBUTOS ====================
     private int idVenta;
     private String codigo;               // Código único de la venta (ej: V-2025-001)
@@ -16,10 +22,10 @@ public class Venta {
     private int idUsuario;               // Vendedor que registró la venta
     private Date fechaVenta;
     private boolean esCredito;           // true = crédito, false = contado
-    private double subtotal;
-    private double ivaTotal;
-    private double total;
-    private double cuotaInicial;         // Solo aplica a crédito
+    private long subtotal;               // Montos en centavos (ver Dinero)
+    private long ivaTotal;
+    private long total;
+    private long cuotaInicial;           // Solo aplica a crédito
     private int plazoMeses;              // Solo aplica a crédito
     private String estado;               // "REGISTRADA", "PAGADA", "ANULADA"
 
@@ -34,10 +40,10 @@ public class Venta {
         this.fechaVenta = new Date();
         this.estado = "REGISTRADA";
         this.esCredito = false;
-        this.subtotal = 0.0;
-        this.ivaTotal = 0.0;
-        this.total = 0.0;
-        this.cuotaInicial = 0.0;
+        this.subtotal = 0;
+        this.ivaTotal = 0;
+        this.total = 0;
+        this.cuotaInicial = 0;
         this.plazoMeses = 0;
     }
 
@@ -59,10 +65,10 @@ public class Venta {
         this.idUsuario = idUsuario;
         this.fechaVenta = fechaVenta;
         this.esCredito = esCredito;
-        this.subtotal = subtotal;
-        this.ivaTotal = ivaTotal;
-        this.total = total;
-        this.cuotaInicial = cuotaInicial;
+        this.subtotal = Dinero.aCentavos(subtotal);
+        this.ivaTotal = Dinero.aCentavos(ivaTotal);
+        this.total = Dinero.aCentavos(total);
+        this.cuotaInicial = Dinero.aCentavos(cuotaInicial);
         this.plazoMeses = plazoMeses;
         this.estado = estado;
     }
@@ -75,10 +81,14 @@ public class Venta {
     public int getIdUsuario() { return idUsuario; }
     public Date getFechaVenta() { return fechaVenta; }
     public boolean isEsCredito() { return esCredito; }
-    public double getSubtotal() { return subtotal; }
-    public double getIvaTotal() { return ivaTotal; }
-    public double getTotal() { return total; }
-    public double getCuotaInicial() { return cuotaInicial; }
+    public double getSubtotal() { return Dinero.aDouble(subtotal); }
+    public double getIvaTotal() { return Dinero.aDouble(ivaTotal); }
+    public double getTotal() { return Dinero.aDouble(total); }
+    public double getCuotaInicial() { return Dinero.aDouble(cuotaInicial); }
+    public long getSubtotalCentavos() { return subtotal; }
+    public long getIvaTotalCentavos() { return ivaTotal; }
+    public long getTotalCentavos() { return total; }
+    public long getCuotaInicialCentavos() { return cuotaInicial; }
     public int getPlazoMeses() { return plazoMeses; }
     public String getEstado() { return estado; }
     public String getNombreCliente() { return nombreCliente; }
@@ -93,10 +103,14 @@ public class Venta {
     public void setIdUsuario(int idUsuario) { this.idUsuario = idUsuario; }
     public void setFechaVenta(Date fechaVenta) { this.fechaVenta = fechaVenta; }
     public void setEsCredito(boolean esCredito) { this.esCredito = esCredito; }
-    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
-    public void setIvaTotal(double ivaTotal) { this.ivaTotal = ivaTotal; }
-    public void setTotal(double total) { this.total = total; }
-    public void setCuotaInicial(double cuotaInicial) { this.cuotaInicial = cuotaInicial; }
+    public void setSubtotal(double subtotal) { this.subtotal = Dinero.aCentavos(subtotal); }
+    public void setIvaTotal(double ivaTotal) { this.ivaTotal = Dinero.aCentavos(ivaTotal); }
+    public void setTotal(double total) { this.total = Dinero.aCentavos(total); }
+    public void setCuotaInicial(double cuotaInicial) { this.cuotaInicial = Dinero.aCentavos(cuotaInicial); }
+    public void setSubtotalCentavos(long subtotal) { this.subtotal = subtotal; }
+    public void setIvaTotalCentavos(long ivaTotal) { this.ivaTotal = ivaTotal; }
+    public void setTotalCentavos(long total) { this.total = total; }
+    public void setCuotaInicialCentavos(long cuotaInicial) { this.cuotaInicial = cuotaInicial; }
     public void setPlazoMeses(int plazoMeses) { this.plazoMeses = plazoMeses; }
     public void setEstado(String estado) { this.estado = estado; }
     public void setNombreCliente(String nombreCliente) { this.nombreCliente = nombreCliente; }
@@ -119,8 +133,8 @@ public class Venta {
         subtotal = 0;
         ivaTotal = 0;
         for (DetalleVenta d : detalles) {
-            subtotal += d.getSubtotal();
-            ivaTotal += d.getMontoIVA();
+            subtotal += d.getSubtotalCentavos();
+            ivaTotal += d.getMontoIVACentavos();
         }
         total = subtotal + ivaTotal;
     }
@@ -157,14 +171,18 @@ public class Venta {
         }
         this.esCredito = true;
         this.plazoMeses = plazoMeses;
-        this.cuotaInicial = this.total * 0.30; // 30% del total
+        this.cuotaInicial = Dinero.aplicarTasa(this.total, TASA_CUOTA_INICIAL); // 30% del total
     }
 
     /**
      * Obtiene el saldo a financiar (70% del total)
      */
     public double getSaldoFinanciar() {
-        if (!esCredito) return 0.0;
+        return Dinero.aDouble(getSaldoFinanciarCentavos());
+    }
+
+    public long getSaldoFinanciarCentavos() {
+        if (!esCredito) return 0;
         return total - cuotaInicial; // 70%
     }
 
@@ -172,9 +190,12 @@ public class Venta {
      * Obtiene el monto total a financiar (70% + 5% de interés)
      */
     public double getMontoFinanciado() {
-        if (!esCredito) return 0.0;
-        double saldo = getSaldoFinanciar();
-        return saldo * 1.05; // + 5% interés
+        return Dinero.aDouble(getMontoFinanciadoCentavos());
+    }
+
+    public long getMontoFinanciadoCentavos() {
+        if (!esCredito) return 0;
+        return Dinero.aplicarTasa(getSaldoFinanciarCentavos(), TASA_FINANCIADO); // + 5% interés
     }
 
     /**
@@ -182,7 +203,7 @@ public class Venta {
      */
     public double getValorCuotaMensual() {
         if (!esCredito || plazoMeses == 0) return 0.0;
-        return getMontoFinanciado() / plazoMeses;
+        return Dinero.aDouble(Dinero.dividir(getMontoFinanciadoCentavos(), plazoMeses));
     }
 
     /**
@@ -191,7 +212,7 @@ public class Venta {
      * - Crédito: cuota inicial (30%)
      */
     public double getMontoPagarAhora() {
-        return esCredito ? cuotaInicial : total;
+        return Dinero.aDouble(esCredito ? cuotaInicial : total);
     }
 
     /**
@@ -200,8 +221,8 @@ public class Venta {
     public String getResumen() {
         String clienteStr = (nombreCliente != null && !nombreCliente.trim().isEmpty())
                 ? nombreCliente : "N/A";
-        return String.format("Venta %s - Cliente: %s - Total: $%.2f [%s]",
-                codigo, clienteStr, total, esCredito ? "CRÉDITO" : "CONTADO");
+        return String.format("Venta %s - Cliente: %s - Total: $%s [%s]",
+                codigo, clienteStr, Dinero.deCentavos(total), esCredito ? "CRÉDITO" : "CONTADO");
     }
 
     // ==================== MÉTODOS OVERRIDE ====================
@@ -214,7 +235,7 @@ public class Venta {
                 ", Cliente=" + (nombreCliente != null ? nombreCliente : "N/A") +
                 ", Vendedor=" + (nombreVendedor != null ? nombreVendedor : "N/A") +
                 ", Fecha=" + fechaVenta +
-                ", Total=$" + String.format("%.2f", total) +
+                ", Total=$" + Dinero.deCentavos(total) +
                 ", Tipo=" + (esCredito ? "Crédito" : "Contado") +
                 ", Estado=" + estado +
                 '}';
@@ -0,0 +1,188 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CategoriaDAO;
+import com.taller.proyecto_bd.dao.ProductoDAO;
+import com.taller.proyecto_bd.models.AnalisisABC;
+import com.taller.proyecto_bd.models.Categoria;
+import com.taller.proyecto_bd.utils.ClasificacionABC;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Análisis ABC (Pareto) del inventario por ingresos del periodo y por
+ * valor de inventario (stock × costo).
+ *
+ * Los productos se leen en una sola pasada a arreglos primitivos (sin
+ * crear objetos Producto), se clasifican con un ordenamiento parcial y se
+ * agregan por categoría. Solo los productos que se muestran se cargan con
+ * código y nombre.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class AnalisisABCService {
+    private static AnalisisABCService instance;
+
+    /** Productos principales que se devuelven con detalle */
+    public static final int PRODUCTOS_PRINCIPALES = 100;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final ProductoDAO productoDAO = ProductoDAO.getInstance();
+    private final CategoriaDAO categoriaDAO = CategoriaDAO.getInstance();
+
+    private AnalisisABCService() {
+    }
+
+    public static synchronized AnalisisABCService getInstance() {
+        if (instance == null) {
+            instance = new AnalisisABCService();
+        }
+        return instance;
+    }
+
+    /**
+     * Clasifica los productos activos por los ingresos de [desde, hasta) y
+     * por su valor de inventario actual.
+     *
+     * @return null si no se pudo leer la información
+     */
+    public AnalisisABC analizar(LocalDate desde, LocalDate hasta) {
+        Columnas datos = new Columnas();
+        if (!productoDAO.recorrerValorizacion(desde, hasta, datos)) {
+            return null;
+        }
+        int n = datos.cantidad;
+
+        ClasificacionABC porIngresos = new ClasificacionABC(datos.ingresos, n);
+        ClasificacionABC porValor = new ClasificacionABC(datos.valores, n);
+
+        AnalisisABC analisis = new AnalisisABC(desde, hasta);
+        analisis.setTotalProductos(n);
+        analisis.setTotalIngresosCentavos(porIngresos.getTotal());
+        analisis.setTotalValorCentavos(porValor.getTotal());
+
+        // Agregación por categoría en arreglos indexados por categoría
+        int categorias = datos.indiceCategoria.size();
+        int[][] productosIngresos = new int[categorias][3];
+        long[][] ingresosClase = new long[categorias][3];
+        int[][] productosValor = new int[categorias][3];
+        long[] valorCategoria = new long[categorias];
+        long[] unidadesCategoria = new long[categorias];
+        long unidades = 0;
+
+        for (int i = 0; i < n; i++) {
+            int c = datos.categoria[i];
+            byte claseIngresos = porIngresos.getClase(i);
+            byte claseValor = porValor.getClase(i);
+            productosIngresos[c][claseIngresos]++;
+            ingresosClase[c][claseIngresos] += datos.ingresos[i];
+            productosValor[c][claseValor]++;
+            valorCategoria[c] += datos.valores[i];
+            unidadesCategoria[c] += datos.stock[i];
+            unidades += datos.stock[i];
+
+            analisis.getProductosPorClaseIngresos()[claseIngresos]++;
+            analisis.getIngresosPorClase()[claseIngresos] += datos.ingresos[i];
+            analisis.getProductosPorClaseValor()[claseValor]++;
+            analisis.getValorPorClase()[claseValor] += datos.valores[i];
+        }
+        analisis.setTotalUnidades(unidades);
+
+        Map<Integer, String> nombres = new HashMap<>();
+        for (Categoria categoria : categoriaDAO.obtenerTodas()) {
+            nombres.put(categoria.getIdCategoria(), categoria.getNombre());
+        }
+        String[] nombrePorIndice = new String[categorias];
+        for (Map.Entry<Integer, Integer> e : datos.indiceCategoria.entrySet()) {
+            nombrePorIndice[e.getValue()] = nombres.getOrDefault(e.getKey(), "Sin categoría");
+        }
+        for (int c = 0; c < categorias; c++) {
+            AnalisisABC.CategoriaABC resumen = new AnalisisABC.CategoriaABC(nombrePorIndice[c]);
+            System.arraycopy(productosIngresos[c], 0, resumen.getProductosPorClaseIngresos(), 0, 3);
+            System.arraycopy(ingresosClase[c], 0, resumen.getIngresosPorClase(), 0, 3);
+            System.arraycopy(productosValor[c], 0, resumen.getProductosPorClaseValor(), 0, 3);
+            resumen.setValorInventarioCentavos(valorCategoria[c]);
+            resumen.setUnidades(unidadesCategoria[c]);
+            analisis.getCategorias().add(resumen);
+        }
+        analisis.getCategorias().sort(Comparator
+                .comparingLong(AnalisisABC.CategoriaABC::getIngresosCentavos).reversed()
+                .thenComparing(Comparator.comparingLong(AnalisisABC.CategoriaABC::getValorInventarioCentavos).reversed()));
+
+        agregarPrincipales(analisis, datos, porIngresos, porValor, nombrePorIndice);
+        return analisis;
+    }
+
+    /**
+     * Los primeros productos por ingresos (dentro de la parte ordenada),
+     * con código y nombre.
+     */
+    private void agregarPrincipales(AnalisisABC analisis, Columnas datos, ClasificacionABC porIngresos,
+                                    ClasificacionABC porValor, String[] nombrePorIndice) {
+        int[] orden = porIngresos.getOrden();
+        int cantidad = Math.min(PRODUCTOS_PRINCIPALES, porIngresos.getOrdenados());
+        long total = porIngresos.getTotal();
+        long acumulado = 0;
+        List<Integer> ids = new ArrayList<>(cantidad);
+        for (int k = 0; k < cantidad; k++) {
+            int i = orden[k];
+            if (datos.ingresos[i] <= 0) {
+                break;
+            }
+            acumulado += datos.ingresos[i];
+            AnalisisABC.ProductoABC producto = new AnalisisABC.ProductoABC(datos.ids[i], datos.ingresos[i],
+                    datos.valores[i], porIngresos.getClase(i), porValor.getClase(i), acumulado * 100.0 / total);
+            producto.setCategoria(nombrePorIndice[datos.categoria[i]]);
+            analisis.getProductosPrincipales().add(producto);
+            ids.add(datos.ids[i]);
+        }
+
+        Map<Integer, String[]> etiquetas = productoDAO.obtenerEtiquetas(ids);
+        for (AnalisisABC.ProductoABC producto : analisis.getProductosPrincipales()) {
+            String[] etiqueta = etiquetas.get(producto.getIdProducto());
+            if (etiqueta != null) {
+                producto.setCodigo(etiqueta[0]);
+                producto.setNombre(etiqueta[1]);
+            }
+        }
+    }
+
+    /**
+     * Columnas de productos en arreglos primitivos que crecen al duplicar.
+     * La categoría se guarda como índice compacto (0..categorías-1).
+     */
+    private static final class Columnas implements ProductoDAO.ConsumidorValorizacion {
+        int[] ids = new int[CAPACIDAD_INICIAL];
+        int[] categoria = new int[CAPACIDAD_INICIAL];
+        int[] stock = new int[CAPACIDAD_INICIAL];
+        long[] ingresos = new long[CAPACIDAD_INICIAL];
+        long[] valores = new long[CAPACIDAD_INICIAL];
+        final Map<Integer, Integer> indiceCategoria = new HashMap<>();
+        int cantidad;
+
+        @Override
+        public void aceptar(int idProducto, int idCategoria, int stockActual, long costoCentavos, long ingresosCentavos) {
+            if (cantidad == ids.length) {
+                int capacidad = cantidad * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                categoria = Arrays.copyOf(categoria, capacidad);
+                stock = Arrays.copyOf(stock, capacidad);
+                ingresos = Arrays.copyOf(ingresos, capacidad);
+                valores = Arrays.copyOf(valores, capacidad);
+            }
+            int unidades = Math.max(0, stockActual);
+            ids[cantidad] = idProducto;
+            categoria[cantidad] = indiceCategoria.computeIfAbsent(idCategoria, k -> indiceCategoria.size());
+            stock[cantidad] = unidades;
+            ingresos[cantidad] = ingresosCentavos;
+            valores[cantidad] = unidades * costoCentavos;
+            cantidad++;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.AuditoriaDAO;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archivo de la bitácora de auditoría.
+ *
+ * Una vez al día mueve a AuditoriasArchivo (particionada por mes y
+ * comprimida) las auditorías de meses completos con más de
+ * MESES_RETENCION de antigüedad, para que la tabla activa se mantenga
+ * pequeña. Lo archivado sigue disponible en la bitácora con el filtro
+ * "incluir archivo".
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ArchivoAuditoriaService {
+    private static ArchivoAuditoriaService instance;
+
+    public static final int MESES_RETENCION = 12;
+    private static final long RETRASO_INICIAL_MIN = 10;
+    private static final long INTERVALO_HORAS = 24;
+
+    private final AuditoriaDAO auditoriaDAO = AuditoriaDAO.getInstance();
+    private ScheduledExecutorService programador;
+
+    private ArchivoAuditoriaService() {
+    }
+
+    public static synchronized ArchivoAuditoriaService getInstance() {
+        if (instance == null) {
+            instance = new ArchivoAuditoriaService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivo-auditoria");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::archivar, RETRASO_INICIAL_MIN,
+                TimeUnit.HOURS.toMinutes(INTERVALO_HORAS), TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ==================== OPERACIONES ====================
+
+    /**
+     * Primer día que permanece en la tabla activa.
+     */
+    public static LocalDate fechaCorte() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(MESES_RETENCION);
+    }
+
+    /**
+     * Archiva ahora las auditorías anteriores a la fecha de corte.
+     *
+     * @return auditorías archivadas, o -1 si hubo un error
+     */
+    public synchronized int archivar() {
+        int archivadas = auditoriaDAO.archivarAnterioresA(fechaCorte());
+        if (archivadas > 0) {
+            System.out.println("✓ Auditorías archivadas: " + archivadas);
+        }
+        return archivadas;
+    }
+}
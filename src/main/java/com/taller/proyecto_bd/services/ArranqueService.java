@@ -0,0 +1,65 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CategoriaDAO;
+import com.taller.proyecto_bd.dao.ProductoDAO;
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Preparación en segundo plano mientras se muestra el login: abre las
+ * conexiones del pool, inicia la caja (diario y copia local del catálogo) y
+ * ejecuta una vez las consultas de categorías y productos, de modo que las
+ * clases del driver, los mapeos y las sentencias en caché ya estén listos
+ * cuando se abre la primera venta.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ArranqueService {
+    private static ArranqueService instance;
+
+    private static final int CONEXIONES_INICIALES = 2;
+
+    private CompletableFuture<Void> precalentamiento;
+
+    private ArranqueService() {
+    }
+
+    public static synchronized ArranqueService getInstance() {
+        if (instance == null) {
+            instance = new ArranqueService();
+        }
+        return instance;
+    }
+
+    /**
+     * Inicia la preparación una sola vez; las siguientes llamadas devuelven
+     * la misma tarea.
+     */
+    public synchronized CompletableFuture<Void> precalentar() {
+        if (precalentamiento == null) {
+            precalentamiento = new CompletableFuture<>();
+            Thread hilo = new Thread(this::ejecutar, "arranque-precalentar");
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        return precalentamiento;
+    }
+
+    private void ejecutar() {
+        try {
+            // La caja primero: si la BD no responde, la venta sin conexión ya está lista
+            CajaOfflineService.getInstance().iniciar();
+            int conexiones = ConexionBD.precalentar(CONEXIONES_INICIALES);
+            if (conexiones > 0) {
+                CategoriaDAO.getInstance().obtenerTodas();
+                ProductoDAO.getInstance().obtenerActivos();
+            }
+            precalentamiento.complete(null);
+        } catch (RuntimeException e) {
+            System.err.println("Error al preparar el arranque: " + e.getMessage());
+            precalentamiento.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.ClienteDAO;
+import com.taller.proyecto_bd.dao.UsuarioDAO;
+import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.Usuario;
+import com.taller.proyecto_bd.utils.Encriptacion;
+import com.taller.proyecto_bd.utils.LimitadorIntentos;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio de autenticación de usuarios y clientes.
+ * El hash de contraseñas es costoso a propósito, así que la verificación
+ * corre en un pool acotado de hilos (nunca en el hilo de JavaFX) y los
+ * intentos fallidos se limitan por usuario y por IP. Solo cuentan como
+ * fallo las credenciales inválidas; un error de base de datos no bloquea
+ * a nadie.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class AutenticacionService {
+    private static AutenticacionService instance;
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final int HILOS_VERIFICACION = 2;
+    private static final int COLA_VERIFICACION = 16;
+    private static final long VENTANA_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_FALLOS_USUARIO = 5;
+    private static final int MAX_FALLOS_IP = 20;
+
+    // ==================== DEPENDENCIAS ====================
+    private final UsuarioDAO usuarioDAO = UsuarioDAO.getInstance();
+    private final ClienteDAO clienteDAO = ClienteDAO.getInstance();
+
+    private final LimitadorIntentos limitadorUsuario = new LimitadorIntentos(MAX_FALLOS_USUARIO, VENTANA_MILLIS);
+    private final LimitadorIntentos limitadorIP = new LimitadorIntentos(MAX_FALLOS_IP, VENTANA_MILLIS);
+    private final ThreadPoolExecutor pool;
+
+    private AutenticacionService() {
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(HILOS_VERIFICACION, HILOS_VERIFICACION, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(COLA_VERIFICACION), r -> {
+                    Thread t = new Thread(r, "autenticacion-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public static synchronized AutenticacionService getInstance() {
+        if (instance == null) {
+            instance = new AutenticacionService();
+        }
+        return instance;
+    }
+
+    // ==================== RESULTADO ====================
+
+    public enum Estado { EXITOSO, CREDENCIALES_INVALIDAS, BLOQUEADO, OCUPADO, ERROR }
+
+    /**
+     * Resultado de un intento de login. En BLOQUEADO indica los segundos de espera.
+     */
+    public static class ResultadoLogin<T> {
+        private final Estado estado;
+        private final T valor;
+        private final long segundosBloqueo;
+
+        private ResultadoLogin(Estado estado, T valor, long segundosBloqueo) {
+            this.estado = estado;
+            this.valor = valor;
+            this.segundosBloqueo = segundosBloqueo;
+        }
+
+        public Estado getEstado() { return estado; }
+        public T getValor() { return valor; }
+        public long getSegundosBloqueo() { return segundosBloqueo; }
+        public boolean isExitoso() { return estado == Estado.EXITOSO; }
+    }
+
+    // ==================== LOGIN ====================
+
+    /**
+     * Autentica un usuario del sistema (vendedor, admin, gerente).
+     */
+    public CompletableFuture<ResultadoLogin<Usuario>> loginUsuario(String username, String password, String ip) {
+        return ejecutar("u:" + username, ip, () -> usuarioDAO.autenticar(username, password));
+    }
+
+    /**
+     * Autentica un cliente por cédula. Los clientes sin contraseña usan el
+     * teléfono registrado como clave.
+     */
+    public CompletableFuture<ResultadoLogin<Cliente>> loginCliente(String cedula, String password, String ip) {
+        return ejecutar("c:" + cedula, ip, () -> autenticarCliente(cedula, password));
+    }
+
+    private Cliente autenticarCliente(String cedula, String password) throws SQLException {
+        Cliente cliente = clienteDAO.buscarPorCedula(cedula);
+        if (cliente == null) return null;
+
+        if (!cliente.tienePassword()) {
+            return password.equals(cliente.getTelefono()) ? cliente : null;
+        }
+        if (!cliente.validarPassword(password)) return null;
+
+        if (Encriptacion.necesitaRehash(cliente.getPasswordHash())) {
+            String nuevoHash = Encriptacion.hashPassword(password);
+            if (clienteDAO.actualizarPasswordHash(cliente.getIdCliente(), nuevoHash)) {
+                cliente.setPasswordHash(nuevoHash);
+            }
+        }
+        return cliente;
+    }
+
+    private interface Verificacion<T> {
+        /** @return null si las credenciales no coinciden */
+        T verificar() throws SQLException;
+    }
+
+    private <T> CompletableFuture<ResultadoLogin<T>> ejecutar(String claveUsuario, String ip, Verificacion<T> verificacion) {
+        String claveIP = "ip:" + ip;
+        // El intento queda apartado como fallo hasta saber el resultado
+        long bloqueo = limitadorUsuario.intentar(claveUsuario);
+        if (bloqueo == 0) {
+            bloqueo = limitadorIP.intentar(claveIP);
+            if (bloqueo > 0) {
+                limitadorUsuario.devolver(claveUsuario);
+            }
+        }
+        if (bloqueo > 0) {
+            long segundos = TimeUnit.MILLISECONDS.toSeconds(bloqueo) + 1;
+            return CompletableFuture.completedFuture(new ResultadoLogin<>(Estado.BLOQUEADO, null, segundos));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                T valor;
+                try {
+                    valor = verificacion.verificar();
+                } catch (SQLException | RuntimeException e) {
+                    System.err.println("Error al verificar credenciales: " + e.getMessage());
+                    devolverIntento(claveUsuario, claveIP);
+                    return new ResultadoLogin<T>(Estado.ERROR, null, 0);
+                }
+                if (valor == null) {
+                    return new ResultadoLogin<T>(Estado.CREDENCIALES_INVALIDAS, null, 0);
+                }
+                limitadorUsuario.reiniciar(claveUsuario);
+                limitadorIP.devolver(claveIP);
+                return new ResultadoLogin<>(Estado.EXITOSO, valor, 0);
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            System.err.println("Cola de autenticación llena, intento rechazado");
+            devolverIntento(claveUsuario, claveIP);
+            return CompletableFuture.completedFuture(new ResultadoLogin<>(Estado.OCUPADO, null, 0));
+        }
+    }
+
+    /** El intento no se llegó a verificar: no cuenta como fallo */
+    private void devolverIntento(String claveUsuario, String claveIP) {
+        limitadorUsuario.devolver(claveUsuario);
+        limitadorIP.devolver(claveIP);
+    }
+}
@@ -0,0 +1,611 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.AuditoriaDAO;
+import com.taller.proyecto_bd.dao.ClienteDAO;
+import com.taller.proyecto_bd.dao.ProductoDAO;
+import com.taller.proyecto_bd.dao.VentaDAO;
+import com.taller.proyecto_bd.dao.VentaDAO.ResultadoRegistro;
+import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.DetalleVenta;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.models.Venta;
+import com.taller.proyecto_bd.utils.BusEventos;
+import com.taller.proyecto_bd.utils.ConexionBD;
+import com.taller.proyecto_bd.utils.DiarioLocal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caja con soporte sin conexión.
+ * Las ventas de contado se anotan primero en un diario local durable
+ * (DiarioLocal) y se confirman al instante, sin esperar a la red. Un hilo de
+ * sincronización las reenvía en orden por la ruta transaccional
+ * {@link VentaDAO#registrarVentaCompleta(Venta)} cuando hay conexión.
+ *
+ * Mientras tanto se vende contra una copia local de productos y clientes,
+ * descontando las unidades pendientes de sincronizar. Si al sincronizar el
+ * stock de la BD no alcanza, la venta se registra igual y el faltante queda
+ * en la auditoría como CONFLICTO_STOCK.
+ *
+ * Los códigos de venta locales (VL-terminal-fecha-secuencia) son únicos por
+ * terminal, lo que hace el reenvío idempotente.
+ *
+ * La copia local se corrige fila por fila con los cambios de productos,
+ * stock y clientes que avisa BusEventos (propios o de otras cajas, ver
+ * SincronizacionCambiosService) y se recarga completa ante un cambio masivo
+ * del catálogo. Cada producto corregido se avisa como
+ * CATALOGO_LOCAL_ACTUALIZADO para que la pantalla de venta lo tome de aquí.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CajaOfflineService {
+    private static CajaOfflineService instance;
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final Path CARPETA = Paths.get("data", "caja");
+    private static final long INTERVALO_SINCRONIZACION_SEG = 15;
+    private static final long VIGENCIA_CATALOGO_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_INTENTOS_ERROR = 5;
+    private static final int TAMANO_COMPACTACION = 256 * 1024;
+    /** Más filas que esto en un lote de eventos: se recarga la copia completa */
+    private static final int MAX_CAMBIOS_POR_FILA = 100;
+
+    private static final byte TIPO_VENTA = 1;
+    private static final byte TIPO_CONFIRMADA = 2;
+    private static final byte TIPO_RECHAZADA = 3;
+    /** Solo en diarios anteriores: la secuencia ahora va en la cabecera del diario */
+    private static final byte TIPO_SECUENCIA = 4;
+
+    // ==================== DEPENDENCIAS ====================
+    private final VentaDAO ventaDAO = VentaDAO.getInstance();
+    private final ProductoDAO productoDAO = ProductoDAO.getInstance();
+    private final ClienteDAO clienteDAO = ClienteDAO.getInstance();
+    private final AuditoriaDAO auditoriaDAO = AuditoriaDAO.getInstance();
+
+    // ==================== ESTADO ====================
+    private final CatalogoLocal catalogo = new CatalogoLocal(CARPETA.resolve("catalogo.dat"));
+    private final Map<Long, Venta> pendientes = new LinkedHashMap<>();
+    private final Map<Long, Integer> intentosFallidos = new HashMap<>();
+    private DiarioLocal diario;
+    private String terminal;
+    private long secuencia;
+    private volatile boolean enLinea = true;
+    private ScheduledExecutorService sincronizador;
+    private BusEventos.Suscripcion suscripcion;
+    // Solo se tocan en el hilo de sincronización (ahí se entregan los eventos)
+    private final Set<Integer> productosCambiados = new LinkedHashSet<>();
+    private final Set<Integer> clientesCambiados = new LinkedHashSet<>();
+    private boolean recargaCompleta;
+
+    private CajaOfflineService() {
+    }
+
+    public static synchronized CajaOfflineService getInstance() {
+        if (instance == null) {
+            instance = new CajaOfflineService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    /**
+     * Abre el diario, recupera las ventas pendientes y arranca la sincronización.
+     */
+    public synchronized void iniciar() {
+        if (sincronizador != null) {
+            return;
+        }
+        try {
+            terminal = leerTerminal();
+            diario = new DiarioLocal(CARPETA.resolve("ventas.diario"));
+            recuperarPendientes();
+        } catch (IOException e) {
+            System.err.println("Error al abrir el diario de la caja: " + e.getMessage());
+            diario = null;
+        }
+        catalogo.cargar();
+
+        sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "caja-sincronizacion");
+            t.setDaemon(true);
+            return t;
+        });
+        sincronizador.scheduleWithFixedDelay(this::sincronizar, 0, INTERVALO_SINCRONIZACION_SEG, TimeUnit.SECONDS);
+        suscripcion = BusEventos.suscribir(EnumSet.of(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO,
+                EventoDominio.Tipo.PRODUCTO_ELIMINADO, EventoDominio.Tipo.STOCK_CAMBIADO,
+                EventoDominio.Tipo.CLIENTE_ACTUALIZADO, EventoDominio.Tipo.CLIENTE_ELIMINADO,
+                EventoDominio.Tipo.CATALOGO_CAMBIADO),
+                new BusEventos.Suscriptor() {
+                    @Override
+                    public void recibir(EventoDominio evento) {
+                        // se aplican juntos al final del lote
+                        switch (evento.getTipo()) {
+                            case CLIENTE_ACTUALIZADO, CLIENTE_ELIMINADO -> clientesCambiados.add(evento.getId());
+                            case CATALOGO_CAMBIADO -> recargaCompleta = true;
+                            default -> productosCambiados.add(evento.getId());
+                        }
+                    }
+
+                    @Override
+                    public void finLote() {
+                        aplicarCambiosCatalogo();
+                    }
+
+                    @Override
+                    public void desbordado() {
+                        recargaCompleta = true;
+                        aplicarCambiosCatalogo();
+                    }
+                }, sincronizador);
+    }
+
+    public synchronized void detener() {
+        if (suscripcion != null) {
+            suscripcion.cancelar();
+            suscripcion = null;
+        }
+        if (sincronizador != null) {
+            sincronizador.shutdownNow();
+            sincronizador = null;
+        }
+        if (diario != null) {
+            try {
+                diario.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el diario de la caja: " + e.getMessage());
+            }
+            diario = null;
+        }
+    }
+
+    // ==================== ESTADO PÚBLICO ====================
+
+    /**
+     * Resultado del último intento de hablar con la BD.
+     */
+    public boolean estaEnLinea() {
+        return enLinea;
+    }
+
+    public synchronized int getVentasPendientes() {
+        return pendientes.size();
+    }
+
+    // ==================== VENTA ====================
+
+    /**
+     * Registra una venta de contado en el diario local y la deja lista para
+     * sincronizar. Asigna el código definitivo de la venta.
+     *
+     * @return true si quedó anotada en disco
+     */
+    public boolean registrarVentaContado(Venta venta) {
+        if (venta == null || venta.isEsCredito() || venta.getDetalles() == null || venta.getDetalles().isEmpty()) {
+            return false;
+        }
+        synchronized (this) {
+            if (diario == null) {
+                System.err.println("Diario de la caja no disponible, no se puede registrar la venta");
+                return false;
+            }
+            long seq = secuencia + 1;
+            venta.setCodigo(generarCodigo(seq, venta.getFechaVenta()));
+            try {
+                diario.agregar(TIPO_VENTA, serializar(seq, venta));
+            } catch (IOException e) {
+                System.err.println("Error al escribir la venta en el diario: " + e.getMessage());
+                return false;
+            }
+            secuencia = seq;
+            pendientes.put(seq, venta);
+        }
+        solicitarSincronizacion();
+        return true;
+    }
+
+    /**
+     * Productos activos para vender: de la copia local si está al día (los
+     * cambios llegan por eventos), si no de la BD y, sin conexión, de la
+     * copia vencida. El stock descuenta lo pendiente.
+     */
+    public List<Producto> obtenerProductosDisponibles() {
+        List<Producto> productos = null;
+        if (catalogoVigente()) {
+            productos = copiar(catalogo.getProductos());
+        } else if (enLinea) {
+            productos = productoDAO.obtenerActivos();
+            if (productos.isEmpty()) {
+                // Lista vacía también es lo que devuelve el DAO ante un error de conexión
+                productos = null;
+            }
+        }
+        if (productos == null) {
+            productos = copiar(catalogo.getProductos());
+        }
+
+        Map<Integer, Integer> reservado = unidadesPendientes();
+        for (Producto p : productos) {
+            descontarPendientes(p, reservado);
+        }
+        return productos;
+    }
+
+    /**
+     * Un producto de la copia local, con el stock descontando lo pendiente.
+     *
+     * @return null si ya no está activo
+     */
+    public Producto obtenerProductoDisponible(int idProducto) {
+        Producto encontrado = catalogo.buscarProducto(idProducto);
+        if (encontrado == null) {
+            return null;
+        }
+        Producto producto = copiar(List.of(encontrado)).get(0);
+        descontarPendientes(producto, unidadesPendientes());
+        return producto;
+    }
+
+    private static void descontarPendientes(Producto producto, Map<Integer, Integer> reservado) {
+        Integer unidades = reservado.get(producto.getIdProducto());
+        if (unidades != null) {
+            producto.setStockActual(Math.max(producto.getStockActual() - unidades, 0));
+        }
+    }
+
+    private boolean catalogoVigente() {
+        return System.currentTimeMillis() - catalogo.getFechaActualizacion() <= VIGENCIA_CATALOGO_MILLIS;
+    }
+
+    public Cliente buscarClientePorCedula(String cedula) {
+        Cliente cliente = enLinea ? clienteDAO.obtenerPorCedula(cedula) : null;
+        return cliente != null ? cliente : catalogo.buscarPorCedula(cedula);
+    }
+
+    public List<Cliente> buscarClientesPorNombre(String nombre) {
+        List<Cliente> clientes = enLinea ? clienteDAO.buscarPorNombre(nombre) : null;
+        return clientes != null && !clientes.isEmpty() ? clientes : catalogo.buscarPorNombre(nombre);
+    }
+
+    // ==================== SINCRONIZACIÓN ====================
+
+    /**
+     * Descarta la copia local de productos y clientes (ej: tras un cambio
+     * masivo de precios) y pide refrescarla ya.
+     */
+    public void invalidarCatalogo() {
+        catalogo.invalidar();
+        solicitarSincronizacion();
+    }
+
+    public void solicitarSincronizacion() {
+        ScheduledExecutorService s = sincronizador;
+        if (s != null && !s.isShutdown()) {
+            s.execute(this::sincronizar);
+        }
+    }
+
+    /**
+     * Reenvía las ventas pendientes en orden. Se detiene en la primera que no
+     * pueda registrarse por falta de conexión para conservar el orden.
+     */
+    private void sincronizar() {
+        try {
+            while (true) {
+                Map.Entry<Long, Venta> siguiente = primeraPendiente();
+                if (siguiente == null) {
+                    break;
+                }
+                ResultadoRegistro resultado = ventaDAO.registrarVentaCompleta(siguiente.getValue());
+                if (!procesarResultado(siguiente.getKey(), siguiente.getValue(), resultado)) {
+                    return;
+                }
+            }
+            enLinea = probarConexion();
+            if (enLinea && !catalogoVigente()) {
+                refrescarCatalogo();
+            }
+            compactarSiConviene();
+        } catch (RuntimeException e) {
+            System.err.println("Error en la sincronización de la caja: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true si se puede seguir con la siguiente venta
+     */
+    private boolean procesarResultado(long seq, Venta venta, ResultadoRegistro resultado) {
+        switch (resultado.getEstado()) {
+            case REGISTRADA:
+            case DUPLICADA:
+                enLinea = true;
+                anotar(TIPO_CONFIRMADA, seq, String.valueOf(resultado.getIdVenta()));
+                synchronized (this) {
+                    pendientes.remove(seq);
+                    intentosFallidos.remove(seq);
+                }
+                if (!resultado.getFaltantes().isEmpty()) {
+                    registrarConflicto(venta, resultado.getFaltantes());
+                }
+                return true;
+            case SIN_CONEXION:
+                enLinea = false;
+                return false;
+            default:
+                int intentos;
+                synchronized (this) {
+                    intentos = intentosFallidos.merge(seq, 1, Integer::sum);
+                }
+                if (intentos < MAX_INTENTOS_ERROR) {
+                    return false;
+                }
+                // Error permanente (ej: producto eliminado): se aparta para no bloquear la cola
+                anotar(TIPO_RECHAZADA, seq, resultado.getMensaje());
+                synchronized (this) {
+                    pendientes.remove(seq);
+                    intentosFallidos.remove(seq);
+                }
+                System.err.println("Venta " + venta.getCodigo() + " rechazada tras " + intentos + " intentos: " + resultado.getMensaje());
+                auditar(venta.getIdUsuario(), "VENTA_RECHAZADA",
+                        "Venta offline " + venta.getCodigo() + " no se pudo sincronizar: " + resultado.getMensaje());
+                return true;
+        }
+    }
+
+    private void registrarConflicto(Venta venta, Map<Integer, Integer> faltantes) {
+        StringBuilder detalle = new StringBuilder();
+        faltantes.forEach((idProducto, unidades) ->
+                detalle.append(" producto ").append(idProducto).append(": ").append(unidades).append(" u."));
+        System.err.println("Conflicto de stock al sincronizar " + venta.getCodigo() + ":" + detalle);
+        auditar(venta.getIdUsuario(), "CONFLICTO_STOCK",
+                "Venta " + venta.getCodigo() + " vendida sin stock suficiente en BD:" + detalle);
+    }
+
+    private void refrescarCatalogo() {
+        List<Producto> productos = productoDAO.obtenerActivos();
+        List<Cliente> clientes = clienteDAO.obtenerTodos();
+        if (!productos.isEmpty()) {
+            catalogo.actualizar(productos, clientes);
+            BusEventos.publicar(EventoDominio.Tipo.CATALOGO_LOCAL_ACTUALIZADO, 0);
+        }
+    }
+
+    /**
+     * Corrige la copia local con las filas avisadas en el lote. Un null del
+     * DAO solo se toma como borrado si la BD responde; sin conexión la copia
+     * se marca vencida y se recarga al volver.
+     */
+    private void aplicarCambiosCatalogo() {
+        try {
+            if (recargaCompleta || productosCambiados.size() + clientesCambiados.size() > MAX_CAMBIOS_POR_FILA) {
+                invalidarCatalogo();
+                return;
+            }
+            List<Integer> corregidos = new ArrayList<>();
+            for (int id : productosCambiados) {
+                Producto producto = productoDAO.obtenerPorId(id);
+                if (producto == null && !probarConexion()) {
+                    invalidarCatalogo();
+                    return;
+                }
+                catalogo.reemplazarProducto(id, producto);
+                corregidos.add(id);
+            }
+            for (int id : clientesCambiados) {
+                Cliente cliente = clienteDAO.obtenerPorId(id);
+                if (cliente == null && !probarConexion()) {
+                    invalidarCatalogo();
+                    return;
+                }
+                catalogo.reemplazarCliente(id, cliente);
+            }
+            catalogo.guardarCambios();
+            for (int id : corregidos) {
+                BusEventos.publicar(EventoDominio.Tipo.CATALOGO_LOCAL_ACTUALIZADO, id);
+            }
+        } finally {
+            productosCambiados.clear();
+            clientesCambiados.clear();
+            recargaCompleta = false;
+        }
+    }
+
+    private boolean probarConexion() {
+        try (Connection conn = ConexionBD.obtenerConexion()) {
+            return conn != null;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // ==================== DIARIO ====================
+
+    private synchronized Map.Entry<Long, Venta> primeraPendiente() {
+        return pendientes.isEmpty() ? null : pendientes.entrySet().iterator().next();
+    }
+
+    private synchronized Map<Integer, Integer> unidadesPendientes() {
+        Map<Integer, Integer> unidades = new HashMap<>();
+        for (Venta venta : pendientes.values()) {
+            for (DetalleVenta d : venta.getDetalles()) {
+                unidades.merge(d.getIdProducto(), d.getCantidad(), Integer::sum);
+            }
+        }
+        return unidades;
+    }
+
+    private synchronized void anotar(byte tipo, long seq, String texto) {
+        if (diario == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(seq);
+            out.writeUTF(texto != null ? texto : "");
+            diario.agregar(tipo, bytes.toByteArray());
+        } catch (IOException e) {
+            System.err.println("Error al anotar en el diario de la caja: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Si ya no hay pendientes, vacía el diario. La secuencia queda en la
+     * cabecera del diario (se escribe antes de truncar), así los códigos
+     * de venta locales nunca se repiten.
+     */
+    private synchronized void compactarSiConviene() {
+        if (diario == null || !pendientes.isEmpty() || diario.getTamano() < TAMANO_COMPACTACION) {
+            return;
+        }
+        try {
+            diario.vaciar(secuencia);
+        } catch (IOException e) {
+            System.err.println("Error al compactar el diario de la caja: " + e.getMessage());
+        }
+    }
+
+    private void recuperarPendientes() throws IOException {
+        secuencia = diario.getContador();
+        for (DiarioLocal.Registro registro : diario.leerTodos()) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(registro.getDatos()));
+            long seq = in.readLong();
+            secuencia = Math.max(secuencia, seq);
+            if (registro.getTipo() == TIPO_SECUENCIA) {
+                // Diario anterior a la cabecera: solo aporta la secuencia, ya tomada arriba
+                continue;
+            }
+            if (registro.getTipo() == TIPO_VENTA) {
+                pendientes.put(seq, deserializar(in));
+            } else if (registro.getTipo() == TIPO_CONFIRMADA || registro.getTipo() == TIPO_RECHAZADA) {
+                pendientes.remove(seq);
+            }
+        }
+    }
+
+    // ==================== SERIALIZACIÓN ====================
+
+    private byte[] serializar(long seq, Venta venta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(seq);
+        out.writeUTF(venta.getCodigo());
+        out.writeInt(venta.getIdCliente());
+        out.writeInt(venta.getIdUsuario());
+        out.writeLong(venta.getFechaVenta().getTime());
+        out.writeLong(venta.getSubtotalCentavos());
+        out.writeLong(venta.getIvaTotalCentavos());
+        out.writeLong(venta.getTotalCentavos());
+        out.writeInt(venta.getDetalles().size());
+        for (DetalleVenta d : venta.getDetalles()) {
+            out.writeInt(d.getIdProducto());
+            out.writeInt(d.getCantidad());
+            out.writeLong(d.getPrecioUnitarioCentavos());
+            out.writeLong(d.getSubtotalCentavos());
+            out.writeLong(d.getMontoIVACentavos());
+            out.writeLong(d.getTotalCentavos());
+            out.writeUTF(d.getNombreProducto() != null ? d.getNombreProducto() : "");
+        }
+        return bytes.toByteArray();
+    }
+
+    private Venta deserializar(DataInputStream in) throws IOException {
+        Venta venta = new Venta();
+        venta.setCodigo(in.readUTF());
+        venta.setIdCliente(in.readInt());
+        venta.setIdUsuario(in.readInt());
+        venta.setFechaVenta(new Date(in.readLong()));
+        venta.setEsCredito(false);
+        venta.setSubtotalCentavos(in.readLong());
+        venta.setIvaTotalCentavos(in.readLong());
+        venta.setTotalCentavos(in.readLong());
+
+        int lineas = in.readInt();
+        List<DetalleVenta> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            DetalleVenta d = new DetalleVenta();
+            d.setIdProducto(in.readInt());
+            d.setCantidad(in.readInt());
+            d.setPrecioUnitarioCentavos(in.readLong());
+            d.setSubtotalCentavos(in.readLong());
+            d.setMontoIVACentavos(in.readLong());
+            d.setTotalCentavos(in.readLong());
+            d.setNombreProducto(in.readUTF());
+            detalles.add(d);
+        }
+        venta.setDetalles(detalles);
+        return venta;
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private String generarCodigo(long seq, Date fecha) {
+        return String.format("VL-%s-%s-%06d", terminal,
+                new SimpleDateFormat("yyyyMMdd").format(fecha), seq);
+    }
+
+    /**
+     * Identificador de 6 caracteres de esta terminal, generado una sola vez.
+     */
+    private String leerTerminal() throws IOException {
+        Path archivo = CARPETA.resolve("terminal.id");
+        if (Files.exists(archivo)) {
+            String id = Files.readString(archivo, StandardCharsets.UTF_8).trim();
+            if (!id.isEmpty()) {
+                return id;
+            }
+        }
+        Files.createDirectories(CARPETA);
+        String id = String.format("%06X", new SecureRandom().nextInt(1 << 24));
+        Files.writeString(archivo, id, StandardCharsets.UTF_8);
+        return id;
+    }
+
+    private List<Producto> copiar(List<Producto> origen) {
+        List<Producto> copia = new ArrayList<>(origen.size());
+        for (Producto p : origen) {
+            Producto nuevo = new Producto();
+            nuevo.setIdProducto(p.getIdProducto());
+            nuevo.setCodigo(p.getCodigo());
+            nuevo.setNombre(p.getNombre());
+            nuevo.setMarca(p.getMarca());
+            nuevo.setIdCategoria(p.getIdCategoria());
+            nuevo.setPrecioVenta(p.getPrecioVenta());
+            nuevo.setStockActual(p.getStockActual());
+            nuevo.setActivo(true);
+            copia.add(nuevo);
+        }
+        return copia;
+    }
+
+    private void auditar(int idUsuario, String accion, String descripcion) {
+        auditoriaDAO.agregar(new Auditoria(idUsuario, accion, "Venta", descripcion, "127.0.0.1"));
+    }
+}
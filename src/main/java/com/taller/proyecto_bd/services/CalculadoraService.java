@@ -1,29 +1,49 @@
 package com.taller.proyecto_bd.services;
 
+import com.taller.proyecto_bd.models.PlanPagos;
+import com.taller.proyecto_bd.models.SimulacionCredito;
 import com.taller.proyecto_bd.utils.Constantes; // Importar Constantes
+import com.taller.proyecto_bd.utils.Dinero;
 import java.util.ArrayList;
 import java.util.List;
 
 public class CalculadoraService {
     // Usar la constante de IVA definida globalmente
     private static final double IVA_PORCENTAJE = Constantes.IVA_DEFAULT;
+    private static final long IVA_TASA = Dinero.tasa(IVA_PORCENTAJE);
+
+    // Política de crédito de la tienda: 30% inicial, 5% sobre el saldo, 12/18/24 meses
+    public static final double PORCENTAJE_CUOTA_INICIAL = 0.30;
+    public static final double INTERES_FINANCIACION = Constantes.INTERES_DEFAULT;
+    public static final int[] PLAZOS_PERMITIDOS = {12, 18, 24};
+    private static final long TASA_FINANCIACION = Dinero.tasa(INTERES_FINANCIACION);
 
     // ==================== CALCULOS DE VENTA ====================
 
     /** Calcular subtotal (sin IVA) */
     public double calcularSubtotal(List<Double> precios) {
         if (precios == null) return 0;
-        return precios.stream().mapToDouble(Double::doubleValue).sum();
+        long subtotal = 0;
+        for (Double precio : precios) {
+            subtotal += Dinero.aCentavos(precio);
+        }
+        return Dinero.aDouble(subtotal);
     }
 
     /** Calcular IVA total */
     public double calcularIVA(double subtotal) {
-        return redondear2Decimales(subtotal * IVA_PORCENTAJE);
+        return Dinero.aDouble(calcularIVACentavos(Dinero.aCentavos(subtotal)));
     }
 
     /** Calcular total con IVA */
     public double calcularTotalConIVA(double subtotal) {
-        return redondear2Decimales(subtotal + calcularIVA(subtotal));
+        long base = Dinero.aCentavos(subtotal);
+        return Dinero.aDouble(base + calcularIVACentavos(base));
+    }
+
+    /** Calcular IVA sobre un subtotal en centavos */
+    public long calcularIVACentavos(long subtotalCentavos) {
+        return Dinero.aplicarTasa(subtotalCentavos, IVA_TASA);
     }
 
     // ==================== CALCULOS DE CREDITO ====================
@@ -32,7 +52,7 @@ public class CalculadoraService {
      * Calcula el monto financiado (total - cuota inicial).
      */
     public double calcularMontoFinanciado(double total, double cuotaInicial) {
-        return Math.max(total - cuotaInicial, 0);
+        return Dinero.aDouble(Math.max(Dinero.aCentavos(total) - Dinero.aCentavos(cuotaInicial), 0));
     }
 
     /**
@@ -48,16 +68,7 @@ public class CalculadoraService {
 
         // CORRECCIÓN: Primero convertir a decimal, luego dividir por 12
         double tasaMensual = (interesAnual / 100.0) / 12.0;
-
-        // Si no hay interés, dividir el monto entre las cuotas
-        if (tasaMensual == 0) {
-            return redondear2Decimales(montoFinanciado / plazoMeses);
-        }
-
-        double factor = Math.pow(1 + tasaMensual, plazoMeses);
-        double cuota = montoFinanciado * (tasaMensual * factor) / (factor - 1);
-
-        return redondear2Decimales(cuota);
+        return Dinero.aDouble(cuotaFija(Dinero.aCentavos(montoFinanciado), tasaMensual, plazoMeses));
     }
 
     /**
@@ -65,10 +76,11 @@ public class CalculadoraService {
      */
     public List<Double> generarPlanPagos(double montoFinanciado, double interesAnual, int plazoMeses) {
         List<Double> cuotas = new ArrayList<>();
-        double cuotaMensual = calcularCuotaMensual(montoFinanciado, interesAnual, plazoMeses);
+        if (plazoMeses <= 0 || montoFinanciado <= 0) return cuotas;
 
-        for (int i = 0; i < plazoMeses; i++) {
-            cuotas.add(cuotaMensual);
+        PlanPagos plan = calcularPlanFrances(Dinero.aCentavos(montoFinanciado), (interesAnual / 100.0) / 12.0, plazoMeses);
+        for (int i = 0; i < plan.getPeriodos(); i++) {
+            cuotas.add(plan.getCuota(i));
         }
 
         return cuotas;
@@ -80,16 +92,112 @@ public class CalculadoraService {
     public double calcularInteresTotal(double montoFinanciado, double interesAnual, int plazoMeses) {
         if (plazoMeses <= 0 || montoFinanciado <= 0) return 0;
 
-        double cuotaMensual = calcularCuotaMensual(montoFinanciado, interesAnual, plazoMeses);
-        double totalPagado = cuotaMensual * plazoMeses;
-        double interesTotal = totalPagado - montoFinanciado;
+        PlanPagos plan = calcularPlanFrances(Dinero.aCentavos(montoFinanciado), (interesAnual / 100.0) / 12.0, plazoMeses);
+        return Dinero.aDouble(plan.getTotalInteresCentavos());
+    }
+
+    // ==================== SIMULADOR DE PLANES DE PAGO ====================
+
+    /**
+     * Tabla de amortización con cuota fija (sistema francés).
+     * El interés de cada período se calcula sobre el saldo y la última cuota
+     * absorbe el residuo de redondeo para dejar el saldo en 0.
+     *
+     * @param monto monto financiado en centavos
+     * @param tasaMensual tasa del período como fracción (ej: 0.05 / 12)
+     */
+    public PlanPagos calcularPlanFrances(long monto, double tasaMensual, int plazoMeses) {
+        long[] cuota = new long[plazoMeses];
+        long[] capital = new long[plazoMeses];
+        long[] interes = new long[plazoMeses];
+        long[] saldo = new long[plazoMeses];
+
+        long valorCuota = cuotaFija(monto, tasaMensual, plazoMeses);
+        long restante = monto;
+        for (int k = 0; k < plazoMeses; k++) {
+            long i = Math.round(restante * tasaMensual);
+            long c = (k == plazoMeses - 1) ? restante : Math.min(valorCuota - i, restante);
+            interes[k] = i;
+            capital[k] = c;
+            cuota[k] = c + i;
+            restante -= c;
+            saldo[k] = restante;
+        }
+        return new PlanPagos(monto, cuota, capital, interes, saldo);
+    }
+
+    /**
+     * Tabla de amortización según la política de la tienda (ver
+     * PlanPagos.interesFijo, el mismo cálculo que usan los créditos).
+     *
+     * @param saldoFinanciar saldo después de la cuota inicial, en centavos
+     */
+    public PlanPagos calcularPlanTienda(long saldoFinanciar, int plazoMeses) {
+        return PlanPagos.interesFijo(saldoFinanciar, INTERES_FINANCIACION, plazoMeses);
+    }
+
+    /**
+     * Plan de pagos de una venta a crédito según la política de la tienda
+     * (30% inicial y 5% sobre el saldo).
+     *
+     * @param totalVenta total de la venta en centavos
+     */
+    public PlanPagos calcularPlanVenta(long totalVenta, int plazoMeses) {
+        long cuotaInicial = Dinero.aplicarTasa(totalVenta, Dinero.tasa(PORCENTAJE_CUOTA_INICIAL));
+        return calcularPlanTienda(totalVenta - cuotaInicial, plazoMeses);
+    }
+
+    /**
+     * Evalúa de una vez todos los plazos × porcentajes de cuota inicial para
+     * un precio, con la política de la tienda. Lo que solo depende de la cuota
+     * inicial (saldo e interés) se calcula una vez por porcentaje.
+     */
+    public SimulacionCredito simularEscenarios(long precio, int[] plazos, double[] porcentajesIniciales) {
+        SimulacionCredito simulacion = new SimulacionCredito(precio, plazos, porcentajesIniciales);
+
+        for (int j = 0; j < porcentajesIniciales.length; j++) {
+            long cuotaInicial = Dinero.aplicarTasa(precio, Dinero.tasa(porcentajesIniciales[j]));
+            long saldoFinanciar = precio - cuotaInicial;
+            long interes = Dinero.aplicarTasa(saldoFinanciar, TASA_FINANCIACION);
+            long totalFinanciar = saldoFinanciar + interes;
+
+            for (int i = 0; i < plazos.length; i++) {
+                int n = plazos[i];
+                long valorCuota = Dinero.dividir(totalFinanciar, n);
+                long ultimaCuota = totalFinanciar - valorCuota * (n - 1);
+                simulacion.registrar(simulacion.indice(i, j), cuotaInicial, saldoFinanciar, interes,
+                        valorCuota, ultimaCuota);
+            }
+        }
+        return simulacion;
+    }
+
+    public SimulacionCredito simularEscenarios(double precio, double[] porcentajesIniciales) {
+        return simularEscenarios(Dinero.aCentavos(precio), PLAZOS_PERMITIDOS, porcentajesIniciales);
+    }
+
+    public static boolean esPlazoPermitido(int plazoMeses) {
+        for (int p : PLAZOS_PERMITIDOS) {
+            if (p == plazoMeses) return true;
+        }
+        return false;
+    }
 
-        return redondear2Decimales(Math.max(interesTotal, 0));
+    /**
+     * Cuota fija en centavos: C = P * i / (1 - (1+i)^-n), o P / n sin interés.
+     */
+    private long cuotaFija(long monto, double tasaMensual, int plazoMeses) {
+        if (plazoMeses <= 0) return 0;
+        if (tasaMensual == 0) {
+            return Dinero.dividir(monto, plazoMeses);
+        }
+        double factor = Math.pow(1 + tasaMensual, plazoMeses);
+        return Math.round(monto * (tasaMensual * factor) / (factor - 1));
     }
 
     // ==================== UTILES ====================
 
     public double redondear2Decimales(double valor) {
-        return Math.round(valor * 100.0) / 100.0;
+        return Dinero.aDouble(Dinero.aCentavos(valor));
     }
 }
\ No newline at end of file
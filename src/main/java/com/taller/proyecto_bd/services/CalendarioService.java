@@ -0,0 +1,125 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CalendarioDAO;
+import com.taller.proyecto_bd.models.AgendaMes;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
+
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Agenda mensual del calendario con caché por (año, mes).
+ *
+ * Cada mes se lee con una sola consulta agrupada y se guarda la tarea, no
+ * el resultado, así dos pedidos del mismo mes comparten la lectura. Al
+ * pedir un mes se precargan en segundo plano el anterior y el siguiente
+ * para que la navegación no espere a la BD. Pagos, ventas y la causación
+ * de mora vacían la caché una vez por lote de eventos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CalendarioService {
+    private static CalendarioService instance;
+
+    private static final int MESES_EN_CACHE = 24;
+
+    private final CalendarioDAO calendarioDAO = CalendarioDAO.getInstance();
+    private final ExecutorService lector;
+
+    /** Orden de acceso: se descarta el mes menos consultado */
+    private final Map<YearMonth, CompletableFuture<AgendaMes>> cache =
+            new LinkedHashMap<>(32, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, CompletableFuture<AgendaMes>> mayor) {
+                    return size() > MESES_EN_CACHE;
+                }
+            };
+
+    private CalendarioService() {
+        lector = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "agenda-calendario");
+            t.setDaemon(true);
+            return t;
+        });
+        BusEventos.suscribir(EnumSet.of(EventoDominio.Tipo.CUOTA_PAGADA,
+                EventoDominio.Tipo.VENTA_REGISTRADA, EventoDominio.Tipo.VENTA_ACTUALIZADA,
+                EventoDominio.Tipo.VENTA_ANULADA, EventoDominio.Tipo.CLIENTE_ACTUALIZADO),
+                new BusEventos.Suscriptor() {
+                    private boolean cambios;
+
+                    @Override
+                    public void recibir(EventoDominio evento) {
+                        cambios = true;
+                    }
+
+                    @Override
+                    public void desbordado() {
+                        invalidar();
+                    }
+
+                    @Override
+                    public void finLote() {
+                        if (cambios) {
+                            cambios = false;
+                            invalidar();
+                        }
+                    }
+                }, lector);
+    }
+
+    public static synchronized CalendarioService getInstance() {
+        if (instance == null) {
+            instance = new CalendarioService();
+        }
+        return instance;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Agenda del mes, desde la caché si ya se leyó. Precarga los meses
+     * vecinos. La tarea termina con null si la consulta falló.
+     */
+    public CompletableFuture<AgendaMes> obtener(YearMonth mes) {
+        CompletableFuture<AgendaMes> agenda = cargar(mes);
+        cargar(mes.minusMonths(1));
+        cargar(mes.plusMonths(1));
+        return agenda;
+    }
+
+    /**
+     * Descarta todos los meses leídos; las tareas en curso siguen para
+     * quien ya las espera.
+     */
+    public synchronized void invalidar() {
+        cache.clear();
+    }
+
+    private synchronized CompletableFuture<AgendaMes> cargar(YearMonth mes) {
+        CompletableFuture<AgendaMes> agenda = cache.get(mes);
+        if (agenda == null) {
+            CompletableFuture<AgendaMes> nueva = CompletableFuture.supplyAsync(
+                    () -> calendarioDAO.obtenerMes(mes), lector);
+            cache.put(mes, nueva);
+            // Un error no se guarda: el siguiente pedido vuelve a consultar
+            nueva.thenAccept(leida -> {
+                if (leida == null) {
+                    descartar(mes, nueva);
+                }
+            });
+            agenda = nueva;
+        }
+        return agenda;
+    }
+
+    private synchronized void descartar(YearMonth mes, CompletableFuture<AgendaMes> agenda) {
+        cache.remove(mes, agenda);
+    }
+}
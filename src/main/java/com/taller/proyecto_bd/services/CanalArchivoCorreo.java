@@ -0,0 +1,68 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.models.Notificacion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal de correo local: en lugar de hablar con un servidor SMTP guarda
+ * cada mensaje como un archivo .eml en la carpeta indicada, para revisar
+ * los avisos en pruebas sin enviar correos reales.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CanalArchivoCorreo implements CanalNotificacion {
+
+    private static final String REMITENTE = "notificaciones@sistema.com";
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path carpeta;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public CanalArchivoCorreo(Path carpeta) {
+        this.carpeta = carpeta;
+    }
+
+    public CanalArchivoCorreo(String carpeta) {
+        this(Paths.get(carpeta));
+    }
+
+    @Override
+    public String getNombre() {
+        return Notificacion.CANAL_CORREO;
+    }
+
+    @Override
+    public int getMensajesPorSegundo() {
+        return 20;
+    }
+
+    @Override
+    public void enviar(String destino, String asunto, String cuerpo) throws IOException {
+        ZonedDateTime ahora = ZonedDateTime.now();
+        String mensaje = "From: " + REMITENTE + "\r\n" +
+                "To: " + destino + "\r\n" +
+                "Subject: " + asunto + "\r\n" +
+                "Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ahora) + "\r\n" +
+                "Content-Type: text/plain; charset=UTF-8\r\n" +
+                "\r\n" +
+                cuerpo.replace("\n", "\r\n") + "\r\n";
+
+        Files.createDirectories(carpeta);
+        // El pid evita choques entre dos instancias que escriben en la misma carpeta
+        String nombre = FORMATO_ARCHIVO.format(ahora) + "-" + ProcessHandle.current().pid() + "-" +
+                secuencia.incrementAndGet() + "-" +
+                destino.replaceAll("[^A-Za-z0-9@._-]", "_") + ".eml";
+        Files.writeString(carpeta.resolve(nombre), mensaje, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE_NEW);
+    }
+}
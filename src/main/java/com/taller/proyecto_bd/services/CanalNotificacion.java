@@ -0,0 +1,25 @@
+package com.taller.proyecto_bd.services;
+
+import java.io.IOException;
+
+/**
+ * Medio por el que NotificacionService entrega los avisos (correo, SMS...).
+ * Cada canal se registra con el nombre que se guarda en
+ * Notificaciones.canal. enviar() se llama desde varios hilos a la vez.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public interface CanalNotificacion {
+
+    /** Nombre del canal en la tabla Notificaciones */
+    String getNombre();
+
+    /** Envíos por segundo que acepta el proveedor */
+    int getMensajesPorSegundo();
+
+    /**
+     * Entrega un mensaje; una excepción deja los avisos para reintentar.
+     */
+    void enviar(String destino, String asunto, String cuerpo) throws IOException;
+}
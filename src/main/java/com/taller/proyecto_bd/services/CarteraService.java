@@ -0,0 +1,145 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.ClienteDAO;
+import com.taller.proyecto_bd.dao.CuotaDAO;
+import com.taller.proyecto_bd.models.CarteraVencida;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Cartera por edades calculada desde las cuotas sin pagar.
+ *
+ * La BD agrupa las cuotas por cliente y tramo de atraso en una sola
+ * consulta; aquí solo se suman los totales y se quedan los clientes con
+ * más saldo (un montículo de CLIENTES_PRINCIPALES), así que el costo no
+ * depende de cuántas cuotas haya. La misma lectura compara contra
+ * Clientes.saldoPendiente, que se mantiene con ajustes y puede desviarse;
+ * corregirSaldos lo iguala a las cuotas en la BD.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class CarteraService {
+    private static CarteraService instance;
+
+    /** Clientes con más saldo que se devuelven con detalle */
+    public static final int CLIENTES_PRINCIPALES = 200;
+
+    private final CuotaDAO cuotaDAO = CuotaDAO.getInstance();
+    private final ClienteDAO clienteDAO = ClienteDAO.getInstance();
+
+    private CarteraService() {
+    }
+
+    public static synchronized CarteraService getInstance() {
+        if (instance == null) {
+            instance = new CarteraService();
+        }
+        return instance;
+    }
+
+    /**
+     * Cartera por edades a la fecha de corte.
+     *
+     * @return null si no se pudo leer la información
+     */
+    public CarteraVencida analizar(LocalDate fechaCorte) {
+        Acumulador acumulador = new Acumulador(new CarteraVencida(fechaCorte));
+        if (!cuotaDAO.recorrerCartera(fechaCorte, acumulador)) {
+            return null;
+        }
+        CarteraVencida cartera = acumulador.cartera;
+        cartera.setTotalClientes(acumulador.clientes);
+        cartera.setTotalSaldoCentavos(acumulador.saldo);
+        cartera.setTotalRegistradoCentavos(acumulador.registrado);
+        cartera.setClientesConDiferencia(acumulador.clientesConDiferencia);
+        cartera.setDiferenciaCentavos(acumulador.diferencia);
+        agregarPrincipales(cartera, acumulador.principales);
+        return cartera;
+    }
+
+    /**
+     * Iguala Clientes.saldoPendiente al saldo de las cuotas sin pagar de
+     * todos los clientes que se desviaron.
+     *
+     * @return clientes corregidos
+     */
+    public int corregirSaldos() {
+        int corregidos = clienteDAO.corregirSaldosDesdeCuotas();
+        System.out.println("✓ Saldos de clientes corregidos desde las cuotas: " + corregidos);
+        return corregidos;
+    }
+
+    private void agregarPrincipales(CarteraVencida cartera, PriorityQueue<CarteraVencida.SaldoCliente> principales) {
+        List<CarteraVencida.SaldoCliente> lista = new ArrayList<>(principales);
+        lista.sort(Comparator.comparingLong(CarteraVencida.SaldoCliente::getTotalCentavos).reversed());
+
+        List<Integer> ids = new ArrayList<>(lista.size());
+        for (CarteraVencida.SaldoCliente saldo : lista) {
+            ids.add(saldo.getIdCliente());
+        }
+        Map<Integer, String[]> etiquetas = clienteDAO.obtenerEtiquetas(ids);
+        for (CarteraVencida.SaldoCliente saldo : lista) {
+            String[] etiqueta = etiquetas.get(saldo.getIdCliente());
+            if (etiqueta != null) {
+                saldo.setCedula(etiqueta[0]);
+                saldo.setNombre(etiqueta[1]);
+            }
+        }
+        cartera.getClientesPrincipales().addAll(lista);
+    }
+
+    /**
+     * Suma los totales fila por fila y guarda solo los clientes con más saldo.
+     */
+    private static final class Acumulador implements CuotaDAO.ConsumidorCartera {
+        final CarteraVencida cartera;
+        /** Montículo de mínimos: el primero es el que sale al llegar uno mayor */
+        final PriorityQueue<CarteraVencida.SaldoCliente> principales = new PriorityQueue<>(
+                Comparator.comparingLong(CarteraVencida.SaldoCliente::getTotalCentavos));
+        int clientes;
+        int clientesConDiferencia;
+        long saldo;
+        long registrado;
+        long diferencia;
+
+        Acumulador(CarteraVencida cartera) {
+            this.cartera = cartera;
+        }
+
+        @Override
+        public void aceptar(int idCliente, long[] saldoPorTramo, long saldoRegistradoCentavos) {
+            long total = 0;
+            int tramoMayor = -1;
+            for (int t = 0; t < saldoPorTramo.length; t++) {
+                total += saldoPorTramo[t];
+                cartera.getSaldoPorTramo()[t] += saldoPorTramo[t];
+                if (saldoPorTramo[t] > 0) {
+                    tramoMayor = t;
+                }
+            }
+            if (tramoMayor >= 0) {
+                cartera.getClientesPorTramo()[tramoMayor]++;
+            }
+            clientes++;
+            saldo += total;
+            registrado += saldoRegistradoCentavos;
+            if (saldoRegistradoCentavos != total) {
+                clientesConDiferencia++;
+                diferencia += Math.abs(saldoRegistradoCentavos - total);
+            }
+
+            if (principales.size() < CLIENTES_PRINCIPALES || total > principales.peek().getTotalCentavos()) {
+                principales.add(new CarteraVencida.SaldoCliente(idCliente, saldoPorTramo.clone(), saldoRegistradoCentavos));
+                if (principales.size() > CLIENTES_PRINCIPALES) {
+                    principales.poll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Copia local de productos activos (precio y stock) y clientes para vender
+ * sin conexión. Se guarda completa en un archivo con CRC, escribiendo a un
+ * temporal y reemplazando de forma atómica.
+ *
+ * Los cambios de otras cajas se aplican fila por fila (reemplazarProducto,
+ * reemplazarCliente) y se guardan una vez por lote con guardarCambios().
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+class CatalogoLocal {
+
+    private static final int VERSION = 1;
+
+    private final Path ruta;
+    private volatile List<Producto> productos = Collections.emptyList();
+    private volatile List<Cliente> clientes = Collections.emptyList();
+    private volatile long fechaActualizacion;
+
+    CatalogoLocal(Path ruta) {
+        this.ruta = ruta;
+    }
+
+    // ==================== CONSULTA ====================
+
+    List<Producto> getProductos() {
+        return productos;
+    }
+
+    long getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    Producto buscarProducto(int idProducto) {
+        for (Producto p : productos) {
+            if (p.getIdProducto() == idProducto) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    Cliente buscarPorCedula(String cedula) {
+        for (Cliente c : clientes) {
+            if (c.getCedula() != null && c.getCedula().equalsIgnoreCase(cedula)) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    List<Cliente> buscarPorNombre(String texto) {
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        List<Cliente> encontrados = new ArrayList<>();
+        for (Cliente c : clientes) {
+            if (c.getNombreCompleto().toLowerCase(Locale.ROOT).contains(buscado)) {
+                encontrados.add(c);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Marca la copia como vencida para que se refresque en la próxima sincronización.
+     */
+    void invalidar() {
+        fechaActualizacion = 0;
+    }
+
+    // ==================== CAMBIOS POR FILA ====================
+
+    /**
+     * Reemplaza o agrega el producto; null o inactivo lo quita.
+     */
+    synchronized void reemplazarProducto(int idProducto, Producto producto) {
+        List<Producto> nuevos = new ArrayList<>(productos);
+        nuevos.removeIf(p -> p.getIdProducto() == idProducto);
+        if (producto != null && producto.isActivo()) {
+            nuevos.add(producto);
+        }
+        productos = Collections.unmodifiableList(nuevos);
+    }
+
+    /**
+     * Reemplaza o agrega el cliente; null lo quita.
+     */
+    synchronized void reemplazarCliente(int idCliente, Cliente cliente) {
+        List<Cliente> nuevos = new ArrayList<>(clientes);
+        nuevos.removeIf(c -> c.getIdCliente() == idCliente);
+        if (cliente != null) {
+            nuevos.add(cliente);
+        }
+        clientes = Collections.unmodifiableList(nuevos);
+    }
+
+    /**
+     * Guarda en disco los cambios por fila, sin tocar la fecha de la copia
+     * (la recarga completa periódica sigue igual).
+     */
+    synchronized void guardarCambios() {
+        try {
+            guardar();
+        } catch (IOException e) {
+            System.err.println("Error al guardar catálogo local: " + e.getMessage());
+        }
+    }
+
+    // ==================== PERSISTENCIA ====================
+
+    /**
+     * Reemplaza la copia local y la guarda en disco.
+     */
+    synchronized void actualizar(List<Producto> nuevosProductos, List<Cliente> nuevosClientes) {
+        productos = Collections.unmodifiableList(new ArrayList<>(nuevosProductos));
+        clientes = Collections.unmodifiableList(new ArrayList<>(nuevosClientes));
+        fechaActualizacion = System.currentTimeMillis();
+        try {
+            guardar();
+        } catch (IOException e) {
+            System.err.println("Error al guardar catálogo local: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga la última copia guardada (si existe y es válida).
+     */
+    void cargar() {
+        if (!Files.exists(ruta)) {
+            return;
+        }
+        try {
+            byte[] contenido = Files.readAllBytes(ruta);
+            if (contenido.length < 8) {
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(contenido, 0, contenido.length - 8);
+            long esperado = new DataInputStream(new ByteArrayInputStream(contenido, contenido.length - 8, 8)).readLong();
+            if (crc.getValue() != esperado) {
+                System.err.println("Catálogo local corrupto, se ignora: " + ruta);
+                return;
+            }
+            leer(new DataInputStream(new ByteArrayInputStream(contenido, 0, contenido.length - 8)));
+        } catch (IOException e) {
+            System.err.println("Error al leer catálogo local: " + e.getMessage());
+        }
+    }
+
+    private void guardar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VERSION);
+        out.writeLong(fechaActualizacion);
+
+        out.writeInt(productos.size());
+        for (Producto p : productos) {
+            out.writeInt(p.getIdProducto());
+            out.writeUTF(texto(p.getCodigo()));
+            out.writeUTF(texto(p.getNombre()));
+            out.writeUTF(texto(p.getMarca()));
+            out.writeInt(p.getIdCategoria());
+            out.writeLong(Dinero.aCentavos(p.getPrecioVenta()));
+            out.writeInt(p.getStockActual());
+        }
+
+        out.writeInt(clientes.size());
+        for (Cliente c : clientes) {
+            out.writeInt(c.getIdCliente());
+            out.writeUTF(texto(c.getCedula()));
+            out.writeUTF(texto(c.getNombre()));
+            out.writeUTF(texto(c.getApellido()));
+            out.writeUTF(texto(c.getTelefono()));
+            out.writeBoolean(c.isActivo());
+            out.writeLong(Dinero.aCentavos(c.getLimiteCredito()));
+            out.writeLong(Dinero.aCentavos(c.getSaldoPendiente()));
+        }
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Files.createDirectories(ruta.getParent());
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        Files.write(temporal, bytes.toByteArray());
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void leer(DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION) {
+            return;
+        }
+        long fecha = in.readLong();
+
+        int totalProductos = in.readInt();
+        List<Producto> leidos = new ArrayList<>(totalProductos);
+        for (int i = 0; i < totalProductos; i++) {
+            Producto p = new Producto();
+            p.setIdProducto(in.readInt());
+            p.setCodigo(in.readUTF());
+            p.setNombre(in.readUTF());
+            p.setMarca(in.readUTF());
+            p.setIdCategoria(in.readInt());
+            p.setPrecioVenta(Dinero.aDouble(in.readLong()));
+            p.setStockActual(in.readInt());
+            p.setActivo(true);
+            leidos.add(p);
+        }
+
+        int totalClientes = in.readInt();
+        List<Cliente> clientesLeidos = new ArrayList<>(totalClientes);
+        for (int i = 0; i < totalClientes; i++) {
+            Cliente c = new Cliente();
+            c.setIdCliente(in.readInt());
+            c.setCedula(in.readUTF());
+            c.setNombre(in.readUTF());
+            c.setApellido(in.readUTF());
+            c.setTelefono(in.readUTF());
+            c.setActivo(in.readBoolean());
+            c.setLimiteCredito(Dinero.aDouble(in.readLong()));
+            c.setSaldoPendiente(Dinero.aDouble(in.readLong()));
+            clientesLeidos.add(c);
+        }
+
+        productos = Collections.unmodifiableList(leidos);
+        clientes = Collections.unmodifiableList(clientesLeidos);
+        fechaActualizacion = fecha;
+    }
+
+    private static String texto(String valor) {
+        return valor != null ? valor : "";
+    }
+}
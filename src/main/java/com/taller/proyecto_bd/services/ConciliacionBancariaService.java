@@ -0,0 +1,763 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CuotaDAO;
+import com.taller.proyecto_bd.dao.PagoBancoDAO;
+import com.taller.proyecto_bd.models.AplicacionPago;
+import com.taller.proyecto_bd.models.PagoBanco;
+import com.taller.proyecto_bd.models.Usuario;
+import com.taller.proyecto_bd.utils.Constantes;
+import com.taller.proyecto_bd.utils.Dinero;
+import com.taller.proyecto_bd.utils.LectorDelimitado;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Conciliación de los pagos de cuotas hechos en el banco.
+ *
+ * El extracto se lee una línea a la vez y cada pago se asocia a los
+ * créditos del cliente por cédula y monto. Para eso, antes de leer, todas
+ * las cuotas pendientes se cargan en una sola consulta a índices en
+ * memoria: la deuda por cédula (con sus créditos y la cuota más antigua de
+ * cada uno) y la cédula por valor de cuota, que sirve para sugerir el
+ * cliente cuando la cédula no coincide. Los pagos asociados se aplican en
+ * lotes de TAMANO_LOTE, cada uno en una transacción
+ * ({@link PagoBancoDAO#aplicarLote}), mientras se lee el lote siguiente.
+ *
+ * Lo que no se puede asociar o aplicar completo va a la cola de revisión:
+ * un archivo con la línea, los datos del pago y el motivo. Las referencias
+ * del banco quedan registradas al aplicarse, así que si la conciliación se
+ * interrumpe basta con volver a cargar el archivo: lo ya aplicado se omite.
+ *
+ * Los archivos .csv y .tsv llevan encabezado con las columnas referencia,
+ * cedula, fecha y monto (el orden no importa, sin distinguir mayúsculas ni
+ * tildes). Cualquier otra extensión se lee como ancho fijo según
+ * {@link DisenoFijo}.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ConciliacionBancariaService {
+    private static ConciliacionBancariaService instance;
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final int TAMANO_LOTE = 1000;
+    private static final int LARGO_REFERENCIA = 40; // PagosBanco.referencia
+
+    private static final String[] OBLIGATORIAS = {"referencia", "cedula", "fecha", "monto"};
+    private static final Map<String, String> ALIAS = Map.of(
+            "comprobante", "referencia",
+            "documento", "referencia",
+            "identificacion", "cedula",
+            "fechapago", "fecha",
+            "valor", "monto",
+            "valorpagado", "monto",
+            "importe", "monto");
+    private static final DateTimeFormatter[] FORMATOS_FECHA = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.BASIC_ISO_DATE
+    };
+    private static final Set<String> EXTENSIONES_DELIMITADAS = Set.of("csv", "tsv");
+
+    // ==================== DEPENDENCIAS ====================
+    private final CuotaDAO cuotaDAO = CuotaDAO.getInstance();
+    private final PagoBancoDAO pagoBancoDAO = PagoBancoDAO.getInstance();
+
+    private volatile boolean cancelado;
+
+    private ConciliacionBancariaService() {
+    }
+
+    public static synchronized ConciliacionBancariaService getInstance() {
+        if (instance == null) {
+            instance = new ConciliacionBancariaService();
+        }
+        return instance;
+    }
+
+    // ==================== RESULTADOS ====================
+
+    /**
+     * Avance de la conciliación, notificado tras cada lote aplicado.
+     */
+    public static class Progreso {
+        private final long lineas;
+        private final int aplicados;
+        private final int omitidos;
+        private final int enRevision;
+        private final long aplicadoCentavos;
+        private final double lineasPorSegundo;
+
+        Progreso(long lineas, int aplicados, int omitidos, int enRevision, long aplicadoCentavos,
+                 double lineasPorSegundo) {
+            this.lineas = lineas;
+            this.aplicados = aplicados;
+            this.omitidos = omitidos;
+            this.enRevision = enRevision;
+            this.aplicadoCentavos = aplicadoCentavos;
+            this.lineasPorSegundo = lineasPorSegundo;
+        }
+
+        public long getLineas() { return lineas; }
+        public int getAplicados() { return aplicados; }
+        /** Pagos con referencias aplicadas en una conciliación anterior */
+        public int getOmitidos() { return omitidos; }
+        public int getEnRevision() { return enRevision; }
+        public long getAplicadoCentavos() { return aplicadoCentavos; }
+        public double getLineasPorSegundo() { return lineasPorSegundo; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d líneas (%,d pagos aplicados por $%,.2f, %,d ya aplicados, %,d a revisión)"
+                            + " - %,.0f líneas/s",
+                    lineas, aplicados, Dinero.aDouble(aplicadoCentavos), omitidos, enRevision, lineasPorSegundo);
+        }
+    }
+
+    /**
+     * Resumen final de una conciliación.
+     */
+    public static class ResumenConciliacion {
+        private final boolean completa;
+        private final String mensaje;
+        private final Progreso progreso;
+        private final double segundos;
+        private final Path archivoRevision;
+
+        ResumenConciliacion(boolean completa, String mensaje, Progreso progreso, double segundos,
+                            Path archivoRevision) {
+            this.completa = completa;
+            this.mensaje = mensaje;
+            this.progreso = progreso;
+            this.segundos = segundos;
+            this.archivoRevision = archivoRevision;
+        }
+
+        /** true si se procesó todo el archivo (aunque haya pagos en revisión) */
+        public boolean isCompleta() { return completa; }
+        public String getMensaje() { return mensaje; }
+        public Progreso getProgreso() { return progreso; }
+        public double getSegundos() { return segundos; }
+        public Path getArchivoRevision() { return archivoRevision; }
+    }
+
+    /**
+     * Posiciones de los campos (desde 0, fin excluido) en un extracto de
+     * ancho fijo. El monto viene en centavos sin separadores y la fecha
+     * como yyyyMMdd; los campos se recortan.
+     */
+    public static class DisenoFijo {
+        /** Referencia 1-20, fecha 21-28, cédula 29-43 y monto 44-58 */
+        public static final DisenoFijo PREDETERMINADO = new DisenoFijo(0, 20, 20, 28, 28, 43, 43, 58);
+
+        private final int[] posiciones;
+
+        public DisenoFijo(int referenciaDesde, int referenciaHasta, int fechaDesde, int fechaHasta,
+                          int cedulaDesde, int cedulaHasta, int montoDesde, int montoHasta) {
+            // En el orden de OBLIGATORIAS: referencia, cédula, fecha, monto
+            this.posiciones = new int[] {referenciaDesde, referenciaHasta, cedulaDesde, cedulaHasta,
+                    fechaDesde, fechaHasta, montoDesde, montoHasta};
+        }
+
+        String[] dividir(String linea) {
+            String[] campos = new String[OBLIGATORIAS.length];
+            for (int i = 0; i < campos.length; i++) {
+                int desde = Math.min(posiciones[i * 2], linea.length());
+                int hasta = Math.min(posiciones[i * 2 + 1], linea.length());
+                campos[i] = linea.substring(desde, hasta).trim();
+            }
+            return campos;
+        }
+    }
+
+    // ==================== CONCILIACIÓN ====================
+
+    /**
+     * Concilia el extracto del banco. Bloquea hasta terminar; llamar desde
+     * un hilo de fondo.
+     *
+     * @param diseno posiciones si el archivo es de ancho fijo
+     * @param usuario quien concilia (para la auditoría)
+     * @param observador recibe el avance tras cada lote (puede ser null)
+     */
+    public ResumenConciliacion conciliar(Path archivo, DisenoFijo diseno, Usuario usuario,
+                                         Consumer<Progreso> observador) {
+        cancelado = false;
+        long inicio = System.nanoTime();
+        Path revision = rutaTrabajo(archivo, ".revision.csv");
+
+        Indice indice = new Indice();
+        if (!cuotaDAO.recorrerPendientes(indice)) {
+            return fallo("No se pudieron cargar las cuotas pendientes", revision);
+        }
+
+        ExecutorService escritura = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "conciliacion-escritura");
+            t.setDaemon(true);
+            return t;
+        });
+        try (Fuente fuente = abrirFuente(archivo, diseno);
+             Writer salida = abrirRevision(revision)) {
+
+            Escritor escritor = new Escritor(salida, archivo.getFileName().toString(),
+                    usuario != null ? usuario.getIdUsuario() : 0, observador, inicio);
+            Set<String> referencias = new HashSet<>();
+            Future<?> anterior = CompletableFuture.completedFuture(null);
+            Lote lote = new Lote();
+            String[] campos;
+            while (!cancelado && !escritor.hayError() && (campos = fuente.leer()) != null) {
+                procesar(campos, fuente, indice, referencias, lote);
+                if (lote.lineas == TAMANO_LOTE) {
+                    // A lo sumo un lote aplicándose mientras se lee el siguiente
+                    anterior.get();
+                    Lote enviar = lote;
+                    anterior = escritura.submit(() -> escritor.escribir(enviar), null);
+                    lote = new Lote();
+                }
+            }
+            anterior.get();
+            if (lote.lineas > 0 && !cancelado && !escritor.hayError()) {
+                Lote enviar = lote;
+                escritura.submit(() -> escritor.escribir(enviar), null).get();
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            Progreso progreso = escritor.progreso();
+            boolean completa = !cancelado && !escritor.hayError();
+            String mensaje;
+            if (completa) {
+                mensaje = "Conciliación completa: " + progreso;
+            } else if (cancelado) {
+                mensaje = "Conciliación cancelada tras " + progreso.getLineas()
+                        + " líneas; al volver a cargar el archivo se omiten los pagos ya aplicados";
+            } else {
+                mensaje = "Conciliación detenida: " + escritor.error
+                        + ". Al volver a cargar el archivo se omiten los pagos ya aplicados";
+            }
+            return new ResumenConciliacion(completa, mensaje, progreso, segundos, revision);
+
+        } catch (IllegalArgumentException e) {
+            return fallo(e.getMessage(), revision);
+        } catch (IOException e) {
+            System.err.println("Error al leer el extracto: " + e.getMessage());
+            return fallo("Error al leer el archivo: " + e.getMessage(), revision);
+        } catch (ExecutionException e) {
+            System.err.println("Error en la conciliación: " + e.getCause().getMessage());
+            return fallo("Error en la conciliación: " + e.getCause().getMessage(), revision);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallo("Conciliación interrumpida", revision);
+        } finally {
+            escritura.shutdownNow();
+        }
+    }
+
+    /**
+     * Detiene la conciliación en curso tras el lote actual.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    // ==================== ASOCIACIÓN ====================
+
+    /**
+     * Convierte una línea y la asocia a los créditos del cliente; si no se
+     * puede, la deja para revisión.
+     */
+    private void procesar(String[] campos, Fuente fuente, Indice indice, Set<String> referencias, Lote lote) {
+        lote.lineas++;
+        long linea = fuente.linea();
+        PagoBanco pago;
+        try {
+            pago = convertir(campos, linea, fuente.montoEnCentavos());
+        } catch (IllegalArgumentException e) {
+            lote.revision.add(lineaRevision(linea, campos[0], campos[1], campos[2], campos[3], e.getMessage()));
+            return;
+        }
+        if (!referencias.add(pago.getReferencia())) {
+            pago.setMotivoRevision("Referencia repetida en el archivo");
+        } else {
+            asociar(pago, indice);
+        }
+        if (pago.isEnRevision()) {
+            lote.revision.add(lineaRevision(pago, pago.getMotivoRevision()));
+        } else {
+            lote.pagos.add(pago);
+        }
+    }
+
+    /**
+     * Elige los créditos del pago. Si el monto es exactamente la cuota más
+     * antigua o el saldo de un crédito, va a ese crédito; si no, a todos los
+     * créditos del cliente empezando por la cuota más antigua. La deuda del
+     * índice se descuenta para que los pagos siguientes del mismo cliente
+     * se comparen con lo que queda.
+     */
+    private void asociar(PagoBanco pago, Indice indice) {
+        long monto = pago.getMontoCentavos();
+        Deuda deuda = indice.porCedula.get(normalizarCedula(pago.getCedula()));
+        if (deuda == null) {
+            String sugerida = indice.cedulaPorCuota.get(monto);
+            pago.setMotivoRevision(sugerida == null || sugerida.isEmpty()
+                    ? "Cédula sin cuotas pendientes"
+                    : "Cédula sin cuotas pendientes; el monto coincide con una cuota del cliente " + sugerida);
+            return;
+        }
+        if (monto > deuda.total) {
+            pago.setMotivoRevision("Monto mayor a la deuda pendiente del cliente ($"
+                    + texto(deuda.total) + ")");
+            return;
+        }
+
+        pago.setIdCliente(deuda.idCliente);
+        CreditoPendiente elegido = null;
+        for (CreditoPendiente credito : deuda.creditos) {
+            if (credito.cuotaMasAntigua == monto) {
+                elegido = credito;
+                break;
+            }
+        }
+        if (elegido == null) {
+            for (CreditoPendiente credito : deuda.creditos) {
+                if (credito.saldo == monto) {
+                    elegido = credito;
+                    break;
+                }
+            }
+        }
+
+        if (elegido != null) {
+            pago.setIdsCredito(List.of(elegido.idCredito));
+            elegido.descontar(monto);
+        } else {
+            List<Integer> ids = new ArrayList<>(deuda.creditos.size());
+            long restante = monto;
+            for (CreditoPendiente credito : deuda.creditos) {
+                if (restante == 0) {
+                    break;
+                }
+                if (credito.saldo > 0) {
+                    ids.add(credito.idCredito);
+                    long descuento = Math.min(credito.saldo, restante);
+                    credito.descontar(descuento);
+                    restante -= descuento;
+                }
+            }
+            pago.setIdsCredito(ids);
+        }
+        deuda.total -= monto;
+    }
+
+    private static PagoBanco convertir(String[] campos, long linea, boolean montoEnCentavos) {
+        String referencia = campos[0];
+        if (referencia.isEmpty()) {
+            throw new IllegalArgumentException("Falta la referencia");
+        }
+        if (referencia.length() > LARGO_REFERENCIA) {
+            throw new IllegalArgumentException("Referencia excede " + LARGO_REFERENCIA + " caracteres");
+        }
+        String cedula = campos[1];
+        if (normalizarCedula(cedula).isEmpty()) {
+            throw new IllegalArgumentException("Falta la cédula");
+        }
+        LocalDate fecha = fecha(campos[2]);
+        if (fecha.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Fecha posterior a hoy");
+        }
+        long monto = monto(campos[3], montoEnCentavos);
+        if (monto <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor a 0");
+        }
+        return new PagoBanco(linea, referencia, cedula,
+                Date.from(fecha.atStartOfDay(ZoneId.systemDefault()).toInstant()), monto);
+    }
+
+    private static LocalDate fecha(String valor) {
+        if (valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta la fecha");
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(valor, formato);
+            } catch (DateTimeParseException e) {
+                // probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha no válida: " + valor);
+    }
+
+    private static long monto(String valor, boolean enCentavos) {
+        if (valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta el monto");
+        }
+        try {
+            return enCentavos
+                    ? Long.parseLong(valor)
+                    : Dinero.aCentavos(ImportacionCatalogoService.interpretarPrecio(valor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Monto no válido: " + valor);
+        }
+    }
+
+    /**
+     * Solo letras y dígitos, en mayúsculas y sin ceros a la izquierda: el
+     * banco suele rellenar con ceros o escribir la cédula con puntos.
+     */
+    private static String normalizarCedula(String cedula) {
+        StringBuilder limpia = new StringBuilder(cedula.length());
+        for (int i = 0; i < cedula.length(); i++) {
+            char c = Character.toUpperCase(cedula.charAt(i));
+            if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')) {
+                if (c != '0' || limpia.length() > 0) {
+                    limpia.append(c);
+                }
+            }
+        }
+        return limpia.toString();
+    }
+
+    // ==================== ÍNDICES ====================
+
+    /** Deuda de un cliente según sus cuotas pendientes */
+    private static final class Deuda {
+        final int idCliente;
+        final String cedula;
+        long total;
+        /** En el orden de su cuota más antigua */
+        final List<CreditoPendiente> creditos = new ArrayList<>(2);
+
+        Deuda(int idCliente, String cedula) {
+            this.idCliente = idCliente;
+            this.cedula = cedula;
+        }
+    }
+
+    private static final class CreditoPendiente {
+        final int idCredito;
+        long saldo;
+        /** Saldo de la cuota más antigua; -1 si ya recibió un pago en este archivo */
+        long cuotaMasAntigua;
+
+        CreditoPendiente(int idCredito, long cuota) {
+            this.idCredito = idCredito;
+            this.saldo = cuota;
+            this.cuotaMasAntigua = cuota;
+        }
+
+        void descontar(long monto) {
+            saldo -= monto;
+            cuotaMasAntigua = -1;
+        }
+    }
+
+    /**
+     * Se llena con las cuotas pendientes de la más antigua a la más
+     * reciente, así la primera cuota vista de cada crédito es la más antigua.
+     */
+    private static final class Indice implements CuotaDAO.ConsumidorPendientes {
+        final Map<String, Deuda> porCedula = new HashMap<>();
+        /** Cédula del cliente cuya cuota más antigua vale ese monto; "" si son varios */
+        final Map<Long, String> cedulaPorCuota = new HashMap<>();
+        private final Map<Integer, CreditoPendiente> creditos = new HashMap<>();
+
+        @Override
+        public void aceptar(String cedula, int idCliente, int idCredito, long saldoCentavos) {
+            if (saldoCentavos <= 0) {
+                return;
+            }
+            Deuda deuda = porCedula.computeIfAbsent(normalizarCedula(cedula), k -> new Deuda(idCliente, cedula));
+            deuda.total += saldoCentavos;
+            CreditoPendiente credito = creditos.get(idCredito);
+            if (credito == null) {
+                credito = new CreditoPendiente(idCredito, saldoCentavos);
+                creditos.put(idCredito, credito);
+                deuda.creditos.add(credito);
+                cedulaPorCuota.merge(saldoCentavos, deuda.cedula, (a, b) -> a.equals(b) ? a : "");
+            } else {
+                credito.saldo += saldoCentavos;
+            }
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+
+    private static final class Lote {
+        final List<PagoBanco> pagos = new ArrayList<>();
+        final List<String> revision = new ArrayList<>();
+        int lineas;
+    }
+
+    /**
+     * Aplica los lotes en orden y escribe la cola de revisión. Solo lo usa
+     * el hilo de escritura; el lector ve sus contadores tras esperar el lote.
+     */
+    private final class Escritor {
+        private final Writer salida;
+        private final String archivo;
+        private final int idUsuario;
+        private final Consumer<Progreso> observador;
+        private final long inicio;
+
+        private long lineas;
+        private int aplicados;
+        private int omitidos;
+        private int enRevision;
+        private long aplicadoCentavos;
+        private volatile String error;
+
+        Escritor(Writer salida, String archivo, int idUsuario, Consumer<Progreso> observador, long inicio) {
+            this.salida = salida;
+            this.archivo = archivo;
+            this.idUsuario = idUsuario;
+            this.observador = observador;
+            this.inicio = inicio;
+        }
+
+        boolean hayError() {
+            return error != null;
+        }
+
+        void escribir(Lote lote) {
+            if (!pagoBancoDAO.aplicarLote(lote.pagos, idUsuario, archivo)) {
+                error = "no se pudo aplicar un lote de pagos en la base de datos";
+                return;
+            }
+            List<String> revision = lote.revision;
+            for (PagoBanco pago : lote.pagos) {
+                if (pago.isYaRegistrado()) {
+                    omitidos++;
+                    continue;
+                }
+                AplicacionPago aplicacion = pago.getAplicacion();
+                aplicados++;
+                aplicadoCentavos += aplicacion.getAplicadoCentavos();
+                if (aplicacion.getSobranteCentavos() > 0) {
+                    // Otro pago (en caja o en este archivo) dejó la deuda menor que el monto
+                    revision.add(lineaRevision(pago, "Aplicado en parte; sobran $"
+                            + texto(aplicacion.getSobranteCentavos())));
+                }
+            }
+            try {
+                for (String linea : revision) {
+                    salida.write(linea);
+                }
+                salida.flush();
+            } catch (IOException e) {
+                // Los pagos del lote ya quedaron aplicados
+                System.err.println("Error al escribir la cola de revisión: " + e.getMessage());
+                error = "no se pudo escribir la cola de revisión (" + e.getMessage() + ")";
+            }
+            enRevision += revision.size();
+            lineas += lote.lineas;
+
+            if (observador != null) {
+                observador.accept(progreso());
+            }
+        }
+
+        Progreso progreso() {
+            double segundos = Math.max((System.nanoTime() - inicio) / 1e9, 1e-3);
+            return new Progreso(lineas, aplicados, omitidos, enRevision, aplicadoCentavos, lineas / segundos);
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Entrega las líneas del extracto con los campos en el orden de
+     * OBLIGATORIAS.
+     */
+    private interface Fuente extends Closeable {
+        /** @return los campos, o null al final del archivo */
+        String[] leer() throws IOException;
+
+        /** Línea del archivo de la última fila leída */
+        long linea();
+
+        boolean montoEnCentavos();
+    }
+
+    private static Fuente abrirFuente(Path archivo, DisenoFijo diseno) throws IOException {
+        String nombre = archivo.getFileName().toString();
+        String extension = nombre.substring(nombre.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        Reader origen = new InputStreamReader(Files.newInputStream(archivo), StandardCharsets.UTF_8);
+        try {
+            return EXTENSIONES_DELIMITADAS.contains(extension)
+                    ? new FuenteDelimitada(origen)
+                    : new FuenteFija(origen, diseno != null ? diseno : DisenoFijo.PREDETERMINADO);
+        } catch (IOException | IllegalArgumentException e) {
+            origen.close();
+            throw e;
+        }
+    }
+
+    private static final class FuenteDelimitada implements Fuente {
+        private final LectorDelimitado lector;
+        private final int[] indices = new int[OBLIGATORIAS.length];
+
+        FuenteDelimitada(Reader origen) throws IOException {
+            lector = new LectorDelimitado(origen);
+            String[] encabezado = lector.leerEncabezado();
+            if (encabezado == null) {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+            Map<String, Integer> columnas = mapearColumnas(encabezado);
+            for (int i = 0; i < OBLIGATORIAS.length; i++) {
+                Integer indice = columnas.get(OBLIGATORIAS[i]);
+                if (indice == null) {
+                    throw new IllegalArgumentException("Falta la columna obligatoria: " + OBLIGATORIAS[i]);
+                }
+                indices[i] = indice;
+            }
+        }
+
+        @Override
+        public String[] leer() throws IOException {
+            String[] fila = lector.leerFila();
+            if (fila == null) {
+                return null;
+            }
+            String[] campos = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                campos[i] = indices[i] < fila.length ? fila[indices[i]].trim() : "";
+            }
+            return campos;
+        }
+
+        @Override
+        public long linea() {
+            return lector.getLineaActual();
+        }
+
+        @Override
+        public boolean montoEnCentavos() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+    }
+
+    private static final class FuenteFija implements Fuente {
+        private final BufferedReader lector;
+        private final DisenoFijo diseno;
+        private long linea;
+
+        FuenteFija(Reader origen, DisenoFijo diseno) {
+            this.lector = new BufferedReader(origen, 1 << 16);
+            this.diseno = diseno;
+        }
+
+        @Override
+        public String[] leer() throws IOException {
+            String texto;
+            do {
+                texto = lector.readLine();
+                if (texto == null) {
+                    return null;
+                }
+                linea++;
+            } while (texto.isBlank());
+            return diseno.dividir(texto);
+        }
+
+        @Override
+        public long linea() {
+            return linea;
+        }
+
+        @Override
+        public boolean montoEnCentavos() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private static Path rutaTrabajo(Path archivo, String sufijo) {
+        return Paths.get(Constantes.RUTA_IMPORTACIONES).resolve(archivo.getFileName() + sufijo);
+    }
+
+    private static Writer abrirRevision(Path revision) throws IOException {
+        Files.createDirectories(revision.getParent());
+        BufferedWriter salida = Files.newBufferedWriter(revision, StandardCharsets.UTF_8);
+        salida.write("linea;referencia;cedula;fecha;monto;motivo\n");
+        return salida;
+    }
+
+    /**
+     * Normaliza los nombres de columna: minúsculas, sin tildes ni separadores.
+     */
+    private static Map<String, Integer> mapearColumnas(String[] encabezado) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.length; i++) {
+            String nombre = Normalizer.normalize(encabezado[i], Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .replaceAll("[^A-Za-z0-9]", "")
+                    .toLowerCase(Locale.ROOT);
+            columnas.putIfAbsent(ALIAS.getOrDefault(nombre, nombre), i);
+        }
+        return columnas;
+    }
+
+    private static String lineaRevision(PagoBanco pago, String motivo) {
+        return lineaRevision(pago.getLinea(), pago.getReferencia(), pago.getCedula(),
+                pago.getFechaPago().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString(),
+                texto(pago.getMontoCentavos()), motivo);
+    }
+
+    private static String lineaRevision(long linea, String referencia, String cedula, String fecha,
+                                        String monto, String motivo) {
+        return linea + ";" + limpiar(referencia) + ";" + limpiar(cedula) + ";" + limpiar(fecha) + ";"
+                + limpiar(monto) + ";" + limpiar(motivo) + "\n";
+    }
+
+    private static String limpiar(String valor) {
+        return valor.replace(";", ",");
+    }
+
+    private static String texto(long centavos) {
+        return String.format(Locale.ROOT, "%.2f", Dinero.aDouble(centavos));
+    }
+
+    private static ResumenConciliacion fallo(String mensaje, Path revision) {
+        return new ResumenConciliacion(false, mensaje, new Progreso(0, 0, 0, 0, 0, 0), 0, revision);
+    }
+}
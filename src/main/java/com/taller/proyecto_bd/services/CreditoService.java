@@ -2,6 +2,7 @@ package com.taller.proyecto_bd.services;
 
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.utils.EventosJFR;
 
 import java.util.Date;
 import java.util.List;
@@ -34,66 +35,59 @@ public class CreditoService {
     // ==================== PROCESOS PRINCIPALES ====================
 
     /**
-     * Registrar el pago de una cuota específica.
+     * Registrar el pago de una cuota.
+     *
+     * Los pagos se aplican siempre a la cuota pendiente más antigua del
+     * crédito, así que esto paga el saldo de la cuota indicada sobre su
+     * crédito con aplicarPago.
      *
      * @param idCuota ID de la cuota a pagar
      * @param usuario Usuario que registra el pago
      * @return true si el pago fue exitoso
      */
     public boolean pagarCuota(int idCuota, Usuario usuario) {
-        Cuota cuota = cuotaDAO.obtenerPorId(idCuota);
-        if (cuota == null || cuota.isPagada()) {
-            return false;
-        }
-
-        // Obtener el crédito asociado
-        Credito credito = creditoDAO.obtenerPorId(cuota.getIdCredito());
-        if (credito == null) {
-            return false;
-        }
-
-        // Obtener la venta asociada
-        Venta venta = ventaDAO.obtenerPorId(credito.getIdVenta());
-        if (venta == null || !venta.isEsCredito()) {
-            return false;
-        }
-
-        // Marcar cuota como pagada
-        boolean pagoExitoso = cuotaDAO.registrarPago(idCuota, new Date());
-
-        if (pagoExitoso) {
-            // Verificar si todas las cuotas están pagadas
-            boolean todasPagadas = cuotaDAO.obtenerPendientesPorCredito(credito.getIdCredito()).isEmpty();
-
-            if (todasPagadas) {
-                // Marcar la venta como PAGADA
-                venta.setEstado(ESTADO_PAGADA);
-                ventaDAO.actualizar(venta);
-
-                // Actualizar saldo del cliente
-                Cliente cliente = clienteDAO.obtenerPorId(venta.getIdCliente());
-                if (cliente != null) {
-                    double montoFinanciado = venta.getMontoFinanciado();
-                    double nuevoSaldo = cliente.getSaldoPendiente() - montoFinanciado;
-                    cliente.setSaldoPendiente(Math.max(nuevoSaldo, 0));
-                    clienteDAO.actualizar(cliente);
-                }
+        EventosJFR.PagoCuotaEvento evento = new EventosJFR.PagoCuotaEvento();
+        evento.begin();
+        boolean exitoso = false;
+        try {
+            Cuota cuota = cuotaDAO.obtenerPorId(idCuota);
+            if (cuota == null || cuota.isPagada()) {
+                return false;
+            }
+            evento.numeroCuota = cuota.getNumeroCuota();
+            evento.valorCentavos = cuota.getSaldoCentavos();
+
+            AplicacionPago aplicacion = aplicarPago(List.of(cuota.getIdCredito()), cuota.getSaldoCentavos(),
+                    new Date(), usuario);
+            exitoso = aplicacion != null && !aplicacion.getAbonos().isEmpty();
+            return exitoso;
+        } finally {
+            if (evento.shouldCommit()) {
+                evento.idCuota = idCuota;
+                evento.exitoso = exitoso;
+                evento.commit();
             }
-
-            // Registrar auditoría
-            auditoriaDAO.agregar(new Auditoria(
-                usuario.getIdUsuario(),
-                "PAGO_CUOTA",
-                "Cuota",
-                String.format("Pago de cuota #%d de venta %s por $%.2f",
-                    cuota.getNumeroCuota(), venta.getCodigo(), cuota.getValor()),
-                "127.0.0.1"
-            ));
-
-            return true;
         }
+    }
 
-        return false;
+    /**
+     * Reparte un pago entre las cuotas pendientes más antiguas de uno o
+     * varios créditos, con abonos parciales, en una sola transacción
+     * (ver CuotaDAO.aplicarPago).
+     *
+     * @param idsCredito créditos a los que se aplica el pago
+     * @param montoCentavos monto recibido
+     * @return el reparto, o null si no se pudo guardar
+     */
+    public AplicacionPago aplicarPago(List<Integer> idsCredito, long montoCentavos, Date fechaPago, Usuario usuario) {
+        AplicacionPago aplicacion = cuotaDAO.aplicarPago(idsCredito, montoCentavos, fechaPago,
+                usuario != null ? usuario.getIdUsuario() : 0);
+        if (aplicacion != null && !aplicacion.getAbonos().isEmpty()) {
+            System.out.printf("✓ Pago aplicado: %d cuotas, %d saldadas, %d créditos cancelados%n",
+                    aplicacion.getAbonos().size(), aplicacion.getCuotasSaldadas(),
+                    aplicacion.getCreditosCancelados().size());
+        }
+        return aplicacion;
     }
 
     /**
@@ -114,13 +108,7 @@ public class CreditoService {
         ventaDAO.actualizar(venta);
 
         // Actualizar saldo del cliente (restar el monto financiado)
-        Cliente cliente = clienteDAO.obtenerPorId(venta.getIdCliente());
-        if (cliente != null) {
-            double montoFinanciado = venta.getMontoFinanciado();
-            double nuevoSaldo = cliente.getSaldoPendiente() - montoFinanciado;
-            cliente.setSaldoPendiente(Math.max(nuevoSaldo, 0));
-            clienteDAO.actualizar(cliente);
-        }
+        clienteDAO.ajustarSaldo(venta.getIdCliente(), -venta.getMontoFinanciadoCentavos());
 
         // Registrar auditoría
         auditoriaDAO.agregar(new Auditoria(
@@ -0,0 +1,803 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CategoriaDAO;
+import com.taller.proyecto_bd.dao.ProductoDAO;
+import com.taller.proyecto_bd.dao.ProductoDAO.ResultadoFusion;
+import com.taller.proyecto_bd.models.Categoria;
+import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.utils.Constantes;
+import com.taller.proyecto_bd.utils.LectorDelimitado;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Importación masiva de catálogos de proveedores (CSV o TSV).
+ *
+ * El archivo se procesa en tres etapas que trabajan a la vez:
+ * lectura secuencial en lotes, validación de los lotes en un grupo acotado
+ * de hilos, y escritura en orden con {@link ProductoDAO#fusionarLote}.
+ * La cola entre etapas es limitada, así que la memoria usada no depende del
+ * tamaño del archivo.
+ *
+ * Las filas inválidas van a un archivo de rechazos con la línea y el motivo.
+ * Tras cada lote confirmado se guarda un punto de control; si la
+ * importación se interrumpe, al repetirla con el mismo archivo continúa
+ * desde el último lote confirmado.
+ *
+ * Columnas (el orden no importa, sin distinguir mayúsculas ni tildes):
+ * codigo, nombre, categoria (código de la categoría), precioCompra y
+ * precioVenta son obligatorias; descripcion, marca, modelo, stock,
+ * stockMinimo, stockMaximo, unidadMedida, garantiaMeses y ubicacion son
+ * opcionales. Sin columna de stock se conserva el stock de los productos
+ * existentes.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ImportacionCatalogoService {
+    private static ImportacionCatalogoService instance;
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final int TAMANO_LOTE = 1000;
+    private static final int HILOS_VALIDACION = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int LOTES_EN_COLA = HILOS_VALIDACION * 2;
+
+    private static final double PRECIO_MAXIMO = 9_999_999_999.99; // DECIMAL(12,2)
+    private static final double FACTOR_MARGEN_MAXIMO = 10.0;      // venta hasta 10 veces la compra
+    private static final int GARANTIA_MAXIMA_MESES = 120;
+
+    private static final String[] OBLIGATORIAS = {"codigo", "nombre", "categoria", "preciocompra", "precioventa"};
+    private static final Map<String, String> ALIAS = Map.of(
+            "stockactual", "stock",
+            "ubicacionalmacen", "ubicacion",
+            "codigocategoria", "categoria",
+            "garantia", "garantiameses");
+
+    private static final LoteValidado FIN = new LoteValidado(0, 0);
+
+    private static final Pattern DIGITOS = Pattern.compile("\\d+");
+    /** Primer grupo de un número con miles: 1 a 3 dígitos sin cero a la izquierda */
+    private static final Pattern GRUPO_INICIAL = Pattern.compile("[1-9]\\d{0,2}");
+    /** Entero solo con dígitos o con miles bien agrupados ("1.500", "12,000") */
+    private static final Pattern ENTERO = Pattern.compile("\\d+|[1-9]\\d{0,2}([.,])\\d{3}(\\1\\d{3})*");
+
+    // ==================== DEPENDENCIAS ====================
+    private final ProductoDAO productoDAO = ProductoDAO.getInstance();
+    private final CategoriaDAO categoriaDAO = CategoriaDAO.getInstance();
+
+    private volatile boolean cancelado;
+
+    private ImportacionCatalogoService() {
+    }
+
+    public static synchronized ImportacionCatalogoService getInstance() {
+        if (instance == null) {
+            instance = new ImportacionCatalogoService();
+        }
+        return instance;
+    }
+
+    // ==================== RESULTADOS ====================
+
+    /**
+     * Avance de la importación, notificado tras cada lote escrito.
+     */
+    public static class Progreso {
+        private final long filasProcesadas;
+        private final int insertados;
+        private final int actualizados;
+        private final int rechazados;
+        private final double filasPorSegundo;
+
+        Progreso(long filasProcesadas, int insertados, int actualizados, int rechazados, double filasPorSegundo) {
+            this.filasProcesadas = filasProcesadas;
+            this.insertados = insertados;
+            this.actualizados = actualizados;
+            this.rechazados = rechazados;
+            this.filasPorSegundo = filasPorSegundo;
+        }
+
+        public long getFilasProcesadas() { return filasProcesadas; }
+        public int getInsertados() { return insertados; }
+        public int getActualizados() { return actualizados; }
+        public int getRechazados() { return rechazados; }
+        public double getFilasPorSegundo() { return filasPorSegundo; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d filas (%,d nuevas, %,d actualizadas, %,d rechazadas) - %,.0f filas/s",
+                    filasProcesadas, insertados, actualizados, rechazados, filasPorSegundo);
+        }
+    }
+
+    /**
+     * Resumen final de una importación.
+     */
+    public static class ResumenImportacion {
+        private final boolean completa;
+        private final String mensaje;
+        private final Progreso progreso;
+        private final long filasReanudadas;
+        private final double segundos;
+        private final Path archivoRechazos;
+
+        ResumenImportacion(boolean completa, String mensaje, Progreso progreso, long filasReanudadas,
+                           double segundos, Path archivoRechazos) {
+            this.completa = completa;
+            this.mensaje = mensaje;
+            this.progreso = progreso;
+            this.filasReanudadas = filasReanudadas;
+            this.segundos = segundos;
+            this.archivoRechazos = archivoRechazos;
+        }
+
+        /** true si se procesó todo el archivo (aunque haya filas rechazadas) */
+        public boolean isCompleta() { return completa; }
+        public String getMensaje() { return mensaje; }
+        public Progreso getProgreso() { return progreso; }
+        /** Filas omitidas al inicio por estar ya confirmadas en un intento anterior */
+        public long getFilasReanudadas() { return filasReanudadas; }
+        public double getSegundos() { return segundos; }
+        public Path getArchivoRechazos() { return archivoRechazos; }
+    }
+
+    // ==================== IMPORTACIÓN ====================
+
+    /**
+     * Importa el archivo, continuando desde su punto de control si existe.
+     * Bloquea hasta terminar; llamar desde un hilo de fondo.
+     *
+     * @param observador recibe el avance tras cada lote (puede ser null)
+     */
+    public ResumenImportacion importar(Path archivo, Consumer<Progreso> observador) {
+        cancelado = false;
+        long inicio = System.nanoTime();
+        Path rechazos = rutaTrabajo(archivo, ".rechazos.csv");
+
+        Map<String, Categoria> categorias = new HashMap<>();
+        for (Categoria c : categoriaDAO.obtenerTodas()) {
+            categorias.put(c.getCodigo().trim().toUpperCase(Locale.ROOT), c);
+        }
+        if (categorias.isEmpty()) {
+            return fallo("No se pudieron cargar las categorías", rechazos);
+        }
+
+        PuntoControl punto = PuntoControl.cargar(archivo, rutaTrabajo(archivo, ".punto"));
+
+        ExecutorService validadores = Executors.newFixedThreadPool(HILOS_VALIDACION, r -> {
+            Thread t = new Thread(r, "importacion-validacion");
+            t.setDaemon(true);
+            return t;
+        });
+        try (Reader origen = abrir(archivo);
+             LectorDelimitado lector = new LectorDelimitado(origen)) {
+
+            String[] encabezado = lector.leerEncabezado();
+            if (encabezado == null) {
+                return fallo("El archivo está vacío", rechazos);
+            }
+            Map<String, Integer> columnas = mapearColumnas(encabezado);
+            for (String obligatoria : OBLIGATORIAS) {
+                if (!columnas.containsKey(obligatoria)) {
+                    return fallo("Falta la columna obligatoria: " + obligatoria, rechazos);
+                }
+            }
+
+            Validador validador = new Validador(columnas, categorias);
+            Escritor escritor = new Escritor(validador, punto, rechazos, columnas.containsKey("stock"), observador, inicio);
+            CompletableFuture<Void> escritura = CompletableFuture.runAsync(escritor, r -> {
+                Thread t = new Thread(r, "importacion-escritura");
+                t.setDaemon(true);
+                t.start();
+            });
+
+            // Filas ya confirmadas en un intento anterior: solo registrar sus códigos
+            long reanudadas = 0;
+            try {
+                String[] fila;
+                while (reanudadas < punto.filasConfirmadas && (fila = lector.leerFila()) != null) {
+                    validador.registrarSiValida(fila, lector.getLineaActual());
+                    reanudadas++;
+                }
+
+                List<FilaLeida> lote = new ArrayList<>(TAMANO_LOTE);
+                while (!cancelado && !escritor.hayError() && (fila = lector.leerFila()) != null) {
+                    lote.add(new FilaLeida(lector.getLineaActual(), fila));
+                    if (lote.size() == TAMANO_LOTE) {
+                        List<FilaLeida> enviar = lote;
+                        escritor.cola.put(validadores.submit(() -> validador.validar(enviar)));
+                        lote = new ArrayList<>(TAMANO_LOTE);
+                    }
+                }
+                if (!lote.isEmpty() && !cancelado && !escritor.hayError()) {
+                    List<FilaLeida> enviar = lote;
+                    escritor.cola.put(validadores.submit(() -> validador.validar(enviar)));
+                }
+            } finally {
+                // Aun si la lectura falla, el escritor debe recibir FIN para terminar
+                escritor.terminar();
+                escritura.join();
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            Progreso progreso = escritor.progreso();
+            boolean completa = !cancelado && !escritor.hayError();
+            String mensaje;
+            if (completa) {
+                punto.eliminar();
+                mensaje = "Importación completa: " + progreso;
+            } else if (cancelado) {
+                mensaje = "Importación cancelada; puede continuarse desde la fila " + (punto.filasConfirmadas + 1);
+            } else {
+                mensaje = "Importación detenida: " + escritor.error
+                        + ". Puede continuarse desde la fila " + (punto.filasConfirmadas + 1);
+            }
+            return new ResumenImportacion(completa, mensaje, progreso, reanudadas, segundos, rechazos);
+
+        } catch (IOException e) {
+            System.err.println("Error al leer el catálogo: " + e.getMessage());
+            return fallo("Error al leer el archivo: " + e.getMessage(), rechazos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallo("Importación interrumpida", rechazos);
+        } finally {
+            validadores.shutdownNow();
+        }
+    }
+
+    /**
+     * Detiene la importación en curso tras el lote actual (queda reanudable).
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * Indica si hay una importación previa de este archivo sin terminar.
+     */
+    public boolean tienePuntoControl(Path archivo) {
+        return PuntoControl.cargar(archivo, rutaTrabajo(archivo, ".punto")).filasConfirmadas > 0;
+    }
+
+    /**
+     * Olvida el avance previo para importar el archivo desde el principio.
+     */
+    public void descartarPuntoControl(Path archivo) {
+        PuntoControl.cargar(archivo, rutaTrabajo(archivo, ".punto")).eliminar();
+        try {
+            Files.deleteIfExists(rutaTrabajo(archivo, ".rechazos.csv"));
+        } catch (IOException e) {
+            System.err.println("Error al eliminar archivo de rechazos: " + e.getMessage());
+        }
+    }
+
+    // ==================== VALIDACIÓN ====================
+
+    private static final class FilaLeida {
+        final long linea;
+        final String[] campos;
+
+        FilaLeida(long linea, String[] campos) {
+            this.linea = linea;
+            this.campos = campos;
+        }
+    }
+
+    private static final class LoteValidado {
+        final List<Producto> validos = new ArrayList<>();
+        final List<Long> lineasValidas = new ArrayList<>();
+        final List<String> rechazos = new ArrayList<>();
+        final int filas;
+        final int rechazadas;
+
+        LoteValidado(int filas, int rechazadas) {
+            this.filas = filas;
+            this.rechazadas = rechazadas;
+        }
+    }
+
+    /**
+     * Valida filas de forma independiente (se usa desde varios hilos).
+     */
+    private static final class Validador {
+        private final Map<String, Integer> columnas;
+        private final Map<String, Categoria> categorias;
+        /** Primera línea en la que aparece cada código: las repeticiones se rechazan */
+        private final Map<String, Long> primeraLinea = new ConcurrentHashMap<>();
+
+        Validador(Map<String, Integer> columnas, Map<String, Categoria> categorias) {
+            this.columnas = columnas;
+            this.categorias = categorias;
+        }
+
+        /**
+         * Para filas ya importadas en un intento anterior.
+         */
+        void registrarSiValida(String[] campos, long linea) {
+            try {
+                registrar(convertir(campos), linea);
+            } catch (IllegalArgumentException e) {
+                // fue rechazada en su momento
+            }
+        }
+
+        private void registrar(Producto p, long linea) {
+            primeraLinea.merge(p.getCodigo(), linea, Math::min);
+        }
+
+        boolean esPrimeraAparicion(Producto p, long linea) {
+            return primeraLinea.get(p.getCodigo()) == linea;
+        }
+
+        LoteValidado validar(List<FilaLeida> filas) {
+            List<Producto> validos = new ArrayList<>(filas.size());
+            List<Long> lineas = new ArrayList<>(filas.size());
+            List<String> rechazos = new ArrayList<>();
+            for (FilaLeida fila : filas) {
+                try {
+                    Producto p = convertir(fila.campos);
+                    registrar(p, fila.linea);
+                    validos.add(p);
+                    lineas.add(fila.linea);
+                } catch (IllegalArgumentException e) {
+                    rechazos.add(lineaRechazo(fila.linea, campo(fila.campos, "codigo"), e.getMessage()));
+                }
+            }
+            LoteValidado lote = new LoteValidado(filas.size(), rechazos.size());
+            lote.validos.addAll(validos);
+            lote.lineasValidas.addAll(lineas);
+            lote.rechazos.addAll(rechazos);
+            return lote;
+        }
+
+        private Producto convertir(String[] campos) {
+            Producto p = new Producto();
+            p.setCodigo(texto(campos, "codigo", 50, true));
+            p.setNombre(texto(campos, "nombre", 150, true));
+            p.setDescripcion(texto(campos, "descripcion", 500, false));
+            p.setMarca(texto(campos, "marca", 80, false));
+            p.setModelo(texto(campos, "modelo", 80, false));
+            p.setUnidadMedida(texto(campos, "unidadmedida", 20, false));
+            p.setUbicacionAlmacen(texto(campos, "ubicacion", 120, false));
+
+            String codigoCategoria = texto(campos, "categoria", 20, true).toUpperCase(Locale.ROOT);
+            Categoria categoria = categorias.get(codigoCategoria);
+            if (categoria == null) {
+                throw new IllegalArgumentException("Categoría no existe: " + codigoCategoria);
+            }
+            if (!categoria.isActivo()) {
+                throw new IllegalArgumentException("Categoría inactiva: " + codigoCategoria);
+            }
+            p.setIdCategoria(categoria.getIdCategoria());
+
+            double compra = precio(campos, "preciocompra");
+            double venta = precio(campos, "precioventa");
+            if (venta <= 0) {
+                throw new IllegalArgumentException("Precio de venta debe ser mayor a 0");
+            }
+            if (venta < compra) {
+                throw new IllegalArgumentException("Precio de venta menor al de compra");
+            }
+            if (compra > 0 && venta > compra * FACTOR_MARGEN_MAXIMO) {
+                throw new IllegalArgumentException("Precio de venta sospechoso (más de "
+                        + (int) FACTOR_MARGEN_MAXIMO + " veces el de compra)");
+            }
+            p.setPrecioCompra(compra);
+            p.setPrecioVenta(venta);
+
+            int minimo = entero(campos, "stockminimo", 0);
+            int maximo = entero(campos, "stockmaximo", Math.max(100, minimo));
+            if (maximo < minimo) {
+                throw new IllegalArgumentException("Stock máximo menor al mínimo");
+            }
+            p.setStockActual(entero(campos, "stock", 0));
+            p.setStockMinimo(minimo);
+            p.setStockMaximo(maximo);
+
+            int garantia = entero(campos, "garantiameses", 12);
+            if (garantia > GARANTIA_MAXIMA_MESES) {
+                throw new IllegalArgumentException("Garantía fuera de rango: " + garantia);
+            }
+            p.setGarantiaMeses(garantia);
+            return p;
+        }
+
+        private String campo(String[] campos, String columna) {
+            Integer indice = columnas.get(columna);
+            return indice != null && indice < campos.length ? campos[indice] : "";
+        }
+
+        private String texto(String[] campos, String columna, int largoMaximo, boolean obligatorio) {
+            String valor = campo(campos, columna);
+            if (obligatorio && valor.isEmpty()) {
+                throw new IllegalArgumentException("Falta " + columna);
+            }
+            if (valor.length() > largoMaximo) {
+                throw new IllegalArgumentException(columna + " excede " + largoMaximo + " caracteres");
+            }
+            return valor;
+        }
+
+        private int entero(String[] campos, String columna, int porDefecto) {
+            String valor = campo(campos, columna);
+            if (valor.isEmpty()) {
+                return porDefecto;
+            }
+            if (valor.startsWith("-")) {
+                throw new IllegalArgumentException(columna + " no puede ser negativo");
+            }
+            // Solo dígitos, o miles bien agrupados ("1.500"); "1.5" no es un entero
+            if (!ENTERO.matcher(valor).matches()) {
+                throw new IllegalArgumentException(columna + " no es un número entero: " + valor);
+            }
+            try {
+                return Integer.parseInt(valor.replace(".", "").replace(",", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(columna + " fuera de rango: " + valor);
+            }
+        }
+
+        private double precio(String[] campos, String columna) {
+            String valor = campo(campos, columna);
+            if (valor.isEmpty()) {
+                throw new IllegalArgumentException("Falta " + columna);
+            }
+            double numero;
+            try {
+                numero = interpretarPrecio(valor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(columna + " no es un precio válido: " + valor);
+            }
+            if (numero < 0 || numero > PRECIO_MAXIMO || Double.isNaN(numero)) {
+                throw new IllegalArgumentException(columna + " fuera de rango: " + valor);
+            }
+            return numero;
+        }
+    }
+
+    /**
+     * Acepta "1234.56", "1234,56", "1.234.567,89", "1,234,567.89" y "$ 1.500".
+     * Con ambos separadores el último es el decimal; con uno solo, se toma
+     * como separador de miles si lo siguen exactamente tres dígitos y antes
+     * hay un grupo válido ("1.500", no "0.125"). Los separadores de miles
+     * deben agrupar de a tres y no se aceptan más de dos decimales.
+     *
+     * @throws NumberFormatException si el valor es ambiguo o tiene fracciones de centavo
+     */
+    static double interpretarPrecio(String valor) {
+        String limpio = valor.replace("$", "").replace(" ", "").replace(" ", "");
+        boolean negativo = limpio.startsWith("-");
+        if (negativo) {
+            limpio = limpio.substring(1);
+        }
+        int coma = limpio.lastIndexOf(',');
+        int punto = limpio.lastIndexOf('.');
+        String entera = limpio;
+        String decimales = "";
+        if (coma >= 0 && punto >= 0) {
+            int posicion = Math.max(coma, punto);
+            entera = sinMiles(limpio.substring(0, posicion), coma > punto ? '.' : ',', valor);
+            decimales = limpio.substring(posicion + 1);
+        } else if (coma >= 0 || punto >= 0) {
+            char separador = coma >= 0 ? ',' : '.';
+            int ultimo = Math.max(coma, punto);
+            String izquierda = limpio.substring(0, ultimo);
+            String derecha = limpio.substring(ultimo + 1);
+            if (limpio.indexOf(separador) != ultimo) {
+                entera = sinMiles(limpio, separador, valor);
+            } else if (derecha.length() == 3 && GRUPO_INICIAL.matcher(izquierda).matches()) {
+                entera = izquierda + derecha;
+            } else {
+                entera = izquierda;
+                decimales = derecha;
+            }
+        }
+        if (!DIGITOS.matcher(entera).matches() || decimales.length() > 2
+                || !(decimales.isEmpty() || DIGITOS.matcher(decimales).matches())) {
+            throw new NumberFormatException("Monto ambiguo o con más de dos decimales: " + valor);
+        }
+        double numero = Double.parseDouble(decimales.isEmpty() ? entera : entera + "." + decimales);
+        return negativo ? -numero : numero;
+    }
+
+    /**
+     * Quita el separador de miles exigiendo grupos de tres ("1.234.567").
+     */
+    private static String sinMiles(String texto, char miles, String valor) {
+        String[] grupos = texto.split(Pattern.quote(String.valueOf(miles)), -1);
+        if (!GRUPO_INICIAL.matcher(grupos[0]).matches()) {
+            throw new NumberFormatException("Separador de miles no válido: " + valor);
+        }
+        for (int i = 1; i < grupos.length; i++) {
+            if (grupos[i].length() != 3 || !DIGITOS.matcher(grupos[i]).matches()) {
+                throw new NumberFormatException("Separador de miles no válido: " + valor);
+            }
+        }
+        return String.join("", grupos);
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Escribe los lotes en el orden del archivo, guarda rechazos y puntos de control.
+     */
+    private final class Escritor implements Runnable {
+        final BlockingQueue<Future<LoteValidado>> cola = new ArrayBlockingQueue<>(LOTES_EN_COLA);
+
+        private final Validador validador;
+        private final PuntoControl punto;
+        private final Path rechazos;
+        private final boolean actualizarStock;
+        private final Consumer<Progreso> observador;
+        private final long inicio;
+
+        private final AtomicInteger insertados = new AtomicInteger();
+        private final AtomicInteger actualizados = new AtomicInteger();
+        private final AtomicInteger rechazadas = new AtomicInteger();
+        private volatile long filasProcesadas;
+        private volatile String error;
+
+        Escritor(Validador validador, PuntoControl punto, Path rechazos, boolean actualizarStock,
+                 Consumer<Progreso> observador, long inicio) {
+            this.validador = validador;
+            this.punto = punto;
+            this.rechazos = rechazos;
+            this.actualizarStock = actualizarStock;
+            this.observador = observador;
+            this.inicio = inicio;
+            this.filasProcesadas = punto.filasConfirmadas;
+            this.insertados.set(punto.insertados);
+            this.actualizados.set(punto.actualizados);
+            this.rechazadas.set(punto.rechazados);
+        }
+
+        boolean hayError() {
+            return error != null;
+        }
+
+        /**
+         * Encola FIN sin dejarse interrumpir; el escritor siempre vacía la
+         * cola, así que el put no queda bloqueado.
+         */
+        void terminar() {
+            boolean interrumpido = Thread.interrupted();
+            while (true) {
+                try {
+                    cola.put(CompletableFuture.completedFuture(FIN));
+                    break;
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try (Writer salida = abrirRechazos()) {
+                while (true) {
+                    LoteValidado lote = cola.take().get();
+                    if (lote == FIN) {
+                        return;
+                    }
+                    if (hayError() || cancelado) {
+                        continue; // vaciar la cola para no bloquear al lector
+                    }
+                    escribir(lote, salida);
+                }
+            } catch (IOException | ExecutionException e) {
+                error = e.getMessage();
+                System.err.println("Error en la importación: " + e.getMessage());
+                drenar();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "interrumpida";
+            }
+        }
+
+        private void escribir(LoteValidado lote, Writer salida) throws IOException {
+            List<Producto> aEscribir = new ArrayList<>(lote.validos.size());
+            List<String> rechazosLote = new ArrayList<>(lote.rechazos);
+            for (int i = 0; i < lote.validos.size(); i++) {
+                Producto p = lote.validos.get(i);
+                long linea = lote.lineasValidas.get(i);
+                if (validador.esPrimeraAparicion(p, linea)) {
+                    aEscribir.add(p);
+                } else {
+                    rechazosLote.add(lineaRechazo(linea, p.getCodigo(), "Código repetido en el archivo"));
+                }
+            }
+
+            ResultadoFusion resultado = productoDAO.fusionarLote(aEscribir, actualizarStock);
+            if (!resultado.isExitoso()) {
+                error = resultado.getMensaje();
+                return;
+            }
+
+            for (String rechazo : rechazosLote) {
+                salida.write(rechazo);
+            }
+            salida.flush();
+
+            insertados.addAndGet(resultado.getInsertados());
+            actualizados.addAndGet(resultado.getActualizados());
+            rechazadas.addAndGet(rechazosLote.size());
+            filasProcesadas += lote.filas;
+            punto.guardar(filasProcesadas, insertados.get(), actualizados.get(), rechazadas.get());
+
+            if (observador != null) {
+                observador.accept(progreso());
+            }
+        }
+
+        Progreso progreso() {
+            double segundos = Math.max((System.nanoTime() - inicio) / 1e9, 1e-3);
+            long nuevas = filasProcesadas - punto.filasIniciales;
+            return new Progreso(filasProcesadas, insertados.get(), actualizados.get(), rechazadas.get(),
+                    nuevas / segundos);
+        }
+
+        private Writer abrirRechazos() throws IOException {
+            Files.createDirectories(rechazos.getParent());
+            boolean nuevo = punto.filasConfirmadas == 0 || !Files.exists(rechazos);
+            BufferedWriter salida = Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    nuevo ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+            if (nuevo) {
+                salida.write("linea;codigo;motivo\n");
+            }
+            return salida;
+        }
+
+        private void drenar() {
+            try {
+                while (cola.take().get() != FIN) {
+                    // descartar
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                drenar();
+            }
+        }
+    }
+
+    // ==================== PUNTO DE CONTROL ====================
+
+    /**
+     * Avance confirmado de la importación de un archivo. Solo es válido para
+     * el mismo archivo (ruta, tamaño y fecha de modificación).
+     */
+    private static final class PuntoControl {
+        private final Path ruta;
+        private final String identidad;
+        final long filasIniciales;
+        long filasConfirmadas;
+        int insertados;
+        int actualizados;
+        int rechazados;
+
+        private PuntoControl(Path ruta, String identidad, Properties datos) {
+            this.ruta = ruta;
+            this.identidad = identidad;
+            if (datos != null && identidad.equals(datos.getProperty("archivo"))) {
+                filasConfirmadas = Long.parseLong(datos.getProperty("filas", "0"));
+                insertados = Integer.parseInt(datos.getProperty("insertados", "0"));
+                actualizados = Integer.parseInt(datos.getProperty("actualizados", "0"));
+                rechazados = Integer.parseInt(datos.getProperty("rechazados", "0"));
+            }
+            filasIniciales = filasConfirmadas;
+        }
+
+        static PuntoControl cargar(Path archivo, Path ruta) {
+            String identidad;
+            try {
+                identidad = archivo.toAbsolutePath() + "|" + Files.size(archivo) + "|"
+                        + Files.getLastModifiedTime(archivo).toMillis();
+            } catch (IOException e) {
+                identidad = archivo.toAbsolutePath().toString();
+            }
+            Properties datos = null;
+            if (Files.exists(ruta)) {
+                datos = new Properties();
+                try (Reader entrada = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+                    datos.load(entrada);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Punto de control ilegible, se ignora: " + e.getMessage());
+                    datos = null;
+                }
+            }
+            return new PuntoControl(ruta, identidad, datos);
+        }
+
+        void guardar(long filas, int insertados, int actualizados, int rechazados) throws IOException {
+            this.filasConfirmadas = filas;
+            Properties datos = new Properties();
+            datos.setProperty("archivo", identidad);
+            datos.setProperty("filas", String.valueOf(filas));
+            datos.setProperty("insertados", String.valueOf(insertados));
+            datos.setProperty("actualizados", String.valueOf(actualizados));
+            datos.setProperty("rechazados", String.valueOf(rechazados));
+
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            try (Writer salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                datos.store(salida, "Importación de catálogo");
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        void eliminar() {
+            try {
+                Files.deleteIfExists(ruta);
+            } catch (IOException e) {
+                System.err.println("Error al eliminar punto de control: " + e.getMessage());
+            }
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private static Reader abrir(Path archivo) throws IOException {
+        // InputStreamReader reemplaza los bytes inválidos en vez de fallar
+        InputStream entrada = Files.newInputStream(archivo);
+        return new InputStreamReader(entrada, StandardCharsets.UTF_8);
+    }
+
+    private static Path rutaTrabajo(Path archivo, String sufijo) {
+        return Paths.get(Constantes.RUTA_IMPORTACIONES).resolve(archivo.getFileName() + sufijo);
+    }
+
+    /**
+     * Normaliza los nombres de columna: minúsculas, sin tildes ni separadores.
+     */
+    private static Map<String, Integer> mapearColumnas(String[] encabezado) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.length; i++) {
+            String nombre = Normalizer.normalize(encabezado[i], Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .replaceAll("[^A-Za-z0-9]", "")
+                    .toLowerCase(Locale.ROOT);
+            columnas.putIfAbsent(ALIAS.getOrDefault(nombre, nombre), i);
+        }
+        return columnas;
+    }
+
+    private static String lineaRechazo(long linea, String codigo, String motivo) {
+        return linea + ";" + codigo.replace(";", ",") + ";" + motivo.replace(";", ",") + "\n";
+    }
+
+    private static ResumenImportacion fallo(String mensaje, Path rechazos) {
+        return new ResumenImportacion(false, mensaje, new Progreso(0, 0, 0, 0, 0), 0, 0, rechazos);
+    }
+}
@@ -0,0 +1,101 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.MovimientoStockDAO;
+import com.taller.proyecto_bd.models.MovimientoStock;
+import com.taller.proyecto_bd.models.SaldoStock;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kardex de inventario: historial de movimientos de stock, saldo a una
+ * fecha y conciliación contra Productos e Inventarios.
+ *
+ * Mientras la aplicación está abierta toma un corte de saldos cada
+ * INTERVALO_CORTE_HORAS; el primero, al iniciar, registra también el saldo
+ * inicial de los inventarios que existían antes del kardex.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class KardexService {
+    private static KardexService instance;
+
+    private static final long RETRASO_INICIAL_SEG = 60;
+    private static final long INTERVALO_CORTE_HORAS = 24;
+
+    private final MovimientoStockDAO movimientoDAO = MovimientoStockDAO.getInstance();
+    private ScheduledExecutorService programador;
+
+    private KardexService() {
+    }
+
+    public static synchronized KardexService getInstance() {
+        if (instance == null) {
+            instance = new KardexService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kardex-cortes");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.schedule(movimientoDAO::inicializarSaldos, RETRASO_INICIAL_SEG, TimeUnit.SECONDS);
+        programador.scheduleWithFixedDelay(this::tomarCorte, RETRASO_INICIAL_SEG,
+                TimeUnit.HOURS.toSeconds(INTERVALO_CORTE_HORAS), TimeUnit.SECONDS);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ==================== OPERACIONES ====================
+
+    /**
+     * Toma un corte de saldos ahora.
+     *
+     * @return cortes creados, o -1 si hubo un error
+     */
+    public int tomarCorte() {
+        int cortes = movimientoDAO.tomarCorte();
+        if (cortes > 0) {
+            System.out.println("✓ Corte de stock: " + cortes + " productos");
+        }
+        return cortes;
+    }
+
+    public List<MovimientoStock> obtenerMovimientos(int idProducto, int limite) {
+        return movimientoDAO.obtenerPorProducto(idProducto, limite);
+    }
+
+    /**
+     * Saldo de cada producto al cierre del día indicado.
+     */
+    public List<SaldoStock> obtenerSaldosAlCierre(LocalDate dia) {
+        Date limite = Date.from(dia.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        return movimientoDAO.obtenerSaldosAFecha(limite);
+    }
+
+    /**
+     * Productos cuyo stock en Productos o Inventarios no coincide con el kardex.
+     */
+    public List<SaldoStock> conciliar() {
+        return movimientoDAO.obtenerDiferencias();
+    }
+}
@@ -0,0 +1,174 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.models.PronosticoDemanda;
+
+/**
+ * Cálculo del pronóstico de un producto a partir de su serie de ventas
+ * diarias: promedio móvil de 28 días, suavizado exponencial Holt-Winters
+ * (aditivo, tendencia amortiguada, estacionalidad semanal) y un factor
+ * anual que compara, un año atrás, el periodo a cubrir con las 4 semanas
+ * anteriores. La desviación es la del error de pronóstico a un día.
+ *
+ * Punto de reorden = demanda en el plazo de reposición + stock de seguridad.
+ * Stock objetivo = demanda en reposición + revisión + stock de seguridad.
+ *
+ * No guarda estado por producto, así que se puede usar desde varios hilos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+final class ModeloDemanda {
+
+    static final int TEMPORADA = 7;
+    private static final int DIAS_ANIO = 365;
+    private static final int VENTANA_PROMEDIO = 28;
+    private static final int MIN_DIAS_SUAVIZADO = 2 * TEMPORADA;
+
+    private static final double ALFA = 0.2;   // nivel
+    private static final double BETA = 0.05;  // tendencia
+    private static final double FI = 0.9;     // amortiguación de la tendencia
+    private static final double GAMMA = 0.1;  // estacionalidad semanal
+    private static final double FACTOR_MIN = 0.5;
+    private static final double FACTOR_MAX = 3.0;
+
+    private final int diasReposicion;
+    private final int diasRevision;
+    private final double z;
+
+    /**
+     * @param diasReposicion días que tarda en llegar un pedido
+     * @param diasRevision días entre revisiones de pedido
+     * @param z factor del nivel de servicio (1.65 = 95 %)
+     */
+    ModeloDemanda(int diasReposicion, int diasRevision, double z) {
+        this.diasReposicion = diasReposicion;
+        this.diasRevision = diasRevision;
+        this.z = z;
+    }
+
+    /**
+     * Calcula el pronóstico sobre serie[0..longitud), donde cada posición es
+     * un día y la última es ayer. La serie empieza a contar desde la
+     * primera venta del producto.
+     *
+     * @return null si el producto no tiene ventas en la serie
+     */
+    PronosticoDemanda calcular(int idProducto, double[] serie, int longitud) {
+        int inicio = 0;
+        while (inicio < longitud && serie[inicio] <= 0) {
+            inicio++;
+        }
+        if (inicio == longitud) {
+            return null;
+        }
+        int dias = longitud - inicio;
+        int horizonte = diasReposicion + diasRevision;
+
+        double promedioMovil = promedio(serie, Math.max(inicio, longitud - VENTANA_PROMEDIO), longitud);
+        double demandaReposicion;
+        double demandaHorizonte;
+        double desviacion;
+
+        if (dias < MIN_DIAS_SUAVIZADO) {
+            // Poca historia: promedio simple y su dispersión
+            demandaReposicion = promedioMovil * diasReposicion;
+            demandaHorizonte = promedioMovil * horizonte;
+            desviacion = desviacion(serie, inicio, longitud, promedioMovil);
+        } else {
+            double[] estacional = new double[TEMPORADA];
+            double nivel = promedio(serie, inicio, inicio + MIN_DIAS_SUAVIZADO);
+            double tendencia = (promedio(serie, inicio + TEMPORADA, inicio + 2 * TEMPORADA)
+                    - promedio(serie, inicio, inicio + TEMPORADA)) / TEMPORADA;
+            for (int j = 0; j < TEMPORADA; j++) {
+                estacional[(inicio + j) % TEMPORADA] =
+                        (serie[inicio + j] + serie[inicio + TEMPORADA + j]) / 2 - nivel;
+            }
+
+            double sumaErrores = 0;
+            int errores = 0;
+            for (int t = inicio + MIN_DIAS_SUAVIZADO; t < longitud; t++) {
+                int s = t % TEMPORADA;
+                double pronostico = Math.max(0, nivel + FI * tendencia + estacional[s]);
+                double error = serie[t] - pronostico;
+                sumaErrores += error * error;
+                errores++;
+
+                double nivelAnterior = nivel;
+                nivel = ALFA * (serie[t] - estacional[s]) + (1 - ALFA) * (nivel + FI * tendencia);
+                tendencia = BETA * (nivel - nivelAnterior) + (1 - BETA) * FI * tendencia;
+                estacional[s] = GAMMA * (serie[t] - nivel) + (1 - GAMMA) * estacional[s];
+            }
+            desviacion = errores > 0 ? Math.sqrt(sumaErrores / errores) : Math.sqrt(promedioMovil);
+
+            demandaReposicion = 0;
+            demandaHorizonte = 0;
+            double amortiguacion = 0;
+            double potencia = 1;
+            for (int h = 1; h <= horizonte; h++) {
+                potencia *= FI;
+                amortiguacion += potencia;
+                double pronostico = Math.max(0, nivel + amortiguacion * tendencia
+                        + estacional[(longitud - 1 + h) % TEMPORADA]);
+                demandaHorizonte += pronostico;
+                if (h <= diasReposicion) {
+                    demandaReposicion += pronostico;
+                }
+            }
+        }
+
+        double factor = factorAnual(serie, inicio, longitud, horizonte);
+        demandaReposicion *= factor;
+        demandaHorizonte *= factor;
+        double stockSeguridad = z * desviacion * Math.sqrt(diasReposicion);
+
+        PronosticoDemanda pronostico = new PronosticoDemanda(idProducto);
+        pronostico.setPromedioMovil(promedioMovil);
+        pronostico.setDemandaDiaria(demandaHorizonte / horizonte);
+        pronostico.setDesviacion(desviacion);
+        pronostico.setFactorEstacional(factor);
+        int puntoReorden = redondearArriba(demandaReposicion + stockSeguridad);
+        pronostico.setPuntoReorden(puntoReorden);
+        pronostico.setStockObjetivo(Math.max(puntoReorden, redondearArriba(demandaHorizonte + stockSeguridad)));
+        pronostico.setDiasHistoria(dias);
+        return pronostico;
+    }
+
+    /**
+     * Ventas del periodo a cubrir hace un año respecto a las 4 semanas
+     * previas; 1 si no hay un año de historia o no hubo ventas de base.
+     */
+    private static double factorAnual(double[] serie, int inicio, int longitud, int horizonte) {
+        int haceUnAnio = longitud - DIAS_ANIO;
+        if (haceUnAnio - VENTANA_PROMEDIO < inicio) {
+            return 1;
+        }
+        double base = promedio(serie, haceUnAnio - VENTANA_PROMEDIO, haceUnAnio);
+        if (base <= 0) {
+            return 1;
+        }
+        double periodo = promedio(serie, haceUnAnio, Math.min(longitud, haceUnAnio + horizonte));
+        return Math.min(FACTOR_MAX, Math.max(FACTOR_MIN, periodo / base));
+    }
+
+    private static double promedio(double[] serie, int desde, int hasta) {
+        double suma = 0;
+        for (int i = desde; i < hasta; i++) {
+            suma += serie[i];
+        }
+        return hasta > desde ? suma / (hasta - desde) : 0;
+    }
+
+    private static double desviacion(double[] serie, int desde, int hasta, double media) {
+        double suma = 0;
+        for (int i = desde; i < hasta; i++) {
+            suma += (serie[i] - media) * (serie[i] - media);
+        }
+        double desviacion = Math.sqrt(suma / (hasta - desde));
+        // Con un solo día de ventas se asume dispersión tipo Poisson
+        return desviacion > 0 ? desviacion : Math.sqrt(media);
+    }
+
+    private static int redondearArriba(double unidades) {
+        return (int) Math.max(0, Math.ceil(unidades - 1e-9));
+    }
+}
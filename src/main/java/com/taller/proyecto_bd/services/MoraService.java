@@ -0,0 +1,93 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CuotaDAO;
+import com.taller.proyecto_bd.models.CausacionMora;
+import com.taller.proyecto_bd.utils.Dinero;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Causación diaria de intereses de mora sobre las cuotas vencidas.
+ *
+ * Todo el cálculo ocurre en la BD en un solo lote SQL
+ * ({@link CuotaDAO#causarMora}): las tasas salen de la tabla ReglasMora
+ * según los días de atraso, cada cobro queda en MorasCuotas y el saldo de
+ * créditos y clientes se actualiza en conjunto. Se revisa cada hora
+ * mientras la aplicación está abierta, pero solo corre una vez por fecha;
+ * si otra terminal ya causó el día, la corrida no encuentra nada.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class MoraService {
+    private static MoraService instance;
+
+    private static final long RETRASO_INICIAL_MIN = 15;
+    private static final long INTERVALO_MIN = 60;
+
+    private final CuotaDAO cuotaDAO = CuotaDAO.getInstance();
+    private ScheduledExecutorService programador;
+    private LocalDate ultimaFechaCausada;
+
+    private MoraService() {
+    }
+
+    public static synchronized MoraService getInstance() {
+        if (instance == null) {
+            instance = new MoraService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "causacion-mora");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::causarSiPendiente, RETRASO_INICIAL_MIN,
+                INTERVALO_MIN, TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ==================== OPERACIONES ====================
+
+    private void causarSiPendiente() {
+        LocalDate hoy = LocalDate.now();
+        if (!hoy.equals(ultimaFechaCausada)) {
+            causar(hoy);
+        }
+    }
+
+    /**
+     * Causa ahora la mora a la fecha de corte.
+     *
+     * @return lo causado, o null si hubo un error
+     */
+    public synchronized CausacionMora causar(LocalDate fechaCorte) {
+        CausacionMora causacion = cuotaDAO.causarMora(fechaCorte);
+        if (causacion != null) {
+            ultimaFechaCausada = fechaCorte;
+            if (causacion.getCuotas() > 0) {
+                System.out.printf("✓ Mora causada al %s: $%.2f en %d cuotas de %d créditos%n",
+                        fechaCorte, Dinero.aDouble(causacion.getTotalCentavos()),
+                        causacion.getCuotas(), causacion.getCreditos());
+            }
+        }
+        return causacion;
+    }
+}
@@ -1,34 +1,119 @@
 package com.taller.proyecto_bd.services;
 
+import com.taller.proyecto_bd.dao.NotificacionDAO;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.utils.Constantes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio de notificaciones.
  * Centraliza el envío de alertas a clientes, usuarios y administradores.
- * (Simulado con mensajes en consola / logs por ahora).
+ *
+ * Los avisos no se envían al momento: se guardan en la bandeja de salida
+ * (tabla Notificaciones), en la misma transacción que el cambio cuando la
+ * hay, y un despachador la vacía cada pocos segundos. El despachador toma
+ * lotes, junta en un solo mensaje los avisos de un mismo destino, omite los
+ * repetidos y envía cada mensaje en un hilo virtual, respetando los envíos
+ * por segundo de cada canal. Una vez al día encola en conjunto los avisos
+ * de cuotas vencidas y de stock bajo.
  *
  * @author Sistema
  * @version 1.0
  */
 public class NotificacionService {
+    private static NotificacionService instance;
+
+    private static final long INTERVALO_DESPACHO_SEG = 10;
+    private static final long RETRASO_REVISION_MIN = 10;
+    private static final long INTERVALO_REVISION_MIN = 60;
+    private static final int TAMANO_LOTE = 200;
+    private static final int RESERVA_SEG = 300;
+    private static final int INTENTOS_MAXIMOS = 5;
+    private static final int ESPERA_BASE_SEG = 60;
+    private static final int ESPERA_MAXIMA_SEG = 3600;
+    private static final int ENVIOS_SIMULTANEOS = 16;
+    private static final int DIAS_CONSERVAR_ENVIADAS = 30;
+
+    private final NotificacionDAO notificacionDAO = NotificacionDAO.getInstance();
+    private final Map<String, CanalNotificacion> canales = new ConcurrentHashMap<>();
+    private final Map<String, TasaEnvio> tasas = new ConcurrentHashMap<>();
+    private ScheduledExecutorService programador;
+    private LocalDate ultimaFechaRevisada;
+
+    private NotificacionService() {
+        registrarCanal(new CanalArchivoCorreo(Constantes.RUTA_NOTIFICACIONES));
+    }
+
+    public static synchronized NotificacionService getInstance() {
+        if (instance == null) {
+            instance = new NotificacionService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "despacho-notificaciones");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::despachar, INTERVALO_DESPACHO_SEG,
+                INTERVALO_DESPACHO_SEG, TimeUnit.SECONDS);
+        programador.scheduleWithFixedDelay(this::revisarSiPendiente, RETRASO_REVISION_MIN,
+                INTERVALO_REVISION_MIN, TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    /**
+     * Registra (o reemplaza) el canal que entrega los avisos con su nombre.
+     */
+    public void registrarCanal(CanalNotificacion canal) {
+        canales.put(canal.getNombre(), canal);
+        tasas.put(canal.getNombre(), new TasaEnvio(canal.getMensajesPorSegundo()));
+    }
 
     // ==================== CLIENTES ====================
 
     /** Notificar al cliente sobre un crédito aprobado */
     public void notificarCreditoAprobado(Cliente cliente, Credito credito) {
-        if (cliente == null || credito == null) return;
-        System.out.println("📢 Notificación a cliente " + cliente.getNombre() +
-                ": Su crédito #" + credito.getIdCredito() +
-                " ha sido aprobado. Saldo: $" + credito.getSaldoPendiente());
+        if (cliente == null || credito == null || cliente.getEmail() == null) return;
+        notificacionDAO.encolar(new Notificacion(Notificacion.CREDITO_APROBADO, Notificacion.CANAL_CORREO,
+                cliente.getEmail(), String.valueOf(credito.getIdCredito()), "Crédito aprobado",
+                cliente.getNombre() + ": su crédito #" + credito.getIdCredito() +
+                        " ha sido aprobado. Saldo: $" + credito.getSaldoPendiente()), 0);
     }
 
     /** Notificar al cliente sobre cuota vencida */
     public void notificarCuotaVencida(Cliente cliente, Cuota cuota) {
-        if (cliente == null || cuota == null) return;
-        System.out.println("⚠️ Aviso a " + cliente.getNombre() +
-                ": Su cuota #" + cuota.getNumeroCuota() +
-                " está vencida desde el " + cuota.getFechaVencimiento() +
-                ". Días de atraso: " + cuota.diasAtraso());
+        if (cliente == null || cuota == null || cliente.getEmail() == null) return;
+        notificacionDAO.encolar(new Notificacion(Notificacion.CUOTA_VENCIDA, Notificacion.CANAL_CORREO,
+                cliente.getEmail(), String.valueOf(cuota.getIdCuota()), "Cuota vencida",
+                cliente.getNombre() + ": su cuota #" + cuota.getNumeroCuota() +
+                        " está vencida desde el " + cuota.getFechaVencimiento() +
+                        ". Días de atraso: " + cuota.diasAtraso()), Constantes.HORAS_AVISO_CUOTA_VENCIDA);
     }
 
     // ==================== INVENTARIO ====================
@@ -36,29 +121,208 @@ public class NotificacionService {
     /** Notificar al administrador sobre stock bajo */
     public void notificarStockBajo(Inventario inventario) {
         if (inventario == null) return;
-        System.out.println("⚠️ ALERTA: El producto " + inventario.getNombreProducto() +
-                " tiene stock bajo (" + inventario.getCantidadActual() + " unidades).");
+        notificacionDAO.encolarAdministradores(Notificacion.STOCK_BAJO, String.valueOf(inventario.getIdProducto()),
+                "Stock bajo", "El producto " + inventario.getNombreProducto() +
+                        " tiene stock bajo (" + inventario.getCantidadActual() + " unidades).",
+                Constantes.HORAS_AVISO_STOCK);
     }
 
     /** Notificar sobre sobrestock */
     public void notificarSobreStock(Inventario inventario) {
         if (inventario == null) return;
-        System.out.println("⚠️ ALERTA: El producto " + inventario.getNombreProducto() +
-                " tiene sobrestock (" + inventario.getCantidadActual() + " unidades).");
+        notificacionDAO.encolarAdministradores(Notificacion.SOBRESTOCK, String.valueOf(inventario.getIdProducto()),
+                "Sobrestock", "El producto " + inventario.getNombreProducto() +
+                        " tiene sobrestock (" + inventario.getCantidadActual() + " unidades).",
+                Constantes.HORAS_AVISO_STOCK);
     }
 
     // ==================== USUARIO ====================
 
     /** Notificar intento de login fallido */
     public void notificarLoginFallido(String username, String ip) {
-        System.out.println("🚨 Alerta de seguridad: Login fallido para usuario " + username +
-                " desde IP: " + ip);
+        notificacionDAO.encolarAdministradores(Notificacion.LOGIN_FALLIDO, username,
+                "Alerta de seguridad", "Login fallido para usuario " + username + " desde IP: " + ip,
+                Constantes.HORAS_AVISO_SEGURIDAD);
     }
 
     /** Notificar bloqueo de cuenta */
     public void notificarBloqueoUsuario(Usuario usuario) {
         if (usuario == null) return;
-        System.out.println("🔒 Usuario " + usuario.getUsername() +
-                " ha sido bloqueado por intentos fallidos.");
+        notificacionDAO.encolarAdministradores(Notificacion.USUARIO_BLOQUEADO, usuario.getUsername(),
+                "Usuario bloqueado", "El usuario " + usuario.getUsername() +
+                        " ha sido bloqueado por intentos fallidos.",
+                Constantes.HORAS_AVISO_SEGURIDAD);
+    }
+
+    // ==================== REVISIÓN DIARIA ====================
+
+    private void revisarSiPendiente() {
+        LocalDate hoy = LocalDate.now();
+        if (!hoy.equals(ultimaFechaRevisada)) {
+            revisar(hoy);
+        }
+    }
+
+    /**
+     * Encola en conjunto los avisos de cuotas vencidas y de stock bajo, y
+     * purga los avisos enviados antiguos. Si otra terminal ya revisó el
+     * día, no se repite ningún aviso.
+     *
+     * @return false si alguna de las dos consultas falló
+     */
+    public synchronized boolean revisar(LocalDate hoy) {
+        int cuotas = notificacionDAO.encolarCuotasVencidas(hoy, Constantes.HORAS_AVISO_CUOTA_VENCIDA);
+        int stock = notificacionDAO.encolarStockBajo(Constantes.HORAS_AVISO_STOCK);
+        if (cuotas < 0 || stock < 0) {
+            return false;
+        }
+        ultimaFechaRevisada = hoy;
+        notificacionDAO.purgarEnviadas(DIAS_CONSERVAR_ENVIADAS);
+        if (cuotas + stock > 0) {
+            System.out.printf("✓ Avisos encolados al %s: %d de cuotas vencidas, %d de stock bajo%n",
+                    hoy, cuotas, stock);
+        }
+        return true;
+    }
+
+    // ==================== DESPACHO ====================
+
+    /**
+     * Vacía la bandeja de salida por lotes hasta que no quede nada listo
+     * para enviar.
+     */
+    public void despachar() {
+        try {
+            List<Notificacion> lote;
+            do {
+                lote = notificacionDAO.tomarPorEnviar(TAMANO_LOTE, RESERVA_SEG);
+                if (lote == null || lote.isEmpty()) {
+                    return;
+                }
+                enviarLote(lote);
+            } while (lote.size() == TAMANO_LOTE && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las siguientes ejecuciones programadas
+            System.err.println("Error al despachar notificaciones: " + e.getMessage());
+        }
+    }
+
+    private void enviarLote(List<Notificacion> lote) {
+        // Un mensaje por canal y destino; los avisos repetidos se envían una vez
+        Map<String, Map<String, List<Notificacion>>> porDestino = new LinkedHashMap<>();
+        for (Notificacion n : lote) {
+            porDestino.computeIfAbsent(n.getCanal() + "|" + n.getDestino(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(n.getTipo() + "|" + n.getReferencia(), k -> new ArrayList<>())
+                    .add(n);
+        }
+
+        List<Notificacion> enviadas = new ArrayList<>();
+        Map<Notificacion, String> fallos = new HashMap<>();
+        Semaphore cupos = new Semaphore(ENVIOS_SIMULTANEOS);
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map<String, List<Notificacion>> avisos : porDestino.values()) {
+                hilos.submit(() -> {
+                    String error = enviarMensaje(avisos, cupos);
+                    synchronized (enviadas) {
+                        for (List<Notificacion> iguales : avisos.values()) {
+                            for (Notificacion n : iguales) {
+                                if (error == null) {
+                                    enviadas.add(n);
+                                } else {
+                                    fallos.put(n, error);
+                                }
+                            }
+                        }
+                    }
+                });
+            }
+        } // close() espera a que terminen todos los envíos
+
+        Map<Notificacion, Integer> esperas = new HashMap<>();
+        for (Notificacion n : fallos.keySet()) {
+            long espera = (long) ESPERA_BASE_SEG << Math.min(n.getIntentos() - 1, 16);
+            esperas.put(n, (int) Math.min(espera, ESPERA_MAXIMA_SEG));
+        }
+        notificacionDAO.registrarDespacho(enviadas, fallos, esperas, INTENTOS_MAXIMOS);
+        if (!fallos.isEmpty()) {
+            System.err.println("⚠️ " + fallos.size() + " notificaciones no se pudieron enviar; se reintentarán");
+        }
+    }
+
+    /**
+     * Envía en un solo mensaje los avisos de un destino.
+     *
+     * @param avisos avisos distintos (tipo y referencia) → sus copias
+     * @return null si se envió, o el motivo del fallo
+     */
+    private String enviarMensaje(Map<String, List<Notificacion>> avisos, Semaphore cupos) {
+        List<Notificacion> distintos = new ArrayList<>(avisos.size());
+        for (List<Notificacion> iguales : avisos.values()) {
+            distintos.add(iguales.get(0));
+        }
+        Notificacion primera = distintos.get(0);
+        CanalNotificacion canal = canales.get(primera.getCanal());
+        if (canal == null) {
+            return "Canal no registrado: " + primera.getCanal();
+        }
+
+        String asunto;
+        String cuerpo;
+        if (distintos.size() == 1) {
+            asunto = primera.getAsunto();
+            cuerpo = primera.getMensaje();
+        } else {
+            asunto = distintos.size() + " avisos";
+            StringBuilder sb = new StringBuilder();
+            for (Notificacion n : distintos) {
+                sb.append("• ").append(n.getAsunto()).append(": ").append(n.getMensaje()).append("\n\n");
+            }
+            cuerpo = sb.toString().trim();
+        }
+
+        try {
+            cupos.acquire();
+            try {
+                tasas.get(canal.getNombre()).esperarTurno();
+                canal.enviar(primera.getDestino(), asunto, cuerpo);
+                return null;
+            } finally {
+                cupos.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Envío interrumpido";
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    // ==================== LÍMITE DE ENVÍOS ====================
+
+    /**
+     * Reparte los envíos de un canal en turnos fijos: cada envío reserva el
+     * siguiente turno libre y espera hasta él.
+     */
+    private static class TasaEnvio {
+        private final long intervaloNanos;
+        private long siguienteTurno;
+
+        TasaEnvio(int porSegundo) {
+            this.intervaloNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(porSegundo, 1);
+            this.siguienteTurno = System.nanoTime();
+        }
+
+        void esperarTurno() throws InterruptedException {
+            long turno;
+            synchronized (this) {
+                long ahora = System.nanoTime();
+                turno = siguienteTurno - ahora > 0 ? siguienteTurno : ahora;
+                siguienteTurno = turno + intervaloNanos;
+            }
+            long espera = turno - System.nanoTime();
+            if (espera > 0) {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            }
+        }
     }
 }
@@ -0,0 +1,248 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.PronosticoDAO;
+import com.taller.proyecto_bd.models.PronosticoDemanda;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pronóstico de demanda y puntos de reorden dinámicos.
+ *
+ * Lee la historia de ventas diaria de los últimos 3 años producto por
+ * producto (sin cargarla completa), la agrupa en bloques y calcula cada
+ * bloque en paralelo con fork/join mientras se lee el siguiente. El
+ * resultado reemplaza la tabla PronosticosDemanda, que alimenta la consulta
+ * de productos a reponer.
+ *
+ * Se recalcula una vez al día mientras la aplicación está abierta; si otra
+ * terminal ya calculó en las últimas horas no se repite.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class PronosticoDemandaService {
+    private static PronosticoDemandaService instance;
+
+    private static final int DIAS_HISTORIA = 3 * 365;
+    private static final int DIAS_REPOSICION = 7;
+    private static final int DIAS_REVISION = 7;
+    private static final double Z_NIVEL_SERVICIO = 1.65; // 95 %
+    private static final int TAMANO_BLOQUE = 2000;
+    private static final int UMBRAL_DIVISION = 64;
+    private static final long VIGENCIA_HORAS = 20;
+    private static final long RETRASO_INICIAL_MIN = 5;
+
+    private final PronosticoDAO pronosticoDAO = PronosticoDAO.getInstance();
+    private final ModeloDemanda modelo = new ModeloDemanda(DIAS_REPOSICION, DIAS_REVISION, Z_NIVEL_SERVICIO);
+    private ScheduledExecutorService programador;
+
+    private PronosticoDemandaService() {
+    }
+
+    public static synchronized PronosticoDemandaService getInstance() {
+        if (instance == null) {
+            instance = new PronosticoDemandaService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pronostico-demanda");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::recalcularSiVencido, RETRASO_INICIAL_MIN,
+                TimeUnit.HOURS.toMinutes(VIGENCIA_HORAS), TimeUnit.MINUTES);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Productos en o por debajo de su punto de reorden, con la cantidad sugerida.
+     */
+    public List<PronosticoDemanda> obtenerReposicion() {
+        return pronosticoDAO.obtenerReposicion();
+    }
+
+    public Date obtenerFechaUltimoCalculo() {
+        return pronosticoDAO.obtenerFechaUltimoCalculo();
+    }
+
+    // ==================== CÁLCULO ====================
+
+    private void recalcularSiVencido() {
+        // Una excepción sin atrapar cancelaría la programación para siempre
+        try {
+            Date ultimo = pronosticoDAO.obtenerFechaUltimoCalculo();
+            if (ultimo == null
+                    || System.currentTimeMillis() - ultimo.getTime() > TimeUnit.HOURS.toMillis(VIGENCIA_HORAS)) {
+                recalcular();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al recalcular el pronóstico de demanda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula los pronósticos de todos los productos con ventas.
+     *
+     * @return productos pronosticados, o -1 si hubo un error
+     */
+    public synchronized int recalcular() {
+        long inicio = System.nanoTime();
+        LocalDate hasta = LocalDate.now();
+        LocalDate desde = hasta.minusDays(DIAS_HISTORIA);
+
+        List<PronosticoDemanda> resultados = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Lector lector = new Lector(pool, resultados);
+            if (!pronosticoDAO.recorrerDemandaDiaria(desde, hasta, lector)) {
+                return -1;
+            }
+            lector.terminar();
+        } finally {
+            pool.shutdown();
+        }
+
+        if (!pronosticoDAO.reemplazar(resultados)) {
+            return -1;
+        }
+        System.out.printf("✓ Pronóstico de demanda: %d productos en %.1f s%n",
+                resultados.size(), (System.nanoTime() - inicio) / 1e9);
+        return resultados.size();
+    }
+
+    /**
+     * Series diarias de hasta TAMANO_BLOQUE productos. Se reutilizan entre
+     * bloques para no reservar memoria por producto.
+     */
+    private static final class Bloque {
+        final int[] ids = new int[TAMANO_BLOQUE];
+        final double[][] series = new double[TAMANO_BLOQUE][DIAS_HISTORIA];
+        int cantidad;
+
+        void vaciar() {
+            for (int i = 0; i < cantidad; i++) {
+                Arrays.fill(series[i], 0);
+            }
+            cantidad = 0;
+        }
+    }
+
+    /**
+     * Arma los bloques a partir de las filas ordenadas por producto. Usa dos
+     * bloques: mientras uno se calcula en el pool, el otro se llena.
+     */
+    private final class Lector implements PronosticoDAO.ConsumidorDemanda {
+        private final ForkJoinPool pool;
+        private final List<PronosticoDemanda> resultados;
+        private Bloque llenando = new Bloque();
+        private Bloque calculando = new Bloque();
+        private ForkJoinTask<Void> enCurso;
+        private PronosticoDemanda[] salidaEnCurso;
+        private int productoActual = -1;
+
+        Lector(ForkJoinPool pool, List<PronosticoDemanda> resultados) {
+            this.pool = pool;
+            this.resultados = resultados;
+        }
+
+        @Override
+        public void aceptar(int idProducto, int dia, int cantidad) {
+            if (idProducto != productoActual) {
+                if (llenando.cantidad == TAMANO_BLOQUE) {
+                    despachar();
+                }
+                productoActual = idProducto;
+                llenando.ids[llenando.cantidad++] = idProducto;
+            }
+            if (dia >= 0 && dia < DIAS_HISTORIA) {
+                llenando.series[llenando.cantidad - 1][dia] += cantidad;
+            }
+        }
+
+        void terminar() {
+            despachar();
+            recoger();
+        }
+
+        private void despachar() {
+            recoger();
+            Bloque bloque = llenando;
+            llenando = calculando;
+            calculando = bloque;
+            llenando.vaciar();
+            salidaEnCurso = new PronosticoDemanda[bloque.cantidad];
+            enCurso = pool.submit(new TareaPronostico(bloque, salidaEnCurso, 0, bloque.cantidad));
+        }
+
+        private void recoger() {
+            if (enCurso == null) {
+                return;
+            }
+            enCurso.join();
+            for (PronosticoDemanda p : salidaEnCurso) {
+                if (p != null) {
+                    resultados.add(p);
+                }
+            }
+            enCurso = null;
+        }
+    }
+
+    /**
+     * Calcula un rango del bloque dividiéndolo hasta UMBRAL_DIVISION productos.
+     */
+    private final class TareaPronostico extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Bloque bloque;
+        private final PronosticoDemanda[] salida;
+        private final int desde;
+        private final int hasta;
+
+        TareaPronostico(Bloque bloque, PronosticoDemanda[] salida, int desde, int hasta) {
+            this.bloque = bloque;
+            this.salida = salida;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UMBRAL_DIVISION) {
+                for (int i = desde; i < hasta; i++) {
+                    salida[i] = modelo.calcular(bloque.ids[i], bloque.series[i], DIAS_HISTORIA);
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaPronostico(bloque, salida, desde, medio),
+                    new TareaPronostico(bloque, salida, medio, hasta));
+        }
+    }
+}
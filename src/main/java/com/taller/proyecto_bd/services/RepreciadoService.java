@@ -0,0 +1,73 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.AuditoriaDAO;
+import com.taller.proyecto_bd.dao.PrecioDAO;
+import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.CambioPrecio;
+import com.taller.proyecto_bd.models.SessionManager;
+
+import java.util.List;
+
+/**
+ * Repreciado masivo de productos según el margen (porcentajeUtilidad) de su
+ * categoría. Primero se previsualizan los cambios y luego se aplican con
+ * los mismos parámetros; al aplicar se audita la operación y se invalidan
+ * las copias locales de productos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class RepreciadoService {
+    private static RepreciadoService instance;
+
+    private final PrecioDAO precioDAO = PrecioDAO.getInstance();
+    private final AuditoriaDAO auditoriaDAO = AuditoriaDAO.getInstance();
+
+    private RepreciadoService() {
+    }
+
+    public static synchronized RepreciadoService getInstance() {
+        if (instance == null) {
+            instance = new RepreciadoService();
+        }
+        return instance;
+    }
+
+    /**
+     * Cambios que produciría el repreciado, sin tocar la BD.
+     *
+     * @param idCategoria categoría a repreciar, o null para todas
+     * @param redondeoCentavos múltiplo al que se redondea hacia arriba el precio
+     */
+    public List<CambioPrecio> previsualizar(Integer idCategoria, boolean incluirSubcategorias, long redondeoCentavos) {
+        return precioDAO.previsualizarReprecio(idCategoria, incluirSubcategorias, redondeoCentavos);
+    }
+
+    /**
+     * Aplica el repreciado y deja cada cambio en el historial de precios.
+     *
+     * @return productos actualizados, o -1 si hubo un error
+     */
+    public int aplicar(Integer idCategoria, boolean incluirSubcategorias, long redondeoCentavos, String motivo) {
+        int idUsuario = SessionManager.getIdUsuarioActual();
+        String descripcion = "Repreciado por margen de categoría"
+                + (idCategoria == null ? " (todas)" : " ID " + idCategoria + (incluirSubcategorias ? " y subcategorías" : ""))
+                + (motivo != null && !motivo.isBlank() ? ": " + motivo.trim() : "");
+
+        int actualizados = precioDAO.aplicarReprecio(idCategoria, incluirSubcategorias, redondeoCentavos,
+                idUsuario, recortar(descripcion, 200));
+        if (actualizados > 0) {
+            auditoriaDAO.agregar(new Auditoria(idUsuario, "REPRECIAR", "Productos",
+                    descripcion + " - " + actualizados + " productos", "127.0.0.1"));
+        }
+        return actualizados;
+    }
+
+    public List<CambioPrecio> obtenerHistorial(int idProducto) {
+        return precioDAO.obtenerHistorial(idProducto);
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto.length() <= largo ? texto : texto.substring(0, largo);
+    }
+}
@@ -0,0 +1,469 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.InventarioDAO;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.models.Inventario;
+import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.utils.BusEventos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas de stock en memoria para los carritos abiertos.
+ *
+ * Agregar un producto al carrito aparta las unidades aquí en lugar de
+ * consultar Inventarios en la BD: cada producto tiene un contador (stock
+ * base menos lo reservado) protegido por uno de CANDADOS candados, así
+ * dos cajas que venden el mismo producto se ordenan entre sí pero no frenan
+ * a las que venden otros. Un carrito con varios productos toma sus candados
+ * en orden ascendente y aparta todo o nada.
+ *
+ * El stock base sale de la copia local de la caja (ya descontadas las ventas
+ * pendientes de sincronizar) y se vuelve a leer cuando la caja avisa
+ * CATALOGO_LOCAL_ACTUALIZADO. Confirmar una reserva la libera y vuelve a
+ * leer el stock base: la venta ya quedó guardada por el diario de la caja o
+ * por la transacción de la venta, que son los que escriben el stock. Restar
+ * lo vendido del contador lo descontaría dos veces si el aviso de la caja
+ * llegó antes que la confirmación.
+ *
+ * Las reservas que no se usan en VIGENCIA_RESERVA_MS (carrito abandonado)
+ * se liberan solas.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ReservaStockService {
+    private static ReservaStockService instance;
+
+    private static final int CANDADOS = 32;
+    private static final long VIGENCIA_RESERVA_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long INTERVALO_LIMPIEZA_SEG = 30;
+    /** Contadores sin reservas ni uso en este tiempo se descartan */
+    private static final long INACTIVIDAD_CONTADOR_MS = TimeUnit.MINUTES.toMillis(5);
+
+    // ==================== RESERVA ====================
+
+    /**
+     * Unidades apartadas por un carrito. Se usa desde un solo carrito, pero
+     * la limpieza la puede vencer desde otro hilo.
+     */
+    public static final class Reserva {
+        private final long id;
+        private final Map<Integer, Integer> unidades = new HashMap<>();
+        private long vence;
+
+        private Reserva(long id) {
+            this.id = id;
+            renovar();
+        }
+
+        public long getId() { return id; }
+
+        /** Unidades apartadas de un producto */
+        public synchronized int getUnidades(int idProducto) {
+            return unidades.getOrDefault(idProducto, 0);
+        }
+
+        public synchronized boolean estaVacia() {
+            return unidades.isEmpty();
+        }
+
+        private void renovar() {
+            vence = System.currentTimeMillis() + VIGENCIA_RESERVA_MS;
+        }
+    }
+
+    /** Stock de un producto; se toca solo con su candado tomado */
+    private static final class Contador {
+        int base;
+        int reservado;
+        long ultimoUso;
+
+        Contador(int base) {
+            this.base = base;
+            this.ultimoUso = System.currentTimeMillis();
+        }
+
+        int disponible() {
+            return base - reservado;
+        }
+    }
+
+    private final ReentrantLock[] candados = new ReentrantLock[CANDADOS];
+    private final Map<Integer, Contador> contadores = new ConcurrentHashMap<>();
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    private final AtomicLong siguienteReserva = new AtomicLong();
+    private final CajaOfflineService caja = CajaOfflineService.getInstance();
+    private final InventarioDAO inventarioDAO = InventarioDAO.getInstance();
+
+    private ScheduledExecutorService programador;
+    private BusEventos.Suscripcion suscripcion;
+
+    private ReservaStockService() {
+        for (int i = 0; i < CANDADOS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    public static synchronized ReservaStockService getInstance() {
+        if (instance == null) {
+            instance = new ReservaStockService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reserva-stock");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::limpiar, INTERVALO_LIMPIEZA_SEG,
+                INTERVALO_LIMPIEZA_SEG, TimeUnit.SECONDS);
+        suscripcion = BusEventos.suscribir(EnumSet.of(EventoDominio.Tipo.CATALOGO_LOCAL_ACTUALIZADO),
+                new BusEventos.Suscriptor() {
+                    @Override
+                    public void recibir(EventoDominio evento) {
+                        if (evento.getId() == 0) {
+                            releerTodos();
+                        } else {
+                            releer(evento.getId());
+                        }
+                    }
+
+                    @Override
+                    public void desbordado() {
+                        releerTodos();
+                    }
+                }, programador);
+    }
+
+    public synchronized void detener() {
+        if (suscripcion != null) {
+            suscripcion.cancelar();
+            suscripcion = null;
+        }
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    // ==================== RESERVAS ====================
+
+    public Reserva nuevaReserva() {
+        Reserva reserva = new Reserva(siguienteReserva.incrementAndGet());
+        reservas.put(reserva.getId(), reserva);
+        return reserva;
+    }
+
+    /**
+     * Aparta unidades de un producto para el carrito.
+     *
+     * @return false si no hay stock suficiente (no se aparta nada)
+     */
+    public boolean reservar(Reserva reserva, int idProducto, int unidades) {
+        return reservar(reserva, Map.of(idProducto, unidades)) == 0;
+    }
+
+    /**
+     * Aparta todas las unidades o ninguna.
+     *
+     * @param unidades unidades por idProducto
+     * @return 0 si se apartó todo; si no, el ID del primer producto sin stock suficiente
+     */
+    public int reservar(Reserva reserva, Map<Integer, Integer> unidades) {
+        List<ReentrantLock> tomados = tomarConContadores(unidades.keySet());
+        try {
+            synchronized (reserva) {
+                reservas.putIfAbsent(reserva.getId(), reserva);
+                reserva.renovar();
+                for (Map.Entry<Integer, Integer> e : unidades.entrySet()) {
+                    if (e.getValue() > 0 && contador(e.getKey()).disponible() < e.getValue()) {
+                        return e.getKey();
+                    }
+                }
+                for (Map.Entry<Integer, Integer> e : unidades.entrySet()) {
+                    if (e.getValue() > 0) {
+                        contador(e.getKey()).reservado += e.getValue();
+                        reserva.unidades.merge(e.getKey(), e.getValue(), Integer::sum);
+                    }
+                }
+                return 0;
+            }
+        } finally {
+            soltar(tomados);
+        }
+    }
+
+    /**
+     * Devuelve unidades apartadas de un producto (ej. se quitó del carrito).
+     */
+    public void liberar(Reserva reserva, int idProducto, int unidades) {
+        ReentrantLock candado = candado(idProducto);
+        candado.lock();
+        try {
+            synchronized (reserva) {
+                reserva.renovar();
+                int apartadas = reserva.unidades.getOrDefault(idProducto, 0);
+                int devueltas = Math.min(apartadas, unidades);
+                if (devueltas <= 0) {
+                    return;
+                }
+                if (apartadas == devueltas) {
+                    reserva.unidades.remove(idProducto);
+                } else {
+                    reserva.unidades.put(idProducto, apartadas - devueltas);
+                }
+                Contador contador = contadores.get(idProducto);
+                if (contador != null) {
+                    contador.reservado -= devueltas;
+                }
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * La venta se guardó: se liberan las unidades y el stock base se vuelve
+     * a leer de la fuente, que ya incluye la venta.
+     */
+    public void confirmar(Reserva reserva) {
+        cerrar(reserva, true);
+    }
+
+    /**
+     * El carrito se vació o la venta falló: las unidades vuelven a estar disponibles.
+     */
+    public void cancelar(Reserva reserva) {
+        cerrar(reserva, false);
+    }
+
+    /**
+     * Unidades que todavía se pueden apartar de un producto.
+     */
+    public int disponible(int idProducto) {
+        List<ReentrantLock> tomados = tomarConContadores(Set.of(idProducto));
+        try {
+            return Math.max(contador(idProducto).disponible(), 0);
+        } finally {
+            soltar(tomados);
+        }
+    }
+
+    private void cerrar(Reserva reserva, boolean vendida) {
+        while (true) {
+            Map<Integer, Integer> apartadas;
+            synchronized (reserva) {
+                apartadas = new HashMap<>(reserva.unidades);
+            }
+            // El stock se lee fuera de los candados (puede ir a la BD)
+            Map<Integer, Integer> stock = new HashMap<>();
+            if (vendida) {
+                for (Integer idProducto : apartadas.keySet()) {
+                    stock.put(idProducto, leerStock(idProducto));
+                }
+            }
+            if (cerrarConCandados(reserva, apartadas, stock)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param stock stock base nuevo por producto (vacío si se cancela)
+     * @return false si la reserva sumó productos después de tomar los
+     *         candados (hay que volver a tomarlos)
+     */
+    private boolean cerrarConCandados(Reserva reserva, Map<Integer, Integer> apartadas, Map<Integer, Integer> stock) {
+        List<ReentrantLock> tomados = tomarCandados(apartadas.keySet());
+        try {
+            synchronized (reserva) {
+                if (!apartadas.keySet().containsAll(reserva.unidades.keySet())) {
+                    return false;
+                }
+                reservas.remove(reserva.getId());
+                for (Map.Entry<Integer, Integer> e : reserva.unidades.entrySet()) {
+                    Contador contador = contadores.get(e.getKey());
+                    if (contador != null) {
+                        contador.reservado -= e.getValue();
+                        Integer base = stock.get(e.getKey());
+                        if (base != null) {
+                            contador.base = base;
+                        }
+                    }
+                }
+                reserva.unidades.clear();
+                return true;
+            }
+        } finally {
+            soltar(tomados);
+        }
+    }
+
+    // ==================== CONTADORES ====================
+
+    /**
+     * Contador del producto. Requiere su candado y que el contador exista
+     * (tomarConContadores).
+     */
+    private Contador contador(int idProducto) {
+        Contador contador = contadores.get(idProducto);
+        contador.ultimoUso = System.currentTimeMillis();
+        return contador;
+    }
+
+    /**
+     * Toma los candados de los productos con sus contadores creados. El
+     * stock de los que no tienen contador se lee antes, sin candados (puede
+     * ir a la BD), como en cerrar(); con los candados solo se publica.
+     */
+    private List<ReentrantLock> tomarConContadores(Set<Integer> productos) {
+        while (true) {
+            Map<Integer, Integer> iniciales = new HashMap<>();
+            for (Integer idProducto : productos) {
+                if (!contadores.containsKey(idProducto)) {
+                    iniciales.put(idProducto, leerStock(idProducto));
+                }
+            }
+            List<ReentrantLock> tomados = tomarCandados(productos);
+            boolean completos = true;
+            for (Integer idProducto : productos) {
+                if (!contadores.containsKey(idProducto)) {
+                    Integer base = iniciales.get(idProducto);
+                    if (base == null) {
+                        completos = false;
+                        break;
+                    }
+                    contadores.put(idProducto, new Contador(base));
+                }
+            }
+            if (completos) {
+                return tomados;
+            }
+            // La limpieza descartó un contador entre la lectura y los candados
+            soltar(tomados);
+        }
+    }
+
+    /**
+     * Stock de la copia local de la caja; si el producto no está en ella se
+     * consulta Inventarios.
+     */
+    private int leerStock(int idProducto) {
+        Producto producto = caja.obtenerProductoDisponible(idProducto);
+        if (producto != null) {
+            return producto.getStockActual();
+        }
+        Inventario inventario = inventarioDAO.obtenerPorProducto(idProducto);
+        return inventario != null ? inventario.getCantidadActual() : 0;
+    }
+
+    private void releer(int idProducto) {
+        if (!contadores.containsKey(idProducto)) {
+            return;
+        }
+        int stock = leerStock(idProducto);
+        ReentrantLock candado = candado(idProducto);
+        candado.lock();
+        try {
+            Contador contador = contadores.get(idProducto);
+            if (contador != null) {
+                contador.base = stock;
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private void releerTodos() {
+        for (Integer idProducto : new ArrayList<>(contadores.keySet())) {
+            releer(idProducto);
+        }
+    }
+
+    // ==================== LIMPIEZA ====================
+
+    /**
+     * Libera las reservas vencidas y descarta los contadores sin uso.
+     */
+    private void limpiar() {
+        try {
+            long ahora = System.currentTimeMillis();
+            for (Reserva reserva : new ArrayList<>(reservas.values())) {
+                boolean vencida;
+                synchronized (reserva) {
+                    vencida = reserva.vence < ahora;
+                }
+                if (vencida) {
+                    cancelar(reserva);
+                }
+            }
+            for (Integer idProducto : new ArrayList<>(contadores.keySet())) {
+                ReentrantLock candado = candado(idProducto);
+                candado.lock();
+                try {
+                    Contador contador = contadores.get(idProducto);
+                    if (contador != null && contador.reservado == 0
+                            && ahora - contador.ultimoUso > INACTIVIDAD_CONTADOR_MS) {
+                        contadores.remove(idProducto);
+                    }
+                } finally {
+                    candado.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al limpiar reservas de stock: " + e.getMessage());
+        }
+    }
+
+    // ==================== CANDADOS ====================
+
+    private ReentrantLock candado(int idProducto) {
+        return candados[idProducto & (CANDADOS - 1)];
+    }
+
+    /**
+     * Toma los candados de los productos en orden ascendente (sin repetir),
+     * así dos carritos con productos cruzados no se bloquean entre sí.
+     */
+    private List<ReentrantLock> tomarCandados(Iterable<Integer> productos) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Integer idProducto : productos) {
+            indices.add(idProducto & (CANDADOS - 1));
+        }
+        List<ReentrantLock> tomados = new ArrayList<>(indices.size());
+        for (Integer indice : indices) {
+            candados[indice].lock();
+            tomados.add(candados[indice]);
+        }
+        return tomados;
+    }
+
+    private static void soltar(List<ReentrantLock> tomados) {
+        List<ReentrantLock> inverso = new ArrayList<>(tomados);
+        Collections.reverse(inverso);
+        for (ReentrantLock candado : inverso) {
+            candado.unlock();
+        }
+    }
+}
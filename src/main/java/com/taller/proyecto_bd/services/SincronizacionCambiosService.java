@@ -0,0 +1,252 @@
+package com.taller.proyecto_bd.services;
+
+import com.taller.proyecto_bd.dao.CambioDatosDAO;
+import com.taller.proyecto_bd.dao.FuenteCambios;
+import com.taller.proyecto_bd.models.CambioDatos;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
+import com.taller.proyecto_bd.utils.ConexionBD;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coherencia entre cajas: cada segundo lee del registro de cambios
+ * (CambiosDatos) lo que cambiaron las demás instancias y lo publica en
+ * BusEventos como si hubiera pasado aquí, así las cachés (copia local de la
+ * caja) y las vistas abiertas se actualizan fila por fila. Los cambios de
+ * esta misma instancia se saltan porque los DAO ya los publicaron.
+ *
+ * Un idCambio de una transacción que todavía no confirma aparece como
+ * hueco: la marca de lectura no lo pasa hasta verlo o hasta ESPERA_HUECO_MS
+ * (los rollbacks dejan huecos permanentes). Los ids saltados se vuelven a
+ * pedir en cada lectura durante ESPERA_REVISION_MS, por si la transacción
+ * larga confirma después. Los cambios ya aplicados por encima del hueco no
+ * se repiten.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class SincronizacionCambiosService {
+    private static SincronizacionCambiosService instance;
+
+    private static final long INTERVALO_MS = 1000;
+    private static final int LIMITE_LECTURA = 500;
+    private static final long ESPERA_HUECO_MS = 5000;
+    private static final long ESPERA_REVISION_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long INTERVALO_PURGA_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int HORAS_RETENCION = 24;
+    /** Más cambios de productos que esto en una lectura se avisan como CATALOGO_CAMBIADO */
+    private static final int UMBRAL_MASIVO = 200;
+
+    private final FuenteCambios fuente;
+    private final String instancia;
+
+    /** Todos los cambios hasta aquí ya se procesaron (-1: sin leer todavía) */
+    private long marca = -1;
+    /** Cambios ya procesados por encima de la marca (hay un hueco antes) */
+    private final TreeSet<Long> procesados = new TreeSet<>();
+    /** Ids que la marca saltó sin verlos, con el momento en que se saltaron */
+    private final TreeMap<Long, Long> saltados = new TreeMap<>();
+    private long huecoDesde;
+    private long ultimaPurga;
+    private ScheduledExecutorService programador;
+
+    private SincronizacionCambiosService() {
+        this(CambioDatosDAO.getInstance(), ConexionBD.INSTANCIA);
+    }
+
+    /**
+     * Con otra fuente de cambios, ej. FuenteCambios.EnMemoria para simular
+     * varias cajas sin servidor.
+     */
+    public SincronizacionCambiosService(FuenteCambios fuente, String instancia) {
+        this.fuente = fuente;
+        this.instancia = instancia;
+    }
+
+    public static synchronized SincronizacionCambiosService getInstance() {
+        if (instance == null) {
+            instance = new SincronizacionCambiosService();
+        }
+        return instance;
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    public synchronized void iniciar() {
+        if (programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sincronizacion-cambios");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::ejecutar, 0, INTERVALO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    private void ejecutar() {
+        try {
+            sondear();
+            if (System.currentTimeMillis() - ultimaPurga > INTERVALO_PURGA_MS) {
+                ultimaPurga = System.currentTimeMillis();
+                fuente.purgarAnterioresA(LocalDateTime.now().minusHours(HORAS_RETENCION));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al sincronizar cambios: " + e.getMessage());
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Lee los cambios nuevos y publica los de otras instancias. La primera
+     * llamada solo fija la marca en el último cambio existente.
+     *
+     * @return eventos publicados
+     */
+    public synchronized int sondear() {
+        if (marca < 0) {
+            marca = fuente.ultimoCambio();
+            return 0;
+        }
+
+        Map<String, EventoDominio> eventos = new LinkedHashMap<>();
+        revisarSaltados(eventos);
+        List<CambioDatos> cambios;
+        do {
+            long desde = marca;
+            cambios = fuente.leerDesde(marca, LIMITE_LECTURA);
+            for (CambioDatos cambio : cambios) {
+                if (cambio.getIdCambio() <= marca || !procesados.add(cambio.getIdCambio())) {
+                    continue;
+                }
+                agregarEvento(cambio, eventos);
+            }
+            avanzarMarca();
+            if (marca == desde) {
+                break;
+            }
+        } while (cambios.size() == LIMITE_LECTURA);
+
+        publicar(eventos);
+        return eventos.size();
+    }
+
+    private void agregarEvento(CambioDatos cambio, Map<String, EventoDominio> eventos) {
+        if (instancia.equals(cambio.getOrigen())) {
+            return;
+        }
+        EventoDominio evento = convertir(cambio);
+        if (evento != null) {
+            // Varios cambios de la misma fila en la lectura se avisan una vez
+            eventos.putIfAbsent(evento.getTipo() + ":" + evento.getId(), evento);
+        }
+    }
+
+    /**
+     * Vuelve a pedir los ids que la marca saltó: los que aparecen (su
+     * transacción confirmó tarde) se publican; los que siguen sin aparecer
+     * después de ESPERA_REVISION_MS se dan por rollbacks.
+     */
+    private void revisarSaltados(Map<String, EventoDominio> eventos) {
+        if (saltados.isEmpty()) {
+            return;
+        }
+        long limite = System.currentTimeMillis() - ESPERA_REVISION_MS;
+        saltados.values().removeIf(saltadoEn -> saltadoEn < limite);
+
+        List<Long> ids = saltados.keySet().stream().limit(LIMITE_LECTURA).toList();
+        for (CambioDatos cambio : fuente.leerIds(ids)) {
+            if (saltados.remove(cambio.getIdCambio()) != null) {
+                agregarEvento(cambio, eventos);
+            }
+        }
+    }
+
+    /**
+     * Sube la marca por los cambios contiguos ya procesados; un hueco se
+     * salta después de ESPERA_HUECO_MS y sus ids quedan en revisión.
+     */
+    private void avanzarMarca() {
+        while (!procesados.isEmpty()) {
+            long primero = procesados.first();
+            if (primero == marca + 1) {
+                marca = procesados.pollFirst();
+                huecoDesde = 0;
+                continue;
+            }
+            long ahora = System.currentTimeMillis();
+            if (huecoDesde == 0) {
+                huecoDesde = ahora;
+            }
+            if (ahora - huecoDesde < ESPERA_HUECO_MS) {
+                return;
+            }
+            // Un salto grande es el caché de IDENTITY tras un reinicio, no transacciones abiertas
+            for (long id = Math.max(marca + 1, primero - LIMITE_LECTURA); id < primero; id++) {
+                saltados.put(id, ahora);
+            }
+            marca = primero - 1;
+            huecoDesde = 0;
+        }
+    }
+
+    private void publicar(Map<String, EventoDominio> eventos) {
+        long deProductos = eventos.values().stream()
+                .filter(e -> e.getTipo() == EventoDominio.Tipo.PRODUCTO_ACTUALIZADO
+                        || e.getTipo() == EventoDominio.Tipo.STOCK_CAMBIADO)
+                .count();
+        boolean masivo = deProductos > UMBRAL_MASIVO;
+        for (EventoDominio evento : eventos.values()) {
+            if (masivo && (evento.getTipo() == EventoDominio.Tipo.PRODUCTO_ACTUALIZADO
+                    || evento.getTipo() == EventoDominio.Tipo.STOCK_CAMBIADO)) {
+                continue;
+            }
+            BusEventos.publicar(evento);
+        }
+        if (masivo) {
+            BusEventos.publicar(EventoDominio.Tipo.CATALOGO_CAMBIADO, 0);
+        }
+    }
+
+    private static EventoDominio convertir(CambioDatos cambio) {
+        int id = cambio.getIdRegistro();
+        boolean eliminado = cambio.esEliminacion();
+        switch (cambio.getTabla()) {
+            case CambioDatos.PRODUCTOS:
+                return new EventoDominio(eliminado ? EventoDominio.Tipo.PRODUCTO_ELIMINADO
+                        : EventoDominio.Tipo.PRODUCTO_ACTUALIZADO, id);
+            case CambioDatos.INVENTARIOS:
+                return new EventoDominio(EventoDominio.Tipo.STOCK_CAMBIADO, id);
+            case CambioDatos.CATEGORIAS:
+                return new EventoDominio(eliminado ? EventoDominio.Tipo.CATEGORIA_ELIMINADA
+                        : EventoDominio.Tipo.CATEGORIA_ACTUALIZADA, id);
+            case CambioDatos.CLIENTES:
+                return new EventoDominio(eliminado ? EventoDominio.Tipo.CLIENTE_ELIMINADO
+                        : EventoDominio.Tipo.CLIENTE_ACTUALIZADO, id);
+            case CambioDatos.VENTAS:
+                return new EventoDominio(CambioDatos.INSERCION.equals(cambio.getOperacion())
+                        ? EventoDominio.Tipo.VENTA_REGISTRADA : EventoDominio.Tipo.VENTA_ACTUALIZADA, id);
+            case CambioDatos.CUOTAS:
+                return new EventoDominio(EventoDominio.Tipo.CUOTA_PAGADA, id);
+            default:
+                return null;
+        }
+    }
+}
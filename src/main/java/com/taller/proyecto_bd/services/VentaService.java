@@ -3,10 +3,14 @@ package com.taller.proyecto_bd.services;
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
 import com.taller.proyecto_bd.utils.Constantes; // Importar Constantes
+import com.taller.proyecto_bd.utils.Dinero;
+import com.taller.proyecto_bd.utils.EventosJFR;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio para gestionar el proceso completo de una Venta.
@@ -24,6 +28,7 @@ public class VentaService {
     private CreditoDAO creditoDAO = CreditoDAO.getInstance();
     private CuotaDAO cuotaDAO = CuotaDAO.getInstance();
     private AuditoriaDAO auditoriaDAO = AuditoriaDAO.getInstance();
+    private ReservaStockService reservaStock = ReservaStockService.getInstance();
 
 
     // ==================== PROCESOS PRINCIPALES ====================
@@ -34,6 +39,36 @@ public class VentaService {
     public boolean realizarVenta(Cliente cliente, Usuario vendedor,
                                  List<DetalleVenta> detalles, boolean esCredito,
                                  double cuotaInicial, int plazoMeses, double interes) {
+        EventosJFR.VentaEvento evento = new EventosJFR.VentaEvento();
+        evento.begin();
+        boolean exitosa = false;
+        ReservaStockService.Reserva reserva = reservaStock.nuevaReserva();
+        try {
+            exitosa = procesarVenta(cliente, vendedor, detalles, esCredito, cuotaInicial, plazoMeses, interes,
+                    reserva, evento);
+            return exitosa;
+        } finally {
+            if (exitosa) {
+                reservaStock.confirmar(reserva);
+            } else {
+                reservaStock.cancelar(reserva);
+            }
+            if (evento.shouldCommit()) {
+                evento.idCliente = cliente != null ? cliente.getIdCliente() : 0;
+                evento.lineas = detalles != null ? detalles.size() : 0;
+                evento.esCredito = esCredito;
+                evento.cuotas = esCredito ? plazoMeses : 0;
+                evento.exitosa = exitosa;
+                evento.commit();
+            }
+        }
+    }
+
+    private boolean procesarVenta(Cliente cliente, Usuario vendedor,
+                                  List<DetalleVenta> detalles, boolean esCredito,
+                                  double cuotaInicial, int plazoMeses, double interes,
+                                  ReservaStockService.Reserva reserva,
+                                  EventosJFR.VentaEvento evento) {
 
         // 1. Validar datos básicos
         if (cliente == null || vendedor == null || detalles == null || detalles.isEmpty()) {
@@ -41,40 +76,35 @@ public class VentaService {
             return false;
         }
 
-        // Dentro de realizarVenta(), reemplaza el bloque de validación de stock:
-
-// 2. Validar stock
+        // 2. Reservar stock (en memoria, todo el carrito o nada)
+        Map<Integer, Integer> unidades = new HashMap<>();
         for (DetalleVenta d : detalles) {
-            Producto producto = productoDAO.obtenerPorId(d.getIdProducto());
-            if (producto == null) {
-                System.out.println(Constantes.MSG_ERROR_GENERAL + ": Producto no encontrado ID: " + d.getIdProducto());
-                return false;
-            }
-
-            Inventario inv = inventarioDAO.obtenerPorProducto(d.getIdProducto());
-            if (inv == null || inv.getCantidadActual() < d.getCantidad()) {
-                System.out.println(Constantes.MSG_ERROR_GENERAL + ": Stock insuficiente para producto: " + producto.getNombre());
-                return false;
-            }
+            unidades.merge(d.getIdProducto(), d.getCantidad(), Integer::sum);
+        }
+        int sinStock = reservaStock.reservar(reserva, unidades);
+        if (sinStock != 0) {
+            System.out.println(Constantes.MSG_ERROR_GENERAL + ": Stock insuficiente para producto ID: " + sinStock);
+            return false;
         }
 
-
-        // 3. Calcular totales
-        double subtotal = 0;
-        double ivaTotal = 0;
+        // 3. Calcular totales (exactos, en centavos)
+        long subtotal = 0;
+        long ivaTotal = 0;
 
         for (DetalleVenta d : detalles) {
             // Usar la constante de IVA
             d.calcularTotales(Constantes.IVA_DEFAULT);
-            subtotal += d.getSubtotal();
-            ivaTotal += d.getMontoIVA();
+            subtotal += d.getSubtotalCentavos();
+            ivaTotal += d.getMontoIVACentavos();
         }
 
-        double total = subtotal + ivaTotal;
+        long total = subtotal + ivaTotal;
+        evento.totalCentavos = total;
+        long cuotaInicialCentavos = Dinero.aCentavos(cuotaInicial);
 
         // 4. Validar crédito si aplica
         if (esCredito) {
-            if (cuotaInicial < 0 || cuotaInicial > total) {
+            if (cuotaInicialCentavos < 0 || cuotaInicialCentavos > total) {
                 System.out.println(Constantes.MSG_ERROR_GENERAL + ": Cuota inicial inválida.");
                 return false;
             }
@@ -100,10 +130,10 @@ public class VentaService {
         venta.setFechaVenta(new Date());
         venta.setEsCredito(esCredito);
         venta.setDetalles(new ArrayList<>(detalles)); // Asignar detalles para calcular totales
-        venta.setSubtotal(subtotal);
-        venta.setIvaTotal(ivaTotal);
-        venta.setTotal(total);
-        venta.setCuotaInicial(esCredito ? cuotaInicial : 0);
+        venta.setSubtotalCentavos(subtotal);
+        venta.setIvaTotalCentavos(ivaTotal);
+        venta.setTotalCentavos(total);
+        venta.setCuotaInicialCentavos(esCredito ? cuotaInicialCentavos : 0);
         venta.setPlazoMeses(esCredito ? plazoMeses : 0);
         venta.setEstado(Constantes.VENTA_REGISTRADA);
 
@@ -119,6 +149,8 @@ public class VentaService {
             return false;
         }
 
+        evento.idVenta = venta.getIdVenta();
+
         // 7. Guardar detalles de venta y actualizar inventario
         for (DetalleVenta d : detalles) {
             d.setIdVenta(venta.getIdVenta()); // Asignar el ID de la venta recién creada
@@ -128,28 +160,24 @@ public class VentaService {
                 return false;
             }
 
-            // Actualizar stock en Producto
-            Producto producto = productoDAO.obtenerPorId(d.getIdProducto());
-            if (producto != null) {
-                producto.setStockActual(producto.getStockActual() - d.getCantidad());
-                productoDAO.actualizar(producto);
-            }
+            // Actualizar stock en Producto (ajuste en la BD sobre el valor vigente)
+            productoDAO.ajustarStock(d.getIdProducto(), -d.getCantidad());
 
-            // Actualizar stock en Inventario
-            Inventario inv = inventarioDAO.obtenerPorProducto(d.getIdProducto());
-            if (inv != null) {
-                inv.registrarSalida(d.getCantidad()); // El DAO ya actualiza el objeto en su lista
-                // inventarioDAO.actualizar(inv); // No es necesario llamar explícitamente si registrarSalida ya actualiza el objeto en la lista
-            }
+            // Actualizar stock en Inventario dejando el movimiento en el kardex
+            inventarioDAO.registrarVenta(d.getIdProducto(), d.getCantidad(), venta);
         }
 
         // 8. Si es crédito -> generar crédito + cuotas
         if (esCredito) {
             try {
-                double montoFinanciado = total - cuotaInicial;
                 Credito credito = new Credito(venta.getIdVenta(), cliente.getIdCliente(),
-                        montoFinanciado, cuotaInicial, plazoMeses, interes);
+                        0, 0, plazoMeses, interes);
+                credito.setMontoTotalCentavos(total - cuotaInicialCentavos);
+                credito.setCuotaInicialCentavos(cuotaInicialCentavos);
                 credito.generarCuotas();
+                // El saldo incluye el interés: es lo que suman las cuotas
+                credito.setSaldoPendienteCentavos(credito.getCuotas().stream()
+                        .mapToLong(Cuota::getValorCentavos).sum());
 
                 if (!creditoDAO.agregar(credito)) {
                     System.out.println(Constantes.MSG_ERROR_GENERAL + ": Error al guardar crédito.");
@@ -182,6 +210,22 @@ public class VentaService {
      * Anular una venta (y su crédito si aplica).
      */
     public boolean anularVenta(int idVenta, Usuario usuario) {
+        EventosJFR.AnulacionVentaEvento evento = new EventosJFR.AnulacionVentaEvento();
+        evento.begin();
+        boolean exitosa = false;
+        try {
+            exitosa = procesarAnulacion(idVenta, usuario, evento);
+            return exitosa;
+        } finally {
+            if (evento.shouldCommit()) {
+                evento.idVenta = idVenta;
+                evento.exitosa = exitosa;
+                evento.commit();
+            }
+        }
+    }
+
+    private boolean procesarAnulacion(int idVenta, Usuario usuario, EventosJFR.AnulacionVentaEvento evento) {
         Venta venta = ventaDAO.obtenerPorId(idVenta);
         if (venta == null) {
             System.out.println(Constantes.MSG_VENTA_NO_ENCONTRADA);
@@ -192,34 +236,14 @@ public class VentaService {
             return false;
         }
 
-        // Devolver inventario
         List<DetalleVenta> detalles = detalleVentaDAO.obtenerPorVenta(idVenta);
-        for (DetalleVenta d : detalles) {
-            // Actualizar stock en Producto
-            Producto producto = productoDAO.obtenerPorId(d.getIdProducto());
-            if (producto != null) {
-                producto.setStockActual(producto.getStockActual() + d.getCantidad());
-                productoDAO.actualizar(producto);
-            }
-
-            // Actualizar stock en Inventario
-            Inventario inv = inventarioDAO.obtenerPorProducto(d.getIdProducto());
-            if (inv != null) {
-                inv.registrarEntrada(d.getCantidad()); // El DAO ya actualiza el objeto en su lista
-                // inventarioDAO.actualizar(inv); // No es necesario llamar explícitamente si registrarEntrada ya actualiza el objeto en la lista
-            }
-        }
-
-        // Anular crédito asociado
+        evento.lineas = detalles.size();
         Credito credito = creditoDAO.obtenerPorVenta(idVenta);
-        if (credito != null) {
-            credito.setEstado(Constantes.CREDITO_CANCELADO); // O "ANULADO" si se define ese estado
-            creditoDAO.actualizar(credito);
-        }
+        evento.conCredito = credito != null;
 
-        // Cambiar estado de venta
-        venta.setEstado(Constantes.VENTA_ANULADA);
-        boolean resultado = ventaDAO.actualizar(venta);
+        // Devolver el inventario, cancelar el crédito y marcar la venta en una transacción
+        boolean resultado = ventaDAO.anularVentaCompleta(idVenta, detalles,
+                credito != null ? credito.getIdCredito() : 0);
 
         // Registrar auditoría
         if (resultado) {
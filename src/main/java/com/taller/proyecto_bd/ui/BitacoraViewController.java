@@ -2,6 +2,7 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.AuditoriaDAO;
 import com.taller.proyecto_bd.models.Auditoria;
+import com.taller.proyecto_bd.models.FiltroAuditoria;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -26,6 +27,8 @@ public class BitacoraViewController {
     @FXML private ComboBox<String> cmbFiltroAccion;
     @FXML private TextField txtFiltroUsuario;
     @FXML private ComboBox<String> cmbFiltroTiempo;
+    @FXML private TextField txtFiltroTabla;
+    @FXML private CheckBox chkIncluirArchivo;
 
     @FXML private TableView<Auditoria> tablaAuditorias;
     @FXML private TableColumn<Auditoria, Integer> colID;
@@ -50,6 +53,9 @@ public class BitacoraViewController {
 
     // ==================== DATOS ====================
 
+    /** Máximo de registros por consulta; los más recientes primero */
+    private static final int LIMITE_REGISTROS = 5000;
+
     private final AuditoriaDAO auditoriaDAO = AuditoriaDAO.getInstance();
     private ObservableList<Auditoria> listaAuditorias = FXCollections.observableArrayList();
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -130,7 +136,8 @@ public class BitacoraViewController {
                 "Últimas 24 horas",
                 "Últimas 48 horas",
                 "Última semana",
-                "Último mes"
+                "Último mes",
+                "Último año"
         ));
         cmbFiltroTiempo.setValue("Todo el tiempo");
     }
@@ -148,43 +155,43 @@ public class BitacoraViewController {
     // ==================== CARGA DE DATOS ====================
 
     /**
-     * Carga todas las auditorías
+     * Carga las auditorías más recientes
      */
     @FXML
     private void cargarTodas() {
-        List<Auditoria> auditorias = auditoriaDAO.obtenerTodas();
-        listaAuditorias.clear();
-        listaAuditorias.addAll(auditorias);
-        actualizarEstadisticas();
+        cargar(nuevoFiltro());
     }
 
     /**
-     * Aplica los filtros seleccionados
+     * Aplica los filtros seleccionados. Todos se combinan en una sola
+     * consulta (AuditoriaDAO.buscar).
      */
     @FXML
     private void aplicarFiltros() {
-        List<Auditoria> auditorias;
+        FiltroAuditoria filtro = nuevoFiltro();
 
         // Filtrar por acción
         String accionSeleccionada = cmbFiltroAccion.getValue();
         if (accionSeleccionada != null && !accionSeleccionada.equals("Todas")) {
-            auditorias = auditoriaDAO.obtenerPorAccion(accionSeleccionada);
-        } else {
-            auditorias = auditoriaDAO.obtenerTodas();
+            filtro.setAccion(accionSeleccionada);
         }
 
         // Filtrar por usuario
         String usuarioTexto = txtFiltroUsuario.getText().trim();
         if (!usuarioTexto.isEmpty()) {
             try {
-                int idUsuario = Integer.parseInt(usuarioTexto);
-                auditorias = auditoriaDAO.obtenerPorUsuario(idUsuario);
+                filtro.setIdUsuario(Integer.parseInt(usuarioTexto));
             } catch (NumberFormatException e) {
                 mostrarError("Error", "El ID de usuario debe ser un número.");
                 return;
             }
         }
 
+        // Filtrar por tabla
+        if (!txtFiltroTabla.getText().isBlank()) {
+            filtro.setTablaAfectada(txtFiltroTabla.getText().trim());
+        }
+
         // Filtrar por tiempo
         String tiempoSeleccionado = cmbFiltroTiempo.getValue();
         if (tiempoSeleccionado != null && !tiempoSeleccionado.equals("Todo el tiempo")) {
@@ -193,16 +200,15 @@ public class BitacoraViewController {
                 case "Últimas 48 horas" -> 48;
                 case "Última semana" -> 168;
                 case "Último mes" -> 720;
+                case "Último año" -> 8760;
                 default -> 0;
             };
             if (horas > 0) {
-                auditorias = auditoriaDAO.obtenerRecientes(horas);
+                filtro.setDesde(new Date(System.currentTimeMillis() - horas * 3_600_000L));
             }
         }
 
-        listaAuditorias.clear();
-        listaAuditorias.addAll(auditorias);
-        actualizarEstadisticas();
+        cargar(filtro);
     }
 
     /**
@@ -213,6 +219,7 @@ public class BitacoraViewController {
         cmbFiltroAccion.setValue("Todas");
         txtFiltroUsuario.clear();
         cmbFiltroTiempo.setValue("Todo el tiempo");
+        txtFiltroTabla.clear();
         cargarTodas();
     }
 
@@ -221,9 +228,30 @@ public class BitacoraViewController {
      */
     @FXML
     private void verCriticas() {
-        List<Auditoria> criticas = auditoriaDAO.obtenerCriticas();
+        FiltroAuditoria filtro = FiltroAuditoria.criticas();
+        filtro.setLimite(LIMITE_REGISTROS);
+        filtro.setIncluirArchivo(incluirArchivo());
+        cargar(filtro);
+    }
+
+    /**
+     * Filtro vacío con el límite de registros y la opción de archivo
+     */
+    private FiltroAuditoria nuevoFiltro() {
+        FiltroAuditoria filtro = new FiltroAuditoria();
+        filtro.setLimite(LIMITE_REGISTROS);
+        filtro.setIncluirArchivo(incluirArchivo());
+        return filtro;
+    }
+
+    private boolean incluirArchivo() {
+        return chkIncluirArchivo.isSelected();
+    }
+
+    private void cargar(FiltroAuditoria filtro) {
+        List<Auditoria> auditorias = auditoriaDAO.buscar(filtro);
         listaAuditorias.clear();
-        listaAuditorias.addAll(criticas);
+        listaAuditorias.addAll(auditorias);
         actualizarEstadisticas();
     }
 
@@ -276,7 +304,8 @@ public class BitacoraViewController {
         int total = listaAuditorias.size();
         long criticas = listaAuditorias.stream().filter(Auditoria::esCritica).count();
 
-        lblTotalRegistros.setText("Total: " + total + " registros");
+        lblTotalRegistros.setText("Total: " + total + " registros"
+                + (total >= LIMITE_REGISTROS ? " (los más recientes)" : ""));
         lblCriticas.setText("Críticas: " + criticas);
     }
 
@@ -2,23 +2,30 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.ProductoDAO;
 import com.taller.proyecto_bd.dao.CategoriaDAO;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.utils.BusEventos;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
 import java.text.NumberFormat;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 
 /**
- * Controlador para la ventana de búsqueda rápida de productos
+ * Controlador para la ventana de búsqueda rápida de productos.
+ * Los productos activos se leen una vez y se mantienen al día con los
+ * eventos de BusEventos (incluidos los de otras cajas); la búsqueda filtra
+ * en memoria.
  */
-public class BuscarProductoController {
+public class BuscarProductoController implements VistasPrecargadas.Recargable {
 
     @FXML private TextField txtBuscar;
     @FXML private Button btnBuscar;
@@ -34,7 +41,8 @@ public class BuscarProductoController {
 
     private ProductoDAO productoDAO;
     private CategoriaDAO categoriaDAO;
-    private ObservableList<Producto> listaProductos;
+    private ObservableList<Producto> listaProductos = FXCollections.observableArrayList();
+    private FilteredList<Producto> productosFiltrados = new FilteredList<>(listaProductos);
     private Producto productoSeleccionado;
     private NumberFormat formatoMoneda;
 
@@ -48,8 +56,20 @@ public class BuscarProductoController {
         formatoMoneda = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("es-CO"));
 
         configurarTabla();
+        tblProductos.setItems(productosFiltrados);
         cargarProductos();
         configurarEventos();
+        suscribirEventos();
+    }
+
+    /**
+     * Limpia la búsqueda cuando la vista se cargó de antemano
+     * (VistasPrecargadas); la lista ya está al día por los eventos.
+     */
+    @Override
+    public void recargarDatos() {
+        txtBuscar.clear();
+        productosFiltrados.setPredicate(null);
     }
 
     /**
@@ -120,9 +140,7 @@ public class BuscarProductoController {
      */
     private void cargarProductos() {
         List<Producto> productos = productoDAO.obtenerActivos();
-
-        listaProductos = FXCollections.observableArrayList(productos);
-        tblProductos.setItems(listaProductos);
+        listaProductos.setAll(productos);
     }
 
     /**
@@ -133,27 +151,72 @@ public class BuscarProductoController {
         String textoBusqueda = txtBuscar.getText().trim().toLowerCase();
 
         if (textoBusqueda.isEmpty()) {
-            cargarProductos();
+            productosFiltrados.setPredicate(null);
             return;
         }
 
-        List<Producto> productosFiltrados = productoDAO.obtenerActivos().stream()
-            .filter(p ->
-                p.getCodigo().toLowerCase().contains(textoBusqueda) ||
-                p.getNombre().toLowerCase().contains(textoBusqueda) ||
-                (p.getMarca() != null && p.getMarca().toLowerCase().contains(textoBusqueda)) ||
-                (p.getModelo() != null && p.getModelo().toLowerCase().contains(textoBusqueda))
-            )
-            .toList();
-
-        listaProductos = FXCollections.observableArrayList(productosFiltrados);
-        tblProductos.setItems(listaProductos);
+        productosFiltrados.setPredicate(p ->
+            p.getCodigo().toLowerCase().contains(textoBusqueda) ||
+            p.getNombre().toLowerCase().contains(textoBusqueda) ||
+            (p.getMarca() != null && p.getMarca().toLowerCase().contains(textoBusqueda)) ||
+            (p.getModelo() != null && p.getModelo().toLowerCase().contains(textoBusqueda))
+        );
 
         if (productosFiltrados.isEmpty()) {
             mostrarInformacion("Sin resultados", "No se encontraron productos que coincidan con la búsqueda");
         }
     }
 
+    // ==================== EVENTOS DE DOMINIO ====================
+
+    /**
+     * Corrige solo el producto afectado; un cambio masivo del catálogo
+     * recarga la lista.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(tblProductos, EnumSet.of(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO,
+                EventoDominio.Tipo.PRODUCTO_ELIMINADO, EventoDominio.Tipo.STOCK_CAMBIADO,
+                EventoDominio.Tipo.CATALOGO_CAMBIADO), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                if (evento.getTipo() == EventoDominio.Tipo.CATALOGO_CAMBIADO) {
+                    cargarProductos();
+                } else {
+                    aplicarEvento(evento.getId());
+                }
+            }
+
+            @Override
+            public void desbordado() {
+                cargarProductos();
+            }
+        });
+    }
+
+    private void aplicarEvento(int idProducto) {
+        int indice = indicePorId(idProducto);
+        Producto producto = productoDAO.obtenerPorId(idProducto);
+
+        if (producto == null || !producto.isActivo()) {
+            if (indice >= 0) {
+                listaProductos.remove(indice);
+            }
+        } else if (indice >= 0) {
+            listaProductos.set(indice, producto);
+        } else {
+            listaProductos.add(producto);
+        }
+    }
+
+    private int indicePorId(int idProducto) {
+        for (int i = 0; i < listaProductos.size(); i++) {
+            if (listaProductos.get(i).getIdProducto() == idProducto) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Selecciona el producto y cierra la ventana
      */
@@ -1,9 +1,13 @@
 package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.controllers.CalculadoraController;
+import com.taller.proyecto_bd.models.SimulacionCredito;
+import com.taller.proyecto_bd.services.CalculadoraService;
+import com.taller.proyecto_bd.utils.Dinero;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
 import java.text.DecimalFormat;
@@ -34,6 +38,7 @@ public class CalculadoraViewController {
     @FXML private TextField txtTotalFinanciar;
     @FXML private TextField txtValorCuota;
     @FXML private TextField txtTotalPagar;
+    @FXML private TextArea txtComparativoPlazos;
 
     // Tab 3: Margen de Ganancia
     @FXML private TextField txtCosto;
@@ -55,8 +60,15 @@ public class CalculadoraViewController {
 
     // ==================== INSTANCIA DEL CONTROLADOR DE NEGOCIO ====================
     private final CalculadoraController calculadora = new CalculadoraController();
+    private final CalculadoraService calculadoraService = new CalculadoraService();
     private final DecimalFormat df = new DecimalFormat("#,##0.00");
 
+    // Porcentajes de cuota inicial que se comparan en la oferta de crédito
+    private static final double[] PORCENTAJES_INICIALES = {0.30, 0.40, 0.50};
+
+    // Última simulación; se reutiliza mientras no cambie el precio
+    private SimulacionCredito simulacion;
+
     // ==================== INICIALIZACIÓN ====================
 
     @FXML
@@ -122,32 +134,27 @@ public class CalculadoraViewController {
             int plazoMeses = Integer.parseInt(plazoStr);
 
             // CALCULAR SEGÚN LA POLÍTICA DE CRÉDITO
+            // (30% inicial, 70% + 5% de interés; se simulan todos los plazos a la vez)
+            SimulacionCredito sim = obtenerSimulacion(precioArticulo);
+            int escenario = sim.buscar(plazoMeses, CalculadoraService.PORCENTAJE_CUOTA_INICIAL);
+            if (escenario < 0) {
+                mostrarError("Error", "Plazo no permitido: " + plazoMeses + " meses.");
+                return;
+            }
 
-            // 1. Cuota inicial del 30%
-            double cuotaInicial = precioArticulo * 0.30;
-
-            // 2. Saldo a financiar (70%)
-            double saldoFinanciar = precioArticulo * 0.70;
-
-            // 3. Interés del 5% sobre el saldo a financiar
-            double interes = saldoFinanciar * 0.05;
-
-            // 4. Total a financiar (saldo + interés)
-            double totalFinanciar = saldoFinanciar + interes;
-
-            // 5. Valor de la cuota mensual
-            double valorCuota = totalFinanciar / plazoMeses;
-
-            // 6. Total a pagar (cuota inicial + total financiado)
-            double totalPagar = cuotaInicial + totalFinanciar;
+            long cuotaInicial = sim.getCuotaInicialCentavos(escenario);
+            long saldoFinanciar = sim.getSaldoFinanciarCentavos(escenario);
+            long interes = sim.getInteresCentavos(escenario);
 
             // Mostrar resultados
-            txtCuotaInicial.setText("$ " + df.format(cuotaInicial));
-            txtSaldoFinanciar.setText("$ " + df.format(saldoFinanciar));
-            txtInteresCredito.setText("$ " + df.format(interes));
-            txtTotalFinanciar.setText("$ " + df.format(totalFinanciar));
-            txtValorCuota.setText("$ " + df.format(valorCuota));
-            txtTotalPagar.setText("$ " + df.format(totalPagar));
+            txtCuotaInicial.setText("$ " + formatear(cuotaInicial));
+            txtSaldoFinanciar.setText("$ " + formatear(saldoFinanciar));
+            txtInteresCredito.setText("$ " + formatear(interes));
+            txtTotalFinanciar.setText("$ " + formatear(saldoFinanciar + interes));
+            txtValorCuota.setText("$ " + formatear(sim.getValorCuotaCentavos(escenario)));
+            txtTotalPagar.setText("$ " + formatear(sim.getTotalPagarCentavos(escenario)));
+
+            txtComparativoPlazos.setText(generarComparativo(sim));
 
         } catch (NumberFormatException e) {
             mostrarError("Error", "Por favor ingrese valores válidos.");
@@ -164,6 +171,7 @@ public class CalculadoraViewController {
         txtTotalFinanciar.clear();
         txtValorCuota.clear();
         txtTotalPagar.clear();
+        txtComparativoPlazos.clear();
     }
 
     /**
@@ -251,6 +259,39 @@ public class CalculadoraViewController {
 
     // ==================== MÉTODOS AUXILIARES ====================
 
+    /**
+     * Devuelve la simulación de todos los escenarios para el precio,
+     * recalculando solo si el precio cambió.
+     */
+    private SimulacionCredito obtenerSimulacion(double precio) {
+        long precioCentavos = Dinero.aCentavos(precio);
+        if (simulacion == null || simulacion.getPrecioCentavos() != precioCentavos) {
+            simulacion = calculadoraService.simularEscenarios(precio, PORCENTAJES_INICIALES);
+        }
+        return simulacion;
+    }
+
+    /**
+     * Tabla de texto con cuota inicial, cuota mensual y total por escenario.
+     */
+    private String generarComparativo(SimulacionCredito sim) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-8s %-8s %16s %16s %16s%n", "Inicial", "Plazo", "Cuota inicial", "Cuota mensual", "Total a pagar"));
+        for (int e = 0; e < sim.getCantidadEscenarios(); e++) {
+            sb.append(String.format("%-8s %-8s %16s %16s %16s%n",
+                    Math.round(sim.getPorcentajeInicial(e) * 100) + "%",
+                    sim.getPlazo(e) + " m",
+                    formatear(sim.getCuotaInicialCentavos(e)),
+                    formatear(sim.getValorCuotaCentavos(e)),
+                    formatear(sim.getTotalPagarCentavos(e))));
+        }
+        return sb.toString();
+    }
+
+    private String formatear(long centavos) {
+        return df.format(Dinero.aDouble(centavos));
+    }
+
     /**
      * Parsea un texto a double, manejando valores vacíos
      */
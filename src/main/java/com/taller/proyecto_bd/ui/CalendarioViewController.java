@@ -1,20 +1,33 @@
 package com.taller.proyecto_bd.ui;
 
+import com.taller.proyecto_bd.models.AgendaMes;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.services.CalendarioService;
+import com.taller.proyecto_bd.utils.BusEventos;
+import com.taller.proyecto_bd.utils.Dinero;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 
+import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
+import java.time.YearMonth;
 import java.util.Calendar;
+import java.util.EnumSet;
 import java.util.Locale;
 
 /**
  * Controlador de la vista del Calendario.
- * Muestra un calendario mensual interactivo.
+ * Muestra un calendario mensual con la agenda de cobranza de cada día:
+ * cuotas que vencen, lo cobrado y las ventas. El fondo de cada día se
+ * oscurece según el valor que vence, relativo al día más cargado del mes.
  *
  * @author Sistema
  * @version 1.0
@@ -26,6 +39,7 @@ public class CalendarioViewController {
     @FXML private Label lblMesAnio;
     @FXML private Label lblFechaActual;
     @FXML private Label lblDiaAnio;
+    @FXML private Label lblResumenMes;
     @FXML private GridPane gridCalendario;
     @FXML private ComboBox<String> cmbMes;
     @FXML private ComboBox<Integer> cmbAnio;
@@ -37,6 +51,13 @@ public class CalendarioViewController {
     private final SimpleDateFormat formatoMesAnio = new SimpleDateFormat("MMMM yyyy", new Locale("es", "ES"));
     private final SimpleDateFormat formatoFechaCompleta = new SimpleDateFormat("EEEE, d 'de' MMMM 'de' yyyy", new Locale("es", "ES"));
 
+    private final NumberFormat formatoMoneda = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
+    private final CalendarioService calendarioService = CalendarioService.getInstance();
+
+    /** Celdas del mes mostrado, por día (índice 0 sin usar) */
+    private VBox[] celdasDia = new VBox[0];
+    private YearMonth mesMostrado;
+
     private final String[] MESES = {
             "Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
             "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"
@@ -52,6 +73,8 @@ public class CalendarioViewController {
 
         // Configurar ComboBoxes
         configurarComboBoxes();
+        formatoMoneda.setMaximumFractionDigits(0);
+        suscribirEventos();
 
         // Mostrar el calendario actual
         actualizarCalendario();
@@ -71,6 +94,36 @@ public class CalendarioViewController {
         }
     }
 
+    /**
+     * Vuelve a leer el mes mostrado cuando hay pagos, ventas o mora nueva
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(gridCalendario, EnumSet.of(EventoDominio.Tipo.CUOTA_PAGADA,
+                EventoDominio.Tipo.VENTA_REGISTRADA, EventoDominio.Tipo.VENTA_ACTUALIZADA,
+                EventoDominio.Tipo.VENTA_ANULADA, EventoDominio.Tipo.CLIENTE_ACTUALIZADO),
+                new BusEventos.Suscriptor() {
+                    private boolean cambios;
+
+                    @Override
+                    public void recibir(EventoDominio evento) {
+                        cambios = true;
+                    }
+
+                    @Override
+                    public void desbordado() {
+                        recargarAgenda();
+                    }
+
+                    @Override
+                    public void finLote() {
+                        if (cambios) {
+                            cambios = false;
+                            recargarAgenda();
+                        }
+                    }
+                });
+    }
+
     // ==================== ACTUALIZACIÓN DE VISTA ====================
 
     /**
@@ -94,6 +147,9 @@ public class CalendarioViewController {
 
         // Días del mes actual
         int diasEnMes = calendarioActual.getActualMaximum(Calendar.DAY_OF_MONTH);
+        celdasDia = new VBox[diasEnMes + 1];
+        mesMostrado = YearMonth.of(calendarioActual.get(Calendar.YEAR),
+                calendarioActual.get(Calendar.MONTH) + 1);
 
         // Crear 6 filas (máximo necesario para cualquier mes)
         for (int i = 0; i < 6; i++) {
@@ -112,7 +168,8 @@ public class CalendarioViewController {
                     gridCalendario.add(celda, col, fila);
                 } else {
                     // Celda con día
-                    StackPane celda = crearCeldaDia(dia);
+                    VBox celda = crearCeldaDia(dia);
+                    celdasDia[dia] = celda;
                     gridCalendario.add(celda, col, fila);
                     dia++;
                 }
@@ -120,23 +177,102 @@ public class CalendarioViewController {
             // Si ya mostramos todos los días, salir del loop
             if (dia > diasEnMes) break;
         }
+
+        cargarAgenda();
+    }
+
+    /**
+     * Pide la agenda del mes mostrado; la grilla ya está dibujada y los
+     * datos se agregan al llegar, si el usuario no cambió de mes.
+     */
+    private void cargarAgenda() {
+        YearMonth mes = mesMostrado;
+        lblResumenMes.setText("Cargando...");
+        calendarioService.obtener(mes).thenAccept(agenda -> Platform.runLater(() -> {
+            if (!mes.equals(mesMostrado)) {
+                return;
+            }
+            if (agenda == null) {
+                lblResumenMes.setText("No se pudo cargar la agenda del mes");
+            } else {
+                mostrarAgenda(agenda);
+            }
+        }));
+    }
+
+    /**
+     * Descarta la caché y vuelve a leer el mes mostrado
+     */
+    private void recargarAgenda() {
+        calendarioService.invalidar();
+        actualizarCalendario();
+    }
+
+    /**
+     * Llena las celdas del mes con los datos de la agenda
+     */
+    private void mostrarAgenda(AgendaMes agenda) {
+        long maximo = agenda.getMaximoVenceCentavos();
+        for (int dia = 1; dia < celdasDia.length; dia++) {
+            VBox celda = celdasDia[dia];
+            int vencen = agenda.getCuotasVencen(dia);
+            long vence = agenda.getValorVenceCentavos(dia);
+            long cobrado = agenda.getValorCobradoCentavos(dia);
+            long ventas = agenda.getValorVentasCentavos(dia);
+
+            if (vencen > 0) {
+                celda.getChildren().add(crearDato("Vencen " + vencen + " · " + moneda(vence), "#c0392b"));
+                // Más oscuro cuanto más vence frente al día más cargado
+                double intensidad = 0.10 + 0.55 * vence / Math.max(maximo, 1);
+                celda.setStyle(celda.getStyle() + String.format(Locale.ROOT,
+                        " -fx-background-color: rgba(231, 76, 60, %.2f);", intensidad));
+            }
+            if (cobrado > 0) {
+                celda.getChildren().add(crearDato("Cobrado " + moneda(cobrado), "#1e8449"));
+            }
+            if (ventas > 0) {
+                celda.getChildren().add(crearDato("Ventas " + moneda(ventas), "#2c3e50"));
+            }
+            if (vencen > 0 || cobrado > 0 || ventas > 0) {
+                Tooltip.install(celda, new Tooltip(String.format(
+                        "Cuotas que vencen: %d (%d pendientes) por %s%nCuotas cobradas: %d por %s%nVentas: %d por %s",
+                        vencen, agenda.getCuotasPendientes(dia), moneda(vence),
+                        agenda.getCuotasCobradas(dia), moneda(cobrado),
+                        agenda.getVentas(dia), moneda(ventas))));
+            }
+        }
+
+        lblResumenMes.setText(String.format("Vencen %d cuotas por %s · Cobrado %s · Ventas %d por %s",
+                agenda.getTotalCuotasVencen(), moneda(agenda.getTotalVenceCentavos()),
+                moneda(agenda.getTotalCobradoCentavos()),
+                agenda.getTotalVentas(), moneda(agenda.getTotalVentasCentavos())));
+    }
+
+    private Label crearDato(String texto, String color) {
+        Label dato = new Label(texto);
+        dato.setStyle("-fx-font-size: 10; -fx-text-fill: " + color + ";");
+        return dato;
+    }
+
+    private String moneda(long centavos) {
+        return formatoMoneda.format(Dinero.aDouble(centavos));
     }
 
     /**
      * Crea una celda de día del calendario
      */
-    private StackPane crearCeldaDia(int dia) {
-        StackPane celda = new StackPane();
+    private VBox crearCeldaDia(int dia) {
+        VBox celda = new VBox(1);
         celda.setAlignment(Pos.TOP_CENTER);
         celda.setStyle("-fx-padding: 5;");
 
         Label lblDia = new Label(String.valueOf(dia));
         lblDia.setStyle("-fx-font-size: 16; -fx-font-weight: bold;");
 
-        // Verificar si es el día actual
+        // Verificar si es el día actual (con borde, el fondo es del mapa de calor)
         if (esDiaActual(dia)) {
-            celda.setStyle("-fx-background-color: #3498db; -fx-padding: 5;");
-            lblDia.setStyle("-fx-font-size: 16; -fx-font-weight: bold; -fx-text-fill: white;");
+            celda.setStyle("-fx-border-color: #3498db; -fx-border-width: 3; -fx-padding: 2;");
+            lblDia.setStyle("-fx-font-size: 16; -fx-font-weight: bold; -fx-text-fill: #3498db;");
         }
         // Verificar si es fin de semana
         else if (esFinDeSemana(dia)) {
@@ -4,7 +4,9 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.CategoriaDAO;
 import com.taller.proyecto_bd.models.Categoria;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.utils.BusEventos;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,6 +15,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -76,6 +79,7 @@ public class CategoriasController {
         configurarEventos();
         configurarPermisos();
         actualizarEstadisticas();
+        suscribirEventos();
     }
 
     /**
@@ -194,6 +198,65 @@ public class CategoriasController {
         actualizarEstadisticas();
     }
     
+    // ==================== EVENTOS DE DOMINIO ====================
+
+    /**
+     * Mantiene la tabla al día con los cambios publicados en BusEventos:
+     * solo se vuelve a leer la fila de la categoría afectada. La lista de
+     * padres se recarga una vez por lote.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(tablaCategorias, EnumSet.of(EventoDominio.Tipo.CATEGORIA_ACTUALIZADA,
+                EventoDominio.Tipo.CATEGORIA_ELIMINADA), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                aplicarEvento(evento);
+            }
+
+            @Override
+            public void finLote() {
+                cargarCategoriasPadre();
+                actualizarEstadisticas();
+            }
+
+            @Override
+            public void desbordado() {
+                cargarCategoriasPadre();
+                buscar();
+            }
+        });
+    }
+
+    private void aplicarEvento(EventoDominio evento) {
+        int id = evento.getId();
+        // No se pisa el formulario que se está editando; la fila se refresca al guardar
+        if (categoriaSeleccionada != null && categoriaSeleccionada.getIdCategoria() == id) {
+            return;
+        }
+        int indice = indicePorId(id);
+        Categoria categoria = evento.getTipo() == EventoDominio.Tipo.CATEGORIA_ELIMINADA
+                ? null : categoriaDAO.obtenerPorId(id);
+
+        if (categoria == null) {
+            if (indice >= 0) {
+                listaCategorias.remove(indice);
+            }
+        } else if (indice >= 0) {
+            listaCategorias.set(indice, categoria);
+        } else if (txtBuscar.getText().trim().isEmpty()) {
+            listaCategorias.add(categoria);
+        }
+    }
+
+    private int indicePorId(int idCategoria) {
+        for (int i = 0; i < listaCategorias.size(); i++) {
+            if (listaCategorias.get(i).getIdCategoria() == idCategoria) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Configura los eventos de la interfaz
      */
@@ -347,8 +410,6 @@ public class CategoriasController {
             if (exito) {
                 mostrarMensajeExito(esNueva ? "Categoría guardada exitosamente" : 
                                              "Categoría actualizada exitosamente");
-                cargarCategorias();
-                cargarCategoriasPadre(); // Actualizar la lista de padres
                 limpiarCampos();
                 categoriaSeleccionada = null;
             } else {
@@ -389,8 +450,6 @@ public class CategoriasController {
             
             if (exito) {
                 mostrarMensajeExito("Categoría eliminada exitosamente");
-                cargarCategorias();
-                cargarCategoriasPadre(); // Actualizar la lista de padres
                 limpiarCampos();
                 categoriaSeleccionada = null;
             } else {
@@ -1,8 +1,11 @@
 package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.ClienteDAO;
+import com.taller.proyecto_bd.dao.ResultadoActualizacion;
 import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.utils.BusEventos;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,6 +18,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
 import java.text.NumberFormat;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -113,6 +117,7 @@ public class ClientesController {
         configurarEventos();
         configurarPermisos();
         actualizarEstadisticas();
+        suscribirEventos();
     }
 
     /**
@@ -191,6 +196,85 @@ public class ClientesController {
         actualizarEstadisticas();
     }
 
+    // ==================== EVENTOS DE DOMINIO ====================
+
+    /**
+     * Mantiene la tabla al día con los cambios publicados en BusEventos:
+     * solo se vuelve a leer la fila del cliente afectado.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(tablaClientes, EnumSet.of(EventoDominio.Tipo.CLIENTE_ACTUALIZADO,
+                EventoDominio.Tipo.CLIENTE_ELIMINADO), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                aplicarEvento(evento);
+            }
+
+            @Override
+            public void finLote() {
+                actualizarEstadisticas();
+            }
+
+            @Override
+            public void desbordado() {
+                buscar();
+            }
+        });
+    }
+
+    private void aplicarEvento(EventoDominio evento) {
+        int id = evento.getId();
+        // No se pisa el formulario que se está editando; la fila se refresca al guardar
+        if (clienteSeleccionado != null && clienteSeleccionado.getIdCliente() == id) {
+            return;
+        }
+        int indice = indicePorId(id);
+        Cliente cliente = evento.getTipo() == EventoDominio.Tipo.CLIENTE_ELIMINADO ? null : clienteDAO.obtenerPorId(id);
+        boolean sinBusqueda = txtBuscar.getText().trim().isEmpty();
+
+        // Sin búsqueda la tabla muestra solo los activos
+        if (cliente == null || (sinBusqueda && !cliente.isActivo())) {
+            if (indice >= 0) {
+                listaClientes.remove(indice);
+            }
+        } else if (indice >= 0) {
+            listaClientes.set(indice, cliente);
+        } else if (sinBusqueda) {
+            listaClientes.add(cliente);
+        }
+    }
+
+    /**
+     * Otro usuario guardó el cliente mientras se editaba: se reemplaza la
+     * fila (que tiene los cambios sin guardar) por la vigente y se vuelve a
+     * cargar en el formulario.
+     */
+    private void recargarPorConflicto(int idCliente) {
+        Cliente vigente = clienteDAO.obtenerPorId(idCliente);
+        int indice = indicePorId(idCliente);
+        clienteSeleccionado = null;
+        if (vigente == null) {
+            if (indice >= 0) {
+                listaClientes.remove(indice);
+            }
+            limpiarCampos();
+            return;
+        }
+        if (indice >= 0) {
+            listaClientes.set(indice, vigente);
+        }
+        tablaClientes.getSelectionModel().select(vigente);
+    }
+
+    private int indicePorId(int idCliente) {
+        for (int i = 0; i < listaClientes.size(); i++) {
+            if (listaClientes.get(i).getIdCliente() == idCliente) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Configura los eventos de la interfaz
      */
@@ -332,12 +416,17 @@ public class ClientesController {
             if (esNuevo) {
                 exito = clienteDAO.agregar(cliente);
             } else {
-                exito = clienteDAO.actualizar(cliente);
+                ResultadoActualizacion resultado = clienteDAO.actualizarConVersion(cliente);
+                if (resultado == ResultadoActualizacion.CONFLICTO) {
+                    recargarPorConflicto(cliente.getIdCliente());
+                    mostrarMensajeError("Otro usuario modificó este cliente. Se cargaron sus datos actuales; revise y vuelva a guardar.");
+                    return;
+                }
+                exito = resultado == ResultadoActualizacion.ACTUALIZADO;
             }
 
             if (exito) {
                 mostrarMensajeExito(esNuevo ? "Cliente guardado exitosamente" : "Cliente actualizado exitosamente");
-                cargarClientes();
                 limpiarCampos();
                 clienteSeleccionado = null;
             } else {
@@ -381,13 +470,15 @@ public class ClientesController {
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
             // Cambiar estado a inactivo (eliminación lógica)
             clienteSeleccionado.setActivo(false);
-            boolean exito = clienteDAO.actualizar(clienteSeleccionado);
+            ResultadoActualizacion resultadoInactivar = clienteDAO.actualizarConVersion(clienteSeleccionado);
 
-            if (exito) {
+            if (resultadoInactivar == ResultadoActualizacion.ACTUALIZADO) {
                 mostrarMensajeExito("Cliente inactivado exitosamente");
-                cargarClientes();
                 limpiarCampos();
                 clienteSeleccionado = null;
+            } else if (resultadoInactivar == ResultadoActualizacion.CONFLICTO) {
+                recargarPorConflicto(clienteSeleccionado.getIdCliente());
+                mostrarMensajeError("Otro usuario modificó este cliente. Revise sus datos actuales e intente de nuevo.");
             } else {
                 mostrarMensajeError("Error al inactivar el cliente");
             }
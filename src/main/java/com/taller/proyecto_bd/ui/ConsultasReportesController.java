@@ -1,8 +1,16 @@
 package com.taller.proyecto_bd.ui;
 
 
+import com.taller.proyecto_bd.controllers.ReporteController;
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.services.AnalisisABCService;
+import com.taller.proyecto_bd.services.CarteraService;
+import com.taller.proyecto_bd.services.PronosticoDemandaService;
+import com.taller.proyecto_bd.utils.ClasificacionABC;
+import com.taller.proyecto_bd.utils.DateUtils;
+import com.taller.proyecto_bd.utils.Dinero;
+import com.taller.proyecto_bd.utils.EventosJFR;
 import com.taller.proyecto_bd.utils.PDFExporter;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -24,6 +32,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -46,9 +56,11 @@ public class ConsultasReportesController {
     private VentaDAO ventaDAO;
     private DetalleVentaDAO detalleVentaDAO;
     private CreditoDAO creditoDAO;
+    private ReporteController reporteController;
 
     private NumberFormat formatoMoneda;
     private JFreeChart graficaActual;
+    private EventosJFR.ReporteEvento reporteEnCurso;
     
     @FXML
     public void initialize() {
@@ -58,6 +70,7 @@ public class ConsultasReportesController {
         ventaDAO = VentaDAO.getInstance();
         detalleVentaDAO = DetalleVentaDAO.getInstance();
         creditoDAO = CreditoDAO.getInstance();
+        reporteController = new ReporteController();
         
         formatoMoneda = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
     }
@@ -162,7 +175,7 @@ public class ConsultasReportesController {
         }
         
         mostrarResultados(datos);
-        double totalVentas = ventas.stream().mapToDouble(Venta::getTotal).sum();
+        double totalVentas = Dinero.aDouble(ventas.stream().mapToLong(Venta::getTotalCentavos).sum());
         long ventasCredito = ventas.stream().filter(Venta::isEsCredito).count();
         mostrarResumen("═══ RESUMEN ═══\n" +
                       "Total ventas: " + ventas.size() + "\n" +
@@ -174,39 +187,43 @@ public class ConsultasReportesController {
     
     /**
      * CONSULTA 4: Productos con Bajo Stock
-     * Multitabla: Producto + Categoria
+     * Multitabla: Producto + Categoria + PronosticosDemanda
+     * El punto de reorden sale del pronóstico de demanda; sin pronóstico, del stock mínimo.
      */
     @FXML
     private void consultaProductosBajoStock() {
         lblTituloResultado.setText("⚠️ Consulta: Productos con Bajo Stock (Alerta)");
         limpiarTabla();
         
-        List<Producto> productos = productoDAO.obtenerStockBajo();
+        PronosticoDemandaService pronosticos = PronosticoDemandaService.getInstance();
+        List<PronosticoDemanda> productos = pronosticos.obtenerReposicion();
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
         
-        for (Producto p : productos) {
-            Categoria cat = categoriaDAO.obtenerPorId(p.getIdCategoria());
+        for (PronosticoDemanda p : productos) {
             Map<String, Object> fila = new HashMap<>();
             fila.put("Código", p.getCodigo());
             fila.put("Producto", p.getNombre());
-            fila.put("Categoría", cat != null ? cat.getNombre() : "N/A");
+            fila.put("Categoría", p.getCategoria() != null ? p.getCategoria() : "N/A");
             fila.put("Stock Actual", String.valueOf(p.getStockActual()));
-            fila.put("Stock Mínimo", String.valueOf(p.getStockMinimo()));
-            fila.put("Diferencia", String.valueOf(p.getStockMinimo() - p.getStockActual()));
-            fila.put("Precio Compra", formatoMoneda.format(p.getPrecioCompra()));
-            fila.put("Valor Reposición", formatoMoneda.format(
-                (p.getStockMinimo() - p.getStockActual()) * p.getPrecioCompra()));
+            fila.put("Punto Reorden", p.getPuntoReorden() + (p.isCalculado() ? "" : " (mínimo)"));
+            fila.put("Demanda/Día", p.isCalculado() ? String.format("%.2f", p.getDemandaDiaria()) : "N/A");
+            fila.put("Sugerido", String.valueOf(p.getCantidadSugerida()));
+            fila.put("Precio Compra", formatoMoneda.format(Dinero.aDouble(p.getPrecioCompraCentavos())));
+            fila.put("Valor Reposición", formatoMoneda.format(Dinero.aDouble(p.getValorSugeridoCentavos())));
             datos.add(fila);
         }
         
         mostrarResultados(datos);
-        double valorReposicion = productos.stream()
-            .mapToDouble(p -> (p.getStockMinimo() - p.getStockActual()) * p.getPrecioCompra())
+        long valorReposicion = productos.stream()
+            .mapToLong(PronosticoDemanda::getValorSugeridoCentavos)
             .sum();
+        Date ultimoCalculo = pronosticos.obtenerFechaUltimoCalculo();
         mostrarResumen("⚠️ ALERTA DE INVENTARIO ⚠️\n" +
-                      productos.size() + " productos con bajo stock\n\n" +
+                      productos.size() + " productos en punto de reorden\n\n" +
                       "Valor estimado de reposición:\n" +
-                      formatoMoneda.format(valorReposicion));
+                      formatoMoneda.format(Dinero.aDouble(valorReposicion)) + "\n\n" +
+                      (ultimoCalculo != null ? "Pronóstico del " + DateUtils.formatearFecha(ultimoCalculo, "dd/MM/yyyy HH:mm")
+                                             : "Sin pronóstico calculado: se usa el stock mínimo"));
         btnExportar.setDisable(false);
     }
     
@@ -240,13 +257,15 @@ public class ConsultasReportesController {
         }
         
         mostrarResultados(datos);
-        double totalCreditos = creditos.stream().mapToDouble(Credito::getMontoTotal).sum();
-        double totalPendiente = creditos.stream().mapToDouble(Credito::getSaldoPendiente).sum();
+        long creditosCentavos = creditos.stream().mapToLong(Credito::getMontoTotalCentavos).sum();
+        long pendienteCentavos = creditos.stream().mapToLong(Credito::getSaldoPendienteCentavos).sum();
+        double totalCreditos = Dinero.aDouble(creditosCentavos);
+        double totalPendiente = Dinero.aDouble(pendienteCentavos);
         mostrarResumen("═══ ANÁLISIS DE CRÉDITOS ═══\n" +
                       "Créditos activos: " + creditos.size() + "\n\n" +
                       "Monto total financiado:\n" + formatoMoneda.format(totalCreditos) + "\n\n" +
                       "Saldo pendiente total:\n" + formatoMoneda.format(totalPendiente) + "\n\n" +
-                      "Recuperado:\n" + formatoMoneda.format(totalCreditos - totalPendiente));
+                      "Recuperado:\n" + formatoMoneda.format(Dinero.aDouble(creditosCentavos - pendienteCentavos)));
         btnExportar.setDisable(false);
     }
     
@@ -264,13 +283,13 @@ public class ConsultasReportesController {
         List<Venta> ventas = ventaDAO.obtenerTodas();
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
         
-        double totalSubtotal = 0, totalIVA = 0, totalVentas = 0;
+        long subtotalCentavos = 0, ivaCentavos = 0, ventasCentavos = 0;
         int cantidadVentas = 0, ventasCredito = 0, ventasContado = 0;
         
         for (Venta v : ventas) {
-            totalSubtotal += v.getSubtotal();
-            totalIVA += v.getIvaTotal();
-            totalVentas += v.getTotal();
+            subtotalCentavos += v.getSubtotalCentavos();
+            ivaCentavos += v.getIvaTotalCentavos();
+            ventasCentavos += v.getTotalCentavos();
             cantidadVentas++;
             
             if (v.isEsCredito()) ventasCredito++;
@@ -286,6 +305,10 @@ public class ConsultasReportesController {
             datos.add(fila);
         }
         
+        double totalSubtotal = Dinero.aDouble(subtotalCentavos);
+        double totalIVA = Dinero.aDouble(ivaCentavos);
+        double totalVentas = Dinero.aDouble(ventasCentavos);
+
         // Agregar fila de totales
         Map<String, Object> totales = new HashMap<>();
         totales.put("Código", "═══ TOTAL ═══");
@@ -396,65 +419,171 @@ public class ConsultasReportesController {
     }
     
     /**
-     * REPORTE 3: Estado de Cartera
-     * Cálculos: Análisis de créditos y recuperación
+     * REPORTE: Análisis ABC (Pareto) de los últimos 12 meses
+     * Clase A = 80 % de los ingresos, B = siguiente 15 %, C = resto;
+     * la misma clasificación se hace por valor de inventario.
      */
     @FXML
-    private void reporteEstadoCartera() {
-        lblTituloResultado.setText("📄 Reporte: Estado de Cartera de Clientes");
+    private void reporteAnalisisABC() {
+        lblTituloResultado.setText("📄 Reporte: Análisis ABC de Inventario (últimos 12 meses)");
         limpiarTabla();
         
-        List<Cliente> clientes = clienteDAO.obtenerTodos();
+        LocalDate hasta = LocalDate.now().plusDays(1);
+        AnalisisABC analisis = AnalisisABCService.getInstance().analizar(hasta.minusYears(1), hasta);
+        if (analisis == null) {
+            mostrarError("No se pudo calcular el análisis ABC");
+            return;
+        }
+        
+        long totalIngresos = analisis.getTotalIngresosCentavos();
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
         
-        double totalLimites = 0, totalSaldos = 0, totalDisponible = 0;
-        int clientesConSaldo = 0;
+        for (AnalisisABC.CategoriaABC categoria : analisis.getCategorias()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("Tipo", "Categoría");
+            fila.put("Nombre", categoria.getNombre());
+            fila.put("Clase Ingresos", conteoPorClase(categoria.getProductosPorClaseIngresos()));
+            fila.put("Clase Valor", conteoPorClase(categoria.getProductosPorClaseValor()));
+            fila.put("Ingresos", formatoMoneda.format(Dinero.aDouble(categoria.getIngresosCentavos())));
+            fila.put("% Ingresos", String.format("%.1f%%", porcentaje(categoria.getIngresosCentavos(), totalIngresos)));
+            fila.put("Valor Inventario", formatoMoneda.format(Dinero.aDouble(categoria.getValorInventarioCentavos())));
+            datos.add(fila);
+        }
+        for (AnalisisABC.ProductoABC producto : analisis.getProductosPrincipales()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("Tipo", "Producto");
+            fila.put("Nombre", producto.getCodigo() + " - " + producto.getNombre());
+            fila.put("Clase Ingresos", ClasificacionABC.nombreClase(producto.getClaseIngresos()));
+            fila.put("Clase Valor", ClasificacionABC.nombreClase(producto.getClaseValor()));
+            fila.put("Ingresos", formatoMoneda.format(Dinero.aDouble(producto.getIngresosCentavos())));
+            fila.put("% Ingresos", String.format("%.1f%% (acum. %.1f%%)",
+                    porcentaje(producto.getIngresosCentavos(), totalIngresos), producto.getPorcentajeAcumulado()));
+            fila.put("Valor Inventario", formatoMoneda.format(Dinero.aDouble(producto.getValorInventarioCentavos())));
+            datos.add(fila);
+        }
+        
+        mostrarResultados(datos);
         
-        for (Cliente c : clientes) {
-            if (c.getLimiteCredito() > 0) {
-                Map<String, Object> fila = new HashMap<>();
-                fila.put("Cliente", c.getNombreCompleto());
-                fila.put("Límite", formatoMoneda.format(c.getLimiteCredito()));
-                fila.put("Saldo", formatoMoneda.format(c.getSaldoPendiente()));
-                fila.put("Disponible", formatoMoneda.format(c.getCreditoDisponible()));
-                fila.put("% Usado", String.format("%.1f%%", 
-                    c.getLimiteCredito() > 0 ? (c.getSaldoPendiente() / c.getLimiteCredito() * 100) : 0));
-                datos.add(fila);
-                
-                totalLimites += c.getLimiteCredito();
-                totalSaldos += c.getSaldoPendiente();
-                totalDisponible += c.getCreditoDisponible();
-                if (c.getSaldoPendiente() > 0) clientesConSaldo++;
+        int[] productos = analisis.getProductosPorClaseIngresos();
+        long[] ingresos = analisis.getIngresosPorClase();
+        int[] productosValor = analisis.getProductosPorClaseValor();
+        long[] valor = analisis.getValorPorClase();
+        StringBuilder resumen = new StringBuilder("═══ ANÁLISIS ABC ═══\n");
+        resumen.append("Productos activos: ").append(analisis.getTotalProductos()).append("\n\n");
+        resumen.append("Por ingresos (").append(formatoMoneda.format(Dinero.aDouble(totalIngresos))).append("):\n");
+        for (byte c = 0; c < 3; c++) {
+            resumen.append(String.format("  %s: %d productos (%.1f%%) → %.1f%% de ingresos%n",
+                    ClasificacionABC.nombreClase(c), productos[c], porcentaje(productos[c], analisis.getTotalProductos()),
+                    porcentaje(ingresos[c], totalIngresos)));
+        }
+        resumen.append("\nPor valor de inventario (")
+               .append(formatoMoneda.format(Dinero.aDouble(analisis.getTotalValorCentavos()))).append("):\n");
+        for (byte c = 0; c < 3; c++) {
+            resumen.append(String.format("  %s: %d productos → %.1f%% del valor%n",
+                    ClasificacionABC.nombreClase(c), productosValor[c],
+                    porcentaje(valor[c], analisis.getTotalValorCentavos())));
+        }
+        resumen.append("\nSe listan los ").append(analisis.getProductosPrincipales().size())
+               .append(" productos con más ingresos.");
+        mostrarResumen(resumen.toString());
+        
+        // Ingresos por categoría y clase (solo las 10 categorías principales)
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        analisis.getCategorias().stream().limit(10).forEach(categoria -> {
+            for (byte c = 0; c < 3; c++) {
+                dataset.addValue(Dinero.aDouble(categoria.getIngresosPorClase()[c]),
+                        "Clase " + ClasificacionABC.nombreClase(c), categoria.getNombre());
+            }
+        });
+        JFreeChart grafica = ChartFactory.createStackedBarChart(
+            "Ingresos por Categoría y Clase ABC", "Categoría", "Ingresos (COP)", dataset);
+        mostrarGrafica(grafica);
+        
+        btnExportar.setDisable(false);
+    }
+    
+    private static String conteoPorClase(int[] productos) {
+        return "A:" + productos[0] + " B:" + productos[1] + " C:" + productos[2];
+    }
+    
+    private static double porcentaje(long parte, long total) {
+        return total > 0 ? parte * 100.0 / total : 0;
+    }
+    
+    /**
+     * REPORTE 3: Estado de Cartera
+     * Cartera por edades (corriente, 1-30, 31-60, 61-90, 90+ días) calculada
+     * desde las cuotas sin pagar, comparada con el saldo guardado del cliente.
+     */
+    @FXML
+    private void reporteEstadoCartera() {
+        lblTituloResultado.setText("📄 Reporte: Estado de Cartera por Edades");
+        limpiarTabla();
+        
+        CarteraVencida cartera = CarteraService.getInstance().analizar(LocalDate.now());
+        if (cartera == null) {
+            mostrarError("No se pudo calcular la cartera");
+            return;
+        }
+        
+        ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
+        for (CarteraVencida.SaldoCliente saldo : cartera.getClientesPrincipales()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("Cliente", saldo.getNombre() != null ? saldo.getNombre() : "ID " + saldo.getIdCliente());
+            fila.put("Cédula", saldo.getCedula());
+            for (int t = 0; t < CarteraVencida.TRAMOS.length; t++) {
+                fila.put(CarteraVencida.TRAMOS[t], formatoMoneda.format(Dinero.aDouble(saldo.getSaldoPorTramo()[t])));
             }
+            fila.put("Total", formatoMoneda.format(Dinero.aDouble(saldo.getTotalCentavos())));
+            fila.put("Saldo Registrado", formatoMoneda.format(Dinero.aDouble(saldo.getSaldoRegistradoCentavos())));
+            fila.put("Diferencia", saldo.getDiferenciaCentavos() == 0 ? "-"
+                    : formatoMoneda.format(Dinero.aDouble(saldo.getDiferenciaCentavos())));
+            datos.add(fila);
         }
         
         // Totales
-        Map<String, Object> totales = new HashMap<>();
+        Map<String, Object> totales = new LinkedHashMap<>();
         totales.put("Cliente", "═══ TOTAL ═══");
-        totales.put("Límite", formatoMoneda.format(totalLimites));
-        totales.put("Saldo", formatoMoneda.format(totalSaldos));
-        totales.put("Disponible", formatoMoneda.format(totalDisponible));
-        totales.put("% Usado", String.format("%.1f%%", 
-            totalLimites > 0 ? (totalSaldos / totalLimites * 100) : 0));
+        totales.put("Cédula", cartera.getTotalClientes() + " clientes");
+        for (int t = 0; t < CarteraVencida.TRAMOS.length; t++) {
+            totales.put(CarteraVencida.TRAMOS[t], formatoMoneda.format(Dinero.aDouble(cartera.getSaldoPorTramo()[t])));
+        }
+        totales.put("Total", formatoMoneda.format(Dinero.aDouble(cartera.getTotalSaldoCentavos())));
+        totales.put("Saldo Registrado", formatoMoneda.format(Dinero.aDouble(cartera.getTotalRegistradoCentavos())));
+        totales.put("Diferencia", formatoMoneda.format(
+                Dinero.aDouble(cartera.getTotalRegistradoCentavos() - cartera.getTotalSaldoCentavos())));
         datos.add(totales);
         
         mostrarResultados(datos);
-        mostrarResumen("═══ ESTADO DE CARTERA ═══\n" +
-                      "Clientes con línea de crédito: " + datos.size() + "\n" +
-                      "Clientes con saldo pendiente: " + clientesConSaldo + "\n\n" +
-                      "Total límites otorgados:\n" + formatoMoneda.format(totalLimites) + "\n\n" +
-                      "Total saldos pendientes:\n" + formatoMoneda.format(totalSaldos) + "\n\n" +
-                      "Total crédito disponible:\n" + formatoMoneda.format(totalDisponible) + "\n\n" +
-                      "% Cartera utilizada: " + String.format("%.1f%%",
-                        totalLimites > 0 ? (totalSaldos / totalLimites * 100) : 0));
-
-        // Crear gráfica de barras para visualizar la cartera
+        
+        long total = cartera.getTotalSaldoCentavos();
+        StringBuilder resumen = new StringBuilder("═══ CARTERA POR EDADES ═══\n");
+        resumen.append("Corte: ").append(cartera.getFechaCorte()).append("\n");
+        resumen.append("Clientes con saldo: ").append(cartera.getTotalClientes()).append("\n\n");
+        for (int t = 0; t < CarteraVencida.TRAMOS.length; t++) {
+            resumen.append(String.format("%s: %s (%.1f%%), %d clientes%n", CarteraVencida.TRAMOS[t],
+                    formatoMoneda.format(Dinero.aDouble(cartera.getSaldoPorTramo()[t])),
+                    porcentaje(cartera.getSaldoPorTramo()[t], total), cartera.getClientesPorTramo()[t]));
+        }
+        resumen.append("\nTotal cartera:\n").append(formatoMoneda.format(Dinero.aDouble(total))).append("\n\n");
+        if (cartera.getClientesConDiferencia() > 0) {
+            resumen.append("⚠ ").append(cartera.getClientesConDiferencia())
+                   .append(" clientes con saldo registrado distinto a sus cuotas (")
+                   .append(formatoMoneda.format(Dinero.aDouble(cartera.getDiferenciaCentavos())))
+                   .append("). Use \"Corregir Saldos\" para igualarlos.\n\n");
+        }
+        resumen.append("Se listan los ").append(cartera.getClientesPrincipales().size())
+               .append(" clientes con más saldo.");
+        mostrarResumen(resumen.toString());
+
+        // Gráfica de saldo por tramo de atraso
         Map<String, Number> datosGrafica = new LinkedHashMap<>();
-        datosGrafica.put("Saldo Pendiente", totalSaldos);
-        datosGrafica.put("Crédito Disponible", totalDisponible);
+        for (int t = 0; t < CarteraVencida.TRAMOS.length; t++) {
+            datosGrafica.put(CarteraVencida.TRAMOS[t], Dinero.aDouble(cartera.getSaldoPorTramo()[t]));
+        }
         JFreeChart grafica = PDFExporter.crearGraficaBarras(
-            "Estado de Cartera",
-            "Categoría",
+            "Cartera por Edades",
+            "Días de atraso",
             "Monto ($)",
             datosGrafica
         );
@@ -463,6 +592,26 @@ public class ConsultasReportesController {
         btnExportar.setDisable(false);
     }
     
+    /**
+     * Iguala el saldo pendiente de los clientes al de sus cuotas sin pagar
+     * y vuelve a generar el estado de cartera.
+     */
+    @FXML
+    private void corregirSaldosCartera() {
+        Alert confirmacion = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmacion.setTitle("Corregir Saldos");
+        confirmacion.setHeaderText("¿Igualar el saldo pendiente de los clientes a sus cuotas sin pagar?");
+        confirmacion.setContentText("Se corrigen en la base de datos todos los clientes con diferencia.");
+        Optional<ButtonType> respuesta = confirmacion.showAndWait();
+        if (respuesta.isEmpty() || respuesta.get() != ButtonType.OK) {
+            return;
+        }
+        
+        int corregidos = CarteraService.getInstance().corregirSaldos();
+        mostrarExito("Saldos Corregidos", "Clientes corregidos: " + corregidos);
+        reporteEstadoCartera();
+    }
+    
     /**
      * REPORTE 4: Top Productos Vendidos
      * Cálculos: Ranking de productos más vendidos
@@ -474,11 +623,11 @@ public class ConsultasReportesController {
         
         List<DetalleVenta> detalles = detalleVentaDAO.obtenerTodos();
         Map<Integer, Integer> cantidadPorProducto = new HashMap<>();
-        Map<Integer, Double> totalPorProducto = new HashMap<>();
+        Map<Integer, Long> totalPorProducto = new HashMap<>();
         
         for (DetalleVenta d : detalles) {
             cantidadPorProducto.merge(d.getIdProducto(), d.getCantidad(), Integer::sum);
-            totalPorProducto.merge(d.getIdProducto(), d.getTotal(), Double::sum);
+            totalPorProducto.merge(d.getIdProducto(), d.getTotalCentavos(), Long::sum);
         }
         
         // Ordenar por cantidad vendida
@@ -487,7 +636,7 @@ public class ConsultasReportesController {
         
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
         int posicion = 1;
-        double totalVendido = 0;
+        long totalVendido = 0;
         int totalUnidades = 0;
         
         for (Map.Entry<Integer, Integer> entry : ranking) {
@@ -500,12 +649,13 @@ public class ConsultasReportesController {
                 fila.put("Producto", p.getNombre());
                 fila.put("Marca", p.getMarca());
                 fila.put("Unidades", String.valueOf(entry.getValue()));
-                fila.put("Total Vendido", formatoMoneda.format(totalPorProducto.get(entry.getKey())));
+                long totalProducto = totalPorProducto.get(entry.getKey());
+                fila.put("Total Vendido", formatoMoneda.format(Dinero.aDouble(totalProducto)));
                 fila.put("Precio Promedio", formatoMoneda.format(
-                    totalPorProducto.get(entry.getKey()) / entry.getValue()));
+                    Dinero.aDouble(Dinero.dividir(totalProducto, entry.getValue()))));
                 datos.add(fila);
                 
-                totalVendido += totalPorProducto.get(entry.getKey());
+                totalVendido += totalProducto;
                 totalUnidades += entry.getValue();
             }
             posicion++;
@@ -514,8 +664,9 @@ public class ConsultasReportesController {
         mostrarResultados(datos);
         mostrarResumen("═══ TOP 10 PRODUCTOS ═══\n" +
                       "Total unidades vendidas (Top 10):\n" + totalUnidades + "\n\n" +
-                      "Total facturado (Top 10):\n" + formatoMoneda.format(totalVendido) + "\n\n" +
-                      "Ticket promedio:\n" + formatoMoneda.format(totalUnidades > 0 ? totalVendido/totalUnidades : 0));
+                      "Total facturado (Top 10):\n" + formatoMoneda.format(Dinero.aDouble(totalVendido)) + "\n\n" +
+                      "Ticket promedio:\n" + formatoMoneda.format(
+                          totalUnidades > 0 ? Dinero.aDouble(Dinero.dividir(totalVendido, totalUnidades)) : 0));
 
         // Crear gráfica de barras para el Top 10
         Map<String, Number> datosGrafica = new LinkedHashMap<>();
@@ -553,7 +704,7 @@ public class ConsultasReportesController {
         List<Venta> ventas = ventaDAO.obtenerTodas();
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
         
-        double totalIVA = 0, totalSubtotal = 0, totalVentas = 0;
+        long subtotalCentavos = 0, ivaCentavos = 0, ventasCentavos = 0;
         
         for (Venta v : ventas) {
             Map<String, Object> fila = new HashMap<>();
@@ -566,11 +717,15 @@ public class ConsultasReportesController {
                 v.getSubtotal() > 0 ? (v.getIvaTotal() / v.getSubtotal() * 100) : 0));
             datos.add(fila);
             
-            totalSubtotal += v.getSubtotal();
-            totalIVA += v.getIvaTotal();
-            totalVentas += v.getTotal();
+            subtotalCentavos += v.getSubtotalCentavos();
+            ivaCentavos += v.getIvaTotalCentavos();
+            ventasCentavos += v.getTotalCentavos();
         }
         
+        double totalSubtotal = Dinero.aDouble(subtotalCentavos);
+        double totalIVA = Dinero.aDouble(ivaCentavos);
+        double totalVentas = Dinero.aDouble(ventasCentavos);
+
         // Totales
         Map<String, Object> totales = new HashMap<>();
         totales.put("Código Venta", "═══ TOTAL ═══");
@@ -643,7 +798,7 @@ public class ConsultasReportesController {
             List<Venta> todasVentas = ventaDAO.obtenerTodas();
             ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
 
-            double totalSubtotal = 0, totalIVA = 0, totalVentas = 0;
+            long subtotalCentavos = 0, ivaCentavos = 0, ventasCentavos = 0;
             int cantidadVentas = 0;
 
             Calendar cal = Calendar.getInstance();
@@ -663,13 +818,17 @@ public class ConsultasReportesController {
                     fila.put("Total", formatoMoneda.format(v.getTotal()));
                     datos.add(fila);
 
-                    totalSubtotal += v.getSubtotal();
-                    totalIVA += v.getIvaTotal();
-                    totalVentas += v.getTotal();
+                    subtotalCentavos += v.getSubtotalCentavos();
+                    ivaCentavos += v.getIvaTotalCentavos();
+                    ventasCentavos += v.getTotalCentavos();
                     cantidadVentas++;
                 }
             }
 
+            double totalSubtotal = Dinero.aDouble(subtotalCentavos);
+            double totalIVA = Dinero.aDouble(ivaCentavos);
+            double totalVentas = Dinero.aDouble(ventasCentavos);
+
             // Totales
             Map<String, Object> totales = new HashMap<>();
             totales.put("Código", "═══ TOTAL ═══");
@@ -734,11 +893,11 @@ public class ConsultasReportesController {
             List<Venta> todasVentas = ventaDAO.obtenerTodas();
             ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
 
-            double totalIVA = 0, totalSubtotal = 0, totalVentas = 0;
+            long subtotalCentavos = 0, ivaCentavos = 0, ventasCentavos = 0;
             int cantidadVentas = 0;
 
             // Datos por mes
-            Map<Integer, Double> ivaPorMes = new TreeMap<>();
+            Map<Integer, Long> ivaPorMes = new TreeMap<>();
             Map<Integer, Integer> ventasPorMes = new TreeMap<>();
 
             Calendar cal = Calendar.getInstance();
@@ -756,16 +915,20 @@ public class ConsultasReportesController {
                     fila.put("Total Facturado", formatoMoneda.format(v.getTotal()));
                     datos.add(fila);
 
-                    totalSubtotal += v.getSubtotal();
-                    totalIVA += v.getIvaTotal();
-                    totalVentas += v.getTotal();
+                    subtotalCentavos += v.getSubtotalCentavos();
+                    ivaCentavos += v.getIvaTotalCentavos();
+                    ventasCentavos += v.getTotalCentavos();
                     cantidadVentas++;
 
-                    ivaPorMes.put(ventaMes, ivaPorMes.getOrDefault(ventaMes, 0.0) + v.getIvaTotal());
+                    ivaPorMes.merge(ventaMes, v.getIvaTotalCentavos(), Long::sum);
                     ventasPorMes.put(ventaMes, ventasPorMes.getOrDefault(ventaMes, 0) + 1);
                 }
             }
 
+            double totalSubtotal = Dinero.aDouble(subtotalCentavos);
+            double totalIVA = Dinero.aDouble(ivaCentavos);
+            double totalVentas = Dinero.aDouble(ventasCentavos);
+
             // Totales
             Map<String, Object> totales = new HashMap<>();
             totales.put("Código", "═══ TOTAL ═══");
@@ -780,9 +943,9 @@ public class ConsultasReportesController {
             resumen.append("Desglose mensual:\n");
 
             String[] nombresMeses = new java.text.DateFormatSymbols().getMonths();
-            for (Map.Entry<Integer, Double> entry : ivaPorMes.entrySet()) {
+            for (Map.Entry<Integer, Long> entry : ivaPorMes.entrySet()) {
                 resumen.append("• ").append(nombresMeses[entry.getKey() - 1]).append(": ")
-                       .append(formatoMoneda.format(entry.getValue()))
+                       .append(formatoMoneda.format(Dinero.aDouble(entry.getValue())))
                        .append(" (").append(ventasPorMes.get(entry.getKey())).append(" ventas)\n");
             }
 
@@ -797,8 +960,8 @@ public class ConsultasReportesController {
 
             // Crear gráfica de barras por mes
             Map<String, Number> datosGrafica = new LinkedHashMap<>();
-            for (Map.Entry<Integer, Double> entry : ivaPorMes.entrySet()) {
-                datosGrafica.put(nombresMeses[entry.getKey() - 1], entry.getValue());
+            for (Map.Entry<Integer, Long> entry : ivaPorMes.entrySet()) {
+                datosGrafica.put(nombresMeses[entry.getKey() - 1], Dinero.aDouble(entry.getValue()));
             }
             JFreeChart grafica = PDFExporter.crearGraficaBarras(
                 "IVA por Mes - Trimestre " + trimestre,
@@ -861,7 +1024,7 @@ public class ConsultasReportesController {
             ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
 
             int ventasCredito = 0, ventasContado = 0;
-            double totalCredito = 0, totalContado = 0;
+            long totalCredito = 0, totalContado = 0;
 
             for (Venta v : todasVentas) {
                 if (!v.getFechaVenta().before(fechaInicio) && !v.getFechaVenta().after(fechaFin)) {
@@ -887,10 +1050,10 @@ public class ConsultasReportesController {
                     // Contabilizar para el resumen (siempre contar todo)
                     if (v.isEsCredito()) {
                         ventasCredito++;
-                        totalCredito += v.getTotal();
+                        totalCredito += v.getTotalCentavos();
                     } else {
                         ventasContado++;
-                        totalContado += v.getTotal();
+                        totalContado += v.getTotalCentavos();
                     }
                 }
             }
@@ -909,19 +1072,19 @@ public class ConsultasReportesController {
             if (tipoSeleccionado.equals("Ambos") || tipoSeleccionado.equals("Solo Crédito")) {
                 resumen += "VENTAS A CRÉDITO:\n" +
                           "• Cantidad: " + ventasCredito + " (" + String.format("%.1f%%", porcentajeCredito) + ")\n" +
-                          "• Monto: " + formatoMoneda.format(totalCredito) + "\n\n";
+                          "• Monto: " + formatoMoneda.format(Dinero.aDouble(totalCredito)) + "\n\n";
             }
 
             if (tipoSeleccionado.equals("Ambos") || tipoSeleccionado.equals("Solo Contado")) {
                 resumen += "VENTAS DE CONTADO:\n" +
                           "• Cantidad: " + ventasContado + " (" + String.format("%.1f%%", porcentajeContado) + ")\n" +
-                          "• Monto: " + formatoMoneda.format(totalContado) + "\n\n";
+                          "• Monto: " + formatoMoneda.format(Dinero.aDouble(totalContado)) + "\n\n";
             }
 
             if (tipoSeleccionado.equals("Ambos")) {
                 resumen += "═══════════════════\n" +
                           "Total ventas: " + totalVentas + "\n" +
-                          "Total facturado: " + formatoMoneda.format(totalCredito + totalContado);
+                          "Total facturado: " + formatoMoneda.format(Dinero.aDouble(totalCredito + totalContado));
             }
 
             mostrarResumen(resumen);
@@ -1025,6 +1188,81 @@ public class ConsultasReportesController {
         if (btnExportarPDF != null) btnExportarPDF.setDisable(false);
     }
 
+    /**
+     * REPORTE: Stock de cada producto al cierre de un día, según el kardex
+     */
+    @FXML
+    private void reporteStockAlCierre() {
+        lblTituloResultado.setText("📄 Reporte: Stock al Cierre");
+        limpiarTabla();
+
+        TextInputDialog dialogDia = new TextInputDialog(LocalDate.now().minusDays(1).toString());
+        dialogDia.setTitle("Seleccionar Día");
+        dialogDia.setHeaderText("Ingrese el día (AAAA-MM-DD)");
+        dialogDia.setContentText("Día:");
+
+        Optional<String> resultDia = dialogDia.showAndWait();
+        if (!resultDia.isPresent()) return;
+
+        LocalDate dia;
+        try {
+            dia = LocalDate.parse(resultDia.get().trim());
+        } catch (DateTimeParseException e) {
+            mostrarError("Fecha inválida: use el formato AAAA-MM-DD");
+            return;
+        }
+
+        List<SaldoStock> saldos = reporteController.generarReporteStockAlCierre(dia);
+        ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
+        long unidades = 0;
+        for (SaldoStock s : saldos) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("Código", s.getCodigo());
+            fila.put("Producto", s.getNombre());
+            fila.put("Stock al Cierre", s.getCantidadKardex());
+            datos.add(fila);
+            unidades += s.getCantidadKardex();
+        }
+
+        mostrarResultados(datos);
+        mostrarResumen("═══ STOCK AL CIERRE ═══\n\n" +
+                "Día: " + dia + "\n" +
+                "Productos: " + saldos.size() + "\n" +
+                "Unidades: " + unidades);
+
+        btnExportar.setDisable(false);
+        if (btnExportarPDF != null) btnExportarPDF.setDisable(false);
+    }
+
+    /**
+     * REPORTE: Productos cuyo stock no coincide con la suma del kardex
+     */
+    @FXML
+    private void reporteConciliacionStock() {
+        lblTituloResultado.setText("📄 Reporte: Conciliación de Stock");
+        limpiarTabla();
+
+        List<SaldoStock> descuadres = reporteController.generarReporteConciliacionStock();
+        ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
+        for (SaldoStock s : descuadres) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("Código", s.getCodigo());
+            fila.put("Producto", s.getNombre());
+            fila.put("Kardex", s.getCantidadKardex());
+            fila.put("Inventario", s.getCantidadInventario() != null ? s.getCantidadInventario() : "-");
+            fila.put("Stock Producto", s.getStockProducto() != null ? s.getStockProducto() : "-");
+            datos.add(fila);
+        }
+
+        mostrarResultados(datos);
+        mostrarResumen("═══ CONCILIACIÓN DE STOCK ═══\n\n" +
+                (descuadres.isEmpty() ? "El stock coincide con el kardex en todos los productos"
+                        : "Productos descuadrados: " + descuadres.size()));
+
+        btnExportar.setDisable(descuadres.isEmpty());
+        if (btnExportarPDF != null) btnExportarPDF.setDisable(descuadres.isEmpty());
+    }
+
     /**
      * REPORTE: Clientes morosos (atrasados en sus cuotas)
      */
@@ -1040,7 +1278,7 @@ public class ConsultasReportesController {
         ObservableList<Map<String, Object>> datos = FXCollections.observableArrayList();
 
         int clientesMorosos = 0;
-        double totalDeudaMorosa = 0;
+        long totalDeudaMorosa = 0;
         java.util.Date hoy = new java.util.Date();
 
         for (Cliente cliente : clientes) {
@@ -1051,12 +1289,13 @@ public class ConsultasReportesController {
                     List<Cuota> cuotas = cuotaDAO.obtenerPorCredito(credito.getIdCredito());
 
                     int cuotasVencidas = 0;
-                    double montoVencido = 0;
+                    long montoVencido = 0;
 
                     for (Cuota cuota : cuotas) {
                         if (!cuota.isPagada() && cuota.getFechaVencimiento().before(hoy)) {
                             cuotasVencidas++;
-                            montoVencido += cuota.getValor();
+                            // Lo que falta de la cuota, con su mora y sin los abonos
+                            montoVencido += cuota.getSaldoCentavos();
                         }
                     }
 
@@ -1067,7 +1306,7 @@ public class ConsultasReportesController {
                         fila.put("Teléfono", cliente.getTelefono());
                         fila.put("Crédito", "CRD-" + credito.getIdCredito());
                         fila.put("Cuotas Vencidas", String.valueOf(cuotasVencidas));
-                        fila.put("Monto Vencido", formatoMoneda.format(montoVencido));
+                        fila.put("Monto Vencido", formatoMoneda.format(Dinero.aDouble(montoVencido)));
                         fila.put("Días Atraso", calcularDiasAtraso(cuotas, hoy));
                         datos.add(fila);
 
@@ -1087,10 +1326,10 @@ public class ConsultasReportesController {
         mostrarResumen("═══ CLIENTES MOROSOS ═══\n\n" +
                       "Total clientes morosos: " + clientesMorosos + "\n\n" +
                       "Monto total vencido:\n" +
-                      formatoMoneda.format(totalDeudaMorosa) + "\n\n" +
+                      formatoMoneda.format(Dinero.aDouble(totalDeudaMorosa)) + "\n\n" +
                       "═══════════════════\n" +
                       "Promedio deuda por cliente:\n" +
-                      formatoMoneda.format(clientesMorosos > 0 ? totalDeudaMorosa / clientesMorosos : 0) + "\n\n" +
+                      formatoMoneda.format(clientesMorosos > 0 ? Dinero.aDouble(Dinero.dividir(totalDeudaMorosa, clientesMorosos)) : 0) + "\n\n" +
                       "ACCIÓN REQUERIDA:\n" +
                       "Contactar a clientes para\n" +
                       "regularizar pagos atrasados");
@@ -1122,6 +1361,8 @@ public class ConsultasReportesController {
      * Muestra los resultados en la tabla dinámica
      */
     private void mostrarResultados(ObservableList<Map<String, Object>> datos) {
+        finalizarEventoReporte(datos.size());
+
         if (datos.isEmpty()) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Sin resultados");
@@ -1160,6 +1401,9 @@ public class ConsultasReportesController {
      * Limpia la tabla y oculta el resumen
      */
     private void limpiarTabla() {
+        // Todas las consultas empiezan aquí (con el título ya asignado)
+        iniciarEventoReporte();
+
         tablaResultados.getColumns().clear();
         tablaResultados.getItems().clear();
         panelResumen.setVisible(false);
@@ -1174,6 +1418,24 @@ public class ConsultasReportesController {
         graficaActual = null;
     }
 
+    /**
+     * Evento JFR que cubre la consulta desde limpiarTabla() hasta mostrarResultados()
+     */
+    private void iniciarEventoReporte() {
+        reporteEnCurso = new EventosJFR.ReporteEvento();
+        reporteEnCurso.begin();
+    }
+
+    private void finalizarEventoReporte(int filas) {
+        EventosJFR.ReporteEvento evento = reporteEnCurso;
+        reporteEnCurso = null;
+        if (evento != null && evento.shouldCommit()) {
+            evento.reporte = lblTituloResultado.getText();
+            evento.filas = filas;
+            evento.commit();
+        }
+    }
+
     /**
      * Muestra una gráfica en el panel
      */
@@ -0,0 +1,184 @@
+package com.taller.proyecto_bd.ui;
+
+import com.taller.proyecto_bd.utils.GrabacionContinua;
+import com.taller.proyecto_bd.utils.MetricasBD;
+import com.taller.proyecto_bd.utils.MetricasBD.ResumenMetodo;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ventana de diagnóstico de la base de datos.
+ * Muestra la instantánea de MetricasBD por método DAO (latencias p50/p95/p99,
+ * filas, errores) y el tiempo de obtención de conexiones, y permite activar
+ * la instrumentación y ajustar el umbral de consulta lenta. También controla
+ * la grabación JFR continua y permite volcarla a un archivo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class DiagnosticoViewController {
+
+    private final TableView<ResumenMetodo> tablaMetodos = new TableView<>();
+    private final Label lblConexiones = new Label();
+    private final Label lblResumen = new Label();
+    private final TextArea txtSqlLento = new TextArea();
+    private final CheckBox chkHabilitado = new CheckBox("Instrumentación habilitada");
+    private final Label lblGrabacion = new Label();
+    private final Spinner<Integer> spnUmbral = new Spinner<>(0, 60_000, (int) MetricasBD.getUmbralLentoMillis(), 50);
+
+    /**
+     * Abre la ventana de diagnóstico.
+     */
+    public static void mostrar(Window propietario) {
+        DiagnosticoViewController controller = new DiagnosticoViewController();
+        Stage stage = new Stage();
+        stage.setTitle("Diagnóstico de Base de Datos");
+        stage.setScene(new Scene(controller.construir(), 1000, 560));
+        if (propietario != null) {
+            stage.initOwner(propietario);
+        }
+        controller.cargarMetricas();
+        stage.show();
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    private BorderPane construir() {
+        configurarTabla();
+
+        chkHabilitado.setSelected(MetricasBD.estaHabilitado());
+        chkHabilitado.selectedProperty().addListener((obs, anterior, nuevo) -> {
+            MetricasBD.setHabilitado(nuevo);
+            cargarMetricas();
+        });
+
+        spnUmbral.setEditable(true);
+        spnUmbral.setPrefWidth(100);
+        spnUmbral.valueProperty().addListener((obs, anterior, nuevo) -> {
+            if (nuevo != null) MetricasBD.setUmbralLentoMillis(nuevo);
+        });
+
+        Button btnActualizar = new Button("Actualizar");
+        btnActualizar.setOnAction(e -> cargarMetricas());
+        Button btnReiniciar = new Button("Reiniciar métricas");
+        btnReiniciar.setOnAction(e -> {
+            MetricasBD.reiniciar();
+            cargarMetricas();
+        });
+
+        HBox barra = new HBox(10, chkHabilitado, new Label("Umbral lento (ms):"), spnUmbral,
+                btnActualizar, btnReiniciar);
+        barra.setPadding(new Insets(0, 0, 8, 0));
+
+        Button btnGrabar = new Button("Iniciar grabación JFR");
+        btnGrabar.setOnAction(e -> {
+            if (GrabacionContinua.estaActiva()) {
+                GrabacionContinua.detener();
+            } else {
+                GrabacionContinua.iniciar();
+            }
+            actualizarGrabacion(btnGrabar);
+        });
+        Button btnVolcar = new Button("Volcar grabación");
+        btnVolcar.setOnAction(e -> {
+            Path archivo = GrabacionContinua.volcar();
+            lblGrabacion.setText(archivo != null
+                    ? "Grabación guardada en " + archivo
+                    : "No hay grabación activa para volcar");
+        });
+        actualizarGrabacion(btnGrabar);
+        HBox barraJFR = new HBox(10, btnGrabar, btnVolcar, lblGrabacion);
+
+        txtSqlLento.setEditable(false);
+        txtSqlLento.setWrapText(true);
+        txtSqlLento.setPrefRowCount(3);
+        txtSqlLento.setPromptText("Seleccione un método para ver su última consulta lenta");
+        tablaMetodos.getSelectionModel().selectedItemProperty().addListener((obs, anterior, fila) ->
+                txtSqlLento.setText(fila == null || fila.getUltimoSqlLento() == null ? "" : fila.getUltimoSqlLento()));
+
+        VBox pie = new VBox(6, lblConexiones, lblResumen, txtSqlLento, barraJFR);
+        pie.setPadding(new Insets(8, 0, 0, 0));
+
+        BorderPane raiz = new BorderPane(tablaMetodos, barra, null, pie, null);
+        raiz.setPadding(new Insets(10));
+        return raiz;
+    }
+
+    private void configurarTabla() {
+        tablaMetodos.getColumns().add(columna("Método DAO", 260, ResumenMetodo::getMetodo));
+        tablaMetodos.getColumns().add(columna("Ejecuciones", 90, ResumenMetodo::getEjecuciones));
+        tablaMetodos.getColumns().add(columna("Filas", 80, ResumenMetodo::getFilas));
+        tablaMetodos.getColumns().add(columna("Errores", 70, ResumenMetodo::getErrores));
+        tablaMetodos.getColumns().add(columnaMillis("Promedio", ResumenMetodo::getPromedioMillis));
+        tablaMetodos.getColumns().add(columnaMillis("p50", ResumenMetodo::getP50Millis));
+        tablaMetodos.getColumns().add(columnaMillis("p95", ResumenMetodo::getP95Millis));
+        tablaMetodos.getColumns().add(columnaMillis("p99", ResumenMetodo::getP99Millis));
+        tablaMetodos.getColumns().add(columnaMillis("Máximo", ResumenMetodo::getMaximoMillis));
+        tablaMetodos.getColumns().add(columnaMillis("Total", ResumenMetodo::getTiempoTotalMillis));
+        tablaMetodos.setPlaceholder(new Label("Sin consultas registradas"));
+        tablaMetodos.setTooltip(new Tooltip("Tiempos en milisegundos; percentiles con error menor al 12.5%"));
+    }
+
+    private static <T> TableColumn<ResumenMetodo, T> columna(String titulo, double ancho, Function<ResumenMetodo, T> valor) {
+        TableColumn<ResumenMetodo, T> columna = new TableColumn<>(titulo);
+        columna.setPrefWidth(ancho);
+        columna.setCellValueFactory(celda -> new ReadOnlyObjectWrapper<>(valor.apply(celda.getValue())));
+        return columna;
+    }
+
+    private static TableColumn<ResumenMetodo, Double> columnaMillis(String titulo, Function<ResumenMetodo, Double> valor) {
+        TableColumn<ResumenMetodo, Double> columna = columna(titulo + " (ms)", 85, valor);
+        columna.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.2f", item));
+            }
+        });
+        return columna;
+    }
+
+    private void actualizarGrabacion(Button btnGrabar) {
+        boolean activa = GrabacionContinua.estaActiva();
+        btnGrabar.setText(activa ? "Detener grabación JFR" : "Iniciar grabación JFR");
+        lblGrabacion.setText(activa ? "Grabación JFR continua activa" : "Grabación JFR detenida");
+    }
+
+    // ==================== DATOS ====================
+
+    private void cargarMetricas() {
+        List<ResumenMetodo> metodos = MetricasBD.instantanea();
+        tablaMetodos.setItems(FXCollections.observableArrayList(metodos));
+
+        ResumenMetodo conexiones = MetricasBD.instantaneaAdquisicion();
+        lblConexiones.setText(String.format(
+                "Obtener conexión: %d veces, p50 %.2f ms, p99 %.2f ms, máximo %.2f ms",
+                conexiones.getEjecuciones(), conexiones.getP50Millis(),
+                conexiones.getP99Millis(), conexiones.getMaximoMillis()));
+
+        lblResumen.setText(MetricasBD.estaHabilitado()
+                ? String.format("%d métodos instrumentados, %d consultas lentas (umbral %d ms)",
+                        metodos.size(), MetricasBD.getConsultasLentas(), MetricasBD.getUmbralLentoMillis())
+                : "Instrumentación deshabilitada: active la casilla para empezar a medir");
+    }
+}
@@ -0,0 +1,38 @@
+package com.taller.proyecto_bd.ui;
+
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.WindowEvent;
+
+import java.util.Set;
+
+/**
+ * Suscripción de una vista a BusEventos mientras su ventana está abierta.
+ *
+ * Los eventos llegan en el hilo de JavaFX; al cerrarse la ventana del nodo
+ * la suscripción se cancela sola.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class EventosVista {
+
+    private EventosVista() {
+    }
+
+    /**
+     * Suscribe desde initialize(), cuando el nodo todavía no está en una escena.
+     */
+    public static BusEventos.Suscripcion suscribir(Node nodo, Set<EventoDominio.Tipo> tipos,
+                                                   BusEventos.Suscriptor suscriptor) {
+        BusEventos.Suscripcion suscripcion = BusEventos.suscribirEnFX(tipos, suscriptor);
+        nodo.sceneProperty().flatMap(Scene::windowProperty).addListener((obs, anterior, ventana) -> {
+            if (ventana != null) {
+                ventana.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> suscripcion.cancelar());
+            }
+        });
+        return suscripcion;
+    }
+}
@@ -2,6 +2,7 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.utils.Dinero;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -431,27 +432,21 @@ public class GestionCreditosController {
             return;
         }
 
-        // Anular el crédito
-        creditoSeleccionado.setEstado("CANCELADO");
-        creditoSeleccionado.setSaldoPendiente(0);
+        // Anular el crédito (se relee y reintenta si otra caja lo modificó mientras tanto)
+        Credito cancelado = creditoDAO.cancelar(creditoSeleccionado.getIdCredito());
 
-        if (creditoDAO.actualizar(creditoSeleccionado)) {
+        if (cancelado != null) {
             // Actualizar la venta asociada
-            Venta venta = ventaDAO.obtenerPorId(creditoSeleccionado.getIdVenta());
+            Venta venta = ventaDAO.obtenerPorId(cancelado.getIdVenta());
             if (venta != null) {
                 venta.setEstado("ANULADA");
                 ventaDAO.actualizar(venta);
             }
 
             // Actualizar saldo del cliente
-            Cliente cliente = clienteDAO.obtenerPorId(creditoSeleccionado.getIdCliente());
-            if (cliente != null) {
-                double montoFinanciado = creditoSeleccionado.getMontoTotal() - creditoSeleccionado.getCuotaInicial();
-                double montoConInteres = montoFinanciado * 1.05;
-                double nuevoSaldo = cliente.getSaldoPendiente() - montoConInteres;
-                cliente.setSaldoPendiente(Math.max(nuevoSaldo, 0));
-                clienteDAO.actualizar(cliente);
-            }
+            double montoFinanciado = cancelado.getMontoTotal() - cancelado.getCuotaInicial();
+            double montoConInteres = montoFinanciado * 1.05;
+            clienteDAO.ajustarSaldo(cancelado.getIdCliente(), -Dinero.aCentavos(montoConInteres));
 
             // Registrar auditoría
             Usuario usuarioActual = SessionManager.getUsuarioActual();
@@ -460,7 +455,7 @@ public class GestionCreditosController {
                     usuarioActual.getIdUsuario(),
                     "ANULAR_CREDITO",
                     "Credito",
-                    String.format("Crédito #%d anulado", creditoSeleccionado.getIdCredito()),
+                    String.format("Crédito #%d anulado", cancelado.getIdCredito()),
                     "127.0.0.1"
                 ));
             }
@@ -468,7 +463,8 @@ public class GestionCreditosController {
             mostrarExito("Crédito anulado correctamente");
             actualizar();
         } else {
-            mostrarError("Error al anular el crédito");
+            mostrarError("No se pudo anular el crédito: ya no está activo o hubo un error");
+            actualizar();
         }
     }
 
@@ -4,8 +4,10 @@ import com.taller.proyecto_bd.dao.InventarioDAO;
 import com.taller.proyecto_bd.dao.ProductoDAO;
 import com.taller.proyecto_bd.dao.AuditoriaDAO;
 import com.taller.proyecto_bd.models.Inventario;
+import com.taller.proyecto_bd.models.MovimientoStock;
 import com.taller.proyecto_bd.models.Producto;
 import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.services.KardexService;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -52,6 +54,7 @@ public class GestionInventarioController {
     @FXML private Button btnSalida;
     @FXML private Button btnAjustar;
     @FXML private Button btnEditar;
+    @FXML private Button btnKardex;
 
     // ==================== DAOs ====================
     private InventarioDAO inventarioDAO;
@@ -167,6 +170,7 @@ public class GestionInventarioController {
                 btnSalida.setDisable(!haySeleccion);
                 btnAjustar.setDisable(!haySeleccion);
                 btnEditar.setDisable(!haySeleccion);
+                btnKardex.setDisable(!haySeleccion);
             }
         );
 
@@ -376,9 +380,13 @@ public class GestionInventarioController {
 
         TextField txtNuevaCantidad = new TextField();
         txtNuevaCantidad.setPromptText("Nueva cantidad");
+        TextField txtMotivo = new TextField();
+        txtMotivo.setPromptText("Ej: conteo físico, avería");
 
         grid.add(new Label("Nueva cantidad en stock:"), 0, 0);
         grid.add(txtNuevaCantidad, 1, 0);
+        grid.add(new Label("Motivo:"), 0, 1);
+        grid.add(txtMotivo, 1, 1);
 
         dialog.getDialogPane().setContent(grid);
 
@@ -400,8 +408,8 @@ public class GestionInventarioController {
                 return;
             }
 
-            seleccionado.setCantidadActual(nuevaCantidad);
-            if (inventarioDAO.actualizar(seleccionado)) {
+            String motivo = txtMotivo.getText().isBlank() ? "Ajuste manual" : txtMotivo.getText();
+            if (inventarioDAO.fijarStock(seleccionado.getIdProducto(), nuevaCantidad, motivo)) {
                 mostrarInformacion("Éxito", "Stock ajustado correctamente");
                 cargarInventario(cmbFiltroEstado.getValue());
             } else {
@@ -530,6 +538,45 @@ public class GestionInventarioController {
         alert.showAndWait();
     }
 
+    /**
+     * Muestra los últimos movimientos del kardex del producto seleccionado
+     */
+    @FXML
+    private void verKardex() {
+        Inventario seleccionado = tblInventario.getSelectionModel().getSelectedItem();
+        if (seleccionado == null) {
+            mostrarError("Debe seleccionar un producto del inventario");
+            return;
+        }
+
+        List<MovimientoStock> movimientos = KardexService.getInstance()
+                .obtenerMovimientos(seleccionado.getIdProducto(), 200);
+
+        TableView<MovimientoStock> tabla = new TableView<>(FXCollections.observableArrayList(movimientos));
+        TableColumn<MovimientoStock, String> colFecha = new TableColumn<>("Fecha");
+        colFecha.setCellValueFactory(cellData -> new SimpleStringProperty(
+                formatoFecha.format(cellData.getValue().getFecha())));
+        TableColumn<MovimientoStock, String> colTipo = new TableColumn<>("Tipo");
+        colTipo.setCellValueFactory(new PropertyValueFactory<>("tipo"));
+        TableColumn<MovimientoStock, Integer> colCantidad = new TableColumn<>("Cantidad");
+        colCantidad.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
+        TableColumn<MovimientoStock, Integer> colSaldo = new TableColumn<>("Saldo");
+        colSaldo.setCellValueFactory(new PropertyValueFactory<>("saldo"));
+        TableColumn<MovimientoStock, String> colMotivo = new TableColumn<>("Motivo");
+        colMotivo.setCellValueFactory(new PropertyValueFactory<>("motivo"));
+        colMotivo.setPrefWidth(260);
+        tabla.getColumns().addAll(List.of(colFecha, colTipo, colCantidad, colSaldo, colMotivo));
+        tabla.setPlaceholder(new Label("Sin movimientos registrados"));
+        tabla.setPrefSize(680, 400);
+
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Kardex");
+        dialog.setHeaderText("Movimientos de: " + seleccionado.getNombreProducto());
+        dialog.getDialogPane().setContent(tabla);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.showAndWait();
+    }
+
     /**
      * Muestra un mensaje de información
      */
@@ -6,8 +6,10 @@ import com.taller.proyecto_bd.dao.UsuarioDAO;
 import com.taller.proyecto_bd.dao.VentaDAO;
 import com.taller.proyecto_bd.models.Auditoria;
 import com.taller.proyecto_bd.models.Cliente;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Usuario;
 import com.taller.proyecto_bd.models.Venta;
+import com.taller.proyecto_bd.utils.BusEventos;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -17,6 +19,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -89,6 +92,7 @@ public class GestionVentasController {
 
         // Cargar datos iniciales
         cargarVentas("TODAS", "TODAS");
+        suscribirEventos();
     }
 
     /**
@@ -261,6 +265,68 @@ public class GestionVentasController {
         lblVentasContado.setText(String.valueOf(ventasContado));
     }
 
+    // ==================== EVENTOS DE DOMINIO ====================
+
+    /**
+     * Mantiene la tabla al día con las ventas registradas, anuladas o
+     * modificadas (publicadas en BusEventos) leyendo solo la venta afectada.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(tblVentas, EnumSet.of(EventoDominio.Tipo.VENTA_REGISTRADA,
+                EventoDominio.Tipo.VENTA_ACTUALIZADA, EventoDominio.Tipo.VENTA_ANULADA), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                aplicarEvento(evento);
+            }
+
+            @Override
+            public void finLote() {
+                actualizarEstadisticas();
+            }
+
+            @Override
+            public void desbordado() {
+                buscar();
+            }
+        });
+    }
+
+    private void aplicarEvento(EventoDominio evento) {
+        int indice = indicePorId(evento.getId());
+        Venta venta = ventaDAO.obtenerPorId(evento.getId());
+        boolean sinBusqueda = txtBuscar.getText().trim().isEmpty();
+
+        if (venta == null || (sinBusqueda && !cumpleFiltros(venta))) {
+            if (indice >= 0) {
+                listaVentas.remove(indice);
+            }
+        } else if (indice >= 0) {
+            listaVentas.set(indice, venta);
+        } else if (sinBusqueda) {
+            // Las ventas nuevas van primero, como en la consulta
+            listaVentas.add(0, venta);
+        }
+    }
+
+    private boolean cumpleFiltros(Venta venta) {
+        String filtroTipo = cmbFiltroTipo.getValue();
+        String filtroEstado = cmbFiltroEstado.getValue();
+        if ("CRÉDITO".equals(filtroTipo) && !venta.isEsCredito()
+                || "CONTADO".equals(filtroTipo) && venta.isEsCredito()) {
+            return false;
+        }
+        return filtroEstado == null || "TODAS".equals(filtroEstado) || filtroEstado.equals(venta.getEstado());
+    }
+
+    private int indicePorId(int idVenta) {
+        for (int i = 0; i < listaVentas.size(); i++) {
+            if (listaVentas.get(i).getIdVenta() == idVenta) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     // ==================== ACCIONES ====================
 
     /**
@@ -402,7 +468,6 @@ public class GestionVentasController {
                 registrarAuditoria("ANULAR", "Venta anulada: " + ventaSeleccionada.getCodigo());
 
                 mostrarInfo("Venta anulada exitosamente");
-                actualizar();
             } else {
                 mostrarError("No se pudo anular la venta. Intente nuevamente.");
             }
@@ -8,7 +8,10 @@ import com.taller.proyecto_bd.models.Usuario;
 import com.taller.proyecto_bd.models.Auditoria;
 import com.taller.proyecto_bd.models.Cliente;
 import com.taller.proyecto_bd.models.SessionManager;
+import com.taller.proyecto_bd.services.AutenticacionService;
+import com.taller.proyecto_bd.utils.MedidorArranque;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -26,6 +29,7 @@ import java.net.InetAddress;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador para la pantalla de inicio de sesión
@@ -53,6 +57,7 @@ public class LoginController {
     private UsuarioDAO usuarioDAO;
     private ClienteDAO clienteDAO;
     private AuditoriaDAO auditoriaDAO;
+    private AutenticacionService autenticacionService;
 
     /**
      * Inicialización del controlador
@@ -62,6 +67,7 @@ public class LoginController {
         usuarioDAO = UsuarioDAO.getInstance();
         clienteDAO = ClienteDAO.getInstance();
         auditoriaDAO = AuditoriaDAO.getInstance();
+        autenticacionService = AutenticacionService.getInstance();
 
         // Configurar ComboBox de tipo de usuario
         cmbTipoUsuario.getItems().addAll(
@@ -99,27 +105,58 @@ public class LoginController {
         btnIngresar.setDisable(true);
         lblError.setVisible(false);
 
-        try {
-            if ("Cliente".equals(tipoUsuario)) {
-                // Login como Cliente
-                handleLoginCliente(username, password);
-            } else {
-                // Login como Usuario del Sistema (vendedor, admin, gerente)
-                handleLoginUsuario(username, password);
-            }
+        // La verificación corre en segundo plano; la respuesta vuelve al hilo de JavaFX
+        CompletableFuture<?> login;
+        if ("Cliente".equals(tipoUsuario)) {
+            // Login como Cliente
+            login = autenticacionService.loginCliente(username, password, obtenerIP())
+                    .thenAccept(r -> Platform.runLater(() -> handleLoginCliente(username, r)));
+        } else {
+            // Login como Usuario del Sistema (vendedor, admin, gerente)
+            login = autenticacionService.loginUsuario(username, password, obtenerIP())
+                    .thenAccept(r -> Platform.runLater(() -> handleLoginUsuario(username, r)));
+        }
 
-        } catch (Exception e) {
-            mostrarError("Error de conexión: " + e.getMessage());
-            btnIngresar.setDisable(false);
+        login.exceptionally(e -> {
             e.printStackTrace();
+            Platform.runLater(() -> {
+                mostrarError("Error de conexión: " + e.getMessage());
+                btnIngresar.setDisable(false);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Muestra el mensaje de un intento que no llegó a verificarse.
+     * @return true si el resultado ya fue manejado
+     */
+    private boolean manejarRechazo(AutenticacionService.ResultadoLogin<?> resultado) {
+        switch (resultado.getEstado()) {
+            case BLOQUEADO:
+                long minutos = (resultado.getSegundosBloqueo() + 59) / 60;
+                mostrarError("Demasiados intentos fallidos. Intente de nuevo en " + minutos + " minuto(s).");
+                btnIngresar.setDisable(false);
+                return true;
+            case OCUPADO:
+                mostrarError("El sistema está ocupado. Intente de nuevo en unos segundos.");
+                btnIngresar.setDisable(false);
+                return true;
+            case ERROR:
+                mostrarError("No se pudo conectar con la base de datos. Intente de nuevo.");
+                btnIngresar.setDisable(false);
+                return true;
+            default:
+                return false;
         }
     }
 
     /**
      * Maneja el login de usuarios del sistema (vendedor, admin, gerente)
      */
-    private void handleLoginUsuario(String username, String password) {
-        Usuario usuario = usuarioDAO.login(username, password);
+    private void handleLoginUsuario(String username, AutenticacionService.ResultadoLogin<Usuario> resultado) {
+        if (manejarRechazo(resultado)) return;
+        Usuario usuario = resultado.getValor();
 
         if (usuario != null) {
             if (!usuario.isActivo()) {
@@ -155,56 +192,40 @@ public class LoginController {
     /**
      * Maneja el login de clientes
      */
-    private void handleLoginCliente(String cedula, String password) {
-        // Buscar cliente por cédula
-        Cliente cliente = clienteDAO.obtenerPorCedula(cedula);
+    private void handleLoginCliente(String cedula, AutenticacionService.ResultadoLogin<Cliente> resultado) {
+        if (manejarRechazo(resultado)) return;
 
-        if (cliente != null) {
-            boolean autenticado = false;
+        // Cliente con contraseña o, si no tiene, teléfono como clave (ver AutenticacionService)
+        Cliente cliente = resultado.getValor();
 
-            // Verificar si el cliente tiene contraseña configurada
-            if (cliente.tienePassword()) {
-                // Cliente con contraseña: validar password
-                autenticado = cliente.validarPassword(password);
-            } else {
-                // Cliente SIN contraseña (creado por admin): usar teléfono como fallback
-                autenticado = password.equals(cliente.getTelefono());
+        if (cliente != null) {
+            if (!cliente.isActivo()) {
+                mostrarError("Cliente inactivo. Contacte con la tienda.");
+                btnIngresar.setDisable(false);
+                return;
             }
 
-            if (autenticado) {
-                if (!cliente.isActivo()) {
-                    mostrarError("Cliente inactivo. Contacte con la tienda.");
-                    btnIngresar.setDisable(false);
-                    return;
-                }
-
-                // Login exitoso - crear un usuario temporal para el cliente
-                Usuario usuarioCliente = crearUsuarioTemporalCliente(cliente);
+            // Login exitoso - crear un usuario temporal para el cliente
+            Usuario usuarioCliente = crearUsuarioTemporalCliente(cliente);
 
-                // Guardar sesión
-                SessionManager.setUsuarioActual(usuarioCliente);
+            // Guardar sesión
+            SessionManager.setUsuarioActual(usuarioCliente);
 
-                // Guardar cédula si se marcó recordar
-                if (chkRecordar.isSelected()) {
-                    guardarUsuario(cedula);
-                } else {
-                    limpiarUsuarioGuardado();
-                }
+            // Guardar cédula si se marcó recordar
+            if (chkRecordar.isSelected()) {
+                guardarUsuario(cedula);
+            } else {
+                limpiarUsuarioGuardado();
+            }
 
-                // Registrar auditoría
-                registrarAuditoriaCliente(cliente, "LOGIN_CLIENTE", true);
+            // Registrar auditoría
+            registrarAuditoriaCliente(cliente, "LOGIN_CLIENTE", true);
 
-                // Abrir ventana principal (con acceso limitado para clientes)
-                abrirVentanaPrincipal(usuarioCliente);
+            // Abrir ventana principal (con acceso limitado para clientes)
+            abrirVentanaPrincipal(usuarioCliente);
 
-            } else {
-                // Credenciales incorrectas
-                registrarAuditoriaClienteFallida(cedula);
-                mostrarError("Cédula o contraseña incorrectas");
-                btnIngresar.setDisable(false);
-            }
         } else {
-            // Cliente no encontrado
+            // Cliente no encontrado o credenciales incorrectas
             registrarAuditoriaClienteFallida(cedula);
             mostrarError("Cédula o contraseña incorrectas");
             btnIngresar.setDisable(false);
@@ -329,6 +350,7 @@ public class LoginController {
             stage.setScene(new Scene(root));
             stage.setMaximized(true);
             stage.show();
+            MedidorArranque.marcar(MedidorArranque.VENTANA_PRINCIPAL);
 
             // Cerrar ventana de login
             Stage loginStage = (Stage) btnIngresar.getScene().getWindow();
@@ -1,5 +1,7 @@
 package com.taller.proyecto_bd.ui;
 
+import com.taller.proyecto_bd.models.Funcionalidad;
+import com.taller.proyecto_bd.models.Permisos;
 import com.taller.proyecto_bd.models.SessionManager;
 
 
@@ -10,15 +12,21 @@ import com.taller.proyecto_bd.dao.VentaDAO;
 import com.taller.proyecto_bd.dao.ProductoDAO;
 import com.taller.proyecto_bd.dao.CreditoDAO;
 import com.taller.proyecto_bd.models.Auditoria;
-import com.taller.proyecto_bd.models.Venta;
-import com.taller.proyecto_bd.models.Producto;
+import com.taller.proyecto_bd.models.EventoDominio;
+import com.taller.proyecto_bd.utils.BusEventos;
+import com.taller.proyecto_bd.utils.Dinero;
+import com.taller.proyecto_bd.utils.MedidorArranque;
 import javafx.animation.KeyFrame;
+import javafx.application.Platform;
 import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import javafx.util.Duration;
@@ -27,11 +35,12 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.LocalDate;
 import java.util.Date;
-import java.util.List;
+import java.util.EnumSet;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador para la ventana principal del sistema
@@ -56,6 +65,7 @@ public class MainWindowController {
     @FXML private MenuItem menuItemCalculadora;
     @FXML private MenuItem menuItemCalendario;
     @FXML private MenuItem menuItemBitacora;
+    @FXML private MenuItem menuItemDiagnostico;
     
     // ==================== BOTONES ACCESO RÁPIDO ====================
     @FXML private Button btnNuevaVenta;
@@ -92,6 +102,7 @@ public class MainWindowController {
         creditoDAO = CreditoDAO.getInstance();
         iniciarReloj();
         cargarEstadisticas();
+        suscribirEventos();
     }
 
     /**
@@ -115,48 +126,28 @@ public class MainWindowController {
      * Configura los permisos de acceso según el rol del usuario
      */
     private void configurarPermisos() {
-        // ADMIN: Acceso total a todo
-        if (SessionManager.esAdministrador()) {
-            // No hay restricciones
-            return;
-        }
-
-        // VENDEDOR: No puede acceder a Usuarios ni Bitácora
-        if (SessionManager.esVendedor()) {
-            menuItemUsuarios.setDisable(true);
-            menuItemBitacora.setDisable(true);
-            return;
-        }
+        Permisos permisos = SessionManager.getPermisos();
 
-        // GERENTE: Solo puede acceder a Consultas y Reportes
-        if (SessionManager.esGerente()) {
-            // Deshabilitar todo excepto consultas y reportes
-            menuEntidades.setDisable(true);
-            menuTransacciones.setDisable(true);
-            menuUtilidades.setDisable(true);
+        menuEntidades.setDisable(!permisos.tienePermiso(Funcionalidad.ENTIDADES));
+        menuTransacciones.setDisable(!permisos.tienePermiso(Funcionalidad.TRANSACCIONES));
+        menuConsultasReportes.setDisable(!permisos.tienePermiso(Funcionalidad.CONSULTAS_REPORTES));
+        menuUtilidades.setDisable(!permisos.tienePermiso(Funcionalidad.UTILIDADES));
+        menuItemUsuarios.setDisable(!permisos.tienePermiso(Funcionalidad.USUARIOS));
+        menuItemBitacora.setDisable(!permisos.tienePermiso(Funcionalidad.BITACORA));
+        configurarDiagnostico(permisos.tienePermiso(Funcionalidad.DIAGNOSTICO));
 
-            // Deshabilitar botones de acceso rápido
-            btnNuevaVenta.setDisable(true);
-            btnBuscarCliente.setDisable(true);
-            btnBuscarProducto.setDisable(true);
+        // Botones de acceso rápido
+        btnNuevaVenta.setDisable(!permisos.tienePermiso(Funcionalidad.VENTAS));
+        btnBuscarCliente.setDisable(!permisos.tienePermiso(Funcionalidad.BUSQUEDAS));
+        btnBuscarProducto.setDisable(!permisos.tienePermiso(Funcionalidad.BUSQUEDAS));
 
+        // GERENTE: Solo puede acceder a Consultas y Reportes
+        if (permisos.esGerente()) {
             actualizarEstado("Usuario de solo consulta");
-            return;
         }
 
         // CLIENTE: Solo puede acceder a Nueva Compra
-        if (SessionManager.esCliente()) {
-            // Deshabilitar todos los menús
-            menuEntidades.setDisable(true);
-            menuTransacciones.setDisable(true);
-            menuConsultasReportes.setDisable(true);
-            menuUtilidades.setDisable(true);
-
-            // Deshabilitar botones de acceso rápido
-            btnNuevaVenta.setDisable(true);
-            btnBuscarCliente.setDisable(true);
-            btnBuscarProducto.setDisable(true);
-
+        if (permisos.esCliente()) {
             actualizarEstado("Modo Cliente - Solo compras");
 
             // Abrir automáticamente la interfaz de Nueva Compra
@@ -164,6 +155,29 @@ public class MainWindowController {
         }
     }
 
+    /**
+     * Habilita el acceso a la ventana de diagnóstico (menú Utilidades y Ctrl+Shift+D)
+     */
+    private void configurarDiagnostico(boolean permitido) {
+        menuItemDiagnostico.setDisable(!permitido);
+        if (!permitido) return;
+
+        // La escena todavía no existe cuando LoginController llama a inicializarConUsuario
+        if (lblUsuarioActual.getScene() != null) {
+            registrarAtajoDiagnostico(lblUsuarioActual.getScene());
+        } else {
+            lblUsuarioActual.sceneProperty().addListener((obs, anterior, escena) -> {
+                if (escena != null) registrarAtajoDiagnostico(escena);
+            });
+        }
+    }
+
+    private void registrarAtajoDiagnostico(Scene escena) {
+        escena.getAccelerators().put(
+                new KeyCodeCombination(KeyCode.D, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN),
+                this::abrirDiagnostico);
+    }
+
     /**
      * Inicia el reloj en tiempo real
      */
@@ -179,89 +193,54 @@ public class MainWindowController {
     }
 
     /**
-     * Carga las estadísticas iniciales
+     * Carga las estadísticas iniciales en segundo plano (tres consultas de
+     * agregado) para no retrasar la apertura de la ventana
      */
     private void cargarEstadisticas() {
-        try {
+        CompletableFuture.supplyAsync(() -> new long[]{
+                ventaDAO.obtenerTotalDelDiaCentavos(LocalDate.now()),
+                productoDAO.contarConStock(),
+                creditoDAO.contarActivos()
+        }).whenComplete((valores, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Error al cargar estadísticas: " + error.getMessage());
+                lblVentasHoy.setText("$ 0.00");
+                lblProductosStock.setText("0");
+                lblCreditosActivos.setText("0");
+                return;
+            }
             NumberFormat formatoMoneda = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("es-CO"));
-
-            // Calcular ventas de hoy
-            double totalVentasHoy = calcularTotalVentasHoy();
-            lblVentasHoy.setText(formatoMoneda.format(totalVentasHoy));
-
-            // Contar productos en stock
-            int totalProductos = contarProductosEnStock();
-            lblProductosStock.setText(String.valueOf(totalProductos));
-
-            // Contar créditos activos
-            int creditosActivos = contarCreditosActivos();
-            lblCreditosActivos.setText(String.valueOf(creditosActivos));
-
-        } catch (Exception e) {
-            System.err.println("Error al cargar estadísticas: " + e.getMessage());
-            lblVentasHoy.setText("$ 0.00");
-            lblProductosStock.setText("0");
-            lblCreditosActivos.setText("0");
-        }
+            lblVentasHoy.setText(formatoMoneda.format(Dinero.aDouble(valores[0])));
+            lblProductosStock.setText(String.valueOf(valores[1]));
+            lblCreditosActivos.setText(String.valueOf(valores[2]));
+        }));
     }
 
     /**
-     * Calcula el total de ventas del día actual
+     * Recalcula los contadores del panel una vez por lote de eventos que
+     * los afectan (ventas, stock, productos y cuotas).
      */
-    private double calcularTotalVentasHoy() {
-        double total = 0.0;
-
-        // Obtener todas las ventas
-        List<Venta> todasLasVentas = ventaDAO.obtenerTodas();
-
-        // Crear objeto Calendar para comparar fechas
-        Calendar hoy = Calendar.getInstance();
-        hoy.set(Calendar.HOUR_OF_DAY, 0);
-        hoy.set(Calendar.MINUTE, 0);
-        hoy.set(Calendar.SECOND, 0);
-        hoy.set(Calendar.MILLISECOND, 0);
-
-        // Filtrar ventas de hoy y sumar totales
-        for (Venta venta : todasLasVentas) {
-            if (venta.getFechaVenta() != null && !venta.getEstado().equals("ANULADA")) {
-                Calendar fechaVenta = Calendar.getInstance();
-                fechaVenta.setTime(venta.getFechaVenta());
-                fechaVenta.set(Calendar.HOUR_OF_DAY, 0);
-                fechaVenta.set(Calendar.MINUTE, 0);
-                fechaVenta.set(Calendar.SECOND, 0);
-                fechaVenta.set(Calendar.MILLISECOND, 0);
-
-                if (fechaVenta.equals(hoy)) {
-                    total += venta.getTotal();
-                }
+    private void suscribirEventos() {
+        EventosVista.suscribir(lblVentasHoy, EnumSet.of(EventoDominio.Tipo.VENTA_REGISTRADA,
+                EventoDominio.Tipo.VENTA_ACTUALIZADA, EventoDominio.Tipo.VENTA_ANULADA,
+                EventoDominio.Tipo.STOCK_CAMBIADO, EventoDominio.Tipo.PRODUCTO_ACTUALIZADO,
+                EventoDominio.Tipo.PRODUCTO_ELIMINADO, EventoDominio.Tipo.CATALOGO_CAMBIADO,
+                EventoDominio.Tipo.CUOTA_PAGADA), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                // se recalcula al final del lote
             }
-        }
-
-        return total;
-    }
 
-    /**
-     * Cuenta el total de productos que tienen stock disponible
-     */
-    private int contarProductosEnStock() {
-        List<Producto> productos = productoDAO.obtenerActivos();
-        int contador = 0;
-
-        for (Producto producto : productos) {
-            if (producto.getStockActual() > 0) {
-                contador++;
+            @Override
+            public void finLote() {
+                cargarEstadisticas();
             }
-        }
-
-        return contador;
-    }
 
-    /**
-     * Cuenta los créditos activos en el sistema
-     */
-    private int contarCreditosActivos() {
-        List<?> creditosActivos = creditoDAO.obtenerActivos();
-        return creditosActivos.size();
+            @Override
+            public void desbordado() {
+                cargarEstadisticas();
+            }
+        });
     }
 
     /**
@@ -344,7 +323,7 @@ public class MainWindowController {
 
     @FXML
     private void abrirUsuarios() {
-        if (!SessionManager.tienePermiso("USUARIOS")) {
+        if (!SessionManager.tienePermiso(Funcionalidad.USUARIOS)) {
             mostrarError("No tiene permisos para acceder a la gestión de usuarios");
             return;
         }
@@ -372,14 +351,15 @@ public class MainWindowController {
     private void nuevaVenta() {
         actualizarEstado("Iniciando nueva venta...");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/vista/NuevaVenta.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = VistasPrecargadas.cargar(VistasPrecargadas.NUEVA_VENTA);
+            Parent root = loader.getRoot();
 
             Stage stage = new Stage();
             stage.setTitle("Nueva Venta");
             stage.setScene(new Scene(root));
             stage.setMaximized(true);
             stage.show();
+            MedidorArranque.marcar(MedidorArranque.PRIMERA_VENTA);
         } catch (IOException e) {
             mostrarError("Error al abrir nueva venta: " + e.getMessage());
             e.printStackTrace();
@@ -600,7 +580,7 @@ public class MainWindowController {
 
     @FXML
     private void abrirBitacora() {
-        if (!SessionManager.tienePermiso("BITACORA")) {
+        if (!SessionManager.tienePermiso(Funcionalidad.BITACORA)) {
             mostrarError("No tiene permisos para acceder a la bitácora");
             return;
         }
@@ -623,6 +603,17 @@ public class MainWindowController {
         }
     }
 
+    @FXML
+    private void abrirDiagnostico() {
+        if (!SessionManager.tienePermiso(Funcionalidad.DIAGNOSTICO)) {
+            mostrarError("No tiene permisos para acceder al diagnóstico");
+            return;
+        }
+        actualizarEstado("Abriendo diagnóstico de base de datos...");
+        DiagnosticoViewController.mostrar(lblUsuarioActual.getScene().getWindow());
+        registrarAccion("ABRIR_DIAGNOSTICO", "Utilidad", "Abrió el diagnóstico de base de datos");
+    }
+
     @FXML
     private void abrirAyuda() {
         actualizarEstado("Abriendo centro de ayuda...");
@@ -684,8 +675,8 @@ public class MainWindowController {
     private void buscarProducto() {
         actualizarEstado("Abriendo búsqueda de producto...");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/vista/BuscarProducto.fxml"));
-            Parent root = loader.load();
+            FXMLLoader loader = VistasPrecargadas.cargar(VistasPrecargadas.BUSCAR_PRODUCTO);
+            Parent root = loader.getRoot();
 
             Stage stage = new Stage();
             stage.setTitle("Buscar Producto");
@@ -13,6 +13,7 @@ import javafx.stage.Stage;
 import javafx.util.StringConverter;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -64,7 +65,6 @@ public class NuevaCompraController {
     // ==================== ATRIBUTOS ====================
     private ProductoDAO productoDAO;
     private VentaDAO ventaDAO;
-    private DetalleVentaDAO detalleVentaDAO;
     private CreditoDAO creditoDAO;
     private ClienteDAO clienteDAO;
 
@@ -84,7 +84,6 @@ public class NuevaCompraController {
         // Inicializar DAOs
         productoDAO = ProductoDAO.getInstance();
         ventaDAO = VentaDAO.getInstance();
-        detalleVentaDAO = DetalleVentaDAO.getInstance();
         creditoDAO = CreditoDAO.getInstance();
         clienteDAO = ClienteDAO.getInstance();
 
@@ -518,44 +517,24 @@ public class NuevaCompraController {
                 venta.setPlazoMeses(0);
             }
 
-            // 2. Guardar la venta
-            boolean ventaGuardada = ventaDAO.agregar(venta);
-
-            if (!ventaGuardada) {
-                mostrarError("No se pudo guardar la venta");
-                return;
-            }
-
-            // 3. Guardar los detalles de la venta
-            boolean detallesGuardados = true;
+            // 2-4. Guardar la venta con sus detalles y descontar el stock (con su
+            // movimiento en el kardex) en una sola transacción
             for (DetalleVenta detalle : carrito) {
-                detalle.setIdVenta(venta.getIdVenta());
                 detalle.setIdProducto(detalle.getProducto().getIdProducto());
-
-                boolean detalleGuardado = detalleVentaDAO.agregar(detalle);
-                if (!detalleGuardado) {
-                    detallesGuardados = false;
-                    System.err.println("Error al guardar detalle del producto: " +
-                                     detalle.getProducto().getNombre());
-                }
-
-                // 4. Actualizar inventario (reducir stock)
-                Producto producto = detalle.getProducto();
-                int nuevoStock = producto.getStockActual() - detalle.getCantidad();
-                producto.setStockActual(nuevoStock);
-                productoDAO.actualizar(producto);
             }
-
-            // 5. Si es crédito, crear el registro de crédito
-            if (esCredito) {
-                crearCredito(venta, totalCompra);
+            venta.setDetalles(new ArrayList<>(carrito));
+            if (ventaDAO.registrarVentaCompleta(venta).getEstado() != VentaDAO.ResultadoRegistro.Estado.REGISTRADA) {
+                mostrarError("No se pudo guardar la venta");
+                return;
             }
 
-            // 6. Actualizar saldo del cliente si es crédito
+            // 5. Si es crédito, crear el registro de crédito
+            // 6. y sumar al saldo del cliente lo financiado con su interés
             if (esCredito) {
-                double nuevoSaldo = clienteActual.getSaldoPendiente() + totalCompra;
-                clienteActual.setSaldoPendiente(nuevoSaldo);
-                clienteDAO.actualizar(clienteActual);
+                Credito credito = crearCredito(venta, totalCompra);
+                if (credito != null) {
+                    clienteDAO.ajustarSaldo(clienteActual.getIdCliente(), credito.getSaldoPendienteCentavos());
+                }
             }
 
             // 7. Mostrar mensaje de éxito
@@ -588,52 +567,42 @@ public class NuevaCompraController {
     /**
      * Crea el registro de crédito para la venta
      */
-    private void crearCredito(Venta venta, double totalCompra) {
+    private Credito crearCredito(Venta venta, double totalCompra) {
         try {
             Credito credito = new Credito();
             credito.setIdVenta(venta.getIdVenta());
             credito.setIdCliente(venta.getIdCliente());
-            credito.setMontoTotal(totalCompra);
             credito.setInteres(INTERES_PORCENTAJE);
             credito.setPlazoMeses(venta.getPlazoMeses());
             credito.setCuotaInicial(venta.getCuotaInicial());
 
-            double saldoFinanciar = totalCompra - venta.getCuotaInicial();
-            credito.setSaldoPendiente(saldoFinanciar);
+            // Monto financiado = total - cuota inicial; el saldo es lo que suman las cuotas
+            credito.setMontoTotal(totalCompra - venta.getCuotaInicial());
+            credito.generarCuotas();
+            credito.setSaldoPendienteCentavos(credito.getCuotas().stream()
+                    .mapToLong(Cuota::getValorCentavos).sum());
             credito.setEstado("ACTIVO");
             credito.setFechaRegistro(new java.util.Date());
 
-            boolean creditoGuardado = creditoDAO.agregar(credito);
-
-            if (creditoGuardado) {
+            if (creditoDAO.agregar(credito)) {
                 // Generar las cuotas
-                generarCuotas(credito);
+                generarCuotas(credito, venta);
+                return credito;
             }
         } catch (Exception e) {
             System.err.println("Error al crear crédito: " + e.getMessage());
             e.printStackTrace();
         }
+        return null;
     }
 
     /**
-     * Genera las cuotas del crédito
+     * Genera y guarda las cuotas del crédito (mismo plan que en Nueva Venta)
      */
-    private void generarCuotas(Credito credito) {
-        try {
-            double saldoFinanciar = credito.getSaldoPendiente();
-            double interes = saldoFinanciar * credito.getInteres();
-            double totalConInteres = saldoFinanciar + interes;
-            double valorCuota = totalConInteres / credito.getPlazoMeses();
-
-            // Obtener CuotaDAO si existe
-            // Por ahora, solo calculamos - la implementación de cuotas puede variar
-            System.out.println("Crédito generado:");
-            System.out.println("- Plazo: " + credito.getPlazoMeses() + " meses");
-            System.out.println("- Valor cuota: " + formatoMoneda.format(valorCuota));
-            System.out.println("- Total a pagar: " + formatoMoneda.format(totalConInteres));
-
-        } catch (Exception e) {
-            System.err.println("Error al generar cuotas: " + e.getMessage());
+    private void generarCuotas(Credito credito, Venta venta) {
+        if (!CuotaDAO.getInstance().generarCuotas(credito.getIdCredito(), venta.getTotal(),
+                venta.getPlazoMeses(), venta.getFechaVenta())) {
+            System.err.println("Error al generar las cuotas del crédito " + credito.getIdCredito());
         }
     }
 
@@ -4,14 +4,20 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.*;
 import com.taller.proyecto_bd.models.*;
+import com.taller.proyecto_bd.services.CajaOfflineService;
+import com.taller.proyecto_bd.services.ReservaStockService;
+import com.taller.proyecto_bd.utils.BusEventos;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.Scene;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 import javafx.stage.FileChooser;
 import javafx.util.StringConverter;
 
@@ -32,7 +38,9 @@ import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -40,7 +48,7 @@ import java.util.Optional;
 /**
  * Controlador para el módulo de Nueva Venta
  */
-public class NuevaVentaController {
+public class NuevaVentaController implements VistasPrecargadas.Recargable {
 
     // ==================== SECCIÓN CLIENTE ====================
     @FXML private TextField txtBuscarCliente;
@@ -85,8 +93,11 @@ public class NuevaVentaController {
     private ClienteDAO clienteDAO;
     private ProductoDAO productoDAO;
     private VentaDAO ventaDAO;
-    private DetalleVentaDAO detalleVentaDAO;
     private CuotaDAO cuotaDAO;
+    private CajaOfflineService caja;
+    private ReservaStockService reservaStock;
+    /** Unidades del carrito apartadas para que otro carrito de esta caja no las venda */
+    private ReservaStockService.Reserva reserva;
 
     private Cliente clienteSeleccionado;
     private ObservableList<DetalleVenta> carrito;
@@ -105,8 +116,10 @@ public class NuevaVentaController {
         clienteDAO = ClienteDAO.getInstance();
         productoDAO = ProductoDAO.getInstance();
         ventaDAO = VentaDAO.getInstance();
-        detalleVentaDAO = DetalleVentaDAO.getInstance();
         cuotaDAO = CuotaDAO.getInstance();
+        caja = CajaOfflineService.getInstance();
+        reservaStock = ReservaStockService.getInstance();
+        reserva = reservaStock.nuevaReserva();
 
         carrito = FXCollections.observableArrayList();
         formatoMoneda = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
@@ -117,6 +130,35 @@ public class NuevaVentaController {
         configurarPlazos();
         configurarEventos();
         generarCodigoVenta();
+        // Precargada en segundo plano no se pueden abrir avisos: se muestran en recargarDatos()
+        if (Platform.isFxApplicationThread()) {
+            mostrarEstadoCaja();
+        }
+        suscribirEventos();
+        liberarReservaAlCerrar();
+    }
+
+    /**
+     * Cerrar la ventana por cualquier vía (incluida la X) devuelve las
+     * unidades apartadas, sin esperar a que venza la reserva.
+     */
+    private void liberarReservaAlCerrar() {
+        btnNuevaVenta.sceneProperty().flatMap(Scene::windowProperty).addListener((obs, anterior, ventana) -> {
+            if (ventana != null) {
+                ventana.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> reservaStock.cancelar(reserva));
+            }
+        });
+    }
+
+    /**
+     * Refresca productos, código y estado de la caja cuando la vista se
+     * cargó de antemano (VistasPrecargadas)
+     */
+    @Override
+    public void recargarDatos() {
+        configurarProductos();
+        generarCodigoVenta();
+        mostrarEstadoCaja();
     }
     
     /**
@@ -132,7 +174,7 @@ public class NuevaVentaController {
         // Columna de código del producto
         colProductoCodigo.setCellValueFactory(cellData -> {
             int idProducto = cellData.getValue().getIdProducto();
-            Producto p = productoDAO.obtenerPorId(idProducto);
+            Producto p = buscarProductoCargado(idProducto);
             return new javafx.beans.property.SimpleStringProperty(p != null ? p.getCodigo() : "");
         });
         
@@ -199,6 +241,7 @@ public class NuevaVentaController {
                 btnEliminar.setOnAction(event -> {
                     DetalleVenta detalle = getTableView().getItems().get(getIndex());
                     carrito.remove(detalle);
+                    reservaStock.liberar(reserva, detalle.getIdProducto(), detalle.getCantidad());
                     calcularTotales();
                 });
             }
@@ -215,7 +258,7 @@ public class NuevaVentaController {
      * Carga los productos en el ComboBox
      */
     private void configurarProductos() {
-        List<Producto> productos = productoDAO.obtenerActivos();
+        List<Producto> productos = caja.obtenerProductosDisponibles();
         cmbProducto.setItems(FXCollections.observableArrayList(productos));
         
         // Configurar cómo se muestra cada producto
@@ -235,6 +278,68 @@ public class NuevaVentaController {
         });
     }
     
+    /**
+     * Mantiene el combo de productos al día con la copia local de la caja,
+     * que a su vez recibe los cambios de las demás cajas.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(cmbProducto, EnumSet.of(EventoDominio.Tipo.CATALOGO_LOCAL_ACTUALIZADO),
+                new BusEventos.Suscriptor() {
+                    @Override
+                    public void recibir(EventoDominio evento) {
+                        if (evento.getId() > 0) {
+                            aplicarProducto(evento.getId());
+                        } else {
+                            recargarProductos();
+                        }
+                    }
+
+                    @Override
+                    public void desbordado() {
+                        recargarProductos();
+                    }
+                });
+    }
+
+    private void aplicarProducto(int idProducto) {
+        Producto producto = caja.obtenerProductoDisponible(idProducto);
+        Producto seleccionado = cmbProducto.getValue();
+        ObservableList<Producto> items = cmbProducto.getItems();
+        int indice = -1;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getIdProducto() == idProducto) {
+                indice = i;
+                break;
+            }
+        }
+
+        if (producto == null) {
+            if (indice >= 0) {
+                items.remove(indice);
+            }
+        } else if (indice >= 0) {
+            items.set(indice, producto);
+        } else {
+            items.add(producto);
+        }
+        if (seleccionado != null && seleccionado.getIdProducto() == idProducto) {
+            cmbProducto.setValue(producto);
+        }
+    }
+
+    /**
+     * Recarga el combo completo conservando el producto elegido.
+     */
+    private void recargarProductos() {
+        Producto seleccionado = cmbProducto.getValue();
+        configurarProductos();
+        if (seleccionado != null) {
+            cmbProducto.setValue(cmbProducto.getItems().stream()
+                    .filter(p -> p.getIdProducto() == seleccionado.getIdProducto())
+                    .findFirst().orElse(null));
+        }
+    }
+
     /**
      * Configura el Spinner de cantidad
      */
@@ -282,9 +387,38 @@ public class NuevaVentaController {
      * Genera un código único para la venta consultando la base de datos
      */
     private void generarCodigoVenta() {
+        if (!caja.estaEnLinea()) {
+            lblCodigoVenta.setText("(se asigna al guardar)");
+            return;
+        }
         String codigo = ventaDAO.generarCodigoVenta();
         lblCodigoVenta.setText(codigo);
     }
+
+    /**
+     * Sin conexión solo se permiten ventas de contado (se sincronizan después)
+     */
+    private void mostrarEstadoCaja() {
+        boolean enLinea = caja.estaEnLinea();
+        rbCredito.setDisable(!enLinea);
+        if (!enLinea) {
+            rbContado.setSelected(true);
+            mostrarError("Sin conexión: solo ventas de contado. Pendientes de sincronizar: "
+                    + caja.getVentasPendientes());
+        }
+    }
+
+    /**
+     * Busca el producto entre los ya cargados en el ComboBox, sin ir a la BD
+     */
+    private Producto buscarProductoCargado(int idProducto) {
+        for (Producto p : cmbProducto.getItems()) {
+            if (p.getIdProducto() == idProducto) {
+                return p;
+            }
+        }
+        return productoDAO.obtenerPorId(idProducto);
+    }
     
     /**
      * Busca un cliente por cédula o nombre
@@ -299,11 +433,11 @@ public class NuevaVentaController {
         }
         
         // Buscar por cédula primero
-        Cliente cliente = clienteDAO.obtenerPorCedula(criterio);
+        Cliente cliente = caja.buscarClientePorCedula(criterio);
         
         // Si no encuentra por cédula, buscar por nombre
         if (cliente == null) {
-            List<Cliente> clientes = clienteDAO.buscarPorNombre(criterio);
+            List<Cliente> clientes = caja.buscarClientesPorNombre(criterio);
             if (clientes.isEmpty()) {
                 mostrarError("No se encontró ningún cliente con ese criterio");
                 return;
@@ -402,9 +536,9 @@ public class NuevaVentaController {
         
         int cantidad = spnCantidad.getValue();
         
-        // Validar stock
-        if (!producto.hayStockSuficiente(cantidad)) {
-            mostrarError("Stock insuficiente. Disponible: " + producto.getStockActual());
+        // Apartar el stock (lo ya apartado por este carrito no cuenta como disponible)
+        if (!reservaStock.reservar(reserva, producto.getIdProducto(), cantidad)) {
+            mostrarError("Stock insuficiente. Disponible: " + reservaStock.disponible(producto.getIdProducto()));
             return;
         }
         
@@ -418,11 +552,6 @@ public class NuevaVentaController {
             DetalleVenta detalle = existente.get();
             int nuevaCantidad = detalle.getCantidad() + cantidad;
             
-            if (!producto.hayStockSuficiente(nuevaCantidad)) {
-                mostrarError("Stock insuficiente para esa cantidad total");
-                return;
-            }
-            
             detalle.setCantidad(nuevaCantidad);
             detalle.calcularTotales(IVA_PORCENTAJE);
         } else {
@@ -501,6 +630,11 @@ public class NuevaVentaController {
             return;
         }
         
+        if (rbCredito.isSelected() && !caja.estaEnLinea()) {
+            mostrarError("Las ventas a crédito requieren conexión con la base de datos");
+            return;
+        }
+
         try {
             // Crear la venta
             Venta venta = new Venta();
@@ -528,26 +662,24 @@ public class NuevaVentaController {
             }
 
             venta.setEstado("REGISTRADA");
-            
-            // Guardar venta
-            boolean exitoVenta = ventaDAO.agregar(venta);
-            
-            if (!exitoVenta) {
-                mostrarError("Error al guardar la venta");
+
+            // Las ventas de contado se anotan en el diario local y se sincronizan en segundo plano
+            if (!rbCredito.isSelected()) {
+                venta.setDetalles(new ArrayList<>(carrito));
+                if (!caja.registrarVentaContado(venta)) {
+                    mostrarError("Error al guardar la venta");
+                    return;
+                }
+                finalizarVenta(venta, caja.estaEnLinea() ? ""
+                        : " (se sincronizará al recuperar la conexión)");
                 return;
             }
             
-            // Guardar detalles
-            for (DetalleVenta detalle : carrito) {
-                detalle.setIdVenta(venta.getIdVenta());
-                detalleVentaDAO.agregar(detalle);
-                
-                // Actualizar stock
-                Producto producto = productoDAO.obtenerPorId(detalle.getIdProducto());
-                if (producto != null) {
-                    producto.vender(detalle.getCantidad());
-                    productoDAO.actualizar(producto);
-                }
+            // Venta, detalles y descuento de stock (con su movimiento en el kardex) en una transacción
+            venta.setDetalles(new ArrayList<>(carrito));
+            if (ventaDAO.registrarVentaCompleta(venta).getEstado() != VentaDAO.ResultadoRegistro.Estado.REGISTRADA) {
+                mostrarError("Error al guardar la venta");
+                return;
             }
             
             // Si es crédito, crear crédito y generar las cuotas
@@ -563,12 +695,15 @@ public class NuevaVentaController {
                         venta.getPlazoMeses(),
                         INTERES_PORCENTAJE
                     );
-                    credito.setSaldoPendiente(montoFinanciado * 1.05); // con interés
+                    // Con interés: el saldo es lo que suman las cuotas del plan
+                    credito.generarCuotas();
+                    credito.setSaldoPendienteCentavos(credito.getCuotas().stream()
+                            .mapToLong(Cuota::getValorCentavos).sum());
 
                     // Guardar el crédito en la base de datos
                     CreditoDAO creditoDAO = CreditoDAO.getInstance();
                     if (!creditoDAO.agregar(credito)) {
-                        mostrarError("Error al crear el crédito");
+                        fallaCredito("Error al crear el crédito de la venta " + venta.getCodigo());
                         return;
                     }
 
@@ -585,40 +720,57 @@ public class NuevaVentaController {
                     }
 
                     // Actualizar saldo del cliente
-                    double saldoFinanciar = venta.getSaldoFinanciar();
-                    double montoConInteres = saldoFinanciar * 1.05; // 5% de interés
-                    clienteSeleccionado.setSaldoPendiente(
-                        clienteSeleccionado.getSaldoPendiente() + montoConInteres
-                    );
-                    clienteDAO.actualizar(clienteSeleccionado);
+                    if (clienteDAO.ajustarSaldo(clienteSeleccionado.getIdCliente(), credito.getSaldoPendienteCentavos())) {
+                        clienteSeleccionado.setSaldoPendiente(
+                            clienteSeleccionado.getSaldoPendiente() + credito.getSaldoPendiente()
+                        );
+                    }
                 } catch (Exception e) {
-                    mostrarError("Error al procesar el crédito: " + e.getMessage());
+                    fallaCredito("Error al procesar el crédito: " + e.getMessage());
                     e.printStackTrace();
                     return;
                 }
             }
             
-            mostrarExito("¡Venta guardada exitosamente! Código: " + venta.getCodigo());
-
-            // Preguntar si desea generar factura PDF
-            Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-            alert.setTitle("Venta Exitosa");
-            alert.setHeaderText("La venta se guardó correctamente");
-            alert.setContentText("¿Desea generar la factura en PDF?");
-
-            Optional<ButtonType> result = alert.showAndWait();
-            if (result.isPresent() && result.get() == ButtonType.OK) {
-                generarFacturaPDF(venta);
-            }
-
-            // Limpiar formulario
-            nuevaVenta();
+            finalizarVenta(venta, "");
             
         } catch (Exception e) {
             mostrarError("Error al guardar la venta: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    /**
+     * La venta y su stock ya se guardaron pero el crédito falló: la reserva
+     * se confirma y el formulario se limpia para no registrar la venta dos veces
+     */
+    private void fallaCredito(String mensaje) {
+        reservaStock.confirmar(reserva);
+        nuevaVenta();
+        mostrarError(mensaje);
+    }
+
+    /**
+     * Confirma la venta al usuario, ofrece la factura y limpia el formulario
+     */
+    private void finalizarVenta(Venta venta, String nota) {
+        reservaStock.confirmar(reserva);
+        mostrarExito("¡Venta guardada exitosamente! Código: " + venta.getCodigo() + nota);
+
+        // Preguntar si desea generar factura PDF
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Venta Exitosa");
+        alert.setHeaderText("La venta se guardó correctamente");
+        alert.setContentText("¿Desea generar la factura en PDF?");
+
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            generarFacturaPDF(venta);
+        }
+
+        // Limpiar formulario
+        nuevaVenta();
+    }
     
     /**
      * Genera la factura en PDF para una venta
@@ -735,7 +887,7 @@ public class NuevaVentaController {
             // Datos de productos
             int num = 1;
             for (DetalleVenta detalle : carrito) {
-                Producto producto = productoDAO.obtenerPorId(detalle.getIdProducto());
+                Producto producto = buscarProductoCargado(detalle.getIdProducto());
 
                 productosTable.addCell(new Cell().add(new Paragraph(String.valueOf(num++)).setFontSize(9)).setPadding(5));
                 productosTable.addCell(new Cell().add(new Paragraph(detalle.getNombreProducto()).setFontSize(9)).setPadding(5));
@@ -905,6 +1057,8 @@ public class NuevaVentaController {
     @FXML
     private void nuevaVenta() {
         carrito.clear();
+        reservaStock.cancelar(reserva);
+        reserva = reservaStock.nuevaReserva();
         clienteSeleccionado = null;
         
         lblClienteNombre.setText("No seleccionado");
@@ -930,6 +1084,7 @@ public class NuevaVentaController {
         ocultarMensaje();
         
         configurarProductos(); // Recargar productos por si cambió el stock
+        mostrarEstadoCaja();
     }
     
     /**
@@ -2,19 +2,23 @@ package com.taller.proyecto_bd.ui;
 
 import com.taller.proyecto_bd.dao.ClienteDAO;
 import com.taller.proyecto_bd.dao.CreditoDAO;
-import com.taller.proyecto_bd.dao.CuotaDAO;
 import com.taller.proyecto_bd.dao.VentaDAO;
-import com.taller.proyecto_bd.dao.AuditoriaDAO;
 import com.taller.proyecto_bd.models.*;
 import com.taller.proyecto_bd.controllers.CreditoController;
+import com.taller.proyecto_bd.services.ConciliacionBancariaService;
+import com.taller.proyecto_bd.services.CreditoService;
+import com.taller.proyecto_bd.utils.Dinero;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -60,6 +64,8 @@ public class PagarCuotasController {
     @FXML private Button btnBuscar;
     @FXML private Button btnRegistrarPago;
     @FXML private Button btnLimpiar;
+    @FXML private Button btnConciliarBanco;
+    @FXML private Button btnCancelarConciliacion;
 
     // ==================== LABELS DE MENSAJE ====================
     @FXML private Label lblMensaje;
@@ -67,10 +73,9 @@ public class PagarCuotasController {
     // ==================== ATRIBUTOS ====================
     private ClienteDAO clienteDAO;
     private CreditoDAO creditoDAO;
-    private CuotaDAO cuotaDAO;
     private VentaDAO ventaDAO;
-    private AuditoriaDAO auditoriaDAO;
     private CreditoController creditoController;
+    private CreditoService creditoService;
 
     private Cliente clienteSeleccionado;
     private Cuota cuotaSeleccionada;
@@ -85,10 +90,9 @@ public class PagarCuotasController {
     public void initialize() {
         clienteDAO = ClienteDAO.getInstance();
         creditoDAO = CreditoDAO.getInstance();
-        cuotaDAO = CuotaDAO.getInstance();
         ventaDAO = VentaDAO.getInstance();
-        auditoriaDAO = AuditoriaDAO.getInstance();
         creditoController = new CreditoController();
+        creditoService = new CreditoService();
 
         listaCuotas = FXCollections.observableArrayList();
         formatoMoneda = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
@@ -294,6 +298,7 @@ public class PagarCuotasController {
         listaCuotas.clear();
         List<Cuota> cuotas = creditoController.obtenerCuotasPendientesCliente(clienteSeleccionado.getIdCliente());
         listaCuotas.addAll(cuotas);
+        btnRegistrarPago.setDisable(cuotas.isEmpty());
 
         if (cuotas.isEmpty()) {
             mostrarInfo("El cliente no tiene cuotas pendientes");
@@ -301,14 +306,22 @@ public class PagarCuotasController {
     }
 
     /**
-     * Muestra los detalles de la cuota seleccionada
+     * Muestra los detalles de la cuota seleccionada y propone pagar su saldo
      */
     private void mostrarDetallesCuota(Cuota cuota) {
         if (cuota == null) return;
 
         lblCuotaSeleccionada.setText("Cuota #" + cuota.getNumeroCuota());
-        lblValorCuota.setText(formatoMoneda.format(cuota.getValor()));
-        txtMontoPago.setText(String.valueOf(cuota.getValor()));
+        double saldo = Dinero.aDouble(cuota.getSaldoCentavos());
+        String detalle = formatoMoneda.format(saldo);
+        if (cuota.getMoraCentavos() > 0) {
+            detalle += " (mora " + formatoMoneda.format(Dinero.aDouble(cuota.getMoraCentavos())) + ")";
+        }
+        if (cuota.getValorPagadoCentavos() > 0) {
+            detalle += " (abonado " + formatoMoneda.format(Dinero.aDouble(cuota.getValorPagadoCentavos())) + ")";
+        }
+        lblValorCuota.setText(detalle);
+        txtMontoPago.setText(String.valueOf(saldo));
 
         btnRegistrarPago.setDisable(false);
     }
@@ -322,7 +335,7 @@ public class PagarCuotasController {
                 return;
             }
             double monto = Double.parseDouble(txtMontoPago.getText());
-            if (cuotaSeleccionada != null && monto < cuotaSeleccionada.getValor()) {
+            if (monto <= 0) {
                 txtMontoPago.setStyle("-fx-border-color: red;");
             } else {
                 txtMontoPago.setStyle("");
@@ -333,21 +346,23 @@ public class PagarCuotasController {
     }
 
     /**
-     * Registra el pago de la cuota seleccionada
+     * Registra un pago del cliente. El monto se reparte entre las cuotas
+     * pendientes más antiguas de todos sus créditos; la última puede quedar
+     * con un abono parcial.
      */
     @FXML
     private void registrarPago() {
-        if (cuotaSeleccionada == null) {
-            mostrarError("Seleccione una cuota para pagar");
+        if (clienteSeleccionado == null || listaCuotas.isEmpty()) {
+            mostrarError("Busque un cliente con cuotas pendientes");
             return;
         }
 
         // Validar monto
-        double monto;
+        long montoCentavos;
         try {
-            monto = Double.parseDouble(txtMontoPago.getText());
-            if (monto < cuotaSeleccionada.getValor()) {
-                mostrarError("El monto debe ser mayor o igual al valor de la cuota");
+            montoCentavos = Dinero.aCentavos(Double.parseDouble(txtMontoPago.getText()));
+            if (montoCentavos <= 0) {
+                mostrarError("El monto debe ser mayor a 0");
                 return;
             }
         } catch (NumberFormatException e) {
@@ -355,6 +370,12 @@ public class PagarCuotasController {
             return;
         }
 
+        long pendiente = listaCuotas.stream().mapToLong(Cuota::getSaldoCentavos).sum();
+        if (montoCentavos > pendiente) {
+            mostrarError("El monto supera el saldo pendiente (" + formatoMoneda.format(Dinero.aDouble(pendiente)) + ")");
+            return;
+        }
+
         // Validar fecha de pago
         if (dpFechaPago.getValue() == null) {
             mostrarError("Seleccione la fecha de pago");
@@ -364,75 +385,140 @@ public class PagarCuotasController {
         // Confirmar el pago
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Confirmar Pago");
-        alert.setHeaderText("¿Desea registrar el pago de la cuota?");
-        alert.setContentText(String.format("Cuota #%d\nValor: %s\nMonto a pagar: %s",
-                cuotaSeleccionada.getNumeroCuota(),
-                formatoMoneda.format(cuotaSeleccionada.getValor()),
-                formatoMoneda.format(monto)));
+        alert.setHeaderText("¿Desea registrar el pago?");
+        alert.setContentText(String.format("Monto a pagar: %s\nSaldo pendiente: %s\n\n" +
+                        "Se aplica a las cuotas más antiguas primero.",
+                formatoMoneda.format(Dinero.aDouble(montoCentavos)),
+                formatoMoneda.format(Dinero.aDouble(pendiente))));
 
         Optional<ButtonType> resultado = alert.showAndWait();
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
-            realizarPago(monto);
+            realizarPago(montoCentavos);
         }
     }
 
     /**
-     * Realiza el pago de la cuota
+     * Aplica el pago a los créditos del cliente en una sola transacción
      */
-    private void realizarPago(double monto) {
+    private void realizarPago(long montoCentavos) {
         Date fechaPago = Date.from(dpFechaPago.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<Integer> creditos = listaCuotas.stream().map(Cuota::getIdCredito).distinct().toList();
 
-        // Registrar el pago en la base de datos
-        boolean pagoExitoso = cuotaDAO.registrarPago(cuotaSeleccionada.getIdCuota(), fechaPago);
+        AplicacionPago aplicacion = creditoService.aplicarPago(creditos, montoCentavos, fechaPago,
+                SessionManager.getInstance().getUsuarioActual());
 
-        if (pagoExitoso) {
-            // Verificar si todas las cuotas del crédito están pagadas
-            Credito credito = creditoDAO.obtenerPorId(cuotaSeleccionada.getIdCredito());
-            if (credito != null) {
-                List<Cuota> cuotasPendientes = cuotaDAO.obtenerPendientesPorCredito(credito.getIdCredito());
-
-                if (cuotasPendientes.isEmpty()) {
-                    // Actualizar estado de la venta a PAGADA
-                    Venta venta = ventaDAO.obtenerPorId(credito.getIdVenta());
-                    if (venta != null) {
-                        venta.setEstado("PAGADA");
-                        ventaDAO.actualizar(venta);
-
-                        // Actualizar saldo del cliente
-                        double montoFinanciado = venta.getMontoFinanciado();
-                        double nuevoSaldo = clienteSeleccionado.getSaldoPendiente() - montoFinanciado;
-                        clienteSeleccionado.setSaldoPendiente(Math.max(nuevoSaldo, 0));
-                        clienteDAO.actualizar(clienteSeleccionado);
-
-                        mostrarExito("¡Pago registrado! El crédito ha sido completamente pagado.");
-                    }
-                } else {
-                    mostrarExito("Pago registrado exitosamente");
+        if (aplicacion == null || aplicacion.getAbonos().isEmpty()) {
+            mostrarError("Error al registrar el pago");
+            cargarCuotasPendientes();
+            return;
+        }
+
+        Cliente actualizado = clienteDAO.obtenerPorId(clienteSeleccionado.getIdCliente());
+        if (actualizado != null) {
+            clienteSeleccionado.setSaldoPendiente(actualizado.getSaldoPendiente());
+        }
+
+        String mensaje = String.format("Pago registrado: %d cuotas pagadas", aplicacion.getCuotasSaldadas());
+        if (aplicacion.getCuotasSaldadas() < aplicacion.getAbonos().size()) {
+            mensaje += " y un abono parcial";
+        }
+        if (!aplicacion.getCreditosCancelados().isEmpty()) {
+            mensaje += ". " + (aplicacion.getCreditosCancelados().size() == 1
+                    ? "El crédito ha sido completamente pagado."
+                    : aplicacion.getCreditosCancelados().size() + " créditos completamente pagados.");
+        }
+        if (aplicacion.getSobranteCentavos() > 0) {
+            mensaje += " Sobrante: " + formatoMoneda.format(Dinero.aDouble(aplicacion.getSobranteCentavos()));
+        }
+        mostrarExito(mensaje);
+
+        // Actualizar la vista
+        limpiarFormularioPago();
+        cargarCuotasPendientes();
+        mostrarDatosCliente();
+    }
+
+    /**
+     * Concilia un extracto del banco (CSV o ancho fijo) en segundo plano;
+     * lo que no se pueda asociar queda en el archivo de revisión
+     */
+    @FXML
+    private void conciliarBanco() {
+        if (!SessionManager.puedeEditar()) {
+            mostrarError("No tiene permisos para registrar pagos");
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Conciliar extracto del banco");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Extractos CSV/TSV", "*.csv", "*.tsv"),
+            new FileChooser.ExtensionFilter("Extractos de ancho fijo", "*.txt", "*.dat"));
+        File archivo = fileChooser.showOpenDialog(tablaCuotas.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        ConciliacionBancariaService conciliacion = ConciliacionBancariaService.getInstance();
+        Usuario usuario = SessionManager.getUsuarioActual();
+        Task<ConciliacionBancariaService.ResumenConciliacion> tarea = new Task<>() {
+            @Override
+            protected ConciliacionBancariaService.ResumenConciliacion call() {
+                return conciliacion.conciliar(archivo.toPath(), ConciliacionBancariaService.DisenoFijo.PREDETERMINADO,
+                    usuario, progreso -> updateMessage("Conciliando: " + progreso));
+            }
+        };
+        tarea.messageProperty().addListener((obs, old, mensaje) -> {
+            lblMensaje.setText(mensaje);
+            lblMensaje.setVisible(true);
+        });
+        tarea.setOnSucceeded(e -> {
+            ConciliacionBancariaService.ResumenConciliacion resumen = tarea.getValue();
+            btnConciliarBanco.setDisable(false);
+            btnCancelarConciliacion.setDisable(true);
+            lblMensaje.setVisible(false);
+            String mensaje = resumen.getMensaje();
+            if (resumen.getProgreso().getEnRevision() > 0) {
+                mensaje += "\n\nPagos para revisar en: " + resumen.getArchivoRevision().toAbsolutePath();
+            }
+            if (resumen.isCompleta()) {
+                mostrarExito(mensaje);
+            } else {
+                mostrarError(mensaje);
+            }
+            if (clienteSeleccionado != null) {
+                Cliente actualizado = clienteDAO.obtenerPorId(clienteSeleccionado.getIdCliente());
+                if (actualizado != null) {
+                    clienteSeleccionado.setSaldoPendiente(actualizado.getSaldoPendiente());
                 }
+                cargarCuotasPendientes();
+                mostrarDatosCliente();
             }
+        });
+        tarea.setOnFailed(e -> {
+            btnConciliarBanco.setDisable(false);
+            btnCancelarConciliacion.setDisable(true);
+            lblMensaje.setVisible(false);
+            mostrarError("Error al conciliar: " + tarea.getException().getMessage());
+        });
 
-            // Registrar auditoría
-            Usuario usuario = SessionManager.getInstance().getUsuarioActual();
-            if (usuario != null) {
-                auditoriaDAO.agregar(new Auditoria(
-                    usuario.getIdUsuario(),
-                    "PAGO_CUOTA",
-                    "Cuota",
-                    String.format("Pago de cuota #%d del cliente %s por %s",
-                        cuotaSeleccionada.getNumeroCuota(),
-                        clienteSeleccionado.getNombreCompleto(),
-                        formatoMoneda.format(monto)),
-                    "127.0.0.1"
-                ));
-            }
+        btnConciliarBanco.setDisable(true);
+        btnCancelarConciliacion.setDisable(false);
+        Thread hilo = new Thread(tarea, "conciliacion-banco");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
 
-            // Actualizar la vista
-            cargarCuotasPendientes();
-            mostrarDatosCliente();
-            limpiarFormularioPago();
-        } else {
-            mostrarError("Error al registrar el pago");
-        }
+    /**
+     * Detiene la conciliación en curso al terminar el lote actual; los
+     * pagos ya aplicados se omiten al volver a cargar el archivo
+     */
+    @FXML
+    private void cancelarConciliacion() {
+        ConciliacionBancariaService.getInstance().cancelar();
+        btnCancelarConciliacion.setDisable(true);
+        lblMensaje.setText("Cancelando conciliación...");
+        lblMensaje.setVisible(true);
     }
 
     /**
@@ -5,19 +5,28 @@ package com.taller.proyecto_bd.ui;
 import com.taller.proyecto_bd.dao.ProductoDAO;
 import com.taller.proyecto_bd.dao.CategoriaDAO;
 import com.taller.proyecto_bd.dao.InventarioDAO;
+import com.taller.proyecto_bd.dao.ResultadoActualizacion;
+import com.taller.proyecto_bd.models.EventoDominio;
 import com.taller.proyecto_bd.models.Producto;
 import com.taller.proyecto_bd.models.SessionManager;
 import com.taller.proyecto_bd.models.Categoria;
 import com.taller.proyecto_bd.models.Inventario;
+import com.taller.proyecto_bd.services.ImportacionCatalogoService;
+import com.taller.proyecto_bd.utils.BusEventos;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -47,6 +56,8 @@ public class ProductosController {
     @FXML private Button btnNuevo;
     @FXML private Button btnGuardar;
     @FXML private Button btnEliminar;
+    @FXML private Button btnImportar;
+    @FXML private Button btnRepreciar;
     
     // ==================== TABLA ====================
     @FXML private TextField txtBuscar;
@@ -90,6 +101,7 @@ public class ProductosController {
         configurarEventos();
         configurarPermisos();
         actualizarEstadisticas();
+        suscribirEventos();
     }
     
     /**
@@ -174,20 +186,121 @@ public class ProductosController {
      */
     private void cargarProductos() {
         List<Producto> productos = productoDAO.obtenerTodos();
+        completarCategorias(productos);
         
-        // Agregar nombre de categoría a cada producto
+        listaProductos.clear();
+        listaProductos.addAll(productos);
+        actualizarEstadisticas();
+    }
+    
+    /**
+     * Asigna el nombre de la categoría a cada producto
+     */
+    private void completarCategorias(List<Producto> productos) {
         for (Producto p : productos) {
             Categoria cat = categoriaDAO.obtenerPorId(p.getIdCategoria());
             if (cat != null) {
                 p.setNombreCategoria(cat.getNombre());
             }
         }
-        
-        listaProductos.clear();
-        listaProductos.addAll(productos);
-        actualizarEstadisticas();
     }
-    
+
+    // ==================== EVENTOS DE DOMINIO ====================
+
+    /**
+     * Mantiene la tabla al día con los cambios publicados en BusEventos:
+     * solo se vuelve a leer la fila del producto afectado.
+     */
+    private void suscribirEventos() {
+        EventosVista.suscribir(tablaProductos, EnumSet.of(EventoDominio.Tipo.PRODUCTO_ACTUALIZADO,
+                EventoDominio.Tipo.PRODUCTO_ELIMINADO, EventoDominio.Tipo.STOCK_CAMBIADO,
+                EventoDominio.Tipo.CATALOGO_CAMBIADO), new BusEventos.Suscriptor() {
+            @Override
+            public void recibir(EventoDominio evento) {
+                aplicarEvento(evento);
+            }
+
+            @Override
+            public void finLote() {
+                actualizarEstadisticas();
+            }
+
+            @Override
+            public void desbordado() {
+                buscar();
+            }
+        });
+    }
+
+    private void aplicarEvento(EventoDominio evento) {
+        if (evento.getTipo() == EventoDominio.Tipo.CATALOGO_CAMBIADO) {
+            buscar();
+            return;
+        }
+        int id = evento.getId();
+        int indice = indicePorId(id);
+        // No se pisa el formulario que se está editando; la fila se refresca al guardar
+        if (productoSeleccionado != null && productoSeleccionado.getIdProducto() == id) {
+            return;
+        }
+        if (evento.getTipo() == EventoDominio.Tipo.PRODUCTO_ELIMINADO) {
+            if (indice >= 0) {
+                listaProductos.remove(indice);
+            }
+            return;
+        }
+        // Cambio de stock de un producto que no está en pantalla
+        if (indice < 0 && evento.getTipo() == EventoDominio.Tipo.STOCK_CAMBIADO) {
+            return;
+        }
+
+        Producto producto = productoDAO.obtenerPorId(id);
+        if (producto == null) {
+            if (indice >= 0) {
+                listaProductos.remove(indice);
+            }
+            return;
+        }
+        completarCategorias(List.of(producto));
+        if (indice >= 0) {
+            listaProductos.set(indice, producto);
+        } else if (txtBuscar.getText().trim().isEmpty()) {
+            listaProductos.add(producto);
+        }
+    }
+
+    /**
+     * Otro usuario guardó el producto mientras se editaba: se reemplaza la
+     * fila (que tiene los cambios sin guardar) por la vigente y se vuelve a
+     * cargar en el formulario.
+     */
+    private void recargarPorConflicto(int idProducto) {
+        Producto vigente = productoDAO.obtenerPorId(idProducto);
+        int indice = indicePorId(idProducto);
+        productoSeleccionado = null;
+        if (vigente == null) {
+            if (indice >= 0) {
+                listaProductos.remove(indice);
+            }
+            limpiarCampos();
+            return;
+        }
+        completarCategorias(List.of(vigente));
+        if (indice >= 0) {
+            listaProductos.set(indice, vigente);
+        }
+        tablaProductos.getSelectionModel().select(vigente);
+    }
+
+    private int indicePorId(int idProducto) {
+        for (int i = 0; i < listaProductos.size(); i++) {
+            if (listaProductos.get(i).getIdProducto() == idProducto) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Configura los eventos de la interfaz
      */
@@ -250,6 +363,8 @@ public class ProductosController {
         btnNuevo.setDisable(!puedeEditar);
         btnGuardar.setDisable(!puedeEditar);
         btnEliminar.setDisable(!puedeEliminar);
+        btnImportar.setDisable(!puedeEditar);
+        btnRepreciar.setDisable(!puedeEditar);
         
         // Deshabilitar campos si no puede editar
         if (!puedeEditar) {
@@ -311,6 +426,8 @@ public class ProductosController {
             } else {
                 producto = productoSeleccionado;
             }
+            // El stock se guarda como ajuste sobre lo que se leyó, no se sobrescribe
+            int stockLeido = producto.getStockActual();
             
             // Asignar valores del formulario
             producto.setCodigo(txtCodigo.getText().trim().toUpperCase());
@@ -350,16 +467,29 @@ public class ProductosController {
                     }
                 }
             } else {
-                exito = productoDAO.actualizar(producto);
+                ResultadoActualizacion resultado = productoDAO.actualizarConVersion(producto);
+                if (resultado == ResultadoActualizacion.CONFLICTO) {
+                    recargarPorConflicto(producto.getIdProducto());
+                    mostrarMensajeError("Otro usuario modificó este producto. Se cargaron sus datos actuales; revise y vuelva a guardar.");
+                    return;
+                }
+                exito = resultado == ResultadoActualizacion.ACTUALIZADO;
+                int ajuste = producto.getStockActual() - stockLeido;
+                if (exito && ajuste != 0 && !productoDAO.ajustarStock(producto.getIdProducto(), ajuste)) {
+                    mostrarMensajeError("Se guardaron los datos del producto, pero el ajuste de stock dejaría " +
+                            "existencias negativas y no se aplicó.");
+                    recargarPorConflicto(producto.getIdProducto());
+                    return;
+                }
 
-                // Si se actualizó el producto, actualizar también el inventario
+                // Si se actualizó el producto, aplicar el mismo ajuste al inventario (queda en el kardex)
                 if (exito) {
-                    Inventario inventarioExistente = inventarioDAO.obtenerPorProducto(producto.getIdProducto());
-                    if (inventarioExistente != null) {
-                        inventarioExistente.setCantidadActual(producto.getStockActual());
-                        inventarioExistente.setStockMinimo(producto.getStockMinimo());
-                        inventarioExistente.setStockMaximo(producto.getStockMaximo());
-                        inventarioDAO.actualizar(inventarioExistente);
+                    if (inventarioDAO.obtenerPorProducto(producto.getIdProducto()) != null) {
+                        if (ajuste != 0) {
+                            inventarioDAO.ajustarStock(producto.getIdProducto(), ajuste, "Edición de producto");
+                        }
+                        inventarioDAO.actualizarLimites(producto.getIdProducto(),
+                                producto.getStockMinimo(), producto.getStockMaximo());
                     } else {
                         // Si no existe inventario, crearlo
                         System.out.println("DEBUG: Producto sin inventario detectado. Creando inventario...");
@@ -376,7 +506,6 @@ public class ProductosController {
             if (exito) {
                 mostrarMensajeExito(esNuevo ? "Producto e inventario guardados exitosamente" :
                                              "Producto e inventario actualizados exitosamente");
-                cargarProductos();
                 limpiarCampos();
                 productoSeleccionado = null;
             } else {
@@ -423,13 +552,15 @@ public class ProductosController {
             if (resultado.isPresent() && resultado.get() == btnInactivar) {
                 // Marcar como inactivo
                 productoSeleccionado.setActivo(false);
-                boolean exito = productoDAO.actualizar(productoSeleccionado);
+                ResultadoActualizacion resultadoInactivar = productoDAO.actualizarConVersion(productoSeleccionado);
 
-                if (exito) {
+                if (resultadoInactivar == ResultadoActualizacion.ACTUALIZADO) {
                     mostrarMensajeExito("Producto marcado como inactivo exitosamente");
-                    cargarProductos();
                     limpiarCampos();
                     productoSeleccionado = null;
+                } else if (resultadoInactivar == ResultadoActualizacion.CONFLICTO) {
+                    recargarPorConflicto(productoSeleccionado.getIdProducto());
+                    mostrarMensajeError("Otro usuario modificó este producto. Revise sus datos actuales e intente de nuevo.");
                 } else {
                     mostrarMensajeError("Error al actualizar el producto");
                 }
@@ -449,7 +580,6 @@ public class ProductosController {
 
                 if (exito) {
                     mostrarMensajeExito("Producto eliminado exitosamente");
-                    cargarProductos();
                     limpiarCampos();
                     productoSeleccionado = null;
                 } else {
@@ -473,13 +603,7 @@ public class ProductosController {
         
         List<Producto> resultados = productoDAO.buscarPorNombreOMarca(criterio);
         
-        // Agregar nombre de categoría
-        for (Producto p : resultados) {
-            Categoria cat = categoriaDAO.obtenerPorId(p.getIdCategoria());
-            if (cat != null) {
-                p.setNombreCategoria(cat.getNombre());
-            }
-        }
+        completarCategorias(resultados);
         
         listaProductos.clear();
         listaProductos.addAll(resultados);
@@ -494,6 +618,89 @@ public class ProductosController {
         txtBuscar.clear();
         cargarProductos();
     }
+
+    /**
+     * Abre el repreciado masivo por margen de categoría
+     */
+    @FXML
+    private void abrirRepreciador() {
+        if (!SessionManager.puedeEditar()) {
+            mostrarMensajeError("No tiene permisos para modificar precios");
+            return;
+        }
+        // El repreciado publica CATALOGO_CAMBIADO y la tabla se recarga sola
+        RepreciadorViewController.mostrar(tablaProductos.getScene().getWindow(), () -> { });
+    }
+
+    /**
+     * Importa un catálogo de proveedor (CSV/TSV) en segundo plano
+     */
+    @FXML
+    private void importarCatalogo() {
+        if (!SessionManager.puedeEditar()) {
+            mostrarMensajeError("No tiene permisos para importar productos");
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Importar catálogo de productos");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("Archivos CSV/TSV", "*.csv", "*.tsv", "*.txt"));
+        File archivo = fileChooser.showOpenDialog(tablaProductos.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        ImportacionCatalogoService importacion = ImportacionCatalogoService.getInstance();
+        Path ruta = archivo.toPath();
+        if (importacion.tienePuntoControl(ruta)) {
+            ButtonType continuar = new ButtonType("Continuar");
+            ButtonType reiniciar = new ButtonType("Desde el inicio");
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "Este archivo tiene una importación sin terminar. ¿Desea continuarla?",
+                continuar, reiniciar, ButtonType.CANCEL);
+            alert.setTitle("Importación pendiente");
+            alert.setHeaderText(null);
+            Optional<ButtonType> respuesta = alert.showAndWait();
+            if (respuesta.isEmpty() || respuesta.get() == ButtonType.CANCEL) {
+                return;
+            }
+            if (respuesta.get() == reiniciar) {
+                importacion.descartarPuntoControl(ruta);
+            }
+        }
+
+        Task<ImportacionCatalogoService.ResumenImportacion> tarea = new Task<>() {
+            @Override
+            protected ImportacionCatalogoService.ResumenImportacion call() {
+                return importacion.importar(ruta, progreso -> updateMessage("Importando: " + progreso));
+            }
+        };
+        tarea.messageProperty().addListener((obs, old, mensaje) -> mostrarMensajeExito(mensaje));
+        tarea.setOnSucceeded(e -> {
+            ImportacionCatalogoService.ResumenImportacion resumen = tarea.getValue();
+            btnImportar.setDisable(false);
+            if (resumen.isCompleta()) {
+                mostrarMensajeExito(resumen.getMensaje());
+            } else {
+                mostrarMensajeError(resumen.getMensaje());
+            }
+            if (resumen.getProgreso().getRechazados() > 0) {
+                mostrarMensajeError(resumen.getMensaje() + " - Rechazos en: "
+                    + resumen.getArchivoRechazos().toAbsolutePath());
+            }
+        });
+        tarea.setOnFailed(e -> {
+            btnImportar.setDisable(false);
+            mostrarMensajeError("Error al importar: " + tarea.getException().getMessage());
+        });
+
+        btnImportar.setDisable(true);
+        mostrarMensajeExito("Importando " + archivo.getName() + "...");
+        Thread hilo = new Thread(tarea, "importacion-catalogo");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
     
     /**
      * Valida que todos los campos obligatorios estén completos
@@ -0,0 +1,284 @@
+package com.taller.proyecto_bd.ui;
+
+import com.taller.proyecto_bd.dao.CategoriaDAO;
+import com.taller.proyecto_bd.models.CambioPrecio;
+import com.taller.proyecto_bd.models.Categoria;
+import com.taller.proyecto_bd.services.RepreciadoService;
+import com.taller.proyecto_bd.utils.Dinero;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.StringConverter;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ventana de repreciado masivo por margen de categoría.
+ * Permite elegir la categoría (o todas), incluir subcategorías y el
+ * redondeo, ver la vista previa con la diferencia de cada producto y
+ * aplicarla.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class RepreciadorViewController {
+
+    private static final Map<String, Long> REDONDEOS = new LinkedHashMap<>();
+
+    static {
+        REDONDEOS.put("Sin redondeo", 1L);
+        REDONDEOS.put("$100", 100L * Dinero.CENTAVOS_POR_UNIDAD);
+        REDONDEOS.put("$1.000", 1_000L * Dinero.CENTAVOS_POR_UNIDAD);
+    }
+
+    private final RepreciadoService repreciado = RepreciadoService.getInstance();
+    private final NumberFormat formatoMoneda = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
+
+    private final ComboBox<Categoria> cmbCategoria = new ComboBox<>();
+    private final CheckBox chkSubcategorias = new CheckBox("Incluir subcategorías");
+    private final ComboBox<String> cmbRedondeo = new ComboBox<>();
+    private final TextField txtMotivo = new TextField();
+    private final Button btnPrevisualizar = new Button("Vista previa");
+    private final Button btnAplicar = new Button("Aplicar precios");
+    private final TableView<CambioPrecio> tablaCambios = new TableView<>();
+    private final Label lblResumen = new Label();
+
+    /** Después de aplicar, recarga la lista de productos de quien abrió la ventana */
+    private Runnable alAplicar;
+
+    /**
+     * Abre la ventana de repreciado.
+     */
+    public static void mostrar(Window propietario, Runnable alAplicar) {
+        RepreciadorViewController controller = new RepreciadorViewController();
+        controller.alAplicar = alAplicar;
+        Stage stage = new Stage();
+        stage.setTitle("Repreciar por Margen de Categoría");
+        stage.setScene(new Scene(controller.construir(), 1000, 600));
+        if (propietario != null) {
+            stage.initOwner(propietario);
+        }
+        stage.show();
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    private BorderPane construir() {
+        List<Categoria> categorias = new ArrayList<>();
+        categorias.add(null); // Todas
+        categorias.addAll(CategoriaDAO.getInstance().obtenerTodas());
+        cmbCategoria.setItems(FXCollections.observableArrayList(categorias));
+        cmbCategoria.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Categoria categoria) {
+                return categoria == null ? "Todas las categorías"
+                        : categoria.getNombre() + " (" + categoria.getPorcentajeUtilidad() + "%)";
+            }
+
+            @Override
+            public Categoria fromString(String texto) {
+                return null;
+            }
+        });
+        cmbCategoria.getSelectionModel().selectFirst();
+        cmbCategoria.setPrefWidth(260);
+
+        chkSubcategorias.setSelected(true);
+        cmbRedondeo.getItems().addAll(REDONDEOS.keySet());
+        cmbRedondeo.getSelectionModel().select(1);
+        txtMotivo.setPromptText("Motivo (ej: lista de precios proveedor)");
+        txtMotivo.setPrefWidth(260);
+
+        // Cualquier cambio de parámetros obliga a repetir la vista previa
+        cmbCategoria.valueProperty().addListener((obs, a, b) -> invalidarVistaPrevia());
+        chkSubcategorias.selectedProperty().addListener((obs, a, b) -> invalidarVistaPrevia());
+        cmbRedondeo.valueProperty().addListener((obs, a, b) -> invalidarVistaPrevia());
+
+        btnPrevisualizar.setOnAction(e -> previsualizar());
+        btnAplicar.setOnAction(e -> aplicar());
+        btnAplicar.setDisable(true);
+
+        HBox filtros = new HBox(10, new Label("Categoría:"), cmbCategoria, chkSubcategorias,
+                new Label("Redondeo:"), cmbRedondeo);
+        HBox acciones = new HBox(10, txtMotivo, btnPrevisualizar, btnAplicar);
+        VBox barra = new VBox(8, filtros, acciones);
+        barra.setPadding(new Insets(0, 0, 8, 0));
+
+        configurarTabla();
+        lblResumen.setPadding(new Insets(8, 0, 0, 0));
+
+        BorderPane raiz = new BorderPane(tablaCambios, barra, null, lblResumen, null);
+        raiz.setPadding(new Insets(10));
+        return raiz;
+    }
+
+    private void configurarTabla() {
+        tablaCambios.getColumns().add(columna("Código", 110, CambioPrecio::getCodigo));
+        tablaCambios.getColumns().add(columna("Producto", 260, CambioPrecio::getNombre));
+        tablaCambios.getColumns().add(columna("Categoría", 150, CambioPrecio::getCategoria));
+        tablaCambios.getColumns().add(columnaMoneda("Compra", CambioPrecio::getPrecioCompraCentavos));
+        tablaCambios.getColumns().add(columnaMoneda("Precio actual", CambioPrecio::getPrecioAnteriorCentavos));
+        tablaCambios.getColumns().add(columnaMoneda("Precio nuevo", CambioPrecio::getPrecioNuevoCentavos));
+        TableColumn<CambioPrecio, Double> variacion = columna("Variación", 90, CambioPrecio::getVariacionPorcentaje);
+        variacion.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%+.1f%%", item));
+                setStyle(empty || item == null ? "" : item < 0 ? "-fx-text-fill: #e74c3c;" : "-fx-text-fill: #27ae60;");
+            }
+        });
+        tablaCambios.getColumns().add(variacion);
+        tablaCambios.setPlaceholder(new Label("Use \"Vista previa\" para calcular los nuevos precios"));
+    }
+
+    private static <T> TableColumn<CambioPrecio, T> columna(String titulo, double ancho, Function<CambioPrecio, T> valor) {
+        TableColumn<CambioPrecio, T> columna = new TableColumn<>(titulo);
+        columna.setPrefWidth(ancho);
+        columna.setCellValueFactory(celda -> new ReadOnlyObjectWrapper<>(valor.apply(celda.getValue())));
+        return columna;
+    }
+
+    private TableColumn<CambioPrecio, Long> columnaMoneda(String titulo, Function<CambioPrecio, Long> valor) {
+        TableColumn<CambioPrecio, Long> columna = columna(titulo, 110, valor);
+        columna.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Long item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : formatoMoneda.format(Dinero.aDouble(item)));
+            }
+        });
+        return columna;
+    }
+
+    // ==================== ACCIONES ====================
+
+    private void previsualizar() {
+        Integer idCategoria = idCategoriaElegida();
+        boolean subcategorias = chkSubcategorias.isSelected();
+        long redondeo = redondeoElegido();
+
+        ejecutar(new Task<List<CambioPrecio>>() {
+            @Override
+            protected List<CambioPrecio> call() {
+                return repreciado.previsualizar(idCategoria, subcategorias, redondeo);
+            }
+        }, cambios -> {
+            tablaCambios.setItems(FXCollections.observableArrayList(cambios));
+            btnAplicar.setDisable(cambios.isEmpty());
+            lblResumen.setText(resumir(cambios));
+        });
+    }
+
+    private void aplicar() {
+        int cantidad = tablaCambios.getItems().size();
+        Alert confirmacion = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmacion.setTitle("Confirmar repreciado");
+        confirmacion.setHeaderText("Se actualizará el precio de venta de " + cantidad + " productos");
+        confirmacion.setContentText("Los precios anteriores quedan en el historial de precios. ¿Desea continuar?");
+        Optional<ButtonType> respuesta = confirmacion.showAndWait();
+        if (respuesta.isEmpty() || respuesta.get() != ButtonType.OK) {
+            return;
+        }
+
+        Integer idCategoria = idCategoriaElegida();
+        boolean subcategorias = chkSubcategorias.isSelected();
+        long redondeo = redondeoElegido();
+        String motivo = txtMotivo.getText();
+
+        ejecutar(new Task<Integer>() {
+            @Override
+            protected Integer call() {
+                return repreciado.aplicar(idCategoria, subcategorias, redondeo, motivo);
+            }
+        }, actualizados -> {
+            invalidarVistaPrevia();
+            if (actualizados < 0) {
+                lblResumen.setText("Error al aplicar el repreciado; no se modificó ningún precio");
+                return;
+            }
+            lblResumen.setText(actualizados + " productos repreciados");
+            if (alAplicar != null) {
+                alAplicar.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la consulta fuera del hilo de la interfaz.
+     */
+    private <T> void ejecutar(Task<T> tarea, Consumer<T> alTerminar) {
+        btnPrevisualizar.setDisable(true);
+        btnAplicar.setDisable(true);
+        lblResumen.setText("Calculando...");
+        tarea.setOnSucceeded(e -> {
+            btnPrevisualizar.setDisable(false);
+            alTerminar.accept(tarea.getValue());
+        });
+        tarea.setOnFailed(e -> {
+            btnPrevisualizar.setDisable(false);
+            lblResumen.setText("Error: " + tarea.getException().getMessage());
+        });
+        Thread hilo = new Thread(tarea, "repreciado");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void invalidarVistaPrevia() {
+        tablaCambios.getItems().clear();
+        btnAplicar.setDisable(true);
+        lblResumen.setText("");
+    }
+
+    private Integer idCategoriaElegida() {
+        Categoria categoria = cmbCategoria.getValue();
+        return categoria != null ? categoria.getIdCategoria() : null;
+    }
+
+    private long redondeoElegido() {
+        return REDONDEOS.getOrDefault(cmbRedondeo.getValue(), 1L);
+    }
+
+    private String resumir(List<CambioPrecio> cambios) {
+        if (cambios.isEmpty()) {
+            return "Ningún precio cambia con estos parámetros (o las categorías no tienen margen)";
+        }
+        int suben = 0;
+        int bajan = 0;
+        long diferencia = 0;
+        for (CambioPrecio c : cambios) {
+            if (c.getDiferenciaCentavos() > 0) suben++;
+            else bajan++;
+            diferencia += c.getDiferenciaCentavos();
+        }
+        return String.format("%d productos cambian de precio: %d suben, %d bajan. Diferencia total de lista: %s",
+                cambios.size(), suben, bajan, formatoMoneda.format(Dinero.aDouble(diferencia)));
+    }
+}
@@ -261,6 +261,10 @@ public class UsuariosController {
                 exito = usuarioDAO.agregar(usuario);
             } else {
                 exito = usuarioDAO.actualizar(usuario);
+                if (exito) {
+                    // Si se editó el usuario en sesión, recalcular sus permisos
+                    SessionManager.usuarioActualizado(usuario);
+                }
             }
             
             if (exito) {
@@ -0,0 +1,107 @@
+package com.taller.proyecto_bd.ui;
+
+import javafx.fxml.FXMLLoader;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Vistas FXML cargadas de antemano en segundo plano.
+ *
+ * Un FXMLLoader ya cargado solo sirve para una ventana, así que se guarda
+ * uno por vista: cargar() lo entrega (o carga en el momento si no está
+ * listo) y prepara el siguiente en segundo plano. Cargar el FXML fuera del
+ * hilo de JavaFX está permitido mientras los nodos no estén en una escena
+ * visible, pero no abrir ventanas ni diálogos: el initialize() de una
+ * vista precargable deja esos avisos para recargarDatos(), que siempre
+ * corre en el hilo de JavaFX. Si el controlador falla fuera del hilo, la
+ * vista se descarta y se carga normalmente al abrirla.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class VistasPrecargadas {
+
+    /**
+     * Controladores que cargan datos en initialize() y deben refrescarlos
+     * cuando se muestra una vista precargada. recargarDatos() se llama en
+     * el hilo de JavaFX.
+     */
+    public interface Recargable {
+        void recargarDatos();
+    }
+
+    public static final String NUEVA_VENTA = "/vista/NuevaVenta.fxml";
+    public static final String BUSCAR_PRODUCTO = "/vista/BuscarProducto.fxml";
+
+    private static final Map<String, FXMLLoader> listas = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> enCarga = new ConcurrentHashMap<>();
+    private static final ExecutorService cargador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "vistas-precarga");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private VistasPrecargadas() {
+    }
+
+    // ==================== PRECARGA ====================
+
+    /**
+     * Pide cargar la vista en segundo plano si no hay una lista o en curso.
+     */
+    public static void precargar(String ruta) {
+        if (listas.containsKey(ruta) || enCarga.putIfAbsent(ruta, Boolean.TRUE) != null) {
+            return;
+        }
+        cargador.execute(() -> {
+            try {
+                FXMLLoader loader = new FXMLLoader(VistasPrecargadas.class.getResource(ruta));
+                loader.load();
+                listas.put(ruta, loader);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudo precargar " + ruta + ": " + e.getMessage());
+            } finally {
+                enCarga.remove(ruta);
+            }
+        });
+    }
+
+    /**
+     * Espera a que terminen las precargas pedidas hasta ahora.
+     */
+    public static void esperar() {
+        try {
+            cargador.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // la tarea vacía no falla
+        }
+    }
+
+    // ==================== USO ====================
+
+    /**
+     * Devuelve un FXMLLoader ya cargado para la vista: el precargado (con
+     * sus datos refrescados) o uno nuevo cargado en el momento. Deja otro
+     * precargándose para la siguiente vez.
+     */
+    public static FXMLLoader cargar(String ruta) throws IOException {
+        FXMLLoader loader = listas.remove(ruta);
+        if (loader != null) {
+            if (loader.getController() instanceof Recargable recargable) {
+                recargable.recargarDatos();
+            }
+        } else {
+            loader = new FXMLLoader(VistasPrecargadas.class.getResource(ruta));
+            loader.load();
+        }
+        precargar(ruta);
+        return loader;
+    }
+}
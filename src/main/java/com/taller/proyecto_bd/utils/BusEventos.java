@@ -0,0 +1,183 @@
+package com.taller.proyecto_bd.utils;
+
+import com.taller.proyecto_bd.models.EventoDominio;
+import javafx.application.Platform;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bus de eventos de dominio dentro del proceso.
+ *
+ * Los DAO publican cada cambio después de confirmarlo y las vistas abiertas
+ * y cachés se suscriben para actualizar solo lo afectado en vez de volver a
+ * consultar todo.
+ *
+ * Los eventos van a un anillo de CAPACIDAD ranuras sin bloqueos: publicar
+ * toma el siguiente número de secuencia y deja el evento en su ranura. Cada
+ * suscripción lleva su propia secuencia y lee el anillo en su ejecutor (el
+ * hilo de JavaFX para las vistas), un lote por tarea; publicar nunca espera
+ * a los suscriptores. Si un suscriptor se atrasa más de CAPACIDAD eventos
+ * recibe desbordado() y debe recargar por completo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class BusEventos {
+
+    /**
+     * Receptor de eventos. Los tres métodos se llaman siempre en el
+     * ejecutor de la suscripción, nunca a la vez.
+     */
+    public interface Suscriptor {
+        void recibir(EventoDominio evento);
+
+        /** Se perdieron eventos: recargar todo */
+        default void desbordado() {
+        }
+
+        /** Fin de un lote de eventos recibidos (para refrescar una sola vez) */
+        default void finLote() {
+        }
+    }
+
+    private static final int CAPACIDAD = 1024;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    /** Ranura inmutable: se reemplaza entera, nunca se modifica */
+    private record Ranura(long secuencia, EventoDominio evento) {
+    }
+
+    private static final AtomicLong cursor = new AtomicLong();
+    private static final AtomicReferenceArray<Ranura> anillo = new AtomicReferenceArray<>(CAPACIDAD);
+    private static final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+
+    private BusEventos() {
+    }
+
+    // ==================== PUBLICACIÓN ====================
+
+    /**
+     * Publica un evento. Se llama después del commit, desde cualquier hilo.
+     */
+    public static void publicar(EventoDominio evento) {
+        long secuencia = cursor.incrementAndGet();
+        Ranura nueva = new Ranura(secuencia, evento);
+        // Si otro hilo ya dio la vuelta al anillo y escribió una secuencia mayor, se conserva esa
+        anillo.accumulateAndGet((int) (secuencia & MASCARA), nueva,
+                (actual, propuesta) -> actual == null || actual.secuencia() < propuesta.secuencia() ? propuesta : actual);
+        for (Suscripcion s : suscripciones) {
+            s.avisar();
+        }
+    }
+
+    public static void publicar(EventoDominio.Tipo tipo, int id) {
+        publicar(new EventoDominio(tipo, id));
+    }
+
+    // ==================== SUSCRIPCIÓN ====================
+
+    /**
+     * Suscribe a los tipos indicados con entrega en el hilo de JavaFX.
+     */
+    public static Suscripcion suscribirEnFX(Set<EventoDominio.Tipo> tipos, Suscriptor suscriptor) {
+        return suscribir(tipos, suscriptor, Platform::runLater);
+    }
+
+    /**
+     * Suscribe a los tipos indicados; solo recibe los eventos publicados a
+     * partir de ahora.
+     */
+    public static Suscripcion suscribir(Set<EventoDominio.Tipo> tipos, Suscriptor suscriptor, Executor ejecutor) {
+        Suscripcion s = new Suscripcion(EnumSet.copyOf(tipos), suscriptor, ejecutor, cursor.get() + 1);
+        suscripciones.add(s);
+        return s;
+    }
+
+    /**
+     * Suscripción de un receptor con su propia posición en el anillo.
+     */
+    public static final class Suscripcion {
+        private final Set<EventoDominio.Tipo> tipos;
+        private final Suscriptor suscriptor;
+        private final Executor ejecutor;
+        private final AtomicBoolean programada = new AtomicBoolean();
+        private volatile boolean activa = true;
+        /** Siguiente secuencia a leer; solo la toca la tarea de drenar */
+        private long siguiente;
+
+        private Suscripcion(Set<EventoDominio.Tipo> tipos, Suscriptor suscriptor, Executor ejecutor, long siguiente) {
+            this.tipos = tipos;
+            this.suscriptor = suscriptor;
+            this.ejecutor = ejecutor;
+            this.siguiente = siguiente;
+        }
+
+        public void cancelar() {
+            activa = false;
+            suscripciones.remove(this);
+        }
+
+        private void avisar() {
+            if (activa && programada.compareAndSet(false, true)) {
+                try {
+                    ejecutor.execute(this::drenar);
+                } catch (RuntimeException e) {
+                    // ejecutor detenido o toolkit de JavaFX sin iniciar
+                    programada.set(false);
+                }
+            }
+        }
+
+        /**
+         * Entrega lo pendiente. Solo una tarea de drenar corre a la vez: la
+         * bandera se libera al terminar y se vuelve a tomar si llegó algo
+         * mientras tanto, de modo que ningún evento queda sin aviso.
+         */
+        private void drenar() {
+            do {
+                boolean entregados = false;
+                Ranura ranura;
+                while (activa && (ranura = anillo.get((int) (siguiente & MASCARA))) != null
+                        && ranura.secuencia() >= siguiente) {
+                    if (ranura.secuencia() > siguiente) {
+                        // El anillo dio la vuelta antes de leer: se perdieron eventos
+                        siguiente = cursor.get() + 1;
+                        entregados = false;
+                        entregar(suscriptor::desbordado);
+                        continue;
+                    }
+                    siguiente++;
+                    EventoDominio evento = ranura.evento();
+                    if (tipos.contains(evento.getTipo())) {
+                        entregados = true;
+                        entregar(() -> suscriptor.recibir(evento));
+                    }
+                }
+                if (entregados && activa) {
+                    entregar(suscriptor::finLote);
+                }
+                programada.set(false);
+            } while (activa && hayPendiente() && programada.compareAndSet(false, true));
+        }
+
+        private boolean hayPendiente() {
+            Ranura ranura = anillo.get((int) (siguiente & MASCARA));
+            return ranura != null && ranura.secuencia() >= siguiente;
+        }
+
+        private void entregar(Runnable accion) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en suscriptor de eventos: " + e.getMessage());
+            }
+        }
+    }
+}
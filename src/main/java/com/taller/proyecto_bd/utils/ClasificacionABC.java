@@ -0,0 +1,156 @@
+package com.taller.proyecto_bd.utils;
+
+/**
+ * Clasificación ABC (Pareto) sobre un arreglo de valores.
+ *
+ * Un elemento es A si lo que acumulan los de mayor valor antes que él no
+ * llega al límite A (80 %), B si no llega al límite B (95 %) y C en otro
+ * caso. Solo se ordena la parte necesaria: un quicksort descendente que
+ * deja de recorrer particiones en cuanto lo acumulado alcanza el límite B,
+ * porque todo lo que queda es C. Con catálogos de cola larga, la mayoría
+ * de los elementos nunca se ordena.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class ClasificacionABC {
+
+    public static final byte CLASE_A = 0;
+    public static final byte CLASE_B = 1;
+    public static final byte CLASE_C = 2;
+    public static final double LIMITE_A = 0.80;
+    public static final double LIMITE_B = 0.95;
+
+    private static final int UMBRAL_INSERCION = 16;
+
+    private final long[] valores;
+    private final int[] orden;
+    private final byte[] clases;
+    private final long total;
+    private final long limiteB;
+    private int ordenados;
+
+    /**
+     * Clasifica valores[0..cantidad). No modifica el arreglo de valores.
+     */
+    public ClasificacionABC(long[] valores, int cantidad) {
+        this.valores = valores;
+        this.orden = new int[cantidad];
+        this.clases = new byte[cantidad];
+        long suma = 0;
+        for (int i = 0; i < cantidad; i++) {
+            orden[i] = i;
+            suma += Math.max(0, valores[i]);
+        }
+        this.total = suma;
+        this.limiteB = (long) Math.ceil(suma * LIMITE_B);
+
+        java.util.Arrays.fill(clases, CLASE_C);
+        if (suma > 0) {
+            ordenarParcial(0, cantidad, 0);
+            long limiteA = (long) Math.ceil(suma * LIMITE_A);
+            long acumulado = 0;
+            for (int k = 0; k < ordenados && acumulado < limiteB; k++) {
+                clases[orden[k]] = acumulado < limiteA ? CLASE_A : CLASE_B;
+                acumulado += valores[orden[k]];
+            }
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    public byte getClase(int posicion) {
+        return clases[posicion];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Posiciones de mayor a menor valor. Solo las primeras getOrdenados()
+     * están en orden; el resto son clase C en cualquier orden.
+     */
+    public int[] getOrden() {
+        return orden;
+    }
+
+    public int getOrdenados() {
+        return ordenados;
+    }
+
+    public static String nombreClase(byte clase) {
+        return clase == CLASE_A ? "A" : clase == CLASE_B ? "B" : "C";
+    }
+
+    // ==================== ORDENAMIENTO PARCIAL ====================
+
+    /**
+     * Ordena orden[desde..hasta) de mayor a menor mientras lo acumulado antes
+     * de la partición no alcance el límite B.
+     *
+     * @param acumulado suma de los valores en orden[0..desde)
+     */
+    private void ordenarParcial(int desde, int hasta, long acumulado) {
+        while (hasta - desde > 0) {
+            if (acumulado >= limiteB) {
+                return;
+            }
+            if (hasta - desde <= UMBRAL_INSERCION) {
+                insercion(desde, hasta);
+                ordenados = Math.max(ordenados, hasta);
+                return;
+            }
+
+            // Partición en tres: mayores | iguales | menores (muchos ceros en la cola)
+            long pivote = valor(orden[(desde + hasta) >>> 1]);
+            int mayores = desde;
+            int i = desde;
+            int menores = hasta;
+            long sumaMayores = 0;
+            while (i < menores) {
+                long v = valor(orden[i]);
+                if (v > pivote) {
+                    sumaMayores += v;
+                    intercambiar(mayores++, i++);
+                } else if (v < pivote) {
+                    intercambiar(i, --menores);
+                } else {
+                    i++;
+                }
+            }
+
+            ordenarParcial(desde, mayores, acumulado);
+            acumulado += sumaMayores;
+            if (acumulado >= limiteB) {
+                return; // los mayores pudieron quedar ordenados solo en parte
+            }
+            acumulado += pivote * (menores - mayores);
+            ordenados = Math.max(ordenados, menores);
+            desde = menores;
+        }
+    }
+
+    private void insercion(int desde, int hasta) {
+        for (int i = desde + 1; i < hasta; i++) {
+            int actual = orden[i];
+            long v = valor(actual);
+            int j = i - 1;
+            while (j >= desde && valor(orden[j]) < v) {
+                orden[j + 1] = orden[j];
+                j--;
+            }
+            orden[j + 1] = actual;
+        }
+    }
+
+    private long valor(int posicion) {
+        return Math.max(0, valores[posicion]);
+    }
+
+    private void intercambiar(int a, int b) {
+        int t = orden[a];
+        orden[a] = orden[b];
+        orden[b] = t;
+    }
+}
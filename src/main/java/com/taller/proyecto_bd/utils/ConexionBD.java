@@ -1,23 +1,62 @@
 package com.taller.proyecto_bd.utils;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Clase de utilidad para manejar la conexión a la base de datos.
  * Centraliza la configuración de acceso al motor.
  *
+ * Las conexiones se reutilizan desde un pool pequeño: {@code close()} sobre
+ * la conexión entregada la devuelve al pool en lugar de cerrarla. Como la
+ * conexión física sobrevive, el caché de sentencias preparadas del driver
+ * (statementPoolingCacheSize) evita volver a preparar el mismo SQL.
+ * Una conexión libre solo se valida con el servidor si estuvo inactiva
+ * más de VALIDAR_TRAS_INACTIVIDAD_SEG, o al devolverla si un método de la
+ * propia Connection lanzó SQLException. Los errores de las sentencias no
+ * se ven aquí (se entregan sin envolver): una conexión cuyo socket cayó
+ * sin que el driver la marque cerrada puede volver a entregarse sin
+ * validar hasta que pase ese tiempo. Al devolverla se restauran el
+ * aislamiento, readOnly y el catálogo.
+ *
+ * Con MetricasBD habilitado también se mide el tiempo de obtener la
+ * conexión. Las sentencias creadas se envuelven para medir cada ejecución
+ * mientras MetricasBD esté habilitado o haya una grabación JFR activa.
+ *
+ * Cada conexión nueva deja en SESSION_CONTEXT 'instancia' el nombre de esta
+ * instancia de la aplicación; los triggers de CambiosDatos lo guardan como
+ * origen para que cada caja ignore sus propios cambios.
+ *
  * @author Sistema
- * @version 1.0
+ * @version 2.0
  */
 public class ConexionBD {
 
     // ==================== CONFIGURACIÓN ====================
-    private static final String URL = "jdbc:sqlserver://localhost\\SQLEXPRESS:1433;databaseName=ElectrodomesticosDB;encrypt=false;";
+    private static final String URL = "jdbc:sqlserver://localhost\\SQLEXPRESS:1433;databaseName=ElectrodomesticosDB;encrypt=false;" +
+                                      "disableStatementPooling=false;statementPoolingCacheSize=128;loginTimeout=5;";
+
+    private static final String USER = "sa";
+    private static final String PASSWORD = "bases123";
 
-    private static final String USER = "sa"; 
-    private static final String PASSWORD = "bases123";  
+    private static final int MAX_CONEXIONES_LIBRES = 8;
+    private static final int TIMEOUT_VALIDACION_SEG = 2;
+    private static final long VALIDAR_TRAS_INACTIVIDAD_SEG = 30;
+
+    /** Equipo y proceso de esta instancia de la aplicación */
+    public static final String INSTANCIA = nombreInstancia();
+
+    private static final BlockingQueue<Libre> libres = new ArrayBlockingQueue<>(MAX_CONEXIONES_LIBRES);
 
     // ==================== MÉTODOS ====================
 
@@ -25,8 +64,28 @@ public class ConexionBD {
      * Obtiene una conexión activa a la base de datos
      */
     public static Connection obtenerConexion() {
+        if (!MetricasBD.estaHabilitado()) {
+            return adquirir();
+        }
+        long inicio = System.nanoTime();
+        Connection conn = adquirir();
+        MetricasBD.registrarAdquisicion(System.nanoTime() - inicio);
+        return conn;
+    }
+
+    private static Connection adquirir() {
         try {
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            Libre libre;
+            while ((libre = libres.poll()) != null) {
+                // Una conexión usada hace poco no se valida: sería una ida y vuelta por préstamo
+                if (System.nanoTime() - libre.desdeNanos() < TimeUnit.SECONDS.toNanos(VALIDAR_TRAS_INACTIVIDAD_SEG)
+                        || libre.fisica().conexion().isValid(TIMEOUT_VALIDACION_SEG)) {
+                    return envolver(libre.fisica());
+                }
+                cerrarFisica(libre.fisica().conexion());
+            }
+            Connection conexion = prepararSesion(DriverManager.getConnection(URL, USER, PASSWORD));
+            return envolver(new Fisica(conexion, conexion.getTransactionIsolation(), conexion.getCatalog()));
         } catch (SQLException e) {
             System.err.println("❌ Error de conexión a la BD: " + e.getMessage());
             return null;
@@ -45,4 +104,160 @@ public class ConexionBD {
             }
         }
     }
+
+    /**
+     * Abre hasta {@code cantidad} conexiones y las deja libres en el pool,
+     * para que las primeras consultas no paguen el inicio de sesión en SQL Server.
+     *
+     * @return conexiones que quedaron abiertas
+     */
+    public static int precalentar(int cantidad) {
+        Connection[] abiertas = new Connection[Math.min(cantidad, MAX_CONEXIONES_LIBRES)];
+        int n = 0;
+        while (n < abiertas.length && (abiertas[n] = adquirir()) != null) {
+            n++;
+        }
+        for (int i = 0; i < n; i++) {
+            cerrarConexion(abiertas[i]);
+        }
+        return n;
+    }
+
+    /**
+     * Cierra todas las conexiones libres del pool (al salir de la aplicación).
+     */
+    public static void cerrarPool() {
+        Libre libre;
+        while ((libre = libres.poll()) != null) {
+            cerrarFisica(libre.fisica().conexion());
+        }
+    }
+
+    // ==================== POOL ====================
+
+    /** Conexión física con los valores de sesión con que se abrió */
+    private record Fisica(Connection conexion, int aislamiento, String catalogo) {
+    }
+
+    /** Conexión en el pool y desde cuándo está libre */
+    private record Libre(Fisica fisica, long desdeNanos) {
+    }
+
+    /**
+     * Envuelve la conexión física para que close() la devuelva al pool.
+     */
+    private static Connection envolver(Fisica datos) {
+        Connection fisica = datos.conexion();
+        boolean[] devuelta = {false};
+        boolean[] conError = {false};
+        return (Connection) Proxy.newProxyInstance(
+                ConexionBD.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "close":
+                            if (!devuelta[0]) {
+                                devuelta[0] = true;
+                                devolver(datos, conError[0]);
+                            }
+                            return null;
+                        case "isClosed":
+                            return devuelta[0] || fisica.isClosed();
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if (devuelta[0]) {
+                        throw new SQLException("La conexión ya fue cerrada");
+                    }
+                    Object resultado;
+                    try {
+                        resultado = metodo.invoke(fisica, args);
+                    } catch (InvocationTargetException e) {
+                        if (e.getCause() instanceof SQLException) {
+                            conError[0] = true;
+                        }
+                        throw e.getCause();
+                    }
+                    if (resultado instanceof Statement
+                            && (MetricasBD.estaHabilitado() || EventosJFR.hayGrabacionActiva())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                        return SentenciaInstrumentada.envolver((Statement) resultado, sql);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static Connection prepararSesion(Connection fisica) {
+        try (PreparedStatement stmt = fisica.prepareStatement(
+                "EXEC sp_set_session_context @key = N'instancia', @value = ?")) {
+            stmt.setString(1, INSTANCIA);
+            stmt.execute();
+        } catch (SQLException e) {
+            // Sin contexto los cambios de esta caja también le llegarán por el registro
+            System.err.println("⚠️ No se pudo identificar la sesión: " + e.getMessage());
+        }
+        return fisica;
+    }
+
+    private static String nombreInstancia() {
+        String equipo;
+        try {
+            equipo = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            equipo = "equipo";
+        }
+        String nombre = equipo + ":" + ProcessHandle.current().pid();
+        return nombre.length() <= 40 ? nombre : nombre.substring(nombre.length() - 40);
+    }
+
+    /**
+     * Deja la conexión como se abrió y la pone en el pool. El driver marca
+     * como cerrada la conexión cuyo socket falló; si un método de la
+     * Connection (no de sus sentencias) lanzó un error se valida antes de
+     * reutilizarla.
+     */
+    private static void devolver(Fisica datos, boolean conError) {
+        Connection fisica = datos.conexion();
+        try {
+            if (fisica.isClosed()) return;
+            if (conError && !fisica.isValid(TIMEOUT_VALIDACION_SEG)) {
+                cerrarFisica(fisica);
+                return;
+            }
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (fisica.getTransactionIsolation() != datos.aislamiento()) {
+                fisica.setTransactionIsolation(datos.aislamiento());
+            }
+            if (fisica.isReadOnly()) {
+                fisica.setReadOnly(false);
+            }
+            if (datos.catalogo() != null && !datos.catalogo().equals(fisica.getCatalog())) {
+                fisica.setCatalog(datos.catalogo());
+            }
+            fisica.clearWarnings();
+            if (!libres.offer(new Libre(datos, System.nanoTime()))) {
+                cerrarFisica(fisica);
+            }
+        } catch (SQLException e) {
+            cerrarFisica(fisica);
+        }
+    }
+
+    private static void cerrarFisica(Connection fisica) {
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            System.err.println("⚠️ Error al cerrar conexión: " + e.getMessage());
+        }
+    }
 }
@@ -29,6 +29,12 @@ public class Constantes {
     public static final double IVA_DEFAULT = 0.19; // 19% por defecto
     public static final double INTERES_DEFAULT = 0.05; // 5% interés crédito
 
+    // ==================== NOTIFICACIONES ====================
+    // Horas durante las que no se repite el mismo aviso al mismo destino
+    public static final int HORAS_AVISO_CUOTA_VENCIDA = 7 * 24;
+    public static final int HORAS_AVISO_STOCK = 24;
+    public static final int HORAS_AVISO_SEGURIDAD = 1;
+
     // ==================== MENSAJES COMUNES ====================
     public static final String MSG_ERROR_GENERAL = "Ocurrió un error inesperado.";
     public static final String MSG_VENTA_NO_ENCONTRADA = "Venta no encontrada.";
@@ -43,4 +49,7 @@ public class Constantes {
     // ==================== RUTAS DE ARCHIVOS (ejemplo) ====================
     public static final String RUTA_REPORTES = "data/reportes/";
     public static final String RUTA_BACKUPS = "data/backups/";
+    public static final String RUTA_DIAGNOSTICO = "data/diagnostico/";
+    public static final String RUTA_IMPORTACIONES = "data/importaciones/";
+    public static final String RUTA_NOTIFICACIONES = "data/notificaciones/";
 }
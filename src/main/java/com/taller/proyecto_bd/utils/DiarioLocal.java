@@ -0,0 +1,263 @@
+package com.taller.proyecto_bd.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diario local de solo-anexar, mapeado en memoria.
+ * Cada registro se escribe como [largo][crc32][tipo][datos] y se fuerza a
+ * disco (fsync del rango escrito) antes de devolver el control, así que un
+ * registro confirmado sobrevive a un corte de luz. Al abrir el archivo se
+ * recorre hasta el primer registro vacío o con CRC inválido (escritura
+ * interrumpida); lo que sigue se descarta.
+ *
+ * La cabecera guarda además un contador del llamador que sobrevive a
+ * vaciar(): se escribe y se fuerza a disco antes de truncar el archivo.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class DiarioLocal implements Closeable {
+
+    // ==================== FORMATO ====================
+    private static final int MAGIA = 0x50424A31; // "PBJ1"
+    private static final int VERSION = 2;
+    private static final int VERSION_SIN_CONTADOR = 1;
+    private static final int CABECERA = 16; // magia + versión + contador
+    private static final int CABECERA_V1 = 8;
+    private static final int CABECERA_REGISTRO = 9; // largo + crc + tipo
+    private static final int CAPACIDAD_INICIAL = 1 << 20;
+    private static final long CAPACIDAD_MAXIMA = 1L << 30;
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private MappedByteBuffer mapa;
+    private int posicion;
+
+    /**
+     * Registro leído del diario.
+     */
+    public static class Registro {
+        private final byte tipo;
+        private final byte[] datos;
+
+        Registro(byte tipo, byte[] datos) {
+            this.tipo = tipo;
+            this.datos = datos;
+        }
+
+        public byte getTipo() { return tipo; }
+        public byte[] getDatos() { return datos; }
+    }
+
+    // ==================== APERTURA ====================
+
+    public DiarioLocal(Path ruta) throws IOException {
+        this.ruta = ruta;
+        if (ruta.getParent() != null) {
+            Files.createDirectories(ruta.getParent());
+        }
+        this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapear(Math.min(Math.max(canal.size(), CAPACIDAD_INICIAL), CAPACIDAD_MAXIMA));
+
+        if (mapa.getInt(0) != MAGIA) {
+            escribirCabecera(0);
+            posicion = CABECERA;
+        } else if (mapa.getInt(4) == VERSION_SIN_CONTADOR) {
+            posicion = migrarVersion1();
+        } else if (mapa.getInt(4) == VERSION) {
+            posicion = recuperar(CABECERA);
+        } else {
+            throw new IOException("Versión de diario no soportada en " + ruta);
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Anexa un registro y lo fuerza a disco.
+     */
+    public synchronized void agregar(byte tipo, byte[] datos) throws IOException {
+        int largo = CABECERA_REGISTRO + datos.length;
+        asegurarCapacidad((long) posicion + largo + 4);
+
+        CRC32 crc = new CRC32();
+        crc.update(tipo);
+        crc.update(datos);
+
+        // El largo se escribe al final: un registro a medias queda con largo 0 o CRC inválido
+        mapa.putInt(posicion + 4, (int) crc.getValue());
+        mapa.put(posicion + 8, tipo);
+        mapa.put(posicion + CABECERA_REGISTRO, datos);
+        mapa.putInt(posicion, largo);
+        mapa.force(posicion, largo);
+        posicion += largo;
+    }
+
+    /**
+     * Descarta todos los registros (el llamador debe haberlos procesado) y
+     * guarda el contador en la cabecera. El contador queda en disco antes de
+     * truncar: si el proceso cae en medio, los registros siguen ahí.
+     */
+    public synchronized void vaciar(long contador) throws IOException {
+        mapa.putLong(8, contador);
+        mapa.force(0, CABECERA);
+        liberar(mapa);
+        mapa = null;
+        try {
+            canal.truncate(CABECERA);
+            canal.force(true);
+        } finally {
+            // Al mapear de nuevo el archivo crece con ceros
+            mapear(CAPACIDAD_INICIAL);
+        }
+        posicion = CABECERA;
+    }
+
+    /**
+     * Contador guardado en la última llamada a vaciar() (0 si nunca se vació).
+     */
+    public synchronized long getContador() {
+        return mapa.getLong(8);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Devuelve todos los registros válidos en orden de escritura.
+     */
+    public synchronized List<Registro> leerTodos() {
+        List<Registro> registros = new ArrayList<>();
+        int pos = CABECERA;
+        while (pos < posicion) {
+            int largo = mapa.getInt(pos);
+            byte tipo = mapa.get(pos + 8);
+            byte[] datos = new byte[largo - CABECERA_REGISTRO];
+            mapa.get(pos + CABECERA_REGISTRO, datos);
+            registros.add(new Registro(tipo, datos));
+            pos += largo;
+        }
+        return registros;
+    }
+
+    /**
+     * Bytes ocupados por registros.
+     */
+    public synchronized int getTamano() {
+        return posicion - CABECERA;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapa.force();
+        liberar(mapa);
+        mapa = null;
+        canal.close();
+    }
+
+    // ==================== AUXILIARES ====================
+
+    /**
+     * Recorre los registros y devuelve la posición tras el último válido.
+     */
+    private int recuperar(int inicio) {
+        int pos = inicio;
+        int capacidad = mapa.capacity();
+        while (pos + CABECERA_REGISTRO <= capacidad) {
+            int largo = mapa.getInt(pos);
+            if (largo < CABECERA_REGISTRO || pos + largo > capacidad) {
+                break;
+            }
+            byte[] datos = new byte[largo - CABECERA_REGISTRO];
+            mapa.get(pos + CABECERA_REGISTRO, datos);
+            CRC32 crc = new CRC32();
+            crc.update(mapa.get(pos + 8));
+            crc.update(datos);
+            if ((int) crc.getValue() != mapa.getInt(pos + 4)) {
+                System.err.println("Diario " + ruta.getFileName() + ": registro incompleto en " + pos + ", se descarta el resto");
+                break;
+            }
+            pos += largo;
+        }
+        // Limpiar restos de una escritura interrumpida para no confundirlos con registros
+        for (int i = pos; i < Math.min(pos + CABECERA_REGISTRO, capacidad); i++) {
+            mapa.put(i, (byte) 0);
+        }
+        return pos;
+    }
+
+    /**
+     * Pasa un diario de la versión 1 (cabecera de 8 bytes, sin contador) a
+     * la actual, corriendo los registros válidos detrás de la cabecera nueva.
+     */
+    private int migrarVersion1() throws IOException {
+        int fin = recuperar(CABECERA_V1);
+        byte[] registros = new byte[fin - CABECERA_V1];
+        mapa.get(CABECERA_V1, registros);
+        asegurarCapacidad(CABECERA + registros.length + CABECERA_REGISTRO);
+        mapa.put(CABECERA, registros);
+        int pos = CABECERA + registros.length;
+        for (int i = pos; i < Math.min(pos + CABECERA_REGISTRO, mapa.capacity()); i++) {
+            mapa.put(i, (byte) 0);
+        }
+        mapa.force();
+        escribirCabecera(0);
+        return pos;
+    }
+
+    private void escribirCabecera(long contador) {
+        mapa.putInt(0, MAGIA);
+        mapa.putInt(4, VERSION);
+        mapa.putLong(8, contador);
+        mapa.force(0, CABECERA);
+    }
+
+    private void asegurarCapacidad(long requerido) throws IOException {
+        if (requerido <= mapa.capacity()) {
+            return;
+        }
+        if (requerido > CAPACIDAD_MAXIMA) {
+            throw new IOException("Diario " + ruta.getFileName() + " lleno (" + CAPACIDAD_MAXIMA + " bytes)");
+        }
+        long nueva = mapa.capacity();
+        while (nueva < requerido) {
+            nueva = Math.min(nueva * 2, CAPACIDAD_MAXIMA);
+        }
+        mapa.force();
+        liberar(mapa);
+        mapa = null;
+        mapear(nueva);
+    }
+
+    private void mapear(long capacidad) throws IOException {
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+    }
+
+    /**
+     * Libera el mapeo sin esperar al recolector (el archivo puede truncarse
+     * después). Si la JVM no lo permite, queda a cargo del recolector.
+     */
+    private static void liberar(ByteBuffer buffer) {
+        try {
+            Class<?> clase = Class.forName("sun.misc.Unsafe");
+            Field campo = clase.getDeclaredField("theUnsafe");
+            campo.setAccessible(true);
+            Method invokeCleaner = clase.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(campo.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("No se pudo liberar el mapeo del diario: " + e.getMessage());
+        }
+    }
+}
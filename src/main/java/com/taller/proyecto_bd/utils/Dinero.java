@@ -0,0 +1,216 @@
+package com.taller.proyecto_bd.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Tipo monetario de punto fijo respaldado por un long en centavos.
+ *
+ * Todas las sumas son exactas; solo las multiplicaciones por tasas (IVA,
+ * interés, porcentajes) y las divisiones redondean, siempre HALF_UP a centavo.
+ * Los métodos estáticos operan directamente sobre centavos (long) para no crear
+ * objetos en los cálculos de ventas y reportes; la instancia es un envoltorio
+ * inmutable para cuando se necesita un valor con identidad propia.
+ *
+ * Las tasas se expresan en millonésimas (0.19 = 190_000) para que 19% IVA o
+ * 5% de interés se representen sin error binario.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class Dinero implements Comparable<Dinero> {
+
+    // ==================== CONSTANTES ====================
+    public static final int DECIMALES = 2;
+    public static final long CENTAVOS_POR_UNIDAD = 100L;
+    public static final long ESCALA_TASA = 1_000_000L;
+
+    public static final Dinero CERO = new Dinero(0L);
+
+    // ==================== ATRIBUTOS ====================
+    private final long centavos;
+
+    // ==================== CONSTRUCTORES ====================
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    public static Dinero de(double valor) {
+        return deCentavos(aCentavos(valor));
+    }
+
+    public static Dinero de(BigDecimal valor) {
+        return deCentavos(aCentavos(valor));
+    }
+
+    // ==================== OPERACIONES (INSTANCIA) ====================
+
+    public long getCentavos() { return centavos; }
+
+    public Dinero sumar(Dinero otro) {
+        return deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero multiplicar(int cantidad) {
+        return deCentavos(Math.multiplyExact(centavos, (long) cantidad));
+    }
+
+    public Dinero aplicarTasa(double tasa) {
+        return deCentavos(aplicarTasa(centavos, tasa(tasa)));
+    }
+
+    public Dinero dividir(int partes) {
+        return deCentavos(dividir(centavos, partes));
+    }
+
+    public boolean esCero() { return centavos == 0; }
+    public boolean esPositivo() { return centavos > 0; }
+    public boolean esNegativo() { return centavos < 0; }
+
+    public double toDouble() {
+        return aDouble(centavos);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return aBigDecimal(centavos);
+    }
+
+    // ==================== OPERACIONES SOBRE CENTAVOS ====================
+
+    /**
+     * Convierte un valor decimal a centavos redondeando HALF_UP.
+     * Solo los empates binarios (ej: 1.005) pasan por BigDecimal.
+     */
+    public static long aCentavos(double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            throw new ArithmeticException("Valor monetario inválido: " + valor);
+        }
+        double escalado = valor * CENTAVOS_POR_UNIDAD;
+        double fraccion = Math.abs(escalado - (long) escalado);
+        if (Math.abs(fraccion - 0.5) < 1e-6) {
+            return BigDecimal.valueOf(valor).setScale(DECIMALES, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+        }
+        return Math.round(escalado);
+    }
+
+    public static long aCentavos(BigDecimal valor) {
+        if (valor == null) return 0L;
+        return valor.setScale(DECIMALES, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double aDouble(long centavos) {
+        return centavos / (double) CENTAVOS_POR_UNIDAD;
+    }
+
+    public static BigDecimal aBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, DECIMALES);
+    }
+
+    /**
+     * Convierte una tasa decimal (0.19) a millonésimas (190_000).
+     */
+    public static long tasa(double tasa) {
+        return Math.round(tasa * ESCALA_TASA);
+    }
+
+    /**
+     * Multiplica un monto por una tasa en millonésimas, redondeando a centavo.
+     * Ej: aplicarTasa(10_000, 190_000) = 1_900 (19% de $100.00).
+     */
+    public static long aplicarTasa(long centavos, long tasaMillonesimas) {
+        try {
+            return dividirRedondeado(Math.multiplyExact(centavos, tasaMillonesimas), ESCALA_TASA);
+        } catch (ArithmeticException desbordamiento) {
+            return BigDecimal.valueOf(centavos)
+                    .multiply(BigDecimal.valueOf(tasaMillonesimas))
+                    .divide(BigDecimal.valueOf(ESCALA_TASA), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+    }
+
+    /**
+     * Divide un monto en partes iguales, redondeando a centavo.
+     */
+    public static long dividir(long centavos, int partes) {
+        if (partes <= 0) {
+            throw new ArithmeticException("No se puede dividir entre " + partes + " partes");
+        }
+        return dividirRedondeado(centavos, partes);
+    }
+
+    /**
+     * Multiplica un monto por una cantidad de unidades.
+     */
+    public static long multiplicar(long centavos, int cantidad) {
+        return Math.multiplyExact(centavos, (long) cantidad);
+    }
+
+    /**
+     * División entera con redondeo HALF_UP (simétrico para negativos).
+     */
+    static long dividirRedondeado(long numerador, long denominador) {
+        long cociente = numerador / denominador;
+        long residuo = numerador % denominador;
+        if (residuo != 0 && Math.abs(residuo) >= Math.abs(denominador) - Math.abs(residuo)) {
+            cociente += (numerador ^ denominador) < 0 ? -1 : 1;
+        }
+        return cociente;
+    }
+
+    // ==================== FRONTERA JDBC ====================
+
+    /**
+     * Escribe un monto en una columna DECIMAL(12,2).
+     */
+    public static void setCentavos(PreparedStatement stmt, int indice, long centavos) throws SQLException {
+        stmt.setBigDecimal(indice, aBigDecimal(centavos));
+    }
+
+    /**
+     * Lee una columna DECIMAL como centavos (NULL = 0).
+     */
+    public static long getCentavos(ResultSet rs, String columna) throws SQLException {
+        return aCentavos(rs.getBigDecimal(columna));
+    }
+
+    public static long getCentavos(ResultSet rs, int columna) throws SQLException {
+        return aCentavos(rs.getBigDecimal(columna));
+    }
+
+    // ==================== MÉTODOS OVERRIDE ====================
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return centavos == ((Dinero) obj).centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal(centavos).toPlainString();
+    }
+}
@@ -1,20 +1,142 @@
 package com.taller.proyecto_bd.utils;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 
 /**
  * Clase de utilidades para encriptación de contraseñas y textos.
- * Usa algoritmos de hashing como SHA-256.
+ * Las contraseñas se guardan con PBKDF2-HMAC-SHA256 salado en el formato
+ * {@code pbkdf2$<iteraciones>$<sal base64>$<hash base64>}. Los hashes
+ * SHA-256 sin sal (64 caracteres hex) se siguen aceptando y se marcan para
+ * re-hash en el siguiente login exitoso.
+ *
+ * El costo se ajusta con la propiedad del sistema
+ * {@code proyecto_bd.pbkdf2.iteraciones}.
  *
  * @author Sistema
- * @version 1.0
+ * @version 2.0
  */
 public class Encriptacion {
 
+    // ==================== CONSTANTES ====================
+    private static final String ALGORITMO_PBKDF2 = "PBKDF2WithHmacSHA256";
+    private static final String PREFIJO_PBKDF2 = "pbkdf2";
+    private static final int ITERACIONES_DEFAULT = 120_000;
+    private static final int ITERACIONES_MINIMAS = 10_000;
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+    private static final int LONGITUD_SHA256_HEX = 64;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Iteraciones PBKDF2 para hashes nuevos. */
+    public static final int ITERACIONES = leerIteraciones();
+
+    // ==================== HASH DE CONTRASEÑAS ====================
+
+    /**
+     * Genera el hash PBKDF2 salado de una contraseña.
+     */
+    public static String hashPassword(String passwordPlana) {
+        byte[] sal = new byte[BYTES_SAL];
+        RANDOM.nextBytes(sal);
+        byte[] hash = pbkdf2(passwordPlana, sal, ITERACIONES);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIJO_PBKDF2 + "$" + ITERACIONES + "$" + b64.encodeToString(sal) + "$" + b64.encodeToString(hash);
+    }
+
+    /**
+     * Verifica una contraseña contra un hash almacenado (PBKDF2 o SHA-256 heredado).
+     * La comparación es de tiempo constante.
+     */
+    public static boolean verificarPassword(String passwordPlana, String hashAlmacenado) {
+        if (passwordPlana == null || hashAlmacenado == null) return false;
+        String almacenado = hashAlmacenado.trim();
+
+        if (esHashLegado(almacenado)) {
+            byte[] esperado = almacenado.toLowerCase().getBytes(StandardCharsets.US_ASCII);
+            byte[] calculado = encriptarSHA256(passwordPlana).getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(esperado, calculado);
+        }
+
+        String[] partes = almacenado.split("\\$");
+        if (partes.length != 4 || !PREFIJO_PBKDF2.equals(partes[0])) return false;
+        try {
+            int iteraciones = Integer.parseInt(partes[1]);
+            byte[] sal = Base64.getDecoder().decode(partes[2]);
+            byte[] esperado = Base64.getDecoder().decode(partes[3]);
+            byte[] calculado = pbkdf2(passwordPlana, sal, iteraciones, esperado.length * 8);
+            return MessageDigest.isEqual(esperado, calculado);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Hash de contraseña con formato inválido");
+            return false;
+        }
+    }
+
+    /**
+     * Indica si el hash debe regenerarse: formato heredado o costo menor al actual.
+     */
+    public static boolean necesitaRehash(String hashAlmacenado) {
+        if (hashAlmacenado == null) return false;
+        String almacenado = hashAlmacenado.trim();
+        if (esHashLegado(almacenado)) return true;
+        String[] partes = almacenado.split("\\$");
+        if (partes.length != 4) return true;
+        try {
+            return Integer.parseInt(partes[1]) < ITERACIONES;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean esHashLegado(String hash) {
+        if (hash.length() != LONGITUD_SHA256_HEX) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            if (Character.digit(hash.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+
+    private static byte[] pbkdf2(String passwordPlana, byte[] sal, int iteraciones) {
+        return pbkdf2(passwordPlana, sal, iteraciones, BITS_HASH);
+    }
+
+    private static byte[] pbkdf2(String passwordPlana, byte[] sal, int iteraciones, int bits) {
+        char[] password = passwordPlana.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(password, sal, iteraciones, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO_PBKDF2).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error al generar hash PBKDF2", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    private static int leerIteraciones() {
+        try {
+            int valor = Integer.parseInt(System.getProperty("proyecto_bd.pbkdf2.iteraciones",
+                    String.valueOf(ITERACIONES_DEFAULT)));
+            return Math.max(valor, ITERACIONES_MINIMAS);
+        } catch (NumberFormatException e) {
+            return ITERACIONES_DEFAULT;
+        }
+    }
+
+    // ==================== HASH SHA-256 ====================
+
     /**
      * Genera un hash SHA-256 a partir de un texto plano.
+     * Se conserva para verificar contraseñas heredadas; no usar para nuevas.
      *
      * @param texto Texto a encriptar
      * @return Hash en formato hexadecimal
@@ -23,19 +145,28 @@ public class Encriptacion {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] hash = digest.digest(texto.getBytes());
-
-            // Convertir a hexadecimal
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                hexString.append(String.format("%02x", b));
-            }
-            return hexString.toString();
+            return aHex(hash);
 
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("Error al encriptar con SHA-256", e);
         }
     }
 
+    /**
+     * Convierte bytes a hexadecimal en minúsculas con un único arreglo de salida.
+     */
+    public static String aHex(byte[] bytes) {
+        char[] salida = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            salida[j++] = HEX[v >>> 4];
+            salida[j++] = HEX[v & 0x0F];
+        }
+        return new String(salida);
+    }
+
+    // ==================== BASE64 ====================
+
     /**
      * Codifica un texto en Base64 (no es seguro, pero útil en algunos casos).
      */
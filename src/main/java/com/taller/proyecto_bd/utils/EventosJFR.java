@@ -0,0 +1,186 @@
+package com.taller.proyecto_bd.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de Java Flight Recorder del dominio (ventas, pagos, reportes,
+ * exportación y consultas a la BD). Se ven en JDK Mission Control bajo la
+ * categoría "Proyecto BD".
+ *
+ * Si no hay ninguna grabación activa los eventos no se confirman y su costo
+ * es despreciable; los servicios solo llenan los campos cuando
+ * {@code shouldCommit()} es verdadero.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class EventosJFR {
+
+    private static final String CATEGORIA = "Proyecto BD";
+
+    private static volatile boolean grabando;
+
+    static {
+        // Seguir el estado de las grabaciones para que ConexionBD solo envuelva
+        // las sentencias cuando alguien está grabando
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                actualizarEstado();
+            }
+        });
+        if (FlightRecorder.isInitialized()) {
+            actualizarEstado();
+        }
+    }
+
+    private EventosJFR() {
+    }
+
+    /**
+     * Indica si hay alguna grabación JFR en curso.
+     */
+    public static boolean hayGrabacionActiva() {
+        return grabando;
+    }
+
+    private static void actualizarEstado() {
+        grabando = FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .anyMatch(r -> r.getState() == RecordingState.RUNNING);
+    }
+
+    // ==================== VENTAS ====================
+
+    @Name("proyecto_bd.Venta")
+    @Label("Venta")
+    @Category({CATEGORIA, "Ventas"})
+    @Description("Registro de una venta de contado o a crédito")
+    public static class VentaEvento extends Event {
+        @Label("ID Venta")
+        public int idVenta;
+
+        @Label("ID Cliente")
+        public int idCliente;
+
+        @Label("Líneas")
+        public int lineas;
+
+        @Label("Es crédito")
+        public boolean esCredito;
+
+        @Label("Cuotas")
+        public int cuotas;
+
+        @Label("Total (centavos)")
+        public long totalCentavos;
+
+        @Label("Exitosa")
+        public boolean exitosa;
+    }
+
+    @Name("proyecto_bd.AnulacionVenta")
+    @Label("Anulación de Venta")
+    @Category({CATEGORIA, "Ventas"})
+    public static class AnulacionVentaEvento extends Event {
+        @Label("ID Venta")
+        public int idVenta;
+
+        @Label("Líneas devueltas")
+        public int lineas;
+
+        @Label("Tenía crédito")
+        public boolean conCredito;
+
+        @Label("Exitosa")
+        public boolean exitosa;
+    }
+
+    // ==================== CRÉDITOS ====================
+
+    @Name("proyecto_bd.PagoCuota")
+    @Label("Pago de Cuota")
+    @Category({CATEGORIA, "Créditos"})
+    public static class PagoCuotaEvento extends Event {
+        @Label("ID Cuota")
+        public int idCuota;
+
+        @Label("ID Venta")
+        public int idVenta;
+
+        @Label("Número de cuota")
+        public int numeroCuota;
+
+        @Label("Cuotas pendientes")
+        public int cuotasPendientes;
+
+        @Label("Valor (centavos)")
+        public long valorCentavos;
+
+        @Label("Exitoso")
+        public boolean exitoso;
+    }
+
+    // ==================== REPORTES ====================
+
+    @Name("proyecto_bd.Reporte")
+    @Label("Consulta o Reporte")
+    @Category({CATEGORIA, "Reportes"})
+    @StackTrace(false)
+    public static class ReporteEvento extends Event {
+        @Label("Reporte")
+        public String reporte;
+
+        @Label("Filas")
+        public int filas;
+    }
+
+    @Name("proyecto_bd.ExportacionPDF")
+    @Label("Exportación PDF")
+    @Category({CATEGORIA, "Reportes"})
+    @StackTrace(false)
+    public static class ExportacionPDFEvento extends Event {
+        @Label("Título")
+        public String titulo;
+
+        @Label("Filas")
+        public int filas;
+
+        @Label("Columnas")
+        public int columnas;
+
+        @Label("Con gráfica")
+        public boolean conGrafica;
+
+        @Label("Tamaño")
+        @DataAmount
+        public long bytes;
+    }
+
+    // ==================== BASE DE DATOS ====================
+
+    @Name("proyecto_bd.ConsultaBD")
+    @Label("Consulta BD")
+    @Category({CATEGORIA, "Base de Datos"})
+    @Description("Ejecución de una sentencia de un DAO, hasta cerrar su ResultSet")
+    @StackTrace(false)
+    public static class ConsultaBDEvento extends Event {
+        @Label("Método DAO")
+        public String metodo;
+
+        @Label("Filas")
+        public long filas;
+
+        @Label("Error")
+        public boolean error;
+    }
+}
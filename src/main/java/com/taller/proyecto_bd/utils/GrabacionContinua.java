@@ -0,0 +1,114 @@
+package com.taller.proyecto_bd.utils;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Grabación continua de Java Flight Recorder en un búfer circular.
+ * Conserva solo los últimos minutos (o megabytes) de eventos, así que puede
+ * quedar encendida en la caja registradora y volcarse a un archivo .jfr
+ * cuando se presenta una lentitud, para analizarla después.
+ *
+ * Propiedades del sistema: {@code proyecto_bd.jfr.continuo} (true para
+ * iniciarla al arrancar), {@code proyecto_bd.jfr.maxMinutos} y
+ * {@code proyecto_bd.jfr.maxMB}.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class GrabacionContinua {
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final String NOMBRE = "proyecto_bd-continua";
+    private static final long MAX_MINUTOS = Long.getLong("proyecto_bd.jfr.maxMinutos", 30);
+    private static final long MAX_MB = Long.getLong("proyecto_bd.jfr.maxMB", 64);
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static Recording grabacion;
+
+    private GrabacionContinua() {
+    }
+
+    // ==================== CONTROL ====================
+
+    /**
+     * Inicia la grabación si se pidió con -Dproyecto_bd.jfr.continuo=true.
+     */
+    public static void iniciarSiConfigurado() {
+        if (Boolean.getBoolean("proyecto_bd.jfr.continuo")) {
+            iniciar();
+        }
+    }
+
+    /**
+     * Inicia la grabación continua con la configuración "default" de JFR
+     * más los eventos propios del sistema. No hace nada si ya está activa.
+     */
+    public static synchronized boolean iniciar() {
+        if (estaActiva()) {
+            return true;
+        }
+        try {
+            Recording nueva = new Recording(Configuration.getConfiguration("default"));
+            nueva.setName(NOMBRE);
+            nueva.setToDisk(true);
+            nueva.setMaxAge(Duration.ofMinutes(MAX_MINUTOS));
+            nueva.setMaxSize(MAX_MB * 1024 * 1024);
+            nueva.enable(EventosJFR.VentaEvento.class);
+            nueva.enable(EventosJFR.AnulacionVentaEvento.class);
+            nueva.enable(EventosJFR.PagoCuotaEvento.class);
+            nueva.enable(EventosJFR.ReporteEvento.class);
+            nueva.enable(EventosJFR.ExportacionPDFEvento.class);
+            nueva.enable(EventosJFR.ConsultaBDEvento.class);
+            nueva.start();
+            grabacion = nueva;
+            System.out.println("✓ Grabación JFR continua iniciada (" + MAX_MINUTOS + " min / " + MAX_MB + " MB)");
+            return true;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("Error al iniciar la grabación JFR: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Vuelca el contenido actual del búfer a un archivo .jfr en la ruta de diagnóstico.
+     *
+     * @return ruta del archivo generado, o null si no hay grabación o falló
+     */
+    public static synchronized Path volcar() {
+        if (!estaActiva()) {
+            return null;
+        }
+        try {
+            Path carpeta = Paths.get(Constantes.RUTA_DIAGNOSTICO);
+            Files.createDirectories(carpeta);
+            Path destino = carpeta.resolve("grabacion_" + LocalDateTime.now().format(FORMATO_ARCHIVO) + ".jfr");
+            grabacion.dump(destino);
+            return destino.toAbsolutePath();
+        } catch (IOException e) {
+            System.err.println("Error al volcar la grabación JFR: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static synchronized void detener() {
+        if (grabacion != null) {
+            grabacion.close();
+            grabacion = null;
+        }
+    }
+
+    public static synchronized boolean estaActiva() {
+        return grabacion != null && grabacion.getState() == RecordingState.RUNNING;
+    }
+}
@@ -0,0 +1,112 @@
+package com.taller.proyecto_bd.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias log-lineal sin bloqueos.
+ * Cada potencia de dos se divide en 8 sub-rangos iguales, así que el error
+ * relativo de los percentiles queda por debajo del 12.5% con un arreglo fijo
+ * de contadores atómicos (mismo esquema que HdrHistogram con 1 dígito
+ * significativo). Los valores se registran en microsegundos.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class HistogramaLatencia {
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final int BITS_SUBRANGO = 3;
+    private static final int SUBRANGOS = 1 << BITS_SUBRANGO;
+    /** Hasta 2^40 µs (~12 días): más que suficiente para una consulta. */
+    private static final int MAX_EXPONENTE = 40;
+    private static final int CUBETAS = (MAX_EXPONENTE - BITS_SUBRANGO + 2) * SUBRANGOS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumaMicros = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    // ==================== REGISTRO ====================
+
+    public void registrarNanos(long nanos) {
+        long micros = Math.max(nanos / 1_000, 0);
+        cubetas.incrementAndGet(indice(micros));
+        total.increment();
+        sumaMicros.add(micros);
+        maximo.accumulate(micros);
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        total.reset();
+        sumaMicros.reset();
+        maximo.reset();
+    }
+
+    // ==================== CONSULTA ====================
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMaximoMicros() {
+        return maximo.get();
+    }
+
+    public double getPromedioMicros() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sumaMicros.sum() / n;
+    }
+
+    /**
+     * Percentil aproximado en microsegundos (0 &lt; p &lt;= 100).
+     * Devuelve el límite superior de la cubeta, acotado por el máximo observado.
+     */
+    public long percentilMicros(double p) {
+        long[] copia = new long[CUBETAS];
+        long n = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            n += copia[i];
+        }
+        if (n == 0) return 0;
+
+        long objetivo = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), getMaximoMicros());
+            }
+        }
+        return getMaximoMicros();
+    }
+
+    // ==================== CUBETAS ====================
+
+    private static int indice(long valor) {
+        if (valor < SUBRANGOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > MAX_EXPONENTE) {
+            return CUBETAS - 1;
+        }
+        int subrango = (int) (valor >>> (exponente - BITS_SUBRANGO)) & (SUBRANGOS - 1);
+        return (exponente - BITS_SUBRANGO + 1) * SUBRANGOS + subrango;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBRANGOS) {
+            return indice;
+        }
+        int exponente = indice / SUBRANGOS + BITS_SUBRANGO - 1;
+        int subrango = indice % SUBRANGOS;
+        long ancho = 1L << (exponente - BITS_SUBRANGO);
+        return (1L << exponente) + (subrango + 1) * ancho - 1;
+    }
+}
@@ -0,0 +1,165 @@
+package com.taller.proyecto_bd.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de archivos delimitados (CSV con coma o punto y coma, o TSV) que
+ * entrega una fila a la vez, sin cargar el archivo en memoria.
+ * Soporta campos entre comillas dobles con separadores, saltos de línea y
+ * comillas escapadas ("") dentro. El separador se detecta en la primera
+ * línea (encabezado).
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class LectorDelimitado implements Closeable {
+
+    private static final char[] SEPARADORES = {'\t', ';', ','};
+
+    private final BufferedReader lector;
+    private final List<String> campos = new ArrayList<>();
+    private final StringBuilder campo = new StringBuilder();
+    private char separador;
+    private long linea;
+    private long lineaInicioFila;
+
+    public LectorDelimitado(Reader origen) {
+        this.lector = origen instanceof BufferedReader ? (BufferedReader) origen : new BufferedReader(origen, 1 << 16);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Lee el encabezado y fija el separador.
+     *
+     * @return nombres de columna, o null si el archivo está vacío
+     */
+    public String[] leerEncabezado() throws IOException {
+        String primera = lector.readLine();
+        if (primera == null) {
+            return null;
+        }
+        if (!primera.isEmpty() && primera.charAt(0) == '\uFEFF') {
+            primera = primera.substring(1); // BOM de UTF-8
+        }
+        separador = detectarSeparador(primera);
+        linea = 1;
+        lineaInicioFila = 1;
+        return dividir(primera);
+    }
+
+    /**
+     * Lee la siguiente fila. Las líneas en blanco se omiten.
+     *
+     * @return campos de la fila, o null al final del archivo
+     */
+    public String[] leerFila() throws IOException {
+        String texto;
+        do {
+            texto = lector.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+        } while (texto.isBlank());
+        lineaInicioFila = linea;
+        return dividir(texto);
+    }
+
+    /**
+     * Número de línea (1 = encabezado) donde empezó la última fila leída.
+     */
+    public long getLineaActual() {
+        return lineaInicioFila;
+    }
+
+    public char getSeparador() {
+        return separador;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+
+    // ==================== AUXILIARES ====================
+
+    /**
+     * Separa una fila en campos; si una comilla queda abierta, sigue con las
+     * líneas siguientes.
+     */
+    private String[] dividir(String texto) throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        int i = 0;
+        while (true) {
+            if (i == texto.length()) {
+                if (!entreComillas) {
+                    break;
+                }
+                String siguiente = lector.readLine();
+                if (siguiente == null) {
+                    break; // comilla sin cerrar al final del archivo
+                }
+                linea++;
+                campo.append('\n');
+                texto = siguiente;
+                i = 0;
+                continue;
+            }
+            char c = texto.charAt(i++);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i < texto.length() && texto.charAt(i) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString().trim());
+        return campos.toArray(new String[0]);
+    }
+
+    /**
+     * El separador es el que más aparece fuera de comillas en el encabezado.
+     */
+    private static char detectarSeparador(String encabezado) {
+        char elegido = ',';
+        int maximo = 0;
+        for (char candidato : SEPARADORES) {
+            int cuenta = 0;
+            boolean entreComillas = false;
+            for (int i = 0; i < encabezado.length(); i++) {
+                char c = encabezado.charAt(i);
+                if (c == '"') {
+                    entreComillas = !entreComillas;
+                } else if (c == candidato && !entreComillas) {
+                    cuenta++;
+                }
+            }
+            if (cuenta > maximo) {
+                maximo = cuenta;
+                elegido = candidato;
+            }
+        }
+        return elegido;
+    }
+}
@@ -0,0 +1,124 @@
+package com.taller.proyecto_bd.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limita intentos fallidos con una ventana deslizante en memoria.
+ * Cada clave (ej: "u:admin", "ip:10.0.0.5") guarda las marcas de tiempo de
+ * sus fallos dentro de la ventana; al alcanzar el máximo queda bloqueada
+ * hasta que el fallo más antiguo salga de la ventana.
+ *
+ * intentar() revisa el bloqueo y aparta el intento en un solo paso sobre la
+ * entrada del mapa, así dos intentos simultáneos no pasan juntos el límite.
+ * El intento apartado cuenta como fallo hasta que se llame a reiniciar()
+ * (login exitoso) o devolver() (no se llegó a verificar).
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public class LimitadorIntentos {
+
+    private static final int MAX_CLAVES = 10_000;
+
+    private final int maxIntentos;
+    private final long ventanaMillis;
+    /** Las colas solo se tocan dentro de compute sobre su entrada */
+    private final Map<String, Deque<Long>> fallos = new ConcurrentHashMap<>();
+
+    public LimitadorIntentos(int maxIntentos, long ventanaMillis) {
+        this.maxIntentos = maxIntentos;
+        this.ventanaMillis = ventanaMillis;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Milisegundos que faltan para desbloquear la clave (0 si no está bloqueada).
+     */
+    public long tiempoBloqueo(String clave) {
+        long ahora = System.currentTimeMillis();
+        long[] espera = {0};
+        fallos.computeIfPresent(normalizar(clave), (k, marcas) -> {
+            purgar(marcas, ahora);
+            if (marcas.size() >= maxIntentos) {
+                espera[0] = Math.max(marcas.peekFirst() + ventanaMillis - ahora, 0);
+            }
+            return marcas.isEmpty() ? null : marcas;
+        });
+        return espera[0];
+    }
+
+    public boolean estaBloqueada(String clave) {
+        return tiempoBloqueo(clave) > 0;
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Aparta un intento si la clave no está bloqueada.
+     *
+     * @return 0 si se apartó; si no, los milisegundos que faltan para desbloquearla
+     */
+    public long intentar(String clave) {
+        long ahora = System.currentTimeMillis();
+        if (fallos.size() > MAX_CLAVES) {
+            limpiarVencidas(ahora);
+        }
+        long[] espera = {0};
+        fallos.compute(normalizar(clave), (k, marcas) -> {
+            Deque<Long> actuales = marcas != null ? marcas : new ArrayDeque<>();
+            purgar(actuales, ahora);
+            if (actuales.size() >= maxIntentos) {
+                espera[0] = Math.max(actuales.peekFirst() + ventanaMillis - ahora, 1);
+            } else {
+                actuales.addLast(ahora);
+            }
+            return actuales;
+        });
+        return espera[0];
+    }
+
+    /**
+     * Quita el intento apartado por intentar() cuando no se llegó a verificar
+     * (error de base de datos, cola llena): no es un fallo de credenciales.
+     */
+    public void devolver(String clave) {
+        fallos.computeIfPresent(normalizar(clave), (k, marcas) -> {
+            marcas.pollLast();
+            return marcas.isEmpty() ? null : marcas;
+        });
+    }
+
+    /**
+     * Olvida los fallos de la clave (tras un login exitoso).
+     */
+    public void reiniciar(String clave) {
+        fallos.remove(normalizar(clave));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void limpiarVencidas(long ahora) {
+        for (String clave : fallos.keySet()) {
+            fallos.computeIfPresent(clave, (k, marcas) -> {
+                purgar(marcas, ahora);
+                return marcas.isEmpty() ? null : marcas;
+            });
+        }
+    }
+
+    private void purgar(Deque<Long> marcas, long ahora) {
+        long limite = ahora - ventanaMillis;
+        while (!marcas.isEmpty() && marcas.peekFirst() <= limite) {
+            marcas.pollFirst();
+        }
+    }
+
+    private String normalizar(String clave) {
+        return clave == null ? "" : clave.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,120 @@
+package com.taller.proyecto_bd.utils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tiempos de arranque de la aplicación, medidos desde el inicio del proceso.
+ *
+ * Cada hito se registra solo la primera vez. Al cerrar la aplicación los
+ * tiempos se agregan a data/diagnostico/arranque.csv, con una columna que
+ * indica si la JVM usó el archivo de clases compartidas (CDS), para
+ * comparar arranques con y sin él. BenchmarkArranque usa la línea que se
+ * imprime con imprimirResumen.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class MedidorArranque {
+
+    // ==================== HITOS ====================
+    public static final String LOGIN = "login";
+    public static final String PRECALENTADO = "precalentado";
+    public static final String VENTANA_PRINCIPAL = "ventana-principal";
+    public static final String PRIMERA_VENTA = "primera-venta";
+
+    private static final String[] HITOS = {LOGIN, PRECALENTADO, VENTANA_PRINCIPAL, PRIMERA_VENTA};
+
+    /** Prefijo de la línea de resumen que lee BenchmarkArranque */
+    public static final String PREFIJO_RESUMEN = "ARRANQUE;";
+
+    private static final Path ARCHIVO = Paths.get(Constantes.RUTA_DIAGNOSTICO, "arranque.csv");
+    private static final long INICIO_PROCESO = inicioProceso();
+    private static final Map<String, Long> hitos = new LinkedHashMap<>();
+    private static boolean guardado;
+
+    private MedidorArranque() {
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Registra el hito si es la primera vez que se alcanza.
+     */
+    public static synchronized void marcar(String hito) {
+        if (!hitos.containsKey(hito)) {
+            long ms = System.currentTimeMillis() - INICIO_PROCESO;
+            hitos.put(hito, ms);
+            System.out.println("⏱ Arranque: " + hito + " en " + ms + " ms");
+        }
+    }
+
+    /**
+     * Milisegundos desde el inicio del proceso hasta el hito, o -1 si no se alcanzó.
+     */
+    public static synchronized long getMilisegundos(String hito) {
+        return hitos.getOrDefault(hito, -1L);
+    }
+
+    /**
+     * true si la JVM se inició con -XX:SharedArchiveFile.
+     */
+    public static boolean usaCDS() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(a -> a.startsWith("-XX:SharedArchiveFile"));
+    }
+
+    // ==================== SALIDA ====================
+
+    /**
+     * Imprime una línea "ARRANQUE;cds=..;login=..;..." con todos los hitos.
+     */
+    public static synchronized void imprimirResumen() {
+        StringBuilder linea = new StringBuilder(PREFIJO_RESUMEN).append("cds=").append(usaCDS());
+        for (String hito : HITOS) {
+            linea.append(';').append(hito).append('=').append(getMilisegundos(hito));
+        }
+        System.out.println(linea);
+    }
+
+    /**
+     * Agrega los tiempos de este arranque al archivo CSV (una sola vez).
+     */
+    public static synchronized void guardar() {
+        if (guardado || hitos.isEmpty()) {
+            return;
+        }
+        guardado = true;
+        try {
+            Files.createDirectories(ARCHIVO.getParent());
+            StringBuilder linea = new StringBuilder();
+            if (!Files.exists(ARCHIVO)) {
+                linea.append("fecha,cds,").append(String.join(",", HITOS)).append(System.lineSeparator());
+            }
+            linea.append(LocalDateTime.now().withNano(0)).append(',').append(usaCDS());
+            for (String hito : HITOS) {
+                linea.append(',').append(getMilisegundos(hito));
+            }
+            linea.append(System.lineSeparator());
+            Files.writeString(ARCHIVO, linea, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error al guardar tiempos de arranque: " + e.getMessage());
+        }
+    }
+
+    private static long inicioProceso() {
+        return ProcessHandle.current().info().startInstant()
+                .map(Instant::toEpochMilli)
+                .orElseGet(() -> ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+}
@@ -0,0 +1,249 @@
+package com.taller.proyecto_bd.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentación de las consultas a la base de datos.
+ * ConexionBD envuelve las sentencias de cada conexión mientras la
+ * instrumentación está habilitada; con ella apagada el único costo es leer
+ * un campo volatile al preparar la sentencia.
+ *
+ * Cada sentencia se atribuye al método DAO que la preparó (ej:
+ * "ProductoDAO.obtenerTodos"), resuelto desde la pila en el punto de
+ * llamada: el mismo SQL usado por dos métodos cuenta para cada uno.
+ * Las consultas que superan el umbral se registran en System.err sin los
+ * valores de los parámetros, solo su tipo.
+ *
+ * Propiedades del sistema: {@code proyecto_bd.metricas} (true para habilitar
+ * al inicio) y {@code proyecto_bd.metricas.umbralMs} (umbral de consulta lenta).
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+public final class MetricasBD {
+
+    // ==================== CONFIGURACIÓN ====================
+    private static final String PAQUETE_DAO = "com.taller.proyecto_bd.dao.";
+    private static final String CONSULTA_COMUN = PAQUETE_DAO + "ConsultaBD";
+    private static final String PAQUETE_UTILS = "com.taller.proyecto_bd.utils.";
+    private static final int MAX_LARGO_SQL_LOG = 300;
+    private static final long UMBRAL_DEFAULT_MS = 250;
+
+    private static volatile boolean habilitado = Boolean.getBoolean("proyecto_bd.metricas");
+    private static volatile long umbralLentoNanos =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("proyecto_bd.metricas.umbralMs", UMBRAL_DEFAULT_MS));
+
+    private static final Map<String, Metrica> porMetodo = new ConcurrentHashMap<>();
+    private static final HistogramaLatencia adquisicion = new HistogramaLatencia();
+    private static final LongAdder consultasLentas = new LongAdder();
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private MetricasBD() {
+    }
+
+    // ==================== ESTADO ====================
+
+    public static boolean estaHabilitado() {
+        return habilitado;
+    }
+
+    public static void setHabilitado(boolean valor) {
+        habilitado = valor;
+    }
+
+    public static long getUmbralLentoMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(umbralLentoNanos);
+    }
+
+    public static void setUmbralLentoMillis(long millis) {
+        umbralLentoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+    }
+
+    public static long getConsultasLentas() {
+        return consultasLentas.sum();
+    }
+
+    /**
+     * Descarta todas las métricas acumuladas.
+     */
+    public static void reiniciar() {
+        porMetodo.clear();
+        adquisicion.reiniciar();
+        consultasLentas.reset();
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Métrica del método DAO que está en la pila del hilo actual.
+     */
+    static Metrica metricaDelLlamador() {
+        return porMetodo.computeIfAbsent(resolverOrigen(), Metrica::new);
+    }
+
+    static void registrarAdquisicion(long nanos) {
+        adquisicion.registrarNanos(nanos);
+    }
+
+    static void registrarEjecucion(Metrica metrica, String sql, long nanos, boolean error, String[] tiposParametros) {
+        metrica.histograma.registrarNanos(nanos);
+        if (error) {
+            metrica.errores.increment();
+        }
+        if (nanos >= umbralLentoNanos) {
+            consultasLentas.increment();
+            metrica.ultimoSqlLento = sql;
+            System.err.println("[SQL LENTA] " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms "
+                    + metrica.metodo + (error ? " (error)" : "")
+                    + " | " + abreviar(sql)
+                    + " | parámetros: " + describirParametros(tiposParametros));
+        }
+    }
+
+    static void registrarFilas(Metrica metrica, long filas) {
+        if (filas > 0) {
+            metrica.filas.add(filas);
+        }
+    }
+
+    // ==================== INSTANTÁNEA ====================
+
+    /**
+     * Resumen por método DAO, ordenado por tiempo total descendente.
+     */
+    public static List<ResumenMetodo> instantanea() {
+        List<ResumenMetodo> lista = new ArrayList<>();
+        for (Metrica metrica : porMetodo.values()) {
+            if (metrica.histograma.getTotal() > 0) {
+                lista.add(new ResumenMetodo(metrica.metodo, metrica.histograma,
+                        metrica.filas.sum(), metrica.errores.sum(), metrica.ultimoSqlLento));
+            }
+        }
+        lista.sort(Comparator.comparingDouble(ResumenMetodo::getTiempoTotalMillis).reversed());
+        return lista;
+    }
+
+    /**
+     * Resumen del tiempo para obtener una conexión del pool o del driver.
+     */
+    public static ResumenMetodo instantaneaAdquisicion() {
+        return new ResumenMetodo("ConexionBD.obtenerConexion", adquisicion, 0, 0, null);
+    }
+
+    // ==================== TIPOS ====================
+
+    /**
+     * Acumuladores de un método DAO.
+     */
+    static final class Metrica {
+        final String metodo;
+        final HistogramaLatencia histograma = new HistogramaLatencia();
+        final LongAdder filas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        volatile String ultimoSqlLento;
+
+        Metrica(String metodo) {
+            this.metodo = metodo;
+        }
+    }
+
+    /**
+     * Vista inmutable de las métricas de un método (tiempos en milisegundos).
+     */
+    public static final class ResumenMetodo {
+        private final String metodo;
+        private final long ejecuciones;
+        private final long filas;
+        private final long errores;
+        private final double promedioMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maximoMillis;
+        private final String ultimoSqlLento;
+
+        private ResumenMetodo(String metodo, HistogramaLatencia h, long filas, long errores, String ultimoSqlLento) {
+            this.metodo = metodo;
+            this.ejecuciones = h.getTotal();
+            this.filas = filas;
+            this.errores = errores;
+            this.promedioMillis = h.getPromedioMicros() / 1_000.0;
+            this.p50Millis = h.percentilMicros(50) / 1_000.0;
+            this.p95Millis = h.percentilMicros(95) / 1_000.0;
+            this.p99Millis = h.percentilMicros(99) / 1_000.0;
+            this.maximoMillis = h.getMaximoMicros() / 1_000.0;
+            this.ultimoSqlLento = ultimoSqlLento;
+        }
+
+        public String getMetodo() { return metodo; }
+        public long getEjecuciones() { return ejecuciones; }
+        public long getFilas() { return filas; }
+        public long getErrores() { return errores; }
+        public double getPromedioMillis() { return promedioMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaximoMillis() { return maximoMillis; }
+        public double getTiempoTotalMillis() { return promedioMillis * ejecuciones; }
+        public String getUltimoSqlLento() { return ultimoSqlLento; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms filas=%d errores=%d",
+                    metodo, ejecuciones, p50Millis, p95Millis, p99Millis, maximoMillis, filas, errores);
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    /**
+     * Primer método de un DAO en la pila (sin contar la capa común de consultas).
+     */
+    private static String resolverOrigen() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> {
+                    String clase = f.getClassName();
+                    return clase.startsWith(PAQUETE_DAO) && !clase.startsWith(CONSULTA_COMUN);
+                })
+                .findFirst()
+                .or(() -> WALKER.walk(otros -> otros
+                        .filter(f -> !f.getClassName().startsWith(PAQUETE_UTILS)
+                                && !f.getClassName().startsWith("java.")
+                                && !f.getClassName().startsWith("jdk.")
+                                && !f.getClassName().startsWith("com.sun."))
+                        .findFirst()))
+                .map(f -> {
+                    String clase = f.getClassName();
+                    String simple = clase.substring(clase.lastIndexOf('.') + 1);
+                    int interna = simple.indexOf('$');
+                    return (interna > 0 ? simple.substring(0, interna) : simple) + "." + f.getMethodName();
+                })
+                .orElse("desconocido"));
+    }
+
+    private static String abreviar(String sql) {
+        if (sql == null) return "";
+        String compacto = sql.replaceAll("\\s+", " ").trim();
+        return compacto.length() > MAX_LARGO_SQL_LOG
+                ? compacto.substring(0, MAX_LARGO_SQL_LOG) + "..."
+                : compacto;
+    }
+
+    private static String describirParametros(String[] tipos) {
+        if (tipos == null || tipos.length == 0) return "ninguno";
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < tipos.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?').append(i + 1).append('=');
+            sb.append(tipos[i] == null ? "<sin asignar>" : "<" + tipos[i] + ">");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -50,6 +50,27 @@ public class PDFExporter {
             ObservableList<Map<String, Object>> datos,
             JFreeChart grafica) throws Exception {
 
+        EventosJFR.ExportacionPDFEvento evento = new EventosJFR.ExportacionPDFEvento();
+        evento.begin();
+        escribirPDF(archivo, titulo, resumen, columnas, datos, grafica);
+        if (evento.shouldCommit()) {
+            evento.titulo = titulo;
+            evento.filas = datos.size();
+            evento.columnas = columnas.size();
+            evento.conGrafica = grafica != null;
+            evento.bytes = archivo.length();
+            evento.commit();
+        }
+    }
+
+    private static void escribirPDF(
+            File archivo,
+            String titulo,
+            String resumen,
+            ObservableList<TableColumn<Map<String, Object>, ?>> columnas,
+            ObservableList<Map<String, Object>> datos,
+            JFreeChart grafica) throws Exception {
+
         PdfWriter writer = new PdfWriter(archivo);
         PdfDocument pdf = new PdfDocument(writer);
         Document document = new Document(pdf);
@@ -0,0 +1,193 @@
+package com.taller.proyecto_bd.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Envoltorio de sentencias JDBC que mide cada ejecución para MetricasBD
+ * y emite el evento JFR {@link EventosJFR.ConsultaBDEvento}.
+ * De los parámetros solo guarda el tipo (setString → "String"), nunca el
+ * valor, para que el log de consultas lentas no exponga datos.
+ * Las filas de un SELECT se cuentan al recorrer el ResultSet.
+ *
+ * @author Sistema
+ * @version 1.0
+ */
+final class SentenciaInstrumentada {
+
+    private static final String[] SIN_PARAMETROS = new String[0];
+
+    private final Statement real;
+    private final String sqlPreparado;
+    private final MetricasBD.Metrica metricaPreparada;
+    private String[] tipos = SIN_PARAMETROS;
+    private String ultimoSql;
+
+    private SentenciaInstrumentada(Statement real, String sqlPreparado) {
+        this.real = real;
+        this.sqlPreparado = sqlPreparado;
+        this.ultimoSql = sqlPreparado;
+        this.metricaPreparada = sqlPreparado == null ? null : MetricasBD.metricaDelLlamador();
+    }
+
+    /**
+     * Envuelve una sentencia. sql es null para Statement simples (el SQL llega en execute).
+     */
+    static Statement envolver(Statement real, String sql) {
+        Class<?> tipo = real instanceof CallableStatement ? CallableStatement.class
+                : real instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        SentenciaInstrumentada manejador = new SentenciaInstrumentada(real, sql);
+        return (Statement) Proxy.newProxyInstance(
+                SentenciaInstrumentada.class.getClassLoader(),
+                new Class<?>[]{tipo},
+                (proxy, metodo, args) -> manejador.invocar(proxy, metodo, args));
+    }
+
+    // ==================== INTERCEPCIÓN ====================
+
+    private Object invocar(Object proxy, Method metodo, Object[] args) throws Throwable {
+        String nombre = metodo.getName();
+        if (nombre.startsWith("execute")) {
+            return ejecutar(metodo, args);
+        }
+        if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            registrarTipo((Integer) args[0], nombre.substring(3));
+        } else if (nombre.equals("clearParameters")) {
+            tipos = SIN_PARAMETROS;
+        } else if (nombre.equals("getResultSet")) {
+            ResultSet rs = (ResultSet) llamar(metodo, args);
+            return rs == null ? null : contarFilas(rs, metricaActual(ultimoSql), null);
+        } else if (nombre.equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+        } else if (nombre.equals("equals")) {
+            return proxy == args[0];
+        } else if (nombre.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        return llamar(metodo, args);
+    }
+
+    private Object ejecutar(Method metodo, Object[] args) throws Throwable {
+        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sqlPreparado;
+        ultimoSql = sql;
+        MetricasBD.Metrica metrica = metricaActual(sql);
+        boolean medir = MetricasBD.estaHabilitado();
+        EventosJFR.ConsultaBDEvento evento = new EventosJFR.ConsultaBDEvento();
+        evento.begin();
+        long inicio = System.nanoTime();
+        Object resultado;
+        try {
+            resultado = llamar(metodo, args);
+        } catch (Throwable e) {
+            if (medir) {
+                MetricasBD.registrarEjecucion(metrica, sql, System.nanoTime() - inicio, true, tipos);
+            }
+            confirmar(evento, metrica, 0, true);
+            throw e;
+        }
+        if (medir) {
+            MetricasBD.registrarEjecucion(metrica, sql, System.nanoTime() - inicio, false, tipos);
+        }
+
+        // El evento JFR de un SELECT se confirma al cerrar el ResultSet, con las filas leídas
+        if (resultado instanceof ResultSet) {
+            return contarFilas((ResultSet) resultado, metrica, evento);
+        }
+        long filas = 0;
+        if (resultado instanceof Integer) {
+            filas = (Integer) resultado;
+        } else if (resultado instanceof Long) {
+            filas = (Long) resultado;
+        } else if (resultado instanceof int[]) {
+            for (int n : (int[]) resultado) {
+                if (n > 0) filas += n;
+            }
+        }
+        if (medir) {
+            MetricasBD.registrarFilas(metrica, filas);
+        }
+        confirmar(evento, metrica, filas, false);
+        return resultado;
+    }
+
+    private static void confirmar(EventosJFR.ConsultaBDEvento evento, MetricasBD.Metrica metrica, long filas, boolean error) {
+        if (evento != null && evento.shouldCommit()) {
+            evento.metodo = metrica.metodo;
+            evento.filas = Math.max(filas, 0);
+            evento.error = error;
+            evento.commit();
+        }
+    }
+
+    private MetricasBD.Metrica metricaActual(String sql) {
+        if (metricaPreparada != null && (sql == null || sql.equals(sqlPreparado))) {
+            return metricaPreparada;
+        }
+        return MetricasBD.metricaDelLlamador();
+    }
+
+    private void registrarTipo(int indice, String tipo) {
+        if (indice < 1) return;
+        if (indice > tipos.length) {
+            tipos = Arrays.copyOf(tipos, indice);
+        }
+        tipos[indice - 1] = tipo;
+    }
+
+    private Object llamar(Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(real, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ==================== RESULTSET ====================
+
+    /**
+     * Envuelve el ResultSet para contar las filas leídas y sumarlas al cerrarlo.
+     */
+    private static ResultSet contarFilas(ResultSet rs, MetricasBD.Metrica metrica, EventosJFR.ConsultaBDEvento evento) {
+        long[] filas = {0};
+        boolean[] cerrado = {false};
+        return (ResultSet) Proxy.newProxyInstance(
+                SentenciaInstrumentada.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "close":
+                            if (!cerrado[0]) {
+                                cerrado[0] = true;
+                                if (MetricasBD.estaHabilitado()) {
+                                    MetricasBD.registrarFilas(metrica, filas[0]);
+                                }
+                                confirmar(evento, metrica, filas[0], false);
+                            }
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object resultado;
+                    try {
+                        resultado = metodo.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (Boolean.TRUE.equals(resultado) && metodo.getName().equals("next")) {
+                        filas[0]++;
+                    }
+                    return resultado;
+                });
+    }
+}